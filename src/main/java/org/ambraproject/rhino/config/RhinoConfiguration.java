@@ -24,10 +24,12 @@ package org.ambraproject.rhino.config;
 
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import org.ambraproject.rhino.config.json.AdapterRegistry;
 import org.ambraproject.rhino.content.xml.CustomMetadataExtractor;
+import org.ambraproject.rhino.content.xml.StreamingManuscriptReader;
 import org.ambraproject.rhino.content.xml.XpathReader;
 import org.ambraproject.rhino.service.ArticleCrudService;
 import org.ambraproject.rhino.service.ArticleListCrudService;
@@ -39,6 +41,7 @@ import org.ambraproject.rhino.service.ConfigurationReadService;
 import org.ambraproject.rhino.service.IssueCrudService;
 import org.ambraproject.rhino.service.JournalCrudService;
 import org.ambraproject.rhino.service.MessageSender;
+import org.ambraproject.rhino.service.ReclassificationJobService;
 import org.ambraproject.rhino.service.SolrIndexService;
 import org.ambraproject.rhino.service.SyndicationCrudService;
 import org.ambraproject.rhino.service.VolumeCrudService;
@@ -46,28 +49,42 @@ import org.ambraproject.rhino.service.impl.ArticleCrudServiceImpl;
 import org.ambraproject.rhino.service.impl.ArticleListCrudServiceImpl;
 import org.ambraproject.rhino.service.impl.ArticleRevisionWriteServiceImpl;
 import org.ambraproject.rhino.service.impl.AssetCrudServiceImpl;
+import org.ambraproject.rhino.service.impl.BulkIngestionService;
 import org.ambraproject.rhino.service.impl.CommentCrudServiceImpl;
 import org.ambraproject.rhino.service.impl.ConfigurationReadServiceImpl;
 import org.ambraproject.rhino.service.ContentRepoPersistenceService;
 import org.ambraproject.rhino.service.impl.ContentRepoPersistenceServiceImpl;
 import org.ambraproject.rhino.service.HibernatePersistenceService;
 import org.ambraproject.rhino.service.impl.HibernatePersistenceServiceImpl;
+import org.ambraproject.rhino.service.IngestionJobService;
+import org.ambraproject.rhino.service.IngestionMetadataService;
+import org.ambraproject.rhino.service.impl.IngestionJobServiceImpl;
+import org.ambraproject.rhino.service.impl.IngestionMetadataServiceImpl;
 import org.ambraproject.rhino.service.impl.IngestionService;
 import org.ambraproject.rhino.service.impl.IssueCrudServiceImpl;
 import org.ambraproject.rhino.service.impl.JournalCrudServiceImpl;
+import org.ambraproject.rhino.service.impl.ManuscriptCache;
+import org.ambraproject.rhino.service.impl.ReclassificationJobServiceImpl;
+import org.ambraproject.rhino.service.impl.RepoObjectDiskCache;
+import org.ambraproject.rhino.service.impl.RepoObjectMetadataCache;
 import org.ambraproject.rhino.service.impl.SolrIndexServiceImpl;
 import org.ambraproject.rhino.service.impl.SyndicationCrudServiceImpl;
 import org.ambraproject.rhino.service.impl.VolumeCrudServiceImpl;
 import org.ambraproject.rhino.service.taxonomy.TaxonomyClassificationService;
 import org.ambraproject.rhino.service.taxonomy.TaxonomyService;
+import org.ambraproject.rhino.service.taxonomy.impl.TaxonomyClassificationCache;
 import org.ambraproject.rhino.service.taxonomy.impl.TaxonomyClassificationServiceImpl;
+import org.ambraproject.rhino.service.taxonomy.impl.TaxonomyServerClient;
 import org.ambraproject.rhino.service.taxonomy.impl.TaxonomyServiceImpl;
+import org.ambraproject.rhino.util.ArchiveMemoryBudget;
+import org.ambraproject.rhino.util.CircuitBreaker;
 import org.ambraproject.rhino.util.GitInfo;
 import org.ambraproject.rhino.util.Java8TimeGsonAdapters;
 import org.ambraproject.rhino.util.JsonAdapterUtil;
 import org.ambraproject.rhino.view.JsonOutputView;
 import org.ambraproject.rhino.view.article.ArticleIngestionView;
 import org.ambraproject.rhino.view.article.ArticleRevisionView;
+import org.ambraproject.rhino.view.article.IngestionJobView;
 import org.ambraproject.rhino.view.article.ItemSetView;
 import org.ambraproject.rhino.view.article.RelationshipSetView;
 import org.ambraproject.rhino.view.comment.CommentNodeView;
@@ -98,9 +115,13 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.io.Reader;
 import java.lang.reflect.Type;
+import java.nio.file.Paths;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Bean configuration for the application.
@@ -112,7 +133,8 @@ import java.util.Properties;
 public class RhinoConfiguration {
 
   @Bean
-  public AnnotationSessionFactoryBean sessionFactory(DataSource hibernateDataSource) throws IOException {
+  public AnnotationSessionFactoryBean sessionFactory(DataSource hibernateDataSource,
+                                                     RuntimeConfiguration runtimeConfiguration) throws IOException {
     // May be switched to true in a dev environment to log SQL code generated by Hibernate.
     // Could be replaced with environmental config if needed.
     final boolean hibernateIsInDebugMode = false;
@@ -124,6 +146,7 @@ public class RhinoConfiguration {
     hibernateProperties.setProperty("hibernate.dialect", org.hibernate.dialect.MySQLDialect.class.getName());
     hibernateProperties.setProperty("hibernate.show_sql", Boolean.toString(hibernateIsInDebugMode));
     hibernateProperties.setProperty("hibernate.format_sql", Boolean.toString(hibernateIsInDebugMode));
+    setJdbcBatchProperties(hibernateProperties, runtimeConfiguration.getIngestionConfiguration().getJdbcBatchSize());
     bean.setHibernateProperties(hibernateProperties);
 
     bean.setPackagesToScan("org.ambraproject.rhino.model");
@@ -131,6 +154,21 @@ public class RhinoConfiguration {
     return bean;
   }
 
+  /**
+   * Configure Hibernate to send inserts and updates in JDBC batches. Ordering them by entity lets each flush send one
+   * batch per table instead of interleaving statements. Entities that are inserted in bulk must not use identity
+   * columns for their IDs, or Hibernate will insert them one at a time to read back each generated key.
+   *
+   * @param hibernateProperties the properties to modify
+   * @param batchSize           the maximum number of statements in a batch; zero or less to disable batching
+   */
+  static void setJdbcBatchProperties(Properties hibernateProperties, int batchSize) {
+    if (batchSize <= 0) return;
+    hibernateProperties.setProperty("hibernate.jdbc.batch_size", Integer.toString(batchSize));
+    hibernateProperties.setProperty("hibernate.order_inserts", "true");
+    hibernateProperties.setProperty("hibernate.order_updates", "true");
+  }
+
   @Bean
   public HibernateTemplate hibernateTemplate(SessionFactory sessionFactory) {
     return new HibernateTemplate(sessionFactory);
@@ -203,6 +241,80 @@ public class RhinoConfiguration {
     return new ContentRepoServiceImpl(repoServer, HttpClientFunction.from(httpClient));
   }
 
+  /**
+   * Thread pool for uploading the files of an article package to the content repo during ingestion. It is shared by all
+   * concurrent ingestions, so its size is also the upper bound on simultaneous uploads from this server.
+   */
+  @Bean
+  public ExecutorService contentRepoUploadExecutor(RuntimeConfiguration runtimeConfiguration) {
+    int threadCount = runtimeConfiguration.getIngestionConfiguration().getUploadThreadCount();
+    Preconditions.checkArgument(threadCount > 0, "ingestion.uploadThreadCount must be positive");
+    return Executors.newFixedThreadPool(threadCount,
+        new ThreadFactoryBuilder().setNameFormat("crepo-upload-%d").setDaemon(true).build());
+  }
+
+  /**
+   * Thread pool for running background ingestion jobs. Jobs wait in its queue until a thread is free.
+   */
+  @Bean
+  public ExecutorService ingestionJobExecutor(RuntimeConfiguration runtimeConfiguration) {
+    int threadCount = runtimeConfiguration.getIngestionConfiguration().getJobThreadCount();
+    Preconditions.checkArgument(threadCount > 0, "ingestion.jobThreadCount must be positive");
+    return Executors.newFixedThreadPool(threadCount,
+        new ThreadFactoryBuilder().setNameFormat("ingestion-job-%d").setDaemon(true).build());
+  }
+
+  /**
+   * Thread pool for running background reclassification jobs. Jobs run one at a time, in the order they were queued.
+   */
+  @Bean
+  public ExecutorService reclassificationJobExecutor() {
+    return Executors.newSingleThreadExecutor(
+        new ThreadFactoryBuilder().setNameFormat("reclassification-job-%d").setDaemon(true).build());
+  }
+
+  /**
+   * Thread pool for classifying the articles in a reclassification job. Its size is the upper bound on simultaneous
+   * requests from reclassification jobs to the taxonomy server.
+   */
+  @Bean
+  public ExecutorService reclassificationExecutor(RuntimeConfiguration runtimeConfiguration) {
+    int threadCount = runtimeConfiguration.getTaxonomyConfiguration().getReclassificationConcurrency();
+    Preconditions.checkArgument(threadCount > 0, "taxonomy.reclassificationConcurrency must be positive");
+    return Executors.newFixedThreadPool(threadCount,
+        new ThreadFactoryBuilder().setNameFormat("reclassification-%d").setDaemon(true).build());
+  }
+
+  @Bean
+  public ArchiveMemoryBudget archiveMemoryBudget(RuntimeConfiguration runtimeConfiguration) {
+    RuntimeConfiguration.IngestionConfiguration ingestionConfiguration = runtimeConfiguration.getIngestionConfiguration();
+    return new ArchiveMemoryBudget(ingestionConfiguration.getArchiveSpillThreshold(),
+        ingestionConfiguration.getArchiveMemoryBudget());
+  }
+
+  @Bean
+  public ManuscriptCache manuscriptCache(RuntimeConfiguration runtimeConfiguration) {
+    return new ManuscriptCache(runtimeConfiguration.getCacheConfiguration().getManuscriptCacheBudget());
+  }
+
+  @Bean
+  public RepoObjectDiskCache repoObjectDiskCache(RuntimeConfiguration runtimeConfiguration,
+                                                 ContentRepoService contentRepoService) {
+    RuntimeConfiguration.CacheConfiguration cacheConfiguration = runtimeConfiguration.getCacheConfiguration();
+    String directory = cacheConfiguration.getRepoObjectDirectory();
+    return new RepoObjectDiskCache(contentRepoService,
+        (directory == null) ? null : Paths.get(directory),
+        cacheConfiguration.getRepoObjectCapacity());
+  }
+
+  @Bean
+  public RepoObjectMetadataCache repoObjectMetadataCache(RuntimeConfiguration runtimeConfiguration,
+                                                         ContentRepoService contentRepoService) {
+    RuntimeConfiguration.CacheConfiguration cacheConfiguration = runtimeConfiguration.getCacheConfiguration();
+    return new RepoObjectMetadataCache(contentRepoService, cacheConfiguration.getRepoObjectMetadataSize(),
+        cacheConfiguration.getReproxyUrlTtl(), TimeUnit.SECONDS);
+  }
+
   @Bean
   public ActiveMQConnectionFactory jmsConnectionFactory(RuntimeConfiguration runtimeConfiguration) {
     ActiveMQConnectionFactory factory = new ActiveMQConnectionFactory();
@@ -261,6 +373,30 @@ public class RhinoConfiguration {
     return new TaxonomyClassificationServiceImpl();
   }
 
+  @Bean
+  public TaxonomyClassificationCache taxonomyClassificationCache(RuntimeConfiguration runtimeConfiguration,
+                                                                 HibernateTemplate hibernateTemplate,
+                                                                 HibernateTransactionManager transactionManager) {
+    return new TaxonomyClassificationCache(hibernateTemplate, transactionManager,
+        runtimeConfiguration.getTaxonomyConfiguration().getClassificationCacheTtl(), TimeUnit.SECONDS);
+  }
+
+  /**
+   * Client for the taxonomy server. It has its own connection pool, separate from {@link #httpClient}, so that a stalled
+   * taxonomy server can't use up the connections for the content repo.
+   */
+  @Bean
+  public TaxonomyServerClient taxonomyServerClient(RuntimeConfiguration runtimeConfiguration) {
+    RuntimeConfiguration.TaxonomyConfiguration configuration = runtimeConfiguration.getTaxonomyConfiguration();
+    Preconditions.checkArgument(configuration.getMaxConnections() > 0, "taxonomy.maxConnections must be positive");
+    CloseableHttpClient httpClient = TaxonomyServerClient.createHttpClient(configuration.getMaxConnections(),
+        configuration.getConnectTimeout(), configuration.getReadTimeout());
+    CircuitBreaker circuitBreaker = new CircuitBreaker(configuration.getCircuitBreakerThreshold(),
+        configuration.getCircuitBreakerCooldown(), TimeUnit.MILLISECONDS);
+    return new TaxonomyServerClient(httpClient, configuration.getMaxRetries(), configuration.getRetryBackoff(),
+        circuitBreaker);
+  }
+
   @Bean
   public ArticleListCrudService collectionCrudService() {
     return new ArticleListCrudServiceImpl();
@@ -276,6 +412,21 @@ public class RhinoConfiguration {
     return new IngestionService();
   }
 
+  @Bean
+  public IngestionJobService ingestionJobService() {
+    return new IngestionJobServiceImpl();
+  }
+
+  @Bean
+  public ReclassificationJobService reclassificationJobService() {
+    return new ReclassificationJobServiceImpl();
+  }
+
+  @Bean
+  public BulkIngestionService bulkIngestionService() {
+    return new BulkIngestionService();
+  }
+
   @Bean
   public ArticleRevisionWriteService articleRevisionWriteService() {
     return new ArticleRevisionWriteServiceImpl();
@@ -291,6 +442,11 @@ public class RhinoConfiguration {
     return new HibernatePersistenceServiceImpl();
   }
 
+  @Bean
+  public IngestionMetadataService ingestionMetadataService() {
+    return new IngestionMetadataServiceImpl();
+  }
+
   @Bean
   public MessageSender messageSender() {
     return new CamelSender();
@@ -301,11 +457,21 @@ public class RhinoConfiguration {
     return new CustomMetadataExtractor.Factory();
   }
 
+  @Bean
+  public StreamingManuscriptReader.Factory streamingManuscriptReaderFactory() {
+    return new StreamingManuscriptReader.Factory();
+  }
+
   @Bean
   public ArticleIngestionView.Factory articleIngestionViewFactory() {
     return new ArticleIngestionView.Factory();
   }
 
+  @Bean
+  public IngestionJobView.Factory ingestionJobViewFactory() {
+    return new IngestionJobView.Factory();
+  }
+
   @Bean
   public RelationshipSetView.Factory relationshipSetViewFactory() {
     return new RelationshipSetView.Factory();
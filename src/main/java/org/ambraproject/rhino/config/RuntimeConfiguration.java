@@ -100,6 +100,78 @@ public interface RuntimeConfiguration {
     String getThesaurus();
 
     Set<String> getCategoryBlacklist();
+
+    /**
+     * @return how long, in seconds, the taxonomy server's classification of some content may be reused before the
+     * content is sent to the server again, or 0 to disable the cache
+     * @see org.ambraproject.rhino.service.taxonomy.impl.TaxonomyClassificationCache
+     */
+    long getClassificationCacheTtl();
+
+    /**
+     * @return the maximum number of articles to send to the taxonomy server in one request, when classifying many
+     * articles at once
+     */
+    int getClassificationBatchSize();
+
+    /**
+     * @return the maximum number of requests that reclassification jobs may send to the taxonomy server at once
+     * @see org.ambraproject.rhino.service.ReclassificationJobService
+     */
+    int getReclassificationConcurrency();
+
+    /**
+     * @return the number of articles that a reclassification job classifies and then persists in one transaction, which
+     * is also how often its progress is checkpointed
+     * @see org.ambraproject.rhino.service.ReclassificationJobService
+     */
+    int getReclassificationChunkSize();
+
+    /**
+     * @return the maximum number of connections to keep open to the taxonomy server, which is separate from the
+     * connection pool for other services
+     * @see org.ambraproject.rhino.service.taxonomy.impl.TaxonomyServerClient
+     */
+    int getMaxConnections();
+
+    /**
+     * @return how long, in milliseconds, to wait to connect to the taxonomy server or for a free connection
+     * @see org.ambraproject.rhino.service.taxonomy.impl.TaxonomyServerClient
+     */
+    int getConnectTimeout();
+
+    /**
+     * @return how long, in milliseconds, to wait for data from the taxonomy server before giving up on a request
+     * @see org.ambraproject.rhino.service.taxonomy.impl.TaxonomyServerClient
+     */
+    int getReadTimeout();
+
+    /**
+     * @return the number of times to retry a request to the taxonomy server after it fails to connect or respond
+     * @see org.ambraproject.rhino.service.taxonomy.impl.TaxonomyServerClient
+     */
+    int getMaxRetries();
+
+    /**
+     * @return the base delay, in milliseconds, before retrying a request to the taxonomy server, which doubles
+     * with each retry and is randomized to spread out retries from different threads
+     * @see org.ambraproject.rhino.service.taxonomy.impl.TaxonomyServerClient
+     */
+    int getRetryBackoff();
+
+    /**
+     * @return the number of consecutive failed requests after which requests to the taxonomy server fail
+     * immediately, until it has had time to recover
+     * @see org.ambraproject.rhino.service.taxonomy.impl.TaxonomyServerClient
+     */
+    int getCircuitBreakerThreshold();
+
+    /**
+     * @return how long, in milliseconds, to fail requests to the taxonomy server immediately after it has failed
+     * repeatedly, before trying it again
+     * @see org.ambraproject.rhino.service.taxonomy.impl.TaxonomyServerClient
+     */
+    int getCircuitBreakerCooldown();
   }
 
   TaxonomyConfiguration getTaxonomyConfiguration();
@@ -135,6 +207,127 @@ public interface RuntimeConfiguration {
 
   QueueConfiguration getQueueConfiguration();
 
+  interface IngestionConfiguration {
+    /**
+     * @return the maximum number of files from one article package to upload to the content repo concurrently
+     */
+    int getUploadThreadCount();
+
+    /**
+     * @return the size, in bytes, above which an uploaded archive entry is always written to a temp file
+     * @see org.ambraproject.rhino.util.ArchiveMemoryBudget
+     */
+    int getArchiveSpillThreshold();
+
+    /**
+     * @return the total number of bytes that uploaded archives may hold in memory at once, across all ingestions
+     * @see org.ambraproject.rhino.util.ArchiveMemoryBudget
+     */
+    long getArchiveMemoryBudget();
+
+    /**
+     * @return true to read ingested manuscripts in a single streaming pass, without parsing them into a DOM
+     * @see org.ambraproject.rhino.content.xml.StreamingManuscriptReader
+     */
+    boolean useStreamingManuscriptReader();
+
+    /**
+     * @return the number of rows to send to the database in one JDBC batch, and the number of ingested files to persist
+     * between session flushes; zero or less to send each row in its own statement
+     */
+    int getJdbcBatchSize();
+
+    /**
+     * @return the number of background ingestion jobs to run at once
+     * @see org.ambraproject.rhino.service.IngestionJobService
+     */
+    int getJobThreadCount();
+
+    /**
+     * @return the directory where archives for background ingestion jobs are kept until the jobs finish, or null if
+     * background ingestion jobs are disabled. It must persist across restarts so that unfinished jobs can be resumed.
+     * @see org.ambraproject.rhino.service.IngestionJobService
+     */
+    String getJobDirectory();
+
+    /**
+     * @return the name that identifies this server as the owner of the background ingestion and reclassification jobs it
+     * accepts, which must be unique among the servers sharing a database and stay the same across restarts
+     * @see org.ambraproject.rhino.service.IngestionJobService
+     * @see org.ambraproject.rhino.service.ReclassificationJobService
+     */
+    String getJobNodeName();
+
+    /**
+     * @return the number of archives that a bulk ingestion may read and parse at once
+     * @see org.ambraproject.rhino.service.impl.BulkIngestionService
+     */
+    int getBulkParseThreadCount();
+
+    /**
+     * @return the number of archives that a bulk ingestion may upload to the content repo at once (each of which
+     * uploads up to {@link #getUploadThreadCount} files at once)
+     * @see org.ambraproject.rhino.service.impl.BulkIngestionService
+     */
+    int getBulkUploadThreadCount();
+
+    /**
+     * @return the number of archives that may wait between two stages of a bulk ingestion before the earlier stage
+     * blocks
+     * @see org.ambraproject.rhino.service.impl.BulkIngestionService
+     */
+    int getBulkQueueCapacity();
+
+    /**
+     * @return the maximum number of archives that a bulk ingestion persists in one transaction
+     * @see org.ambraproject.rhino.service.impl.BulkIngestionService
+     */
+    int getBulkWriteBatchSize();
+
+    /**
+     * @return the directory under which a bulk ingestion may scan for archives on the server, or null to allow bulk
+     * ingestion only of uploaded archives
+     * @see org.ambraproject.rhino.service.impl.BulkIngestionService
+     */
+    String getBulkSourceDirectory();
+  }
+
+  IngestionConfiguration getIngestionConfiguration();
+
+  interface CacheConfiguration {
+    /**
+     * @return the total size, in bytes, of the manuscript files whose parsed forms may be held in memory at once, or 0
+     * to disable the cache
+     * @see org.ambraproject.rhino.service.impl.ManuscriptCache
+     */
+    long getManuscriptCacheBudget();
+
+    /**
+     * @return the directory in which to cache content repo objects on local disk, or null to disable the cache
+     * @see org.ambraproject.rhino.service.impl.RepoObjectDiskCache
+     */
+    String getRepoObjectDirectory();
+
+    /**
+     * @return the total size, in bytes, of the content repo objects that may be cached on local disk
+     */
+    long getRepoObjectCapacity();
+
+    /**
+     * @return the maximum number of content repo objects whose metadata may be held in memory, or 0 to disable the
+     * cache
+     * @see org.ambraproject.rhino.service.impl.RepoObjectMetadataCache
+     */
+    long getRepoObjectMetadataSize();
+
+    /**
+     * @return how long, in seconds, cached reproxy URLs may be served before they are looked up again
+     */
+    long getReproxyUrlTtl();
+  }
+
+  CacheConfiguration getCacheConfiguration();
+
   /**
    * Article attributes that may be parsed from {@code &lt;custom-meta&rt;} elements, whose {@code &lt;meta-name&rt;}
    * values are provided as configuration.
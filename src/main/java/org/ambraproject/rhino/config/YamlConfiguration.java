@@ -24,8 +24,10 @@ package org.ambraproject.rhino.config;
 
 import com.google.common.collect.ImmutableSet;
 
+import java.net.InetAddress;
 import java.net.URI;
 import java.net.URL;
+import java.net.UnknownHostException;
 import java.time.LocalDate;
 import java.time.Month;
 import java.util.List;
@@ -156,6 +158,18 @@ public class YamlConfiguration implements RuntimeConfiguration {
 
 
   private final TaxonomyConfiguration taxonomyConfiguration = new TaxonomyConfiguration() {
+    private static final long DEFAULT_CLASSIFICATION_CACHE_TTL = 30L * 24 * 60 * 60;
+    private static final int DEFAULT_CLASSIFICATION_BATCH_SIZE = 10;
+    private static final int DEFAULT_RECLASSIFICATION_CONCURRENCY = 4;
+    private static final int DEFAULT_RECLASSIFICATION_CHUNK_SIZE = 100;
+    private static final int DEFAULT_MAX_CONNECTIONS = 10;
+    private static final int DEFAULT_CONNECT_TIMEOUT = 5000;
+    private static final int DEFAULT_READ_TIMEOUT = 60000;
+    private static final int DEFAULT_MAX_RETRIES = 2;
+    private static final int DEFAULT_RETRY_BACKOFF = 500;
+    private static final int DEFAULT_CIRCUIT_BREAKER_THRESHOLD = 5;
+    private static final int DEFAULT_CIRCUIT_BREAKER_COOLDOWN = 30000;
+
     private ImmutableSet<String> categoryBlacklist;
 
     @Override
@@ -174,6 +188,61 @@ public class YamlConfiguration implements RuntimeConfiguration {
       if (input.taxonomy.categoryBlacklist == null) return categoryBlacklist = ImmutableSet.of();
       return categoryBlacklist = ImmutableSet.copyOf(input.taxonomy.categoryBlacklist);
     }
+
+    @Override
+    public long getClassificationCacheTtl() {
+      return input.taxonomy != null && input.taxonomy.classificationCacheTtl != null ? input.taxonomy.classificationCacheTtl : DEFAULT_CLASSIFICATION_CACHE_TTL;
+    }
+
+    @Override
+    public int getClassificationBatchSize() {
+      return input.taxonomy != null && input.taxonomy.classificationBatchSize != null ? input.taxonomy.classificationBatchSize : DEFAULT_CLASSIFICATION_BATCH_SIZE;
+    }
+
+    @Override
+    public int getReclassificationConcurrency() {
+      return input.taxonomy != null && input.taxonomy.reclassificationConcurrency != null ? input.taxonomy.reclassificationConcurrency : DEFAULT_RECLASSIFICATION_CONCURRENCY;
+    }
+
+    @Override
+    public int getReclassificationChunkSize() {
+      return input.taxonomy != null && input.taxonomy.reclassificationChunkSize != null ? input.taxonomy.reclassificationChunkSize : DEFAULT_RECLASSIFICATION_CHUNK_SIZE;
+    }
+
+    @Override
+    public int getMaxConnections() {
+      return input.taxonomy != null && input.taxonomy.maxConnections != null ? input.taxonomy.maxConnections : DEFAULT_MAX_CONNECTIONS;
+    }
+
+    @Override
+    public int getConnectTimeout() {
+      return input.taxonomy != null && input.taxonomy.connectTimeout != null ? input.taxonomy.connectTimeout : DEFAULT_CONNECT_TIMEOUT;
+    }
+
+    @Override
+    public int getReadTimeout() {
+      return input.taxonomy != null && input.taxonomy.readTimeout != null ? input.taxonomy.readTimeout : DEFAULT_READ_TIMEOUT;
+    }
+
+    @Override
+    public int getMaxRetries() {
+      return input.taxonomy != null && input.taxonomy.maxRetries != null ? input.taxonomy.maxRetries : DEFAULT_MAX_RETRIES;
+    }
+
+    @Override
+    public int getRetryBackoff() {
+      return input.taxonomy != null && input.taxonomy.retryBackoff != null ? input.taxonomy.retryBackoff : DEFAULT_RETRY_BACKOFF;
+    }
+
+    @Override
+    public int getCircuitBreakerThreshold() {
+      return input.taxonomy != null && input.taxonomy.circuitBreakerThreshold != null ? input.taxonomy.circuitBreakerThreshold : DEFAULT_CIRCUIT_BREAKER_THRESHOLD;
+    }
+
+    @Override
+    public int getCircuitBreakerCooldown() {
+      return input.taxonomy != null && input.taxonomy.circuitBreakerCooldown != null ? input.taxonomy.circuitBreakerCooldown : DEFAULT_CIRCUIT_BREAKER_COOLDOWN;
+    }
   };
 
   @Override
@@ -261,6 +330,132 @@ public class YamlConfiguration implements RuntimeConfiguration {
     });
   }
 
+  private transient IngestionConfiguration ingestionConfiguration;
+
+  @Override
+  public IngestionConfiguration getIngestionConfiguration() {
+    return (ingestionConfiguration != null) ? ingestionConfiguration : (ingestionConfiguration = new IngestionConfiguration() {
+      private static final int DEFAULT_UPLOAD_THREAD_COUNT = 8;
+      private static final int DEFAULT_ARCHIVE_SPILL_THRESHOLD = 1024 * 1024;
+      private static final long DEFAULT_ARCHIVE_MEMORY_BUDGET = 64L * 1024 * 1024;
+      private static final int DEFAULT_JDBC_BATCH_SIZE = 50;
+      private static final int DEFAULT_JOB_THREAD_COUNT = 2;
+      private static final int DEFAULT_BULK_UPLOAD_THREAD_COUNT = 4;
+      private static final int DEFAULT_BULK_QUEUE_CAPACITY = 16;
+      private static final int DEFAULT_BULK_WRITE_BATCH_SIZE = 20;
+
+      @Override
+      public int getUploadThreadCount() {
+        return input.ingestion != null && input.ingestion.uploadThreadCount != null ? input.ingestion.uploadThreadCount : DEFAULT_UPLOAD_THREAD_COUNT;
+      }
+
+      @Override
+      public int getArchiveSpillThreshold() {
+        return input.ingestion != null && input.ingestion.archiveSpillThreshold != null ? input.ingestion.archiveSpillThreshold : DEFAULT_ARCHIVE_SPILL_THRESHOLD;
+      }
+
+      @Override
+      public long getArchiveMemoryBudget() {
+        return input.ingestion != null && input.ingestion.archiveMemoryBudget != null ? input.ingestion.archiveMemoryBudget : DEFAULT_ARCHIVE_MEMORY_BUDGET;
+      }
+
+      @Override
+      public boolean useStreamingManuscriptReader() {
+        return input.ingestion != null && input.ingestion.streamingManuscriptReader != null && input.ingestion.streamingManuscriptReader;
+      }
+
+      @Override
+      public int getJdbcBatchSize() {
+        return input.ingestion != null && input.ingestion.jdbcBatchSize != null ? input.ingestion.jdbcBatchSize : DEFAULT_JDBC_BATCH_SIZE;
+      }
+
+      @Override
+      public int getJobThreadCount() {
+        return input.ingestion != null && input.ingestion.jobThreadCount != null ? input.ingestion.jobThreadCount : DEFAULT_JOB_THREAD_COUNT;
+      }
+
+      @Override
+      public String getJobDirectory() {
+        return input.ingestion != null ? input.ingestion.jobDirectory : null;
+      }
+
+      @Override
+      public String getJobNodeName() {
+        if (input.ingestion != null && input.ingestion.jobNodeName != null) {
+          return input.ingestion.jobNodeName;
+        }
+        try {
+          return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+          throw new RuntimeException("ingestion.jobNodeName must be set, because the host name is unknown", e);
+        }
+      }
+
+      @Override
+      public int getBulkParseThreadCount() {
+        return input.ingestion != null && input.ingestion.bulkParseThreadCount != null ? input.ingestion.bulkParseThreadCount
+            : Runtime.getRuntime().availableProcessors();
+      }
+
+      @Override
+      public int getBulkUploadThreadCount() {
+        return input.ingestion != null && input.ingestion.bulkUploadThreadCount != null ? input.ingestion.bulkUploadThreadCount : DEFAULT_BULK_UPLOAD_THREAD_COUNT;
+      }
+
+      @Override
+      public int getBulkQueueCapacity() {
+        return input.ingestion != null && input.ingestion.bulkQueueCapacity != null ? input.ingestion.bulkQueueCapacity : DEFAULT_BULK_QUEUE_CAPACITY;
+      }
+
+      @Override
+      public int getBulkWriteBatchSize() {
+        return input.ingestion != null && input.ingestion.bulkWriteBatchSize != null ? input.ingestion.bulkWriteBatchSize : DEFAULT_BULK_WRITE_BATCH_SIZE;
+      }
+
+      @Override
+      public String getBulkSourceDirectory() {
+        return input.ingestion != null ? input.ingestion.bulkSourceDirectory : null;
+      }
+    });
+  }
+
+  private transient CacheConfiguration cacheConfiguration;
+
+  @Override
+  public CacheConfiguration getCacheConfiguration() {
+    return (cacheConfiguration != null) ? cacheConfiguration : (cacheConfiguration = new CacheConfiguration() {
+      private static final long DEFAULT_MANUSCRIPT_CACHE_BUDGET = 32L * 1024 * 1024;
+      private static final long DEFAULT_REPO_OBJECT_CAPACITY = 1024L * 1024 * 1024;
+      private static final long DEFAULT_REPO_OBJECT_METADATA_SIZE = 10000;
+      private static final long DEFAULT_REPROXY_URL_TTL = 60 * 60;
+
+      @Override
+      public long getManuscriptCacheBudget() {
+        return input.cache != null && input.cache.manuscriptBudget != null ? input.cache.manuscriptBudget : DEFAULT_MANUSCRIPT_CACHE_BUDGET;
+      }
+
+      @Override
+      public String getRepoObjectDirectory() {
+        return input.cache == null ? null : input.cache.repoObjectDirectory;
+      }
+
+      @Override
+      public long getRepoObjectCapacity() {
+        return input.cache != null && input.cache.repoObjectCapacity != null ? input.cache.repoObjectCapacity : DEFAULT_REPO_OBJECT_CAPACITY;
+      }
+
+      @Override
+      public long getRepoObjectMetadataSize() {
+        return input.cache != null && input.cache.repoObjectMetadataSize != null ? input.cache.repoObjectMetadataSize : DEFAULT_REPO_OBJECT_METADATA_SIZE;
+      }
+
+      @Override
+      public long getReproxyUrlTtl() {
+        return input.cache != null && input.cache.reproxyUrlTtl != null ? input.cache.reproxyUrlTtl : DEFAULT_REPROXY_URL_TTL;
+      }
+    });
+  }
+
   @Override
   public String getManuscriptCustomMetaName(ManuscriptCustomMetaAttribute attribute) {
     Objects.requireNonNull(attribute);
@@ -286,6 +481,8 @@ public class YamlConfiguration implements RuntimeConfiguration {
     private String competingInterestPolicyStart;
     private QueueConfigurationInput queue;
     private ManuscriptCustomMetaInput manuscriptCustomMeta;
+    private IngestionConfigurationInput ingestion;
+    private CacheConfigurationInput cache;
 
     /**
      * @deprecated For reflective access by SnakeYAML only
@@ -350,6 +547,22 @@ public class YamlConfiguration implements RuntimeConfiguration {
     public void setManuscriptCustomMeta(ManuscriptCustomMetaInput manuscriptCustomMeta) {
       this.manuscriptCustomMeta = manuscriptCustomMeta;
     }
+
+    /**
+     * @deprecated For reflective access by SnakeYAML only
+     */
+    @Deprecated
+    public void setIngestion(IngestionConfigurationInput ingestion) {
+      this.ingestion = ingestion;
+    }
+
+    /**
+     * @deprecated For reflective access by SnakeYAML only
+     */
+    @Deprecated
+    public void setCache(CacheConfigurationInput cache) {
+      this.cache = cache;
+    }
   }
 
   public static class ContentRepoInput {
@@ -425,6 +638,17 @@ public class YamlConfiguration implements RuntimeConfiguration {
     private URL server;
     private String thesaurus;
     private List<String> categoryBlacklist;
+    private Long classificationCacheTtl;
+    private Integer classificationBatchSize;
+    private Integer reclassificationConcurrency;
+    private Integer reclassificationChunkSize;
+    private Integer maxConnections;
+    private Integer connectTimeout;
+    private Integer readTimeout;
+    private Integer maxRetries;
+    private Integer retryBackoff;
+    private Integer circuitBreakerThreshold;
+    private Integer circuitBreakerCooldown;
 
     @Deprecated
     public void setServer(URL server) {
@@ -440,6 +664,61 @@ public class YamlConfiguration implements RuntimeConfiguration {
     public void setCategoryBlacklist(List<String> categoryBlacklist) {
       this.categoryBlacklist = categoryBlacklist;
     }
+
+    @Deprecated
+    public void setClassificationCacheTtl(Long classificationCacheTtl) {
+      this.classificationCacheTtl = classificationCacheTtl;
+    }
+
+    @Deprecated
+    public void setClassificationBatchSize(Integer classificationBatchSize) {
+      this.classificationBatchSize = classificationBatchSize;
+    }
+
+    @Deprecated
+    public void setReclassificationConcurrency(Integer reclassificationConcurrency) {
+      this.reclassificationConcurrency = reclassificationConcurrency;
+    }
+
+    @Deprecated
+    public void setReclassificationChunkSize(Integer reclassificationChunkSize) {
+      this.reclassificationChunkSize = reclassificationChunkSize;
+    }
+
+    @Deprecated
+    public void setMaxConnections(Integer maxConnections) {
+      this.maxConnections = maxConnections;
+    }
+
+    @Deprecated
+    public void setConnectTimeout(Integer connectTimeout) {
+      this.connectTimeout = connectTimeout;
+    }
+
+    @Deprecated
+    public void setReadTimeout(Integer readTimeout) {
+      this.readTimeout = readTimeout;
+    }
+
+    @Deprecated
+    public void setMaxRetries(Integer maxRetries) {
+      this.maxRetries = maxRetries;
+    }
+
+    @Deprecated
+    public void setRetryBackoff(Integer retryBackoff) {
+      this.retryBackoff = retryBackoff;
+    }
+
+    @Deprecated
+    public void setCircuitBreakerThreshold(Integer circuitBreakerThreshold) {
+      this.circuitBreakerThreshold = circuitBreakerThreshold;
+    }
+
+    @Deprecated
+    public void setCircuitBreakerCooldown(Integer circuitBreakerCooldown) {
+      this.circuitBreakerCooldown = circuitBreakerCooldown;
+    }
   }
 
   public static class UserApiConfigurationInput {
@@ -505,4 +784,118 @@ public class YamlConfiguration implements RuntimeConfiguration {
     }
   }
 
+  public static class IngestionConfigurationInput {
+    private Integer uploadThreadCount;
+    private Integer archiveSpillThreshold;
+    private Long archiveMemoryBudget;
+    private Boolean streamingManuscriptReader;
+    private Integer jdbcBatchSize;
+    private Integer jobThreadCount;
+    private String jobDirectory;
+    private String jobNodeName;
+    private Integer bulkParseThreadCount;
+    private Integer bulkUploadThreadCount;
+    private Integer bulkQueueCapacity;
+    private Integer bulkWriteBatchSize;
+    private String bulkSourceDirectory;
+
+    @Deprecated
+    public void setUploadThreadCount(Integer uploadThreadCount) {
+      this.uploadThreadCount = uploadThreadCount;
+    }
+
+    @Deprecated
+    public void setArchiveSpillThreshold(Integer archiveSpillThreshold) {
+      this.archiveSpillThreshold = archiveSpillThreshold;
+    }
+
+    @Deprecated
+    public void setArchiveMemoryBudget(Long archiveMemoryBudget) {
+      this.archiveMemoryBudget = archiveMemoryBudget;
+    }
+
+    @Deprecated
+    public void setStreamingManuscriptReader(Boolean streamingManuscriptReader) {
+      this.streamingManuscriptReader = streamingManuscriptReader;
+    }
+
+    @Deprecated
+    public void setJdbcBatchSize(Integer jdbcBatchSize) {
+      this.jdbcBatchSize = jdbcBatchSize;
+    }
+
+    @Deprecated
+    public void setJobThreadCount(Integer jobThreadCount) {
+      this.jobThreadCount = jobThreadCount;
+    }
+
+    @Deprecated
+    public void setJobDirectory(String jobDirectory) {
+      this.jobDirectory = jobDirectory;
+    }
+
+    @Deprecated
+    public void setJobNodeName(String jobNodeName) {
+      this.jobNodeName = jobNodeName;
+    }
+
+    @Deprecated
+    public void setBulkParseThreadCount(Integer bulkParseThreadCount) {
+      this.bulkParseThreadCount = bulkParseThreadCount;
+    }
+
+    @Deprecated
+    public void setBulkUploadThreadCount(Integer bulkUploadThreadCount) {
+      this.bulkUploadThreadCount = bulkUploadThreadCount;
+    }
+
+    @Deprecated
+    public void setBulkQueueCapacity(Integer bulkQueueCapacity) {
+      this.bulkQueueCapacity = bulkQueueCapacity;
+    }
+
+    @Deprecated
+    public void setBulkWriteBatchSize(Integer bulkWriteBatchSize) {
+      this.bulkWriteBatchSize = bulkWriteBatchSize;
+    }
+
+    @Deprecated
+    public void setBulkSourceDirectory(String bulkSourceDirectory) {
+      this.bulkSourceDirectory = bulkSourceDirectory;
+    }
+  }
+
+  public static class CacheConfigurationInput {
+    private Long manuscriptBudget;
+    private String repoObjectDirectory;
+    private Long repoObjectCapacity;
+    private Long repoObjectMetadataSize;
+    private Long reproxyUrlTtl;
+
+    @Deprecated
+    public void setManuscriptBudget(Long manuscriptBudget) {
+      this.manuscriptBudget = manuscriptBudget;
+    }
+
+    @Deprecated
+    public void setRepoObjectDirectory(String repoObjectDirectory) {
+      this.repoObjectDirectory = repoObjectDirectory;
+    }
+
+    @Deprecated
+    public void setRepoObjectCapacity(Long repoObjectCapacity) {
+      this.repoObjectCapacity = repoObjectCapacity;
+    }
+
+    @Deprecated
+    public void setRepoObjectMetadataSize(Long repoObjectMetadataSize) {
+      this.repoObjectMetadataSize = repoObjectMetadataSize;
+    }
+
+    @Deprecated
+    public void setReproxyUrlTtl(Long reproxyUrlTtl) {
+      this.reproxyUrlTtl = reproxyUrlTtl;
+    }
+  }
+
 }
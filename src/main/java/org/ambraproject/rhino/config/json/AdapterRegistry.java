@@ -64,7 +64,10 @@ public class AdapterRegistry {
 
       .add(org.ambraproject.rhino.view.article.ArticleIngestionView.class)
       .add(org.ambraproject.rhino.view.article.ArticleRevisionView.class)
+      .add(org.ambraproject.rhino.view.article.BulkIngestionView.class)
       .add(org.ambraproject.rhino.view.article.CategoryAssignmentView.class)
+      .add(org.ambraproject.rhino.view.article.IngestionJobView.class)
+      .add(org.ambraproject.rhino.view.article.ReclassificationJobView.class)
       .add(org.ambraproject.rhino.view.article.SyndicationView.class)
 
       .add(org.ambraproject.rhino.view.comment.CommentFlagOutputView.class)
@@ -62,6 +62,10 @@ public abstract class AbstractArticleXml<T> extends AbstractXpathReader {
 
   @Override
   protected String sanitize(String text) {
+    return sanitizeText(text);
+  }
+
+  static String sanitizeText(String text) {
     return (text == null) ? null : CharMatcher.WHITESPACE.trimAndCollapseFrom(text, ' ');
   }
 
@@ -161,7 +165,11 @@ public abstract class AbstractArticleXml<T> extends AbstractXpathReader {
     if (surname == null) {
       throw new XmlContentException("Required surname is omitted from node: " + logNode(nameNode));
     }
+    return buildPerson(nameStyle, surname, givenName, suffix);
+  }
 
+  static NlmPerson buildPerson(String nameStyle, String surname, String givenName, String suffix)
+      throws XmlContentException {
     String[] fullNameParts;
     if (WESTERN_NAME_STYLE.equals(nameStyle)) {
       fullNameParts = new String[]{givenName, surname, suffix};
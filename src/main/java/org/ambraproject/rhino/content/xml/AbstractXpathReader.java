@@ -39,10 +39,9 @@ import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
-import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpression;
 import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 import java.io.ByteArrayOutputStream;
 import java.io.StringWriter;
 import java.util.ArrayDeque;
@@ -52,16 +51,14 @@ import java.util.List;
 /**
  * A container for a node of XML data that reads it with XPath queries.
  * <p/>
- * Instances of this class are not thread-safe because they hold instances of {@link XPath} and {@link Transformer} to
- * use.
+ * Instances of this class are not thread-safe because they hold an instance of {@link Transformer} to use. XPath
+ * queries are compiled once per thread and cached (see {@link XPathExpressionCache}).
  */
 public abstract class AbstractXpathReader {
 
-  private static final ThreadLocal<XPathFactory> XPATH_FACTORY = ThreadLocal.withInitial(XPathFactory::newInstance);
   private static final ThreadLocal<TransformerFactory> TRANSFORMER_FACTORY = ThreadLocal.withInitial(TransformerFactory::newInstance);
 
   protected Node xml;
-  protected final XPath xPath;
   private final Transformer transformer;
 
   protected AbstractXpathReader(Node xml) {
@@ -70,9 +67,6 @@ public abstract class AbstractXpathReader {
   }
 
   protected AbstractXpathReader() {
-    // XPath isn't thread-safe, so we need one per instance of this class
-    this.xPath = XPATH_FACTORY.get().newXPath();
-
     try {
       this.transformer = TRANSFORMER_FACTORY.get().newTransformer();
     } catch (TransformerConfigurationException e) {
@@ -132,7 +126,7 @@ public abstract class AbstractXpathReader {
 
   protected Node readNode(String query, Node node) {
     try {
-      return (Node) xPath.evaluate(query, node, XPathConstants.NODE);
+      return (Node) compile(query).evaluate(node, XPathConstants.NODE);
     } catch (XPathExpressionException e) {
       throw new InvalidXPathException(query, e);
     }
@@ -145,13 +139,25 @@ public abstract class AbstractXpathReader {
   protected List<Node> readNodeList(String query, Node node) {
     NodeList nodeList;
     try {
-      nodeList = (NodeList) xPath.evaluate(query, node, XPathConstants.NODESET);
+      nodeList = (NodeList) compile(query).evaluate(node, XPathConstants.NODESET);
     } catch (XPathExpressionException e) {
       throw new InvalidXPathException(query, e);
     }
     return NodeListAdapter.wrap(nodeList);
   }
 
+  /**
+   * Get a compiled XPath expression for this thread to evaluate. The returned object must not be shared with other
+   * threads.
+   *
+   * @param query an XPath expression
+   * @return the compiled expression
+   * @throws XPathExpressionException if the expression cannot be compiled
+   */
+  protected static XPathExpression compile(String query) throws XPathExpressionException {
+    return XPathExpressionCache.compile(query);
+  }
+
   protected List<String> readTextList(String query) {
     List<Node> nodeList = readNodeList(query);
     List<String> textList = Lists.newArrayListWithCapacity(nodeList.size());
@@ -201,7 +201,8 @@ public class ArticleXml extends AbstractArticleXml<ArticleMetadata> {
     article.setPublicationDate(parseDate(dateNode));
 
     article.setNlmArticleType(readString("/article/@article-type"));
-    article.setArticleType(parseArticleHeading());
+    article.setArticleType(selectArticleHeading(readTextList("/article/front/article-meta/article-categories/"
+        + "subj-group[@subj-group-type = 'heading']/subject")));
 
     article.setEditors(readPersons(readNodeList(
         "/article/front/article-meta/contrib-group/contrib[@contrib-type=\"editor\"]/name")));
@@ -235,7 +236,7 @@ public class ArticleXml extends AbstractArticleXml<ArticleMetadata> {
     return null;
   }
 
-  private static String checkEissn(String eissn) throws XmlContentException {
+  static String checkEissn(String eissn) throws XmlContentException {
     if (eissn == null) {
       throw new XmlContentException("Required eIssn is omitted");
     }
@@ -245,7 +246,7 @@ public class ArticleXml extends AbstractArticleXml<ArticleMetadata> {
   /**
    * @return the appropriate value for the rights property of {@link ArticleMetadata}, based on the article XML.
    */
-  private static String buildRights(String holder, String license) throws XmlContentException {
+  static String buildRights(String holder, String license) throws XmlContentException {
     if (license == null) {
       throw new XmlContentException("Required license statement is omitted");
     }
@@ -258,7 +259,7 @@ public class ArticleXml extends AbstractArticleXml<ArticleMetadata> {
   /**
    * @return the appropriate value for the pages property of {@link ArticleMetadata}, based on the article XML.
    */
-  private static Integer parsePageCount(String pageCount) {
+  static Integer parsePageCount(String pageCount) {
     if (Strings.isNullOrEmpty(pageCount)) {
       return null;
     }
@@ -272,13 +273,11 @@ public class ArticleXml extends AbstractArticleXml<ArticleMetadata> {
   /**
    * @return a valid URL to the article (base on the DOI)
    */
-  private static String buildUrl(String doi) {
+  static String buildUrl(String doi) {
     return "http://dx.doi.org/" + URLEncoder.encode(doi);
   }
 
-  private String parseArticleHeading() {
-    List<String> headings = readTextList("/article/front/article-meta/article-categories/"
-        + "subj-group[@subj-group-type = 'heading']/subject");
+  static String selectArticleHeading(List<String> headings) {
     if (headings.size() > 1) {
       throw new XmlContentException("Must not contain more than one subject group with subj-group-type=\"heading\"");
     }
@@ -286,7 +285,7 @@ public class ArticleXml extends AbstractArticleXml<ArticleMetadata> {
   }
 
 
-  private static String parseLanguage(String language) {
+  static String parseLanguage(String language) {
     if (language == null) {
       log.debug("Language not specified in article XML; defaulting to English");
       return "en"; // Formerly hard-coded for all articles, so it's the most sensible default
@@ -295,11 +294,17 @@ public class ArticleXml extends AbstractArticleXml<ArticleMetadata> {
   }
 
   private LocalDate parseDate(Node dateNode) throws XmlContentException {
+    return parseDate(readString("child::year", dateNode),
+        readString("child::month", dateNode),
+        readString("child::day", dateNode));
+  }
+
+  static LocalDate parseDate(String yearText, String monthText, String dayText) throws XmlContentException {
     int year, month, day;
     try {
-      year = Integer.parseInt(readString("child::year", dateNode));
-      month = Integer.parseInt(readString("child::month", dateNode));
-      day = Integer.parseInt(readString("child::day", dateNode));
+      year = Integer.parseInt(yearText);
+      month = Integer.parseInt(monthText);
+      day = Integer.parseInt(dayText);
     } catch (NumberFormatException e) {
       throw new XmlContentException("Expected numbers for date fields", e);
     }
@@ -331,17 +336,24 @@ public class ArticleXml extends AbstractArticleXml<ArticleMetadata> {
     AssetNodesByDoi nodeMap = findAllAssetNodes();
     return nodeMap.getDois().stream().map((Doi assetDoi) -> {
       ImmutableList<Node> nodes = nodeMap.getNodes(assetDoi);
-      List<AssetMetadata> assetMetadataList = nodes.stream()
+      return selectAssetMetadata(nodes.stream()
           .map(assetNode -> new AssetXml(assetNode, assetDoi).build())
-          .distinct()
-          .collect(Collectors.toList());
-      if (assetMetadataList.size() > 1) {
-        return disambiguateAssetNodes(assetMetadataList);
-      }
-      return assetMetadataList.get(0);
+          .collect(Collectors.toList()));
     }).collect(Collectors.toList());
   }
 
+  /**
+   * @param assetNodesMetadata metadata for each asset node with the same DOI, in document order
+   * @return the metadata to store for the asset
+   */
+  static AssetMetadata selectAssetMetadata(List<AssetMetadata> assetNodesMetadata) {
+    List<AssetMetadata> distinct = assetNodesMetadata.stream().distinct().collect(Collectors.toList());
+    if (distinct.size() > 1) {
+      return disambiguateAssetNodes(distinct);
+    }
+    return distinct.get(0);
+  }
+
   private static final Comparator<AssetMetadata> ASSET_NODE_PREFERENCE = Comparator.<AssetMetadata, Boolean>
       comparing(node -> node.getTitle().isEmpty())
       .thenComparing(Comparator.comparing(node -> node.getDescription().isEmpty()));
@@ -30,6 +30,8 @@ import com.google.common.collect.ListMultimap;
 import org.ambraproject.rhino.identity.Doi;
 import org.w3c.dom.Node;
 
+import java.util.Map;
+
 /**
  * A set of article XML nodes, each representing an asset, mapped by the asset's DOI.
  */
@@ -80,6 +82,19 @@ public class AssetNodesByDoi {
     return nodes;
   }
 
+  /**
+   * Get the name of each XML node, mapped by DOI in the same order as {@link #getNodes}.
+   *
+   * @return the node names
+   */
+  public ImmutableListMultimap<Doi, String> getNodeNames() {
+    ImmutableListMultimap.Builder<Doi, String> nodeNames = ImmutableListMultimap.builder();
+    for (Map.Entry<Doi, Node> entry : nodeMap.entries()) {
+      nodeNames.put(entry.getKey(), entry.getValue().getNodeName());
+    }
+    return nodeNames.build();
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) return true;
@@ -64,11 +64,23 @@ public class CustomMetadataExtractor extends AbstractArticleXml<ArticleCustomMet
 
   @Override
   public ArticleCustomMetadata build() throws XmlContentException {
-    ListMultimap<String, String> customMeta = parseCustomMeta();
+    return build(parseCustomMeta(), runtimeConfiguration);
+  }
+
+  /**
+   * Build custom metadata from the {@code custom-meta} name-value pairs of a manuscript.
+   *
+   * @param customMeta           the table of all of a manuscript's custom meta values
+   * @param runtimeConfiguration the configuration that supplies the meta-name for each attribute
+   * @return the custom metadata
+   * @throws XmlContentException if a value is duplicated or malformed
+   */
+  static ArticleCustomMetadata build(ListMultimap<String, String> customMeta,
+                                     RuntimeConfiguration runtimeConfiguration) {
     ArticleCustomMetadata.Builder builder = ArticleCustomMetadata.builder();
-    getSingleValue(customMeta, ManuscriptCustomMetaAttribute.REVISION_DATE)
-        .ifPresent(revisionDate -> builder.setRevisionDate(parseRevisionDate(revisionDate)));
-    getSingleValue(customMeta, ManuscriptCustomMetaAttribute.PUBLICATION_STAGE)
+    getSingleValue(customMeta, runtimeConfiguration, ManuscriptCustomMetaAttribute.REVISION_DATE)
+        .ifPresent(revisionDate -> builder.setRevisionDate(parseRevisionDate(revisionDate, runtimeConfiguration)));
+    getSingleValue(customMeta, runtimeConfiguration, ManuscriptCustomMetaAttribute.PUBLICATION_STAGE)
         .ifPresent(builder::setPublicationStage);
     return builder.build();
   }
@@ -98,11 +110,14 @@ public class CustomMetadataExtractor extends AbstractArticleXml<ArticleCustomMet
    * The return value will be empty if the manuscript does not have a value of the given type <em>or</em> if no
    * meta-name is configured for that type.
    *
-   * @param customMeta the table of all of a manuscript's custom meta values
-   * @param attribute  the type of value to retrieve, if a meta-name is configured for it
+   * @param customMeta           the table of all of a manuscript's custom meta values
+   * @param runtimeConfiguration the configuration that supplies the meta-name for each attribute
+   * @param attribute            the type of value to retrieve, if a meta-name is configured for it
    * @return the value if the type is configured and it is present
    */
-  private Optional<String> getSingleValue(ListMultimap<String, String> customMeta, ManuscriptCustomMetaAttribute attribute) {
+  private static Optional<String> getSingleValue(ListMultimap<String, String> customMeta,
+                                                 RuntimeConfiguration runtimeConfiguration,
+                                                 ManuscriptCustomMetaAttribute attribute) {
     String metaName = runtimeConfiguration.getManuscriptCustomMetaName(attribute);
     if (metaName == null) {
       log.warn("No meta-name is configured for {}. Value cannot be parsed from manuscript or persisted on new ingestions.", attribute.getConfigKey());
@@ -121,7 +136,7 @@ public class CustomMetadataExtractor extends AbstractArticleXml<ArticleCustomMet
     return Optional.of(values.get(0));
   }
 
-  private LocalDate parseRevisionDate(String revisionDate) {
+  private static LocalDate parseRevisionDate(String revisionDate, RuntimeConfiguration runtimeConfiguration) {
     LocalDate parsedDate;
     try {
       parsedDate = LocalDate.parse(revisionDate);
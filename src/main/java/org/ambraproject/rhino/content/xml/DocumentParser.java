@@ -0,0 +1,244 @@
+/*
+ * Copyright (c) 2017 Public Library of Science
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package org.ambraproject.rhino.content.xml;
+
+import com.google.common.base.Preconditions;
+import com.google.common.io.CountingInputStream;
+import org.w3c.dom.Document;
+import org.xml.sax.SAXException;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Parses XML documents with builders that are configured once per thread and reused.
+ * <p/>
+ * Looking up and configuring a {@link DocumentBuilderFactory} costs about as much as parsing a small document, and
+ * neither factories nor builders are guaranteed to be thread-safe. So each thread keeps its own configured factory and
+ * builders, and {@link DocumentBuilder#reset() resets} a builder after every document instead of creating a new one.
+ * <p/>
+ * The builders are namespace-aware and non-validating, and never load an external DTD. We assume that we don't want to
+ * connect to remote servers to validate except with a specific reason.
+ * <p/>
+ * Documents are fully built as they are parsed, unless the caller says that the document is at least {@link
+ * #DEFERRED_EXPANSION_THRESHOLD} bytes. Those are parsed with deferred node expansion, where the parser records the
+ * document compactly and builds each node the first time it is read, which saves time and memory when only part of a
+ * large document is read. A deferred document builds nodes as a side effect of reading it, so it should be read by only
+ * one thread.
+ */
+public final class DocumentParser {
+
+  private DocumentParser() {
+    throw new AssertionError("Not instantiable");
+  }
+
+  /**
+   * The size, in bytes, at or above which documents are parsed with deferred node expansion.
+   */
+  public static final long DEFERRED_EXPANSION_THRESHOLD = 1024 * 1024;
+
+  private static final String DEFER_NODE_EXPANSION = "http://apache.org/xml/features/dom/defer-node-expansion";
+
+  private static DocumentBuilderFactory createFactory(boolean deferNodeExpansion) {
+    DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+    // at a minimum the document builder needs to be namespace aware
+    factory.setNamespaceAware(true);
+    factory.setValidating(false);
+    try {
+      factory.setFeature("http://xml.org/sax/features/validation", false);
+      factory.setFeature("http://apache.org/xml/features/nonvalidating/load-dtd-grammar", false);
+      factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+    } catch (ParserConfigurationException e) {
+      throw new RuntimeException(e);
+    }
+    try {
+      factory.setFeature(DEFER_NODE_EXPANSION, deferNodeExpansion);
+    } catch (ParserConfigurationException e) {
+      // Not a Xerces-based parser. It will build documents in whatever way it normally does.
+    }
+    return factory;
+  }
+
+  private static DocumentBuilder createBuilder(DocumentBuilderFactory factory) {
+    try {
+      return factory.newDocumentBuilder();
+    } catch (ParserConfigurationException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private static final class ThreadState {
+    private final DocumentBuilderFactory factory = createFactory(false);
+    private final DocumentBuilder builder = createBuilder(factory);
+    private DocumentBuilder deferredBuilder; // created on first use
+
+    private DocumentBuilder getBuilder(boolean deferNodeExpansion) {
+      if (!deferNodeExpansion) return builder;
+      return (deferredBuilder != null) ? deferredBuilder : (deferredBuilder = createBuilder(createFactory(true)));
+    }
+  }
+
+  private static final ThreadLocal<ThreadState> THREAD_STATE = ThreadLocal.withInitial(ThreadState::new);
+
+  private static final LongAdder parseCount = new LongAdder();
+  private static final LongAdder failureCount = new LongAdder();
+  private static final LongAdder deferredCount = new LongAdder();
+  private static final LongAdder totalParseNanos = new LongAdder();
+  private static final LongAdder totalBytes = new LongAdder();
+  private static final LongAccumulator largestBytes = new LongAccumulator(Math::max, 0L);
+
+  /**
+   * Create a new document builder with this class's configuration, for a caller that needs to hold one (for example,
+   * to create new documents). Unlike the builders used by {@link #parse}, the returned object belongs to the caller.
+   * It is not thread-safe.
+   *
+   * @return a new document builder
+   */
+  public static DocumentBuilder newDocumentBuilder() {
+    return createBuilder(THREAD_STATE.get().factory);
+  }
+
+  /**
+   * Parse a document of unknown size. The document is fully built.
+   *
+   * @param stream an input stream containing an XML document as raw bytes; not closed by this method
+   * @return the parsed document
+   * @throws IOException  if the stream cannot be read
+   * @throws SAXException if the stream does not contain valid XML
+   */
+  public static Document parse(InputStream stream) throws IOException, SAXException {
+    return parse(stream, -1L);
+  }
+
+  /**
+   * Parse a document, deferring node expansion if it is large.
+   *
+   * @param stream       an input stream containing an XML document as raw bytes; not closed by this method
+   * @param expectedSize the size of the document in bytes, or -1 if unknown
+   * @return the parsed document
+   * @throws IOException  if the stream cannot be read
+   * @throws SAXException if the stream does not contain valid XML
+   */
+  public static Document parse(InputStream stream, long expectedSize) throws IOException, SAXException {
+    Preconditions.checkNotNull(stream);
+    boolean deferNodeExpansion = expectedSize >= DEFERRED_EXPANSION_THRESHOLD;
+    DocumentBuilder builder = THREAD_STATE.get().getBuilder(deferNodeExpansion);
+    CountingInputStream countingStream = new CountingInputStream(stream);
+    long start = System.nanoTime();
+    boolean succeeded = false;
+    try {
+      Document document = builder.parse(countingStream);
+      succeeded = true;
+      return document;
+    } finally {
+      builder.reset();
+      record(System.nanoTime() - start, countingStream.getCount(), deferNodeExpansion, succeeded);
+    }
+  }
+
+  private static void record(long parseNanos, long bytes, boolean deferred, boolean succeeded) {
+    parseCount.increment();
+    if (!succeeded) {
+      failureCount.increment();
+    }
+    if (deferred) {
+      deferredCount.increment();
+    }
+    totalParseNanos.add(parseNanos);
+    totalBytes.add(bytes);
+    largestBytes.accumulate(bytes);
+  }
+
+  /**
+   * @return the counts and sizes of the documents parsed so far by this class, across all threads
+   */
+  public static Statistics getStatistics() {
+    return new Statistics(parseCount.sum(), failureCount.sum(), deferredCount.sum(),
+        totalParseNanos.sum(), totalBytes.sum(), largestBytes.get());
+  }
+
+  /**
+   * A snapshot of the documents parsed by {@link DocumentParser} since startup. Times are in milliseconds. Byte counts
+   * are of the raw input read by the parser, including documents that failed to parse.
+   */
+  public static final class Statistics {
+    private final long parseCount;
+    private final long failureCount;
+    private final long deferredCount;
+    private final double totalParseMillis;
+    private final double meanParseMillis;
+    private final long totalBytes;
+    private final long meanBytes;
+    private final long largestBytes;
+
+    private Statistics(long parseCount, long failureCount, long deferredCount,
+                       long totalParseNanos, long totalBytes, long largestBytes) {
+      this.parseCount = parseCount;
+      this.failureCount = failureCount;
+      this.deferredCount = deferredCount;
+      this.totalParseMillis = totalParseNanos / 1e6;
+      this.meanParseMillis = (parseCount == 0) ? 0.0 : totalParseMillis / parseCount;
+      this.totalBytes = totalBytes;
+      this.meanBytes = (parseCount == 0) ? 0L : totalBytes / parseCount;
+      this.largestBytes = largestBytes;
+    }
+
+    public long getParseCount() {
+      return parseCount;
+    }
+
+    public long getFailureCount() {
+      return failureCount;
+    }
+
+    public long getDeferredCount() {
+      return deferredCount;
+    }
+
+    public double getTotalParseMillis() {
+      return totalParseMillis;
+    }
+
+    public double getMeanParseMillis() {
+      return meanParseMillis;
+    }
+
+    public long getTotalBytes() {
+      return totalBytes;
+    }
+
+    public long getMeanBytes() {
+      return meanBytes;
+    }
+
+    public long getLargestBytes() {
+      return largestBytes;
+    }
+  }
+
+}
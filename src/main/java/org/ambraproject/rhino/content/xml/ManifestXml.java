@@ -24,6 +24,7 @@ package org.ambraproject.rhino.content.xml;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import org.ambraproject.rhino.model.ingest.AssetType;
@@ -170,6 +171,19 @@ public class ManifestXml extends AbstractXpathReader {
   }
 
   public void validateManifestCompleteness(Set<String> archiveEntryNames) {
+    validateManifestCompleteness(archiveEntryNames, ImmutableSet.of());
+  }
+
+  /**
+   * Check that the manifest describes exactly the files in a partial archive, whose other files are inherited from an
+   * earlier ingestion. Every file in the manifest must be either in the archive or inherited, and every file in the
+   * archive must be in the manifest.
+   *
+   * @param archiveEntryNames   the names of the files in the archive
+   * @param inheritedEntryNames the names of the files available from the earlier ingestion
+   * @throws RestClientException if the manifest is inconsistent with the files
+   */
+  public void validateManifestCompleteness(Set<String> archiveEntryNames, Set<String> inheritedEntryNames) {
     Stream<ManifestFile> manifestFiles = Stream.concat(
         getAssets().stream()
             .flatMap(asset -> asset.getRepresentations().stream())
@@ -179,7 +193,8 @@ public class ManifestXml extends AbstractXpathReader {
         .map(ManifestXml.ManifestFile::getEntry)
         .collect(Collectors.toSet());
 
-    Set<String> missingFromArchive = Sets.difference(manifestEntryNames, archiveEntryNames).immutableCopy();
+    Set<String> missingFromArchive = Sets.difference(manifestEntryNames,
+        Sets.union(archiveEntryNames, inheritedEntryNames)).immutableCopy();
     Set<String> missingFromManifest = Sets.difference(archiveEntryNames, manifestEntryNames).immutableCopy();
     if (!missingFromArchive.isEmpty() || !missingFromManifest.isEmpty()) {
       String message = "Manifest is not consistent with files in archive."
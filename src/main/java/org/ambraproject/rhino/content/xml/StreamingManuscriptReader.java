@@ -0,0 +1,758 @@
+/*
+ * Copyright (c) 2017 Public Library of Science
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package org.ambraproject.rhino.content.xml;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.LinkedListMultimap;
+import com.google.common.collect.ListMultimap;
+import org.ambraproject.rhino.config.RuntimeConfiguration;
+import org.ambraproject.rhino.identity.ArticleIdentifier;
+import org.ambraproject.rhino.identity.Doi;
+import org.ambraproject.rhino.model.article.ArticleCustomMetadata;
+import org.ambraproject.rhino.model.article.ArticleMetadata;
+import org.ambraproject.rhino.model.article.AssetMetadata;
+import org.ambraproject.rhino.model.article.NlmPerson;
+import org.ambraproject.rhino.model.article.RelatedArticleLink;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Reads the same metadata as {@link ArticleXml} and {@link CustomMetadataExtractor} from a manuscript, in one forward
+ * pass over the manuscript with StAX, without building a DOM of the whole document.
+ * <p/>
+ * Elements whose markup is kept verbatim in the metadata (the article title, the abstract and asset captions) are
+ * copied into small DOM fragments as they stream past, so that they serialize exactly as they would from a fully
+ * parsed document. Everything else is matched by element path and read as text.
+ * <p/>
+ * Instances of this class are not thread-safe and read only one manuscript. Use {@link Factory} to get a new one for
+ * each manuscript.
+ */
+public class StreamingManuscriptReader {
+
+  private static final Logger log = LoggerFactory.getLogger(StreamingManuscriptReader.class);
+
+  public static class Factory {
+    @Autowired
+    private RuntimeConfiguration runtimeConfiguration;
+
+    /**
+     * Read a manuscript. The stream is read to the end but not closed.
+     *
+     * @param manuscript a stream containing the manuscript XML
+     * @return the metadata read from the manuscript
+     * @throws XMLStreamException  if the manuscript is not well-formed XML
+     * @throws XmlContentException if the manuscript omits a required element or does not have the expected structure
+     */
+    public Result read(InputStream manuscript) throws XMLStreamException {
+      return new StreamingManuscriptReader(runtimeConfiguration).read(manuscript);
+    }
+  }
+
+  /**
+   * Everything needed from a manuscript to ingest it.
+   */
+  public static class Result {
+    private final ArticleMetadata articleMetadata;
+    private final ArticleCustomMetadata customMetadata;
+    private final ImmutableListMultimap<Doi, String> assetNodeNames;
+
+    private Result(ArticleMetadata articleMetadata, ArticleCustomMetadata customMetadata,
+                   ListMultimap<Doi, String> assetNodeNames) {
+      this.articleMetadata = Objects.requireNonNull(articleMetadata);
+      this.customMetadata = Objects.requireNonNull(customMetadata);
+      this.assetNodeNames = ImmutableListMultimap.copyOf(assetNodeNames);
+    }
+
+    /**
+     * @return the same value as {@link ArticleXml#build()}
+     */
+    public ArticleMetadata getArticleMetadata() {
+      return articleMetadata;
+    }
+
+    /**
+     * @return the same value as {@link CustomMetadataExtractor#build()}
+     */
+    public ArticleCustomMetadata getCustomMetadata() {
+      return customMetadata;
+    }
+
+    /**
+     * Get the names of the XML nodes that represent each asset, mapped by the asset's DOI. The keys and values are in
+     * the same order as {@link ArticleXml#findAllAssetNodes()}.
+     *
+     * @return the asset node names
+     */
+    public ImmutableListMultimap<Doi, String> getAssetNodeNames() {
+      return assetNodeNames;
+    }
+  }
+
+
+  private static final String REPORT_CDATA_EVENT = "http://java.sun.com/xml/stream/properties/report-cdata-event";
+
+  private static final ThreadLocal<XMLInputFactory> INPUT_FACTORY = ThreadLocal.withInitial(() -> {
+    XMLInputFactory factory = XMLInputFactory.newInstance();
+    factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+    factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+    factory.setProperty(XMLInputFactory.IS_REPLACING_ENTITY_REFERENCES, true);
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    if (factory.isPropertySupported(REPORT_CDATA_EVENT)) {
+      factory.setProperty(REPORT_CDATA_EVENT, true); // to copy CDATA sections into fragments as a DOM would have them
+    }
+
+    // Like DocumentParser, honor the internal DTD subset but never fetch an external DTD
+    factory.setXMLResolver((publicId, systemId, baseUri, namespace) -> new ByteArrayInputStream(new byte[0]));
+    return factory;
+  });
+
+  private static final ThreadLocal<TransformerFactory> TRANSFORMER_FACTORY = ThreadLocal.withInitial(TransformerFactory::newInstance);
+
+  private static final String ARTICLE_META = "/article/front/article-meta";
+  private static final String JOURNAL_META = "/article/front/journal-meta";
+
+  private static final String DOI_PATH = ARTICLE_META + "/article-id";
+  private static final String TITLE_PATH = ARTICLE_META + "/title-group/article-title";
+  private static final String ISSN_PATH = JOURNAL_META + "/issn";
+  private static final String ABSTRACT_PATH = ARTICLE_META + "/abstract";
+  private static final String COPYRIGHT_STATEMENT_PATH = ARTICLE_META + "/permissions/copyright-statement";
+  private static final String COPYRIGHT_HOLDER_PATH = ARTICLE_META + "/permissions/copyright-holder";
+  private static final String LICENSE_PATH = ARTICLE_META + "/permissions/license/license-p";
+  private static final String PAGE_COUNT_PATH = ARTICLE_META + "/counts/page-count";
+  private static final String ELOCATION_ID_PATH = ARTICLE_META + "/elocation-id";
+  private static final String VOLUME_PATH = ARTICLE_META + "/volume";
+  private static final String ISSUE_PATH = ARTICLE_META + "/issue";
+  private static final String PUBLISHER_NAME_PATH = JOURNAL_META + "/publisher/publisher-name";
+  private static final String PUBLISHER_LOCATION_PATH = JOURNAL_META + "/publisher/publisher-loc";
+  private static final String PUB_DATE_PATH = ARTICLE_META + "/pub-date";
+  private static final String SUBJECT_GROUP_PATH = ARTICLE_META + "/article-categories/subj-group";
+  private static final String CONTRIB_PATH = ARTICLE_META + "/contrib-group/contrib";
+
+  /**
+   * Paths whose first matching element's text is read, as with {@link AbstractXpathReader#readString}.
+   */
+  private static final ImmutableSet<String> TEXT_PATHS = ImmutableSet.of(
+      COPYRIGHT_STATEMENT_PATH, COPYRIGHT_HOLDER_PATH, LICENSE_PATH,
+      ELOCATION_ID_PATH, VOLUME_PATH, ISSUE_PATH,
+      PUBLISHER_NAME_PATH, PUBLISHER_LOCATION_PATH);
+
+  /**
+   * The paths of all elements that may have a descendant with a path of interest. Paths are tracked only within
+   * these, so nothing is concatenated for the body or back matter.
+   */
+  private static final ImmutableSet<String> PATH_PREFIXES = ImmutableSet.copyOf(
+      ImmutableList.of(DOI_PATH, TITLE_PATH, ISSN_PATH, ABSTRACT_PATH, COPYRIGHT_STATEMENT_PATH, LICENSE_PATH,
+          PAGE_COUNT_PATH, PUBLISHER_NAME_PATH, PUB_DATE_PATH, SUBJECT_GROUP_PATH, CONTRIB_PATH).stream()
+          .flatMap(path -> {
+            List<String> prefixes = new ArrayList<>();
+            for (int i = path.indexOf('/', 1); i > 0; i = path.indexOf('/', i + 1)) {
+              prefixes.add(path.substring(0, i));
+            }
+            return prefixes.stream();
+          })
+          .collect(Collectors.toSet()));
+
+  // The children whose text is read from elements of each kind, in addition to "label", which is read from every
+  // element in case it turns out to represent an asset
+  private static final ImmutableSet<String> DEFAULT_CHILDREN = ImmutableSet.of("label");
+  private static final ImmutableSet<String> CUSTOM_META_CHILDREN = ImmutableSet.of("label", "meta-name", "meta-value");
+  private static final ImmutableSet<String> PERSON_NAME_CHILDREN = ImmutableSet.of("label", "surname", "given-names", "suffix");
+  private static final ImmutableSet<String> PUB_DATE_CHILDREN = ImmutableSet.of("label", "year", "month", "day");
+
+  // Pseudo-name under which the first <object-id pub-id-type="doi"> child of a <disp-formula> is read
+  private static final String OBJECT_ID_DOI = "object-id[@pub-id-type=\"doi\"]";
+
+  /**
+   * An open element (or, after it ends, an element that is still needed to build the result).
+   */
+  private static class Frame {
+    private final Frame parent;
+    private final String nodeName; // the qualified name, as from Node.getNodeName
+    private final String name; // the local name if the element has no namespace; else null (XPath won't match it)
+    private final String path; // null unless the path could be of interest
+
+    private ImmutableSet<String> textChildren = DEFAULT_CHILDREN;
+    private Map<String, Frame> firstChildren; // lazily created
+    private Fragment caption;
+
+    private StringBuilder text;
+    private String firstHref;
+    private String attribute; // the one attribute value of interest, depending on the element
+
+    private Frame(Frame parent, String nodeName, String name) {
+      this.parent = parent;
+      this.nodeName = nodeName;
+      this.name = name;
+      this.path = (parent == null) ? (name == null ? null : "/" + name)
+          : (name != null && parent.path != null && PATH_PREFIXES.contains(parent.path)) ? parent.path + "/" + name
+          : null;
+    }
+
+    private Frame getFirstChild(String childName) {
+      return (firstChildren == null) ? null : firstChildren.get(childName);
+    }
+
+    private boolean claimFirstChild(String childName, Frame child) {
+      if (firstChildren == null) {
+        firstChildren = new HashMap<>(4);
+      }
+      return firstChildren.putIfAbsent(childName, child) == null;
+    }
+  }
+
+  /**
+   * A copy of an element from the manuscript, built as the element streams past.
+   */
+  private static class Fragment {
+    private final Frame owner;
+    private final Element root;
+    private Node current;
+
+    private Fragment(Frame owner, Element root) {
+      this.owner = owner;
+      this.root = root;
+      this.current = root;
+    }
+  }
+
+  private final RuntimeConfiguration runtimeConfiguration;
+  private final DocumentBuilder documentBuilder;
+  private final Transformer transformer;
+
+  private Frame top;
+  private final List<Frame> textCollectors = new ArrayList<>();
+  private final List<Fragment> openFragments = new ArrayList<>();
+
+  private final Map<String, Frame> textsByPath = new HashMap<>();
+  private String language;
+  private String nlmArticleType;
+  private String pageCount;
+  private Frame doi;
+  private Frame epubIssn;
+  private Frame firstIssn;
+  private Fragment title;
+  private Fragment tocAbstract;
+  private Fragment summaryAbstract;
+  private Fragment firstAbstract;
+  private Frame epubDate;
+  private Frame electronicDate;
+  private final List<Frame> headings = new ArrayList<>();
+  private final List<Frame> editors = new ArrayList<>();
+  private final List<Frame> relatedArticles = new ArrayList<>();
+  private final List<Frame> customMeta = new ArrayList<>();
+  private final List<Frame> assetNodes = new ArrayList<>();
+
+  private StreamingManuscriptReader(RuntimeConfiguration runtimeConfiguration) {
+    this.runtimeConfiguration = Objects.requireNonNull(runtimeConfiguration);
+    this.documentBuilder = DocumentParser.newDocumentBuilder();
+    try {
+      this.transformer = TRANSFORMER_FACTORY.get().newTransformer();
+    } catch (TransformerConfigurationException e) {
+      throw new RuntimeException(e);
+    }
+    // Same output as AbstractXpathReader.getXmlFromNode
+    transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+  }
+
+  private Result read(InputStream manuscript) throws XMLStreamException {
+    XMLStreamReader reader = INPUT_FACTORY.get().createXMLStreamReader(manuscript);
+    try {
+      while (reader.hasNext()) {
+        switch (reader.next()) {
+          case XMLStreamConstants.START_ELEMENT:
+            startElement(reader);
+            break;
+          case XMLStreamConstants.END_ELEMENT:
+            endElement();
+            break;
+          case XMLStreamConstants.CHARACTERS:
+          case XMLStreamConstants.SPACE:
+            characters(reader.getText(), false);
+            break;
+          case XMLStreamConstants.CDATA:
+            characters(reader.getText(), true);
+            break;
+          case XMLStreamConstants.COMMENT:
+            for (Fragment fragment : openFragments) {
+              fragment.current.appendChild(fragment.root.getOwnerDocument().createComment(reader.getText()));
+            }
+            break;
+          case XMLStreamConstants.PROCESSING_INSTRUCTION:
+            for (Fragment fragment : openFragments) {
+              fragment.current.appendChild(fragment.root.getOwnerDocument()
+                  .createProcessingInstruction(reader.getPITarget(), reader.getPIData()));
+            }
+            break;
+          default:
+            break;
+        }
+      }
+    } finally {
+      reader.close();
+    }
+
+    ListMultimap<Doi, Frame> assetNodeMap = findAssetNodes();
+    ArticleMetadata articleMetadata = buildArticleMetadata(assetNodeMap);
+    ArticleCustomMetadata customMetadata = CustomMetadataExtractor.build(readCustomMeta(), runtimeConfiguration);
+    return new Result(articleMetadata, customMetadata, getAssetNodeNames(assetNodeMap));
+  }
+
+  private void startElement(XMLStreamReader reader) {
+    String namespace = Strings.emptyToNull(reader.getNamespaceURI());
+    String localName = reader.getLocalName();
+    Frame parent = top;
+    Frame frame = new Frame(parent, qualify(reader.getPrefix(), localName), (namespace == null) ? localName : null);
+    top = frame;
+
+    for (Fragment fragment : openFragments) {
+      Element element = copyElement(fragment.root.getOwnerDocument(), reader);
+      fragment.current.appendChild(element);
+      fragment.current = element;
+    }
+
+    // As from AbstractArticleXml.readHrefAttribute, every open element without an href takes its first descendant's
+    String href = getAttributeByQualifiedName(reader, "xlink", "href");
+    if (href != null) {
+      for (Frame f = frame; f != null && f.firstHref == null; f = f.parent) {
+        f.firstHref = href;
+      }
+    }
+
+    if (frame.path != null) {
+      matchPath(frame, reader);
+    }
+    String name = frame.name;
+    if (name == null) return;
+    if (parent != null) {
+      matchChild(parent, frame, reader);
+    }
+
+    if (name.equals("related-article")) {
+      frame.attribute = getAttribute(reader, "related-article-type");
+      relatedArticles.add(frame);
+    } else if (name.equals("custom-meta") && parent != null && "custom-meta-group".equals(parent.name)) {
+      frame.textChildren = CUSTOM_META_CHILDREN;
+      customMeta.add(frame);
+    } else if (AbstractArticleXml.ASSET_NODE_NAMES.contains(name)) {
+      assetNodes.add(frame);
+    }
+  }
+
+  private void matchPath(Frame frame, XMLStreamReader reader) {
+    String path = frame.path;
+    if (path.equals("/article")) {
+      language = getAttribute(reader, XMLConstants.XML_NS_URI, "lang");
+      nlmArticleType = getAttribute(reader, "article-type");
+    } else if (TEXT_PATHS.contains(path)) {
+      if (textsByPath.putIfAbsent(path, frame) == null) {
+        collectText(frame);
+      }
+    } else if (path.equals(DOI_PATH)) {
+      if (doi == null && "doi".equals(getAttribute(reader, "pub-id-type"))) {
+        doi = collectText(frame);
+      }
+    } else if (path.equals(ISSN_PATH)) {
+      if (firstIssn == null) {
+        firstIssn = collectText(frame);
+      }
+      if (epubIssn == null && "epub".equals(getAttribute(reader, "pub-type"))) {
+        epubIssn = collectText(frame);
+      }
+    } else if (path.equals(TITLE_PATH)) {
+      if (title == null) {
+        title = openFragment(frame, reader);
+      }
+    } else if (path.equals(ABSTRACT_PATH)) {
+      String abstractType = getAttribute(reader, "abstract-type");
+      boolean isToc = tocAbstract == null && "toc".equals(abstractType);
+      boolean isSummary = summaryAbstract == null && "summary".equals(abstractType);
+      if (isToc || isSummary || firstAbstract == null) {
+        Fragment fragment = openFragment(frame, reader);
+        if (isToc) tocAbstract = fragment;
+        if (isSummary) summaryAbstract = fragment;
+        if (firstAbstract == null) firstAbstract = fragment;
+      }
+    } else if (path.equals(PAGE_COUNT_PATH)) {
+      if (pageCount == null) {
+        pageCount = getAttribute(reader, "count");
+      }
+    } else if (path.equals(PUB_DATE_PATH)) {
+      frame.textChildren = PUB_DATE_CHILDREN;
+      if (epubDate == null && "epub".equals(getAttribute(reader, "pub-type"))) {
+        epubDate = frame;
+      }
+      if (electronicDate == null && "electronic".equals(getAttribute(reader, "publication-format"))) {
+        electronicDate = frame;
+      }
+    } else if (path.equals(SUBJECT_GROUP_PATH)) {
+      if ("heading".equals(getAttribute(reader, "subj-group-type"))) {
+        frame.attribute = "heading";
+      }
+    } else if (path.equals(CONTRIB_PATH)) {
+      if ("editor".equals(getAttribute(reader, "contrib-type"))) {
+        frame.attribute = "editor";
+      }
+    }
+  }
+
+  private void matchChild(Frame parent, Frame child, XMLStreamReader reader) {
+    String name = child.name;
+    if (parent.textChildren.contains(name)) {
+      if (parent.claimFirstChild(name, child)) {
+        collectText(child);
+      }
+    } else if (name.equals("caption")) {
+      if (parent.caption == null) {
+        parent.caption = openFragment(child, reader);
+      }
+    } else if (name.equals("object-id")) {
+      if (AbstractArticleXml.DISP_FORMULA.equals(parent.name) && "doi".equals(getAttribute(reader, "pub-id-type"))) {
+        if (parent.claimFirstChild(OBJECT_ID_DOI, child)) {
+          collectText(child);
+        }
+      }
+    } else if (name.equals("subject")) {
+      if ("heading".equals(parent.attribute) && SUBJECT_GROUP_PATH.equals(parent.path)) {
+        headings.add(collectText(child));
+      }
+    } else if (name.equals("name")) {
+      if ("editor".equals(parent.attribute) && CONTRIB_PATH.equals(parent.path)) {
+        child.textChildren = PERSON_NAME_CHILDREN;
+        child.attribute = getAttribute(reader, "name-style");
+        editors.add(child);
+      }
+    }
+  }
+
+  private void endElement() {
+    Frame frame = top;
+    for (int i = openFragments.size() - 1; i >= 0; i--) {
+      Fragment fragment = openFragments.get(i);
+      if (fragment.owner == frame) {
+        openFragments.remove(i);
+      } else {
+        fragment.current = fragment.current.getParentNode();
+      }
+    }
+    if (frame.text != null) {
+      textCollectors.remove(frame);
+    }
+    top = frame.parent;
+  }
+
+  private void characters(String text, boolean isCdata) {
+    for (Frame collector : textCollectors) {
+      collector.text.append(text);
+    }
+    for (Fragment fragment : openFragments) {
+      Document document = fragment.root.getOwnerDocument();
+      fragment.current.appendChild(isCdata ? document.createCDATASection(text) : document.createTextNode(text));
+    }
+  }
+
+  private Frame collectText(Frame frame) {
+    if (frame.text == null) {
+      frame.text = new StringBuilder();
+      textCollectors.add(frame);
+    }
+    return frame;
+  }
+
+  private Fragment openFragment(Frame owner, XMLStreamReader reader) {
+    Document document = documentBuilder.newDocument();
+    Element root = copyElement(document, reader);
+    document.appendChild(root);
+    Fragment fragment = new Fragment(owner, root);
+    openFragments.add(fragment);
+    return fragment;
+  }
+
+  private static Element copyElement(Document document, XMLStreamReader reader) {
+    Element element = document.createElementNS(Strings.emptyToNull(reader.getNamespaceURI()),
+        qualify(reader.getPrefix(), reader.getLocalName()));
+    for (int i = 0; i < reader.getNamespaceCount(); i++) {
+      String prefix = reader.getNamespacePrefix(i);
+      String declaration = Strings.isNullOrEmpty(prefix) ? XMLConstants.XMLNS_ATTRIBUTE
+          : XMLConstants.XMLNS_ATTRIBUTE + ":" + prefix;
+      element.setAttributeNS(XMLConstants.XMLNS_ATTRIBUTE_NS_URI, declaration,
+          Strings.nullToEmpty(reader.getNamespaceURI(i)));
+    }
+    for (int i = 0; i < reader.getAttributeCount(); i++) {
+      element.setAttributeNS(Strings.emptyToNull(reader.getAttributeNamespace(i)),
+          qualify(reader.getAttributePrefix(i), reader.getAttributeLocalName(i)),
+          reader.getAttributeValue(i));
+    }
+    return element;
+  }
+
+  private static String qualify(String prefix, String localName) {
+    return Strings.isNullOrEmpty(prefix) ? localName : prefix + ":" + localName;
+  }
+
+  /**
+   * Get the value of an attribute in no namespace, as matched by an XPath expression like {@code @name}.
+   */
+  private static String getAttribute(XMLStreamReader reader, String localName) {
+    return getAttribute(reader, XMLConstants.NULL_NS_URI, localName);
+  }
+
+  private static String getAttribute(XMLStreamReader reader, String namespace, String localName) {
+    for (int i = 0; i < reader.getAttributeCount(); i++) {
+      if (localName.equals(reader.getAttributeLocalName(i))
+          && namespace.equals(Strings.nullToEmpty(reader.getAttributeNamespace(i)))) {
+        return reader.getAttributeValue(i);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Get the value of an attribute by its literal qualified name, as matched by {@code NamedNodeMap.getNamedItem}.
+   */
+  private static String getAttributeByQualifiedName(XMLStreamReader reader, String prefix, String localName) {
+    for (int i = 0; i < reader.getAttributeCount(); i++) {
+      if (localName.equals(reader.getAttributeLocalName(i)) && prefix.equals(reader.getAttributePrefix(i))) {
+        return reader.getAttributeValue(i);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @return the same value that {@link AbstractXpathReader#getTextFromNode} would return for the frame's element
+   */
+  private static String getText(Frame frame) {
+    return (frame == null) ? null : AbstractArticleXml.sanitizeText(frame.text.toString());
+  }
+
+  /**
+   * @return the same value that {@link AbstractXpathReader#readString} would return for the frame's element
+   */
+  private static String readString(Frame frame) {
+    String text = getText(frame);
+    return StringUtils.isBlank(text) ? null : text;
+  }
+
+  private static String readString(String attributeValue) {
+    String text = AbstractArticleXml.sanitizeText(attributeValue);
+    return StringUtils.isBlank(text) ? null : text;
+  }
+
+  /**
+   * @return the same value that {@link AbstractXpathReader#getXmlFromNode} would return for the fragment's element
+   */
+  private String getXml(Fragment fragment) {
+    if (fragment == null) return null;
+    StringWriter writer = new StringWriter();
+    try {
+      transformer.transform(new DOMSource(fragment.root), new StreamResult(writer));
+    } catch (TransformerException e) {
+      throw new RuntimeException(e);
+    }
+    return AbstractArticleXml.sanitizeText(writer.toString());
+  }
+
+  /**
+   * Follows {@link ArticleXml#build()}, in the same order so that the same error is reported for an invalid
+   * manuscript.
+   */
+  private ArticleMetadata buildArticleMetadata(ListMultimap<Doi, Frame> assetNodeMap) throws XmlContentException {
+    ArticleMetadata.Builder article = ArticleMetadata.builder();
+    article.setFormat("text/xml");
+
+    String doiName = readString(doi);
+    if (doiName == null) {
+      throw new XmlContentException("DOI not found");
+    }
+    article.setDoi(Doi.create(doiName).getName());
+
+    article.setTitle(getXml(title));
+    String eissn = readString(epubIssn);
+    if (Strings.isNullOrEmpty(eissn)) {
+      eissn = readString(firstIssn);
+    }
+    article.seteIssn(ArticleXml.checkEissn(eissn));
+    article.setDescription(getXml(tocAbstract != null ? tocAbstract
+        : summaryAbstract != null ? summaryAbstract
+        : firstAbstract));
+
+    String rights = readString(textsByPath.get(COPYRIGHT_STATEMENT_PATH));
+    if (rights == null) {
+      rights = ArticleXml.buildRights(
+          readString(textsByPath.get(COPYRIGHT_HOLDER_PATH)),
+          readString(textsByPath.get(LICENSE_PATH)));
+    }
+    article.setRights(rights);
+
+    article.setPageCount(ArticleXml.parsePageCount(readString(pageCount)));
+    article.seteLocationId(readString(textsByPath.get(ELOCATION_ID_PATH)));
+    article.setVolume(readString(textsByPath.get(VOLUME_PATH)));
+    article.setIssue(readString(textsByPath.get(ISSUE_PATH)));
+    article.setPublisherName(readString(textsByPath.get(PUBLISHER_NAME_PATH)));
+    article.setPublisherLocation(readString(textsByPath.get(PUBLISHER_LOCATION_PATH)));
+    article.setLanguage(ArticleXml.parseLanguage(readString(language)));
+    Frame dateFrame = (epubDate != null) ? epubDate : electronicDate;
+    article.setPublicationDate(ArticleXml.parseDate(
+        readChildString(dateFrame, "year"),
+        readChildString(dateFrame, "month"),
+        readChildString(dateFrame, "day")));
+
+    article.setNlmArticleType(readString(nlmArticleType));
+    article.setArticleType(ArticleXml.selectArticleHeading(headings.stream()
+        .map(StreamingManuscriptReader::getText)
+        .collect(Collectors.toList())));
+
+    List<NlmPerson> editorList = new ArrayList<>(editors.size());
+    for (Frame editor : editors) {
+      String surname = readChildString(editor, "surname");
+      if (surname == null) {
+        throw new XmlContentException("Required surname is omitted from editor name");
+      }
+      editorList.add(AbstractArticleXml.buildPerson(readString(editor.attribute), surname,
+          readChildString(editor, "given-names"), readChildString(editor, "suffix")));
+    }
+    article.setEditors(editorList);
+
+    article.setUrl(ArticleXml.buildUrl(doiName));
+
+    List<RelatedArticleLink> relatedArticleLinks = new ArrayList<>(relatedArticles.size());
+    for (Frame relatedArticle : relatedArticles) {
+      relatedArticleLinks.add(new RelatedArticleLink(readString(relatedArticle.attribute),
+          ArticleIdentifier.create(relatedArticle.firstHref)));
+    }
+    article.setRelatedArticles(relatedArticleLinks);
+
+    article.setAssets(buildAssets(assetNodeMap));
+    return article.build();
+  }
+
+  private static String readChildString(Frame frame, String childName) {
+    return (frame == null) ? null : readString(frame.getFirstChild(childName));
+  }
+
+  /**
+   * Map each asset node to its DOI and replace {@code <graphic>} nodes, as {@link ArticleXml#findAllAssetNodes()}
+   * does.
+   */
+  private ListMultimap<Doi, Frame> findAssetNodes() {
+    ListMultimap<Doi, Frame> nodeMap = LinkedListMultimap.create(assetNodes.size());
+    for (Frame node : assetNodes) {
+      String assetDoi = null;
+      if (AbstractArticleXml.DISP_FORMULA.equals(node.nodeName)) {
+        assetDoi = readString(node.getFirstChild(OBJECT_ID_DOI));
+      }
+      if (assetDoi == null) {
+        assetDoi = node.firstHref;
+      }
+      if (assetDoi == null) {
+        log.warn("An asset node ({}) does not have DOI as expected", node.nodeName);
+        continue;
+      }
+      nodeMap.put(Doi.create(assetDoi), replaceGraphicNode(node));
+    }
+    return nodeMap;
+  }
+
+  private static Frame replaceGraphicNode(Frame node) {
+    Frame parent = node.parent;
+    if (!node.nodeName.equals(AbstractArticleXml.GRAPHIC) || parent == null) {
+      return node;
+    }
+    if (AbstractArticleXml.GRAPHIC_NODE_PARENTS.contains(parent.nodeName)) {
+      return parent;
+    }
+    if (parent.nodeName.equals(AbstractArticleXml.ALTERNATIVES) && parent.parent != null) {
+      return parent.parent;
+    }
+    return node;
+  }
+
+  private List<AssetMetadata> buildAssets(ListMultimap<Doi, Frame> assetNodeMap) {
+    List<AssetMetadata> assets = new ArrayList<>(assetNodeMap.keySet().size());
+    for (Map.Entry<Doi, Collection<Frame>> entry : assetNodeMap.asMap().entrySet()) {
+      String doi = entry.getKey().getName();
+      List<AssetMetadata> nodeMetadata = new ArrayList<>(entry.getValue().size());
+      for (Frame node : entry.getValue()) {
+        String label = Strings.nullToEmpty(readString(node.getFirstChild("label")));
+        String caption = Strings.nullToEmpty(getXml(node.caption));
+        nodeMetadata.add(new AssetMetadata(doi, label, caption));
+      }
+      assets.add(ArticleXml.selectAssetMetadata(nodeMetadata));
+    }
+    return assets;
+  }
+
+  private static ImmutableListMultimap<Doi, String> getAssetNodeNames(ListMultimap<Doi, Frame> assetNodeMap) {
+    ImmutableListMultimap.Builder<Doi, String> names = ImmutableListMultimap.builder();
+    for (Map.Entry<Doi, Frame> entry : assetNodeMap.entries()) {
+      names.put(entry.getKey(), entry.getValue().nodeName);
+    }
+    return names.build();
+  }
+
+  /**
+   * Follows {@code CustomMetadataExtractor.parseCustomMeta}.
+   */
+  private ListMultimap<String, String> readCustomMeta() {
+    ImmutableListMultimap.Builder<String, String> builder = ImmutableListMultimap.builder();
+    for (Frame node : customMeta) {
+      String name = readChildString(node, "meta-name");
+      String value = Strings.nullToEmpty(readChildString(node, "meta-value"));
+      builder.put(name, value);
+    }
+    return builder.build();
+  }
+
+}
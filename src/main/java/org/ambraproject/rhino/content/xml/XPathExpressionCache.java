@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2017 Public Library of Science
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package org.ambraproject.rhino.content.xml;
+
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+
+/**
+ * Compiled XPath expressions, shared by every {@link AbstractXpathReader}.
+ * <p/>
+ * The readers evaluate the same constant queries against every article, so each query needs compiling only once.
+ * Compiling is a small part of a query's cost (a few microseconds, against most of a millisecond to evaluate one
+ * against a typical manuscript), so this saves little; {@code XPathExpressionCacheBenchmark} measures how much.
+ * <p/>
+ * JAXP doesn't require {@link XPath} or {@link XPathExpression} objects to be thread-safe, so each thread compiles and
+ * holds its own copy of each expression. Each thread's cache is bounded because some callers (such as {@code
+ * AuthorsXmlExtractor}) build queries from document content.
+ */
+final class XPathExpressionCache {
+
+  private XPathExpressionCache() {
+    throw new AssertionError("Not instantiable");
+  }
+
+  /**
+   * The maximum number of compiled expressions that one thread holds.
+   */
+  private static final int MAXIMUM_SIZE_PER_THREAD = 500;
+
+  private static final class ThreadState {
+    private final XPath xPath = XPathFactory.newInstance().newXPath();
+    private final Cache<String, XPathExpression> expressions = CacheBuilder.newBuilder()
+        .maximumSize(MAXIMUM_SIZE_PER_THREAD)
+        .concurrencyLevel(1)
+        .build();
+  }
+
+  private static final ThreadLocal<ThreadState> THREAD_STATE = ThreadLocal.withInitial(ThreadState::new);
+
+  /**
+   * Get a compiled expression for the current thread to use. The returned object must not be shared with other
+   * threads.
+   *
+   * @param query an XPath expression
+   * @return the compiled expression
+   * @throws XPathExpressionException if the expression cannot be compiled
+   */
+  static XPathExpression compile(String query) throws XPathExpressionException {
+    Preconditions.checkNotNull(query);
+    ThreadState state = THREAD_STATE.get();
+    XPathExpression expression = state.expressions.getIfPresent(query);
+    if (expression == null) {
+      expression = state.xPath.compile(query);
+      state.expressions.put(query, expression);
+    }
+    return expression;
+  }
+
+}
@@ -35,7 +35,7 @@ public class XpathReader extends AbstractXpathReader {
   }
 
   public NodeList selectNodes(Node node, String query) throws XPathException {
-    return (NodeList) xPath.evaluate(query, node, XPathConstants.NODESET);
+    return (NodeList) compile(query).evaluate(node, XPathConstants.NODESET);
   }
 
   public String selectString(Node node, String query) throws XPathException {
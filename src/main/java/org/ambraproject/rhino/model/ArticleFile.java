@@ -22,8 +22,8 @@
 
 package org.ambraproject.rhino.model;
 
-import org.hibernate.annotations.Generated;
-import org.hibernate.annotations.GenerationTime;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 import org.plos.crepo.model.identity.RepoVersion;
 
 import javax.persistence.Column;
@@ -41,8 +41,17 @@ import java.util.Date;
 @Table(name = "articleFile")
 public class ArticleFile implements Timestamped {
 
+  // Not an identity column, so that a package's rows can be inserted in JDBC batches
   @Id
-  @GeneratedValue
+  @GeneratedValue(generator = "articleFileIdGenerator")
+  @GenericGenerator(name = "articleFileIdGenerator", strategy = "org.hibernate.id.enhanced.TableGenerator",
+      parameters = {
+          @Parameter(name = "table_name", value = "idSequence"),
+          @Parameter(name = "segment_column_name", value = "sequenceName"),
+          @Parameter(name = "value_column_name", value = "nextValue"),
+          @Parameter(name = "segment_value", value = "articleFile"),
+          @Parameter(name = "increment_size", value = "50"),
+          @Parameter(name = "optimizer", value = "pooled")})
   @Column
   private long fileId;
 
@@ -69,12 +78,15 @@ public class ArticleFile implements Timestamped {
   @Column
   private long fileSize;
 
+  @Column
+  private String sha256;
+
   @Column
   private String ingestedFileName;
 
-  @Generated(value = GenerationTime.INSERT)
+  // Set when saved, rather than generated by the database, because reading it back would break up batched inserts
   @Temporal(javax.persistence.TemporalType.TIMESTAMP)
-  @Column(name = "created", insertable = false, updatable = false, columnDefinition = "timestamp default current_timestamp")
+  @Column(name = "created", updatable = false, columnDefinition = "timestamp default current_timestamp")
   private Date created;
 
   public long getFileId() {
@@ -141,6 +153,14 @@ public class ArticleFile implements Timestamped {
     this.fileSize = fileSize;
   }
 
+  public String getSha256() {
+    return sha256;
+  }
+
+  public void setSha256(String sha256) {
+    this.sha256 = sha256;
+  }
+
   public String getIngestedFileName() {
     return ingestedFileName;
   }
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2017 Public Library of Science
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package org.ambraproject.rhino.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Lob;
+import javax.persistence.Table;
+
+/**
+ * The metadata that was parsed from an ingestion's manuscript, stored in serialized form so that it can be read without
+ * fetching and parsing the manuscript again.
+ */
+@Entity
+@Table(name = "articleIngestionMetadata")
+public class ArticleIngestionMetadata {
+
+  @Id
+  @Column
+  private long ingestionId;
+
+  @Column
+  private int formatVersion;
+
+  @Lob
+  @Column
+  private byte[] metadata;
+
+
+  public long getIngestionId() {
+    return ingestionId;
+  }
+
+  public void setIngestionId(long ingestionId) {
+    this.ingestionId = ingestionId;
+  }
+
+  public int getFormatVersion() {
+    return formatVersion;
+  }
+
+  public void setFormatVersion(int formatVersion) {
+    this.formatVersion = formatVersion;
+  }
+
+  public byte[] getMetadata() {
+    return metadata;
+  }
+
+  public void setMetadata(byte[] metadata) {
+    this.metadata = metadata;
+  }
+
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    return ingestionId == ((ArticleIngestionMetadata) o).ingestionId;
+  }
+
+  @Override
+  public int hashCode() {
+    return Long.hashCode(ingestionId);
+  }
+
+  @Override
+  public String toString() {
+    return "ArticleIngestionMetadata{" +
+        "ingestionId=" + ingestionId +
+        ", formatVersion=" + formatVersion +
+        '}';
+  }
+}
@@ -27,8 +27,8 @@ import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
 import org.hibernate.annotations.Cascade;
 import org.hibernate.annotations.CascadeType;
-import org.hibernate.annotations.Generated;
-import org.hibernate.annotations.GenerationTime;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
@@ -49,8 +49,17 @@ import java.util.Optional;
 @Table(name = "articleItem")
 public class ArticleItem implements Timestamped {
 
+  // Not an identity column, so that a package's rows can be inserted in JDBC batches
   @Id
-  @GeneratedValue
+  @GeneratedValue(generator = "articleItemIdGenerator")
+  @GenericGenerator(name = "articleItemIdGenerator", strategy = "org.hibernate.id.enhanced.TableGenerator",
+      parameters = {
+          @Parameter(name = "table_name", value = "idSequence"),
+          @Parameter(name = "segment_column_name", value = "sequenceName"),
+          @Parameter(name = "value_column_name", value = "nextValue"),
+          @Parameter(name = "segment_value", value = "articleItem"),
+          @Parameter(name = "increment_size", value = "50"),
+          @Parameter(name = "optimizer", value = "pooled")})
   @Column
   private long itemId;
 
@@ -68,9 +77,9 @@ public class ArticleItem implements Timestamped {
   @OneToMany(targetEntity = ArticleFile.class, mappedBy = "item", fetch = FetchType.EAGER)
   private Collection<ArticleFile> files;
 
-  @Generated(value = GenerationTime.INSERT)
+  // Set when saved, rather than generated by the database, because reading it back would break up batched inserts
   @Temporal(javax.persistence.TemporalType.TIMESTAMP)
-  @Column(name = "created", insertable = false, updatable = false, columnDefinition = "timestamp default current_timestamp")
+  @Column(name = "created", updatable = false, columnDefinition = "timestamp default current_timestamp")
   private Date created;
 
 
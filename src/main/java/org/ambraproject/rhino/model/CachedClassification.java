@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2017 Public Library of Science
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package org.ambraproject.rhino.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Lob;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import java.util.Date;
+
+/**
+ * The raw terms that the taxonomy server returned for some classification content, stored so that the same content
+ * can be classified again without calling the server.
+ *
+ * @see org.ambraproject.rhino.service.taxonomy.impl.TaxonomyClassificationCache
+ */
+@Entity
+@Table(name = "taxonomyClassificationCache")
+public class CachedClassification {
+
+  @Id
+  @Column
+  private String contentHash;
+
+  @Column
+  private String thesaurus;
+
+  @Lob
+  @Column
+  private String terms;
+
+  @Temporal(javax.persistence.TemporalType.TIMESTAMP)
+  @Column
+  private Date classified;
+
+
+  /**
+   * @return a SHA-256 digest, as a lowercase hexadecimal string, of the thesaurus and the content sent to the server
+   */
+  public String getContentHash() {
+    return contentHash;
+  }
+
+  public void setContentHash(String contentHash) {
+    this.contentHash = contentHash;
+  }
+
+  public String getThesaurus() {
+    return thesaurus;
+  }
+
+  public void setThesaurus(String thesaurus) {
+    this.thesaurus = thesaurus;
+  }
+
+  /**
+   * @return the raw terms, as a JSON array of strings
+   */
+  public String getTerms() {
+    return terms;
+  }
+
+  public void setTerms(String terms) {
+    this.terms = terms;
+  }
+
+  public Date getClassified() {
+    return classified;
+  }
+
+  public void setClassified(Date classified) {
+    this.classified = classified;
+  }
+
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    return contentHash != null ? contentHash.equals(((CachedClassification) o).contentHash)
+        : ((CachedClassification) o).contentHash == null;
+  }
+
+  @Override
+  public int hashCode() {
+    return contentHash != null ? contentHash.hashCode() : 0;
+  }
+
+  @Override
+  public String toString() {
+    return "CachedClassification{" +
+        "contentHash='" + contentHash + '\'' +
+        ", thesaurus='" + thesaurus + '\'' +
+        ", classified=" + classified +
+        '}';
+  }
+}
@@ -0,0 +1,252 @@
+/*
+ * Copyright (c) 2017 Public Library of Science
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package org.ambraproject.rhino.model;
+
+import org.hibernate.annotations.Generated;
+import org.hibernate.annotations.GenerationTime;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import java.util.Date;
+
+/**
+ * A request to ingest an article package in the background. The uploaded archive is held in a spool file until the job
+ * finishes, so that a job that was queued or running when the server stopped can be run again when it starts. Only
+ * the server that owns a job runs it.
+ */
+@Entity
+@Table(name = "ingestionJob")
+public class IngestionJob implements Timestamped {
+
+  public static enum State {
+    QUEUED, RUNNING, SUCCEEDED, FAILED;
+
+    public boolean isFinished() {
+      return this == SUCCEEDED || this == FAILED;
+    }
+  }
+
+  @Id
+  @GeneratedValue
+  @Column
+  private long jobId;
+
+  @Column
+  private String archiveName;
+
+  @Column
+  private String spoolFile;
+
+  @Column
+  private Integer baseIngestionNumber;
+
+  @Enumerated(EnumType.STRING)
+  @Column
+  private State state;
+
+  @Column
+  private String owner;
+
+  @JoinColumn(name = "ingestionId", nullable = true)
+  @ManyToOne
+  private ArticleIngestion ingestion;
+
+  @Column
+  private String errorMessage;
+
+  @Column
+  private String stageTimings;
+
+  @Temporal(javax.persistence.TemporalType.TIMESTAMP)
+  @Column
+  private Date started;
+
+  @Temporal(javax.persistence.TemporalType.TIMESTAMP)
+  @Column
+  private Date finished;
+
+  @Generated(value = GenerationTime.INSERT)
+  @Temporal(javax.persistence.TemporalType.TIMESTAMP)
+  @Column(insertable = false, updatable = false, columnDefinition = "timestamp default current_timestamp")
+  private Date created;
+
+  @Generated(value = GenerationTime.ALWAYS)
+  @Temporal(javax.persistence.TemporalType.TIMESTAMP)
+  @Column(insertable = false, updatable = false, columnDefinition = "timestamp default current_timestamp")
+  private Date lastModified;
+
+
+  public long getJobId() {
+    return jobId;
+  }
+
+  public void setJobId(long jobId) {
+    this.jobId = jobId;
+  }
+
+  public String getArchiveName() {
+    return archiveName;
+  }
+
+  public void setArchiveName(String archiveName) {
+    this.archiveName = archiveName;
+  }
+
+  /**
+   * @return the path of the file holding the uploaded archive, or null if the job is finished and it was deleted
+   */
+  public String getSpoolFile() {
+    return spoolFile;
+  }
+
+  public void setSpoolFile(String spoolFile) {
+    this.spoolFile = spoolFile;
+  }
+
+  /**
+   * @return the number of the ingestion to inherit files from that are missing from the archive, or null if the archive
+   * is complete
+   */
+  public Integer getBaseIngestionNumber() {
+    return baseIngestionNumber;
+  }
+
+  public void setBaseIngestionNumber(Integer baseIngestionNumber) {
+    this.baseIngestionNumber = baseIngestionNumber;
+  }
+
+  public State getState() {
+    return state;
+  }
+
+  public void setState(State state) {
+    this.state = state;
+  }
+
+  /**
+   * @return the name of the server that runs the job, which holds its spool file, or null if the job has been released
+   * for any server to claim
+   * @see org.ambraproject.rhino.config.RuntimeConfiguration.IngestionConfiguration#getJobNodeName
+   */
+  public String getOwner() {
+    return owner;
+  }
+
+  public void setOwner(String owner) {
+    this.owner = owner;
+  }
+
+  /**
+   * @return the ingestion that the job created, or null if it has not succeeded
+   */
+  public ArticleIngestion getIngestion() {
+    return ingestion;
+  }
+
+  public void setIngestion(ArticleIngestion ingestion) {
+    this.ingestion = ingestion;
+  }
+
+  public String getErrorMessage() {
+    return errorMessage;
+  }
+
+  public void setErrorMessage(String errorMessage) {
+    this.errorMessage = errorMessage;
+  }
+
+  /**
+   * @return the time spent in each stage of the job, in milliseconds, as a JSON object
+   */
+  public String getStageTimings() {
+    return stageTimings;
+  }
+
+  public void setStageTimings(String stageTimings) {
+    this.stageTimings = stageTimings;
+  }
+
+  public Date getStarted() {
+    return started;
+  }
+
+  public void setStarted(Date started) {
+    this.started = started;
+  }
+
+  public Date getFinished() {
+    return finished;
+  }
+
+  public void setFinished(Date finished) {
+    this.finished = finished;
+  }
+
+  public Date getCreated() {
+    return created;
+  }
+
+  public void setCreated(Date created) {
+    this.created = created;
+  }
+
+  @Override
+  public Date getLastModified() {
+    return lastModified;
+  }
+
+  public void setLastModified(Date lastModified) {
+    this.lastModified = lastModified;
+  }
+
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    return jobId == ((IngestionJob) o).jobId;
+  }
+
+  @Override
+  public int hashCode() {
+    return Long.hashCode(jobId);
+  }
+
+  @Override
+  public String toString() {
+    return "IngestionJob{" +
+        "jobId=" + jobId +
+        ", archiveName='" + archiveName + '\'' +
+        ", state=" + state +
+        ", owner='" + owner + '\'' +
+        '}';
+  }
+}
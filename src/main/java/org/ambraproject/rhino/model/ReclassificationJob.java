@@ -0,0 +1,310 @@
+/*
+ * Copyright (c) 2017 Public Library of Science
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package org.ambraproject.rhino.model;
+
+import org.hibernate.annotations.Generated;
+import org.hibernate.annotations.GenerationTime;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import java.util.Date;
+
+/**
+ * A request to reclassify a set of articles against the taxonomy server in the background. Articles are processed in
+ * DOI order, and the job records the last DOI whose categories were committed, so that a job that was queued or running
+ * when the server stopped can continue from there when it starts.
+ */
+@Entity
+@Table(name = "reclassificationJob")
+public class ReclassificationJob implements Timestamped {
+
+  public static enum State {
+    QUEUED, RUNNING, FINISHED, FAILED, CANCELLED;
+
+    public boolean isFinished() {
+      return this == FINISHED || this == FAILED || this == CANCELLED;
+    }
+  }
+
+  @Id
+  @GeneratedValue
+  @Column
+  private long jobId;
+
+  @Enumerated(EnumType.STRING)
+  @Column
+  private State state;
+
+  @Column
+  private String owner;
+
+  @Column
+  private String journalKey;
+
+  @Temporal(javax.persistence.TemporalType.DATE)
+  @Column
+  private Date fromDate;
+
+  @Temporal(javax.persistence.TemporalType.DATE)
+  @Column
+  private Date toDate;
+
+  @Column
+  private String dois;
+
+  @Column
+  private String lastDoi;
+
+  @Column
+  private Integer totalCount;
+
+  @Column
+  private int processedCount;
+
+  @Column
+  private int failedCount;
+
+  @Column
+  private String recentErrors;
+
+  @Column
+  private String errorMessage;
+
+  @Temporal(javax.persistence.TemporalType.TIMESTAMP)
+  @Column
+  private Date started;
+
+  @Temporal(javax.persistence.TemporalType.TIMESTAMP)
+  @Column
+  private Date finished;
+
+  @Generated(value = GenerationTime.INSERT)
+  @Temporal(javax.persistence.TemporalType.TIMESTAMP)
+  @Column(insertable = false, updatable = false, columnDefinition = "timestamp default current_timestamp")
+  private Date created;
+
+  @Generated(value = GenerationTime.ALWAYS)
+  @Temporal(javax.persistence.TemporalType.TIMESTAMP)
+  @Column(insertable = false, updatable = false, columnDefinition = "timestamp default current_timestamp")
+  private Date lastModified;
+
+
+  public long getJobId() {
+    return jobId;
+  }
+
+  public void setJobId(long jobId) {
+    this.jobId = jobId;
+  }
+
+  public State getState() {
+    return state;
+  }
+
+  public void setState(State state) {
+    this.state = state;
+  }
+
+  /**
+   * @return the name of the server that runs the job, or null if the job has been released for any server to claim
+   * @see org.ambraproject.rhino.config.RuntimeConfiguration.IngestionConfiguration#getJobNodeName
+   */
+  public String getOwner() {
+    return owner;
+  }
+
+  public void setOwner(String owner) {
+    this.owner = owner;
+  }
+
+  /**
+   * @return the key of the journal whose articles to reclassify, or null to include all journals
+   */
+  public String getJournalKey() {
+    return journalKey;
+  }
+
+  public void setJournalKey(String journalKey) {
+    this.journalKey = journalKey;
+  }
+
+  /**
+   * @return the earliest publication date of articles to reclassify, or null for no lower bound
+   */
+  public Date getFromDate() {
+    return fromDate;
+  }
+
+  public void setFromDate(Date fromDate) {
+    this.fromDate = fromDate;
+  }
+
+  /**
+   * @return the latest publication date of articles to reclassify, or null for no upper bound
+   */
+  public Date getToDate() {
+    return toDate;
+  }
+
+  public void setToDate(Date toDate) {
+    this.toDate = toDate;
+  }
+
+  /**
+   * @return the DOIs of the articles to reclassify, separated by newlines, or null to select articles by the other
+   * filters
+   */
+  public String getDois() {
+    return dois;
+  }
+
+  public void setDois(String dois) {
+    this.dois = dois;
+  }
+
+  /**
+   * @return the DOI of the last article whose result was committed, or null if the job has not committed any
+   */
+  public String getLastDoi() {
+    return lastDoi;
+  }
+
+  public void setLastDoi(String lastDoi) {
+    this.lastDoi = lastDoi;
+  }
+
+  /**
+   * @return the number of articles that the job selected, or null if it has not started
+   */
+  public Integer getTotalCount() {
+    return totalCount;
+  }
+
+  public void setTotalCount(Integer totalCount) {
+    this.totalCount = totalCount;
+  }
+
+  /**
+   * @return the number of articles whose result was committed, including those that failed
+   */
+  public int getProcessedCount() {
+    return processedCount;
+  }
+
+  public void setProcessedCount(int processedCount) {
+    this.processedCount = processedCount;
+  }
+
+  public int getFailedCount() {
+    return failedCount;
+  }
+
+  public void setFailedCount(int failedCount) {
+    this.failedCount = failedCount;
+  }
+
+  /**
+   * @return the most recent articles that could not be reclassified, as a JSON list of objects with {@code doi} and
+   * {@code error} members
+   */
+  public String getRecentErrors() {
+    return recentErrors;
+  }
+
+  public void setRecentErrors(String recentErrors) {
+    this.recentErrors = recentErrors;
+  }
+
+  /**
+   * @return the reason the job stopped, if it failed
+   */
+  public String getErrorMessage() {
+    return errorMessage;
+  }
+
+  public void setErrorMessage(String errorMessage) {
+    this.errorMessage = errorMessage;
+  }
+
+  public Date getStarted() {
+    return started;
+  }
+
+  public void setStarted(Date started) {
+    this.started = started;
+  }
+
+  public Date getFinished() {
+    return finished;
+  }
+
+  public void setFinished(Date finished) {
+    this.finished = finished;
+  }
+
+  public Date getCreated() {
+    return created;
+  }
+
+  public void setCreated(Date created) {
+    this.created = created;
+  }
+
+  @Override
+  public Date getLastModified() {
+    return lastModified;
+  }
+
+  public void setLastModified(Date lastModified) {
+    this.lastModified = lastModified;
+  }
+
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    return jobId == ((ReclassificationJob) o).jobId;
+  }
+
+  @Override
+  public int hashCode() {
+    return Long.hashCode(jobId);
+  }
+
+  @Override
+  public String toString() {
+    return "ReclassificationJob{" +
+        "jobId=" + jobId +
+        ", state=" + state +
+        ", owner='" + owner + '\'' +
+        ", lastDoi='" + lastDoi + '\'' +
+        '}';
+  }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2017 Public Library of Science
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package org.ambraproject.rhino.model.article;
+
+import java.util.Objects;
+
+/**
+ * The metadata that is parsed from an article's manuscript when it is ingested.
+ */
+public class IngestedArticleMetadata {
+
+  private final ArticleMetadata articleMetadata;
+  private final ArticleCustomMetadata customMetadata;
+
+  public IngestedArticleMetadata(ArticleMetadata articleMetadata, ArticleCustomMetadata customMetadata) {
+    this.articleMetadata = Objects.requireNonNull(articleMetadata);
+    this.customMetadata = Objects.requireNonNull(customMetadata);
+  }
+
+  public ArticleMetadata getArticleMetadata() {
+    return articleMetadata;
+  }
+
+  public ArticleCustomMetadata getCustomMetadata() {
+    return customMetadata;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+
+    IngestedArticleMetadata that = (IngestedArticleMetadata) o;
+
+    if (!articleMetadata.equals(that.articleMetadata)) return false;
+    return customMetadata.equals(that.customMetadata);
+  }
+
+  @Override
+  public int hashCode() {
+    int result = articleMetadata.hashCode();
+    result = 31 * result + customMetadata.hashCode();
+    return result;
+  }
+}
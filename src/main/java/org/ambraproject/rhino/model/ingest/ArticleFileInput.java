@@ -22,26 +22,78 @@
 
 package org.ambraproject.rhino.model.ingest;
 
+import com.google.common.base.Preconditions;
+import org.ambraproject.rhino.model.ArticleFile;
 import org.plos.crepo.model.input.RepoObjectInput;
 
 import java.util.Objects;
+import java.util.Optional;
 
 public class ArticleFileInput {
 
   private final String filename;
-  private final RepoObjectInput object;
+  private final String bucketName;
+  private final String crepoKey;
+  private final RepoObjectInput object; // null if inherited
+  private final String sha256; // null if inherited from a file ingested without one
+  private final ArticleFile inheritedFile; // null unless inherited
 
-  ArticleFileInput(String filename, RepoObjectInput object) {
+  ArticleFileInput(String filename, String bucketName, String crepoKey, RepoObjectInput object, String sha256) {
     this.filename = Objects.requireNonNull(filename);
+    this.bucketName = Objects.requireNonNull(bucketName);
+    this.crepoKey = Objects.requireNonNull(crepoKey);
     this.object = Objects.requireNonNull(object);
+    this.sha256 = Objects.requireNonNull(sha256);
+    this.inheritedFile = null;
+  }
+
+  /**
+   * Create an input for a file that is not in the archive, but is inherited from an earlier ingestion of the same
+   * article. The new file will refer to the same repo object as the inherited one.
+   */
+  ArticleFileInput(String filename, ArticleFile inheritedFile) {
+    this.filename = Objects.requireNonNull(filename);
+    this.bucketName = Objects.requireNonNull(inheritedFile.getBucketName());
+    this.crepoKey = Objects.requireNonNull(inheritedFile.getCrepoKey());
+    this.object = null;
+    this.sha256 = inheritedFile.getSha256();
+    this.inheritedFile = inheritedFile;
   }
 
   public String getFilename() {
     return filename;
   }
 
+  public String getBucketName() {
+    return bucketName;
+  }
+
+  public String getCrepoKey() {
+    return crepoKey;
+  }
+
+  /**
+   * @return the object to upload
+   * @throws IllegalStateException if the file is inherited
+   */
   public RepoObjectInput getObject() {
+    Preconditions.checkState(object != null, "Inherited file has no object to upload");
     return object;
   }
 
+  /**
+   * @return the SHA-256 digest of the file's content, as a lowercase hexadecimal string, or null if the file is
+   * inherited from one ingested before digests were recorded
+   */
+  public String getSha256() {
+    return sha256;
+  }
+
+  /**
+   * @return the file from an earlier ingestion that this one inherits, if any
+   */
+  public Optional<ArticleFile> getInheritedFile() {
+    return Optional.ofNullable(inheritedFile);
+  }
+
 }
@@ -22,18 +22,19 @@
 
 package org.ambraproject.rhino.model.ingest;
 
+import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ListMultimap;
 import org.ambraproject.rhino.content.xml.ArticleXml;
-import org.ambraproject.rhino.content.xml.AssetNodesByDoi;
 import org.ambraproject.rhino.content.xml.ManifestXml;
 import org.ambraproject.rhino.content.xml.XmlContentException;
 import org.ambraproject.rhino.identity.Doi;
+import org.ambraproject.rhino.model.ArticleFile;
 import org.ambraproject.rhino.rest.RestClientException;
 import org.ambraproject.rhino.util.Archive;
 import org.ambraproject.rhino.util.ContentTypeInference;
 import org.plos.crepo.model.input.RepoObjectInput;
 import org.springframework.http.HttpStatus;
-import org.w3c.dom.Node;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -48,26 +49,54 @@ public class ArticlePackageBuilder {
 
   private final String destinationBucketName;
   private final Archive archive;
-  private final ArticleXml article;
+  private final ImmutableListMultimap<Doi, String> assetNodeNames;
   private final ManifestXml manifest;
   private final ManifestXml.Asset manuscriptAsset;
   private final ManifestXml.Representation manuscriptRepr;
   private final Optional<ManifestXml.Representation> printableRepr;
   private final Doi articleIdentity;
+  private final ImmutableMap<String, ArticleFile> inheritedFiles;
 
   public ArticlePackageBuilder(String destinationBucketName, Archive archive,
                                ArticleXml article, ManifestXml manifest) {
+    this(destinationBucketName, archive, readDoi(article), article.findAllAssetNodes().getNodeNames(), manifest,
+        ImmutableMap.of());
+  }
+
+  public ArticlePackageBuilder(String destinationBucketName, Archive archive,
+                               ArticleXml article, ManifestXml manifest, Map<String, ArticleFile> inheritedFiles) {
+    this(destinationBucketName, archive, readDoi(article), article.findAllAssetNodes().getNodeNames(), manifest,
+        inheritedFiles);
+  }
+
+  /**
+   * @param destinationBucketName the content repo bucket to which the package's files will be written
+   * @param archive               the archive containing the package's files
+   * @param articleIdentity       the article's DOI, as read from the manuscript
+   * @param assetNodeNames        the names of the manuscript's asset nodes, mapped by DOI (see {@link
+   *                              org.ambraproject.rhino.content.xml.AssetNodesByDoi#getNodeNames})
+   * @param manifest              the archive's manifest
+   * @param inheritedFiles        files from an earlier ingestion to use for manifest entries that are not in the
+   *                              archive, mapped by entry name
+   */
+  public ArticlePackageBuilder(String destinationBucketName, Archive archive,
+                               Doi articleIdentity, ListMultimap<Doi, String> assetNodeNames, ManifestXml manifest,
+                               Map<String, ArticleFile> inheritedFiles) {
     this.destinationBucketName = Objects.requireNonNull(destinationBucketName);
     this.archive = Objects.requireNonNull(archive);
-    this.article = Objects.requireNonNull(article);
+    this.articleIdentity = Objects.requireNonNull(articleIdentity);
+    this.assetNodeNames = ImmutableListMultimap.copyOf(assetNodeNames);
     this.manifest = Objects.requireNonNull(manifest);
+    this.inheritedFiles = ImmutableMap.copyOf(inheritedFiles);
 
     this.manuscriptAsset = Objects.requireNonNull(manifest.getArticleAsset());
     this.manuscriptRepr = Objects.requireNonNull(manuscriptAsset.getRepresentation("manuscript").get());
     this.printableRepr = Objects.requireNonNull(manuscriptAsset.getRepresentation("printable"));
+  }
 
+  private static Doi readDoi(ArticleXml article) {
     try {
-      this.articleIdentity = article.readDoi();
+      return article.readDoi();
     } catch (XmlContentException e) {
       throw new RuntimeException(e);
     }
@@ -75,7 +104,7 @@ public class ArticlePackageBuilder {
 
   public ArticlePackage build() {
     Map<String, ArticleFileInput> articleObjects = buildArticleObjects();
-    List<ArticleItemInput> assetItems = buildAssetItems(article.findAllAssetNodes());
+    List<ArticleItemInput> assetItems = buildAssetItems();
     List<ArticleFileInput> ancillaryFiles = manifest.getAncillaryFiles().stream()
         .map(this::buildObjectForAncillary).collect(Collectors.toList());
 
@@ -100,12 +129,19 @@ public class ArticlePackageBuilder {
 
   private ArticleFileInput buildObject(ManifestXml.ManifestFile manifestFile, String downloadName, String contentType) {
     String filename = manifestFile.getEntry();
-    RepoObjectInput repoObjectInput = RepoObjectInput.builder(destinationBucketName, manifestFile.getCrepoKey())
+    ArticleFile inheritedFile = inheritedFiles.get(filename);
+    if (inheritedFile != null && !archive.getEntryNames().contains(filename)) {
+      return new ArticleFileInput(filename, inheritedFile);
+    }
+
+    String crepoKey = manifestFile.getCrepoKey();
+    RepoObjectInput repoObjectInput = RepoObjectInput.builder(destinationBucketName, crepoKey)
         .setContentAccessor(archive.getContentAccessorFor(filename))
         .setContentType(contentType)
         .setDownloadName(downloadName)
         .build();
-    return new ArticleFileInput(filename, repoObjectInput);
+    return new ArticleFileInput(filename, destinationBucketName, crepoKey, repoObjectInput,
+        archive.getSha256(filename));
   }
 
   private static String generateDownloadName(String doi, String filename) {
@@ -138,13 +174,12 @@ public class ArticlePackageBuilder {
   /**
    * Build an asset table from input being ingested.
    *
-   * @param assetNodeMap encapsulated descriptions of references to asset DOIs in the manuscript
    * @return the built asset table
    */
-  private List<ArticleItemInput> buildAssetItems(AssetNodesByDoi assetNodeMap) {
+  private List<ArticleItemInput> buildAssetItems() {
     List<ArticleItemInput> items = new ArrayList<>();
     for (ManifestXml.Asset asset : manifest.getAssets()) {
-      AssetType assetType = findAssetType(assetNodeMap, asset);
+      AssetType assetType = findAssetType(assetNodeNames, asset);
       if (assetType == AssetType.ARTICLE) continue;
       ImmutableMap.Builder<String, ArticleFileInput> assetObjects = ImmutableMap.builder();
       for (ManifestXml.Representation representation : asset.getRepresentations()) {
@@ -157,12 +192,12 @@ public class ArticlePackageBuilder {
     return items;
   }
 
-  private static AssetType findAssetType(AssetNodesByDoi assetNodeMap, ManifestXml.Asset asset) {
+  private static AssetType findAssetType(ImmutableListMultimap<Doi, String> assetNodeNames, ManifestXml.Asset asset) {
     if (asset.getAssetTagName().equals(ManifestXml.AssetTagName.ARTICLE)) {
       return AssetType.ARTICLE;
     }
     Doi assetIdentity = Doi.create(asset.getUri());
-    if (!assetNodeMap.getDois().contains(assetIdentity)) {
+    if (!assetNodeNames.containsKey(assetIdentity)) {
       if (asset.isStrikingImage()) {
         return AssetType.STANDALONE_STRIKING_IMAGE;
       } else {
@@ -170,10 +205,8 @@ public class ArticlePackageBuilder {
       }
     }
 
-    List<Node> nodes = assetNodeMap.getNodes(assetIdentity);
     AssetType identifiedType = null;
-    for (Node node : nodes) {
-      String nodeName = node.getNodeName();
+    for (String nodeName : assetNodeNames.get(assetIdentity)) {
       AssetType assetType = getByXmlNodeName(nodeName);
       if (assetType != null) {
         if (identifiedType == null) {
@@ -40,6 +40,7 @@ import org.ambraproject.rhino.service.ArticleCrudService;
 import org.ambraproject.rhino.service.ArticleListCrudService;
 import org.ambraproject.rhino.service.ArticleRevisionWriteService;
 import org.ambraproject.rhino.service.CommentCrudService;
+import org.ambraproject.rhino.service.IngestionMetadataService;
 import org.ambraproject.rhino.service.SolrIndexService;
 import org.ambraproject.rhino.service.SyndicationCrudService;
 import org.ambraproject.rhino.service.taxonomy.TaxonomyService;
@@ -102,6 +103,8 @@ public class ArticleCrudController extends RestController {
   @Autowired
   private TaxonomyService taxonomyService;
   @Autowired
+  private IngestionMetadataService ingestionMetadataService;
+  @Autowired
   private RelationshipSetView.Factory relationshipSetViewFactory;
 
   @Transactional(readOnly = true)
@@ -112,6 +115,28 @@ public class ArticleCrudController extends RestController {
     throw new RestClientException("GET /articles not currently supported", HttpStatus.METHOD_NOT_ALLOWED);
   }
 
+  private static final int DEFAULT_BACKFILL_LIMIT = 100;
+  private static final int MAX_BACKFILL_LIMIT = 1000;
+
+  /**
+   * Store parsed manuscript metadata for a batch of ingestions that don't already have it. To backfill every
+   * ingestion, call repeatedly, passing the {@code lastIngestionId} from each response as the next {@code after}
+   * parameter, until it is null. The {@code limit} on the size of a batch must be from 1 to {@value
+   * #MAX_BACKFILL_LIMIT}, so that one request doesn't hold a transaction open for too long.
+   */
+  @Transactional(rollbackFor = {Throwable.class})
+  @RequestMapping(value = "/articles", params = {"backfillMetadata"}, method = RequestMethod.POST)
+  public ResponseEntity<?> backfillMetadata(@RequestParam(value = "after", required = false) Long afterIngestionId,
+                                            @RequestParam(value = "limit", required = false) Integer limit) {
+    if (limit != null && (limit <= 0 || limit > MAX_BACKFILL_LIMIT)) {
+      throw new RestClientException("limit must be from 1 to " + MAX_BACKFILL_LIMIT, HttpStatus.BAD_REQUEST);
+    }
+    IngestionMetadataService.BackfillResult result = ingestionMetadataService.backfillMetadata(
+        (afterIngestionId == null) ? 0L : afterIngestionId,
+        (limit == null) ? DEFAULT_BACKFILL_LIMIT : limit);
+    return ServiceResponse.serveView(result).asJsonResponse(entityGson);
+  }
+
   /*
    * Null-safe utility method for Arrays.asList. Put somewhere for reuse?
    */
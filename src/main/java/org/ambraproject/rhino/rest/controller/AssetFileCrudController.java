@@ -23,14 +23,13 @@
 package org.ambraproject.rhino.rest.controller;
 
 import com.google.common.base.Joiner;
-import com.google.common.io.ByteStreams;
 import com.google.common.net.HttpHeaders;
 import org.ambraproject.rhino.identity.ArticleFileIdentifier;
 import org.ambraproject.rhino.rest.DoiEscaping;
 import org.ambraproject.rhino.rest.RestClientException;
 import org.ambraproject.rhino.service.AssetCrudService;
+import org.ambraproject.rhino.service.impl.RepoObjectDiskCache;
 import org.plos.crepo.model.metadata.RepoObjectMetadata;
-import org.plos.crepo.service.ContentRepoService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
@@ -42,9 +41,9 @@ import org.springframework.web.bind.annotation.RequestMethod;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URL;
+import java.nio.channels.Channels;
 import java.sql.Timestamp;
 import java.util.Enumeration;
 import java.util.List;
@@ -55,7 +54,7 @@ public class AssetFileCrudController extends RestController {
   @Autowired
   private AssetCrudService assetCrudService;
   @Autowired
-  private ContentRepoService contentRepoService;
+  private RepoObjectDiskCache repoObjectDiskCache;
 
 
   private static final Joiner REPROXY_URL_JOINER = Joiner.on(' ');
@@ -89,9 +88,8 @@ public class AssetFileCrudController extends RestController {
       response.setHeader("X-Reproxy-URL", reproxyUrlHeader);
       response.setHeader("X-Reproxy-Cache-For", REPROXY_CACHE_FOR_HEADER);
     } else {
-      try (InputStream fileStream = contentRepoService.getRepoObject(objMeta.getVersion());
-           OutputStream responseStream = response.getOutputStream()) {
-        ByteStreams.copy(fileStream, responseStream);
+      try (OutputStream responseStream = response.getOutputStream()) {
+        repoObjectDiskCache.transferTo(objMeta.getVersion(), Channels.newChannel(responseStream));
       }
     }
   }
@@ -136,7 +134,7 @@ public class AssetFileCrudController extends RestController {
     ArticleFileIdentifier fileId = ArticleFileIdentifier.create(DoiEscaping.unescape(itemDoi), ingestionNumber, fileType);
     // TODO: Validate that articleDoi belongs to item's parent
 
-    RepoObjectMetadata objectMetadata = assetCrudService.getArticleItemFile(fileId);
+    RepoObjectMetadata objectMetadata = assetCrudService.getArticleItemFile(fileId, clientSupportsReproxy(request));
     serve(request, response, objectMetadata);
   }
 
@@ -66,6 +66,15 @@ public class ConfigurationReadController extends RestController {
       case "repo":
         response = configurationReadService.readRepoConfig();
         break;
+      case "xmlParser":
+        response = configurationReadService.readXmlParserConfig();
+        break;
+      case "cache":
+        response = configurationReadService.readCacheConfig();
+        break;
+      case "taxonomy":
+        response = configurationReadService.readTaxonomyConfig();
+        break;
       default:
         throw new RestClientException("Invalid configuration type parameter. Options are: " +
             ConfigurationReadService.CONFIG_TYPES.toString(), HttpStatus.BAD_REQUEST);
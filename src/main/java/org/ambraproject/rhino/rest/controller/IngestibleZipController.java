@@ -24,11 +24,19 @@ package org.ambraproject.rhino.rest.controller;
 
 import org.ambraproject.rhino.content.xml.ManifestXml;
 import org.ambraproject.rhino.model.ArticleIngestion;
+import org.ambraproject.rhino.model.IngestionJob;
 import org.ambraproject.rhino.rest.RestClientException;
 import org.ambraproject.rhino.rest.response.ServiceResponse;
+import org.ambraproject.rhino.service.IngestionJobService;
+import org.ambraproject.rhino.service.impl.BulkIngestionService;
 import org.ambraproject.rhino.service.impl.IngestionService;
 import org.ambraproject.rhino.util.Archive;
+import org.ambraproject.rhino.util.ArchiveMemoryBudget;
 import org.ambraproject.rhino.view.article.ArticleIngestionView;
+import org.ambraproject.rhino.view.article.BulkIngestionView;
+import org.ambraproject.rhino.view.article.IngestionJobView;
+import org.apache.commons.fileupload.FileItem;
+import org.apache.commons.fileupload.disk.DiskFileItem;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -38,9 +46,15 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.multipart.commons.CommonsMultipartFile;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalInt;
 
 @Controller
 public class IngestibleZipController extends RestController {
@@ -49,23 +63,34 @@ public class IngestibleZipController extends RestController {
   private IngestionService ingestionService;
   @Autowired
   private ArticleIngestionView.Factory articleIngestionViewFactory;
+  @Autowired
+  private ArchiveMemoryBudget archiveMemoryBudget;
+  @Autowired
+  private IngestionJobService ingestionJobService;
+  @Autowired
+  private IngestionJobView.Factory ingestionJobViewFactory;
+  @Autowired
+  private BulkIngestionService bulkIngestionService;
 
   /**
    * Create an article based on a POST containing an article .zip archive file.
    *
-   * @param requestFile body of the archive param, with the encoded article .zip file
+   * @param requestFile   body of the archive param, with the encoded article .zip file
+   * @param baseIngestion if present, the number of an earlier ingestion of the same article; the archive then needs to
+   *                      contain only the manifest and the files that changed, and every other file in the manifest is
+   *                      taken from the base ingestion
    * @throws java.io.IOException
    */
   @Transactional(rollbackFor = {Throwable.class})
   @RequestMapping(value = "/articles", method = RequestMethod.POST)
-  public ResponseEntity<?> zipUpload(@RequestParam("archive") MultipartFile requestFile)
+  public ResponseEntity<?> zipUpload(@RequestParam("archive") MultipartFile requestFile,
+                                     @RequestParam(value = "baseIngestion", required = false) Integer baseIngestion)
       throws IOException {
 
-    String ingestedFileName = requestFile.getOriginalFilename();
     ArticleIngestion ingestion;
-    try (InputStream requestInputStream = requestFile.getInputStream();
-        Archive archive = Archive.readZipFile(ingestedFileName, requestInputStream)) {
-      ingestion = ingestionService.ingest(archive);
+    try (Archive archive = openArchive(requestFile)) {
+      ingestion = ingestionService.ingest(archive,
+          (baseIngestion == null) ? OptionalInt.empty() : OptionalInt.of(baseIngestion));
     } catch (ManifestXml.ManifestDataException e) {
       throw new RestClientException("Invalid manifest: " + e.getMessage(), HttpStatus.BAD_REQUEST, e);
     }
@@ -75,4 +100,80 @@ public class IngestibleZipController extends RestController {
     return ServiceResponse.reportCreated(view).asJsonResponse(entityGson);
   }
 
+  /**
+   * Queue a job to create an article from an article .zip archive in the background. The response is the new job, whose
+   * progress and result can be read from {@code /ingestionJobs/{id}}.
+   *
+   * @param requestFile   body of the archive param, with the encoded article .zip file
+   * @param baseIngestion if present, the number of an earlier ingestion to inherit files from (see {@link #zipUpload})
+   * @throws java.io.IOException
+   */
+  @RequestMapping(value = "/articles", method = RequestMethod.POST, params = "async")
+  public ResponseEntity<?> zipUploadAsync(@RequestParam("archive") MultipartFile requestFile,
+                                          @RequestParam(value = "baseIngestion", required = false) Integer baseIngestion)
+      throws IOException {
+    IngestionJob job = ingestionJobService.submit(requestFile.getOriginalFilename(),
+        (baseIngestion == null) ? OptionalInt.empty() : OptionalInt.of(baseIngestion),
+        requestFile::transferTo);
+    return ServiceResponse.reportAccepted(ingestionJobViewFactory.getView(job)).asJsonResponse(entityGson);
+  }
+
+  /**
+   * Ingest many article .zip archives in one request, either uploaded in the request or found in a directory on the
+   * server. Each archive is ingested independently, so some may succeed while others fail. The response reports the
+   * outcome of each archive.
+   *
+   * @param requestFiles the archive files, if uploaded
+   * @param directory    if present, a directory to scan for archive files instead, relative to the server's configured
+   *                     bulk source directory
+   * @throws java.io.IOException
+   */
+  @RequestMapping(value = "/articles", method = RequestMethod.POST, params = "bulk")
+  public ResponseEntity<?> bulkUpload(@RequestParam(value = "archive", required = false) List<MultipartFile> requestFiles,
+                                      @RequestParam(value = "directory", required = false) String directory)
+      throws IOException {
+    boolean hasFiles = requestFiles != null && !requestFiles.isEmpty();
+    if (hasFiles == (directory != null)) {
+      throw new RestClientException("Must provide either archive files or a directory", HttpStatus.BAD_REQUEST);
+    }
+
+    BulkIngestionView report;
+    if (directory != null) {
+      report = bulkIngestionService.ingestAll(bulkIngestionService.findArchives(directory));
+    } else {
+      List<BulkIngestionService.ArchiveFile> archiveFiles = new ArrayList<>(requestFiles.size());
+      try {
+        for (MultipartFile requestFile : requestFiles) {
+          File spoolFile = bulkIngestionService.createSpoolFile();
+          archiveFiles.add(new BulkIngestionService.ArchiveFile(requestFile.getOriginalFilename(), spoolFile));
+          requestFile.transferTo(spoolFile);
+        }
+        report = bulkIngestionService.ingestAll(archiveFiles);
+      } finally {
+        for (BulkIngestionService.ArchiveFile archiveFile : archiveFiles) {
+          Files.deleteIfExists(archiveFile.getFile().toPath());
+        }
+      }
+    }
+    return ServiceResponse.serveView(report).asJsonResponse(entityGson);
+  }
+
+  /**
+   * Open an uploaded zip file as an archive. If the multipart resolver has already spooled the upload to disk, read the
+   * entries directly out of that file instead of extracting them to temp files. Otherwise, read it into memory, within
+   * the server-wide budget, spilling large entries to disk.
+   */
+  private Archive openArchive(MultipartFile requestFile) throws IOException {
+    String ingestedFileName = requestFile.getOriginalFilename();
+    if (requestFile instanceof CommonsMultipartFile) {
+      FileItem fileItem = ((CommonsMultipartFile) requestFile).getFileItem();
+      if (fileItem instanceof DiskFileItem && !fileItem.isInMemory()) {
+        return Archive.openZipFile(ingestedFileName, ((DiskFileItem) fileItem).getStoreLocation());
+      }
+    }
+    try (InputStream requestInputStream = requestFile.getInputStream()) {
+      return Archive.readZipFile(ingestedFileName, requestInputStream, archiveMemoryBudget);
+    }
+  }
+
 }
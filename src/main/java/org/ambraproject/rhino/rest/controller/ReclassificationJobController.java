@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2017 Public Library of Science
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package org.ambraproject.rhino.rest.controller;
+
+import com.wordnik.swagger.annotations.ApiImplicitParam;
+import com.wordnik.swagger.annotations.ApiOperation;
+import org.ambraproject.rhino.model.ReclassificationJob;
+import org.ambraproject.rhino.rest.response.ServiceResponse;
+import org.ambraproject.rhino.service.ReclassificationJobService;
+import org.ambraproject.rhino.view.article.ReclassificationJobInputView;
+import org.ambraproject.rhino.view.article.ReclassificationJobView;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+
+/**
+ * Controller for reclassifying many articles against the taxonomy server in the background, as an alternative to
+ * calling {@code POST /articles/{doi}/categories} for each one.
+ */
+@Controller
+public class ReclassificationJobController extends RestController {
+
+  @Autowired
+  private ReclassificationJobService reclassificationJobService;
+
+  /**
+   * Queue a job to reclassify the articles that match the filters in the request body. The response is the new job,
+   * whose progress can be read from {@code /reclassificationJobs/{jobId}}.
+   */
+  @RequestMapping(value = "/reclassificationJobs", method = RequestMethod.POST)
+  @ApiOperation(value = "create", notes = "Reclassify all articles, or those matching the given filters, in the background.")
+  @ApiImplicitParam(name = "body", paramType = "body", dataType = "ReclassificationJobInputView",
+      value = "example: {\"journal\": \"PLoSONE\", \"fromDate\": \"2016-01-01\", \"toDate\": \"2016-12-31\"}")
+  public ResponseEntity<?> create(HttpServletRequest request) throws IOException {
+    ReclassificationJobInputView input = readJsonFromRequest(request, ReclassificationJobInputView.class);
+    ReclassificationJob job = reclassificationJobService.submit(input);
+    return ServiceResponse.reportAccepted(new ReclassificationJobView(job)).asJsonResponse(entityGson);
+  }
+
+  @Transactional(readOnly = true)
+  @RequestMapping(value = "/reclassificationJobs/{jobId}", method = RequestMethod.GET)
+  public ResponseEntity<?> read(@PathVariable("jobId") long jobId)
+      throws IOException {
+    return reclassificationJobService.serveJob(jobId).asJsonResponse(entityGson);
+  }
+
+  @RequestMapping(value = "/reclassificationJobs/{jobId}", method = RequestMethod.DELETE)
+  public ResponseEntity<?> cancel(@PathVariable("jobId") long jobId)
+      throws IOException {
+    ReclassificationJob job = reclassificationJobService.cancel(jobId);
+    return ServiceResponse.serveView(new ReclassificationJobView(job)).asJsonResponse(entityGson);
+  }
+
+  /**
+   * Continue a failed or cancelled job from the last chunk of articles that it committed.
+   */
+  @RequestMapping(value = "/reclassificationJobs/{jobId}", method = RequestMethod.POST, params = "resume")
+  public ResponseEntity<?> resume(@PathVariable("jobId") long jobId)
+      throws IOException {
+    ReclassificationJob job = reclassificationJobService.resume(jobId);
+    return ServiceResponse.reportAccepted(new ReclassificationJobView(job)).asJsonResponse(entityGson);
+  }
+
+}
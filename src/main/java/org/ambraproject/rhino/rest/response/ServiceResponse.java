@@ -72,6 +72,17 @@ public class ServiceResponse<T> {
     return new ServiceResponse<T>(HttpStatus.CREATED, responseBody, null);
   }
 
+  /**
+   * Serve a view representing work that was accepted to be done in the background.
+   *
+   * @param responseBody the view to serialize as the response
+   * @return the response
+   */
+  public static <T> ServiceResponse<T> reportAccepted(T responseBody) {
+    Objects.requireNonNull(responseBody);
+    return new ServiceResponse<T>(HttpStatus.ACCEPTED, responseBody, null);
+  }
+
   /**
    * Serve a view in a response.
    *
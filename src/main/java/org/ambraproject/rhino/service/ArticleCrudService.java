@@ -50,6 +50,7 @@ import java.time.LocalDate;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 public interface ArticleCrudService {
 
@@ -131,6 +132,16 @@ public interface ArticleCrudService {
 
   public abstract Collection<ArticleItem> getAllArticleItems(ArticleIngestion ingestion);
 
+  /**
+   * Find the articles that own any item with one of the given DOIs, in any ingestion. This is equivalent to calling
+   * {@link #getAllArticleItems(Doi)} for each DOI and collecting the items' articles, but it reads only the article
+   * DOIs and queries for many item DOIs at once.
+   *
+   * @param itemDois the DOIs of article items
+   * @return the DOIs of the articles that own those items, as stored
+   */
+  public abstract Set<String> getOwningArticleDois(Collection<Doi> itemDois);
+
   Optional<ResolvedDoiView> getItemOverview(Doi doi);
 
   /**
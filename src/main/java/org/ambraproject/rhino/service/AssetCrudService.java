@@ -27,6 +27,13 @@ import org.plos.crepo.model.metadata.RepoObjectMetadata;
 
 public interface AssetCrudService {
 
-  public abstract RepoObjectMetadata getArticleItemFile(ArticleFileIdentifier fileId);
+  /**
+   * Get the content repo metadata of an article file.
+   *
+   * @param fileId           the file
+   * @param needsReproxyUrls true if the caller will use the metadata's reproxy URLs
+   * @return the file's metadata
+   */
+  public abstract RepoObjectMetadata getArticleItemFile(ArticleFileIdentifier fileId, boolean needsReproxyUrls);
 
 }
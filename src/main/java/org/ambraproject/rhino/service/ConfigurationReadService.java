@@ -31,7 +31,7 @@ import java.util.Properties;
 
 public interface ConfigurationReadService {
 
-  public static final ImmutableSet<String> CONFIG_TYPES = ImmutableSet.of("build", "repo");
+  public static final ImmutableSet<String> CONFIG_TYPES = ImmutableSet.of("build", "repo", "xmlParser", "cache", "taxonomy");
 
   public abstract Map<String, Object> getRepoConfig();
 
@@ -55,4 +55,22 @@ public interface ConfigurationReadService {
    * Respond with a JSON object containing all content repository-related Rhino config values.
    */
   public abstract ServiceResponse<Map<String, Object>> readRepoConfig() throws IOException;
+
+  /**
+   * Respond with a JSON object containing the XML parser's settings and the counts, sizes and parse times of the
+   * documents it has parsed since startup.
+   */
+  public abstract ServiceResponse<Map<String, Object>> readXmlParserConfig();
+
+  /**
+   * Respond with a JSON object containing the size limit, current size and hit and miss counts of each in-memory and
+   * on-disk cache.
+   */
+  public abstract ServiceResponse<Map<String, Object>> readCacheConfig();
+
+  /**
+   * Respond with a JSON object containing the taxonomy server's settings and the counts, latencies and circuit breaker
+   * state of the requests sent to it since startup.
+   */
+  public abstract ServiceResponse<Map<String, Object>> readTaxonomyConfig();
 }
@@ -22,18 +22,74 @@
 
 package org.ambraproject.rhino.service;
 
+import com.google.common.collect.ImmutableList;
 import org.ambraproject.rhino.model.ArticleFile;
 import org.ambraproject.rhino.model.ArticleIngestion;
 import org.ambraproject.rhino.model.ArticleItem;
-import org.ambraproject.rhino.model.ingest.ArticleItemInput;
 import org.ambraproject.rhino.model.ingest.ArticlePackage;
 
-import java.util.Collection;
+import java.util.List;
 
 public interface ContentRepoPersistenceService {
 
-  public ArticleItem createItem(ArticleItemInput itemInput, ArticleIngestion ingestion);
+  /**
+   * Upload every file in an article package to the content repo, and create (without saving) the entities that refer
+   * to them. The uploads are run concurrently; if any of them fails, the rest are cancelled and the exception is
+   * rethrown.
+   * <p/>
+   * A file inherited from an earlier ingestion, or whose content, bucket and key are the same as a file already
+   * ingested, is not uploaded again. The new entity refers to the existing repo object instead.
+   *
+   * @param articlePackage the package to upload
+   * @param ingestion      the ingestion to which the new entities belong
+   * @return the new items (with their files) and ancillary files
+   */
+  public UploadedPackage uploadPackage(ArticlePackage articlePackage, ArticleIngestion ingestion);
+
+  /**
+   * Upload every file in an article package to the content repo, as {@link #uploadPackage} does, but leave the
+   * entities to be created later. This lets the uploads run before the ingestion that will own the files is
+   * persisted, and outside of its transaction.
+   *
+   * @param articlePackage the package to upload
+   * @return the uploaded files
+   */
+  public UploadedFiles uploadFiles(ArticlePackage articlePackage);
+
+  /**
+   * The repo objects holding the files of an article package, returned by {@link #uploadFiles}.
+   */
+  @FunctionalInterface
+  public static interface UploadedFiles {
+    /**
+     * Create (without saving) the entities that refer to the uploaded files. This may be called more than once, such
+     * as to retry persisting the ingestion in a new transaction, and creates new entities each time.
+     *
+     * @param ingestion the ingestion to which the new entities belong
+     * @return the new items (with their files) and ancillary files
+     */
+    public UploadedPackage createEntities(ArticleIngestion ingestion);
+  }
+
+  public static class UploadedPackage {
+    private final ImmutableList<ArticleItem> items;
+    private final ImmutableList<ArticleFile> ancillaryFiles;
+
+    public UploadedPackage(List<ArticleItem> items, List<ArticleFile> ancillaryFiles) {
+      this.items = ImmutableList.copyOf(items);
+      this.ancillaryFiles = ImmutableList.copyOf(ancillaryFiles);
+    }
+
+    /**
+     * @return the items, in the same order as {@link ArticlePackage#getAllItems()}
+     */
+    public ImmutableList<ArticleItem> getItems() {
+      return items;
+    }
+
+    public ImmutableList<ArticleFile> getAncillaryFiles() {
+      return ancillaryFiles;
+    }
+  }
 
-  public Collection<ArticleFile> persistAncillaryFiles(ArticlePackage articlePackage,
-                                                       ArticleIngestion ingestion);
 }
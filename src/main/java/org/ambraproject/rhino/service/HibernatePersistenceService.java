@@ -30,6 +30,7 @@ import org.ambraproject.rhino.model.ArticleItem;
 import org.ambraproject.rhino.model.article.ArticleCustomMetadata;
 import org.ambraproject.rhino.model.article.ArticleMetadata;
 import org.ambraproject.rhino.model.ingest.ArticlePackage;
+import org.ambraproject.rhino.service.ContentRepoPersistenceService.UploadedFiles;
 
 import java.util.List;
 import java.util.Optional;
@@ -48,8 +49,12 @@ public interface HibernatePersistenceService {
 
   /**
    * Persist items, items' file representations, ancillary files, and the link to the striking image.
+   *
+   * @param articlePackage the package to persist
+   * @param ingestion      the ingestion to which the assets belong
+   * @param uploadedFiles  the package's files, already uploaded to the content repo
    */
-  public void persistAssets(ArticlePackage articlePackage, ArticleIngestion ingestion);
+  public void persistAssets(ArticlePackage articlePackage, ArticleIngestion ingestion, UploadedFiles uploadedFiles);
 
   public Optional<ArticleItem> persistStrikingImage(ArticleIngestion ingestion,
                                                     List<ArticleItem> items, ManifestXml manifest);
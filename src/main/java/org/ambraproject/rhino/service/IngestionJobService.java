@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2017 Public Library of Science
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package org.ambraproject.rhino.service;
+
+import org.ambraproject.rhino.model.IngestionJob;
+import org.ambraproject.rhino.rest.response.ServiceResponse;
+import org.ambraproject.rhino.view.article.IngestionJobView;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.OptionalInt;
+
+/**
+ * Runs ingestions in the background, so that a client can upload a large article package without waiting for it to be
+ * ingested. Jobs are persisted, and jobs that were unfinished when the server stopped are resumed when it starts. Each
+ * job is owned by the server that accepted it, which keeps the uploaded archive in its job directory, and only that
+ * server runs it.
+ */
+public interface IngestionJobService {
+
+  /**
+   * Writes an uploaded archive to the file where a job keeps it until it finishes.
+   */
+  @FunctionalInterface
+  public static interface ArchiveWriter {
+    public abstract void writeTo(File file) throws IOException;
+  }
+
+  /**
+   * Queue a job to ingest an archive.
+   *
+   * @param archiveName         the archive's file name
+   * @param baseIngestionNumber the number of the ingestion to inherit missing files from, or empty if the archive is
+   *                            complete
+   * @param archiveWriter       writes the archive for the job to read
+   * @return the new job
+   * @throws IOException if the archive could not be written
+   * @throws org.ambraproject.rhino.rest.RestClientException if no job directory is configured
+   */
+  public abstract IngestionJob submit(String archiveName, OptionalInt baseIngestionNumber, ArchiveWriter archiveWriter)
+      throws IOException;
+
+  /**
+   * Serve the state of a job and, if it is finished, its result.
+   *
+   * @param jobId the job's identifier
+   * @return the job's view
+   * @throws org.ambraproject.rhino.rest.RestClientException if the job does not exist
+   */
+  public abstract ServiceResponse<IngestionJobView> serveJob(long jobId);
+
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2017 Public Library of Science
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package org.ambraproject.rhino.service;
+
+import com.google.common.collect.ImmutableList;
+import org.ambraproject.rhino.model.ArticleIngestion;
+import org.ambraproject.rhino.model.article.IngestedArticleMetadata;
+import org.ambraproject.rhino.view.article.author.ArticleAllAuthorsView;
+
+import java.util.List;
+
+/**
+ * Stores the metadata and author information that are parsed from each ingestion's manuscript, so that reading them
+ * doesn't require fetching and parsing the manuscript.
+ */
+public interface IngestionMetadataService {
+
+  /**
+   * Store the metadata that was parsed from a new ingestion's manuscript. The ingestion must already have been saved.
+   *
+   * @param ingestion the ingestion
+   * @param metadata  the metadata parsed from its manuscript
+   */
+  public void storeMetadata(ArticleIngestion ingestion, IngestedArticleMetadata metadata);
+
+  /**
+   * Read the metadata for an ingestion. If it has not been stored (such as for an ingestion that was created before
+   * metadata was stored), it is parsed from the manuscript instead.
+   *
+   * @param ingestion the ingestion
+   * @return the metadata parsed from its manuscript
+   */
+  public IngestedArticleMetadata getMetadata(ArticleIngestion ingestion);
+
+  /**
+   * Read the author information for an ingestion. The first time this is called for an ingestion, the information is
+   * parsed from the manuscript and stored (in its own transaction, so that this may be called from a read-only one);
+   * later calls read the stored copy.
+   *
+   * @param ingestion the ingestion
+   * @return the author information parsed from its manuscript
+   */
+  public ArticleAllAuthorsView getAuthors(ArticleIngestion ingestion);
+
+  /**
+   * Parse and store the metadata for ingestions that don't have it stored in the current format. Ingestions are
+   * processed in order of their database IDs, so a client can run the whole backfill in batches by passing each
+   * result's {@link BackfillResult#getLastIngestionId()} to the next call. Ingestions whose manuscripts can't be parsed
+   * are reported and skipped.
+   *
+   * @param afterIngestionId process only ingestions with a greater database ID
+   * @param limit            the maximum number of ingestions to process
+   * @return a report of the ingestions that were processed
+   */
+  public BackfillResult backfillMetadata(long afterIngestionId, int limit);
+
+  public static class BackfillResult {
+    private final int stored;
+    private final ImmutableList<Long> failed;
+    private final Long lastIngestionId; // null if no ingestions were processed
+
+    public BackfillResult(int stored, List<Long> failed, Long lastIngestionId) {
+      this.stored = stored;
+      this.failed = ImmutableList.copyOf(failed);
+      this.lastIngestionId = lastIngestionId;
+    }
+
+    /**
+     * @return the number of ingestions whose metadata was stored
+     */
+    public int getStored() {
+      return stored;
+    }
+
+    /**
+     * @return the database IDs of ingestions whose metadata could not be parsed
+     */
+    public ImmutableList<Long> getFailed() {
+      return failed;
+    }
+
+    /**
+     * @return the greatest database ID that was processed, or {@code null} if there were no ingestions to process
+     */
+    public Long getLastIngestionId() {
+      return lastIngestionId;
+    }
+  }
+
+}
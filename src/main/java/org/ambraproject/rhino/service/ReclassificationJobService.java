@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2017 Public Library of Science
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package org.ambraproject.rhino.service;
+
+import org.ambraproject.rhino.model.ReclassificationJob;
+import org.ambraproject.rhino.rest.response.ServiceResponse;
+import org.ambraproject.rhino.view.article.ReclassificationJobInputView;
+import org.ambraproject.rhino.view.article.ReclassificationJobView;
+
+/**
+ * Reclassifies many articles against the taxonomy server in the background, as is needed after the thesaurus changes.
+ * <p/>
+ * Each job sends at most {@code taxonomy.reclassificationConcurrency} articles to the taxonomy server at once (shared by
+ * all jobs), and commits the new categories for every {@code taxonomy.reclassificationChunkSize} articles in one
+ * transaction along with its progress. A job is run by the server that accepted or last resumed it, which continues its
+ * unfinished jobs from their last committed article when it starts.
+ */
+public interface ReclassificationJobService {
+
+  /**
+   * Queue a job to reclassify the articles that match a set of filters.
+   *
+   * @param input the filters
+   * @return the new job
+   * @throws org.ambraproject.rhino.rest.RestClientException if the filters are invalid
+   */
+  public abstract ReclassificationJob submit(ReclassificationJobInputView input);
+
+  /**
+   * Serve the state and progress of a job.
+   *
+   * @param jobId the job's identifier
+   * @return the job's view
+   * @throws org.ambraproject.rhino.rest.RestClientException if the job does not exist
+   */
+  public abstract ServiceResponse<ReclassificationJobView> serveJob(long jobId);
+
+  /**
+   * Stop a job. A running job stops after committing the chunk of articles that it is working on.
+   *
+   * @param jobId the job's identifier
+   * @return the job
+   * @throws org.ambraproject.rhino.rest.RestClientException if the job does not exist or is already finished
+   */
+  public abstract ReclassificationJob cancel(long jobId);
+
+  /**
+   * Queue a failed or cancelled job to continue from its last committed article on this server.
+   *
+   * @param jobId the job's identifier
+   * @return the job
+   * @throws org.ambraproject.rhino.rest.RestClientException if the job does not exist or was not stopped
+   */
+  public abstract ReclassificationJob resume(long jobId);
+
+}
@@ -27,6 +27,7 @@ import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
 import com.google.gson.Gson;
 import org.ambraproject.rhino.config.RuntimeConfiguration;
+import org.ambraproject.rhino.content.xml.DocumentParser;
 import org.ambraproject.rhino.rest.RestClientException;
 import org.plos.crepo.service.ContentRepoService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -35,9 +36,6 @@ import org.springframework.orm.hibernate3.HibernateTemplate;
 import org.w3c.dom.Document;
 import org.xml.sax.SAXException;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
 import java.io.IOException;
 import java.io.InputStream;
 
@@ -65,10 +63,23 @@ public abstract class AmbraService {
    * @throws RestClientException if the stream does not contain valid XML
    */
   protected static Document parseXml(InputStream stream) throws IOException, RestClientException {
+    return parseXml(stream, -1L);
+  }
+
+  /**
+   * Parse client-provided XML whose size is known in advance. Large documents are parsed with deferred node expansion
+   * (see {@link DocumentParser}).
+   *
+   * @param stream       an input stream containing an XML document as raw bytes
+   * @param expectedSize the size of the document in bytes, or -1 if unknown
+   * @return the XML document parsed from the stream
+   * @throws IOException         if the stream cannot be read
+   * @throws RestClientException if the stream does not contain valid XML
+   */
+  protected static Document parseXml(InputStream stream, long expectedSize) throws IOException, RestClientException {
     Preconditions.checkNotNull(stream);
     try {
-      // Get a new DocumentBuilder every time because because it isn't thread-safe
-      return newDocumentBuilder().parse(stream);
+      return DocumentParser.parse(stream, expectedSize);
     } catch (SAXException e) {
       String message = "Invalid XML";
       String causeMessage = e.getMessage();
@@ -81,26 +92,5 @@ public abstract class AmbraService {
     }
   }
 
-  /**
-   * Construct a non-validating document builder. We assume that we don't want to connect to remote servers to validate
-   * except with a specific reason.
-   *
-   * @return a new document builder
-   */
-  public static DocumentBuilder newDocumentBuilder() {
-    DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-    // at a minimum the document builder needs to be namespace aware
-    factory.setNamespaceAware(true);
-    factory.setValidating(false);
-    try {
-      factory.setFeature("http://xml.org/sax/features/validation", false);
-      factory.setFeature("http://apache.org/xml/features/nonvalidating/load-dtd-grammar", false);
-      factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
-      return factory.newDocumentBuilder();
-    } catch (ParserConfigurationException e) {
-      throw new RuntimeException(e);
-    }
-  }
-
 
 }
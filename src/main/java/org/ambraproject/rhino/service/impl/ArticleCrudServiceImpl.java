@@ -28,8 +28,6 @@ import com.google.common.collect.Lists;
 import com.google.common.io.ByteSource;
 import org.ambraproject.rhino.content.xml.ArticleXml;
 import org.ambraproject.rhino.content.xml.XmlContentException;
-import org.ambraproject.rhino.content.xml.XpathReader;
-import org.ambraproject.rhino.identity.ArticleFileIdentifier;
 import org.ambraproject.rhino.identity.ArticleIdentifier;
 import org.ambraproject.rhino.identity.ArticleIngestionIdentifier;
 import org.ambraproject.rhino.identity.ArticleItemIdentifier;
@@ -47,7 +45,7 @@ import org.ambraproject.rhino.rest.RestClientException;
 import org.ambraproject.rhino.rest.response.CacheableResponse;
 import org.ambraproject.rhino.rest.response.ServiceResponse;
 import org.ambraproject.rhino.service.ArticleCrudService;
-import org.ambraproject.rhino.service.AssetCrudService;
+import org.ambraproject.rhino.service.IngestionMetadataService;
 import org.ambraproject.rhino.service.taxonomy.TaxonomyService;
 import org.ambraproject.rhino.util.Archive;
 import org.ambraproject.rhino.view.ResolvedDoiView;
@@ -57,22 +55,21 @@ import org.ambraproject.rhino.view.article.ArticleRevisionView;
 import org.ambraproject.rhino.view.article.CategoryAssignmentView;
 import org.ambraproject.rhino.view.article.ItemSetView;
 import org.ambraproject.rhino.view.article.author.ArticleAllAuthorsView;
-import org.ambraproject.rhino.view.article.author.AuthorView;
 import org.apache.commons.lang3.StringEscapeUtils;
 import org.hibernate.Query;
-import org.plos.crepo.model.metadata.RepoObjectMetadata;
+import org.plos.crepo.exceptions.NotFoundException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.w3c.dom.Document;
 
-import javax.xml.xpath.XPathException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -90,16 +87,23 @@ public class ArticleCrudServiceImpl extends AmbraService implements ArticleCrudS
 
   private static final Logger log = LoggerFactory.getLogger(ArticleCrudServiceImpl.class);
 
-  @Autowired
-  AssetCrudService assetCrudService;
-  @Autowired
-  private XpathReader xpathReader;
+  /**
+   * The maximum number of DOIs to put in one {@code IN} list when querying by item DOI.
+   */
+  private static final int ITEM_DOI_BATCH_SIZE = 500;
+
   @Autowired
   private TaxonomyService taxonomyService;
   @Autowired
   private ArticleIngestionView.Factory articleIngestionViewFactory;
   @Autowired
   private ItemSetView.Factory itemSetViewFactory;
+  @Autowired
+  private IngestionMetadataService ingestionMetadataService;
+  @Autowired
+  private ManuscriptCache manuscriptCache;
+  @Autowired
+  private RepoObjectDiskCache repoObjectDiskCache;
 
   @Override
   public void populateCategories(ArticleIdentifier articleId) throws IOException {
@@ -112,14 +116,19 @@ public class ArticleCrudServiceImpl extends AmbraService implements ArticleCrudS
   public Document getManuscriptXml(ArticleIngestion ingestion) {
     Doi articleDoi = Doi.create(ingestion.getArticle().getDoi());
     ArticleIngestionIdentifier ingestionId = ArticleIngestionIdentifier.create(articleDoi, ingestion.getIngestionNumber());
-    ArticleItemIdentifier articleItemId = ingestionId.getItemFor();
-    ArticleFileIdentifier manuscriptId = ArticleFileIdentifier.create(articleItemId, "manuscript");
-    RepoObjectMetadata objectMetadata = assetCrudService.getArticleItemFile(manuscriptId);
-    try (InputStream manuscriptInputStream = contentRepoService.getRepoObject(objectMetadata.getVersion())) {
-      return parseXml(manuscriptInputStream);
-    } catch (IOException e) {
-      throw new RuntimeException(e);
-    }
+    ArticleItem articleItem = getArticleItem(ingestionId.getItemFor());
+    ArticleFile manuscriptFile = articleItem.getFile("manuscript")
+        .orElseThrow(() -> new RestClientException("Manuscript not found for: " + ingestionId, HttpStatus.NOT_FOUND));
+    return manuscriptCache.get(manuscriptFile, () -> {
+      try (InputStream manuscriptInputStream = repoObjectDiskCache.getRepoObject(manuscriptFile.getCrepoVersion())) {
+        return parseXml(manuscriptInputStream, manuscriptFile.getFileSize());
+      } catch (NotFoundException e) {
+        throw new RestClientException("Manuscript object not found for: " + ingestionId
+            + ". File info: " + manuscriptFile, HttpStatus.NOT_FOUND);
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    });
   }
 
   static RestClientException complainAboutXml(XmlContentException e) {
@@ -197,23 +206,7 @@ public class ArticleCrudServiceImpl extends AmbraService implements ArticleCrudS
   @Override
   public CacheableResponse<ArticleAllAuthorsView> serveAuthors(ArticleIngestionIdentifier ingestionId) {
     ArticleIngestion articleIngestion = readIngestion(ingestionId);
-    return CacheableResponse.serveEntity(articleIngestion, ing -> parseAuthors(getManuscriptXml(ing)));
-  }
-
-  private ArticleAllAuthorsView parseAuthors(Document doc) {
-    List<AuthorView> authors;
-    List<String> authorContributions;
-    List<String> competingInterests;
-    List<String> correspondingAuthorList;
-    try {
-      authors = AuthorsXmlExtractor.getAuthors(doc, xpathReader);
-      authorContributions = AuthorsXmlExtractor.getAuthorContributions(doc, xpathReader);
-      competingInterests = AuthorsXmlExtractor.getCompetingInterests(doc, xpathReader);
-      correspondingAuthorList = AuthorsXmlExtractor.getCorrespondingAuthorList(doc, xpathReader);
-    } catch (XPathException e) {
-      throw new RuntimeException("Invalid XML when parsing authors", e);
-    }
-    return new ArticleAllAuthorsView(authors, authorContributions, competingInterests, correspondingAuthorList);
+    return CacheableResponse.serveEntity(articleIngestion, ingestionMetadataService::getAuthors);
   }
 
   /**
@@ -356,7 +349,7 @@ public class ArticleCrudServiceImpl extends AmbraService implements ArticleCrudS
         (ArticleFile file) -> new ByteSource() {
           @Override
           public InputStream openStream() throws IOException {
-            return contentRepoService.getRepoObject(file.getCrepoVersion());
+            return repoObjectDiskCache.getRepoObject(file.getCrepoVersion());
           }
         }));
 
@@ -392,6 +385,25 @@ public class ArticleCrudServiceImpl extends AmbraService implements ArticleCrudS
     });
   }
 
+  @Override
+  public Set<String> getOwningArticleDois(Collection<Doi> itemDois) {
+    List<String> itemDoiNames = itemDois.stream().map(Doi::getName).distinct().collect(Collectors.toList());
+    Set<String> articleDois = new LinkedHashSet<>();
+    for (List<String> batch : Lists.partition(itemDoiNames, ITEM_DOI_BATCH_SIZE)) {
+      articleDois.addAll(hibernateTemplate.execute(session -> {
+        Query query = session.createQuery("" +
+            "SELECT DISTINCT article.doi " +
+            "FROM ArticleItem item " +
+            "INNER JOIN item.ingestion ingestion " +
+            "INNER JOIN ingestion.article article " +
+            "WHERE item.doi IN (:itemDois)");
+        query.setParameterList("itemDois", batch);
+        return (List<String>) query.list();
+      }));
+    }
+    return articleDois;
+  }
+
   private static boolean isMainArticleItem(ArticleItem item) {
     return item.getDoi().equals(item.getIngestion().getArticle().getDoi());
   }
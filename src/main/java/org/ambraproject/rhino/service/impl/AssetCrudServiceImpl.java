@@ -33,22 +33,28 @@ import org.plos.crepo.model.metadata.RepoObjectMetadata;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 
+import java.io.IOException;
+
 public class AssetCrudServiceImpl extends AmbraService implements AssetCrudService {
 
   @Autowired
   private ArticleCrudService articleCrudService;
+  @Autowired
+  private RepoObjectMetadataCache repoObjectMetadataCache;
 
   @Override
-  public RepoObjectMetadata getArticleItemFile(ArticleFileIdentifier fileId) {
+  public RepoObjectMetadata getArticleItemFile(ArticleFileIdentifier fileId, boolean needsReproxyUrls) {
     ArticleItem work = articleCrudService.getArticleItem(fileId.getItemIdentifier());
     String fileType = fileId.getFileType();
     ArticleFile articleFile = work.getFile(fileType)
         .orElseThrow(() -> new RestClientException("Unrecognized type: " + fileType, HttpStatus.NOT_FOUND));
     try {
-      return contentRepoService.getRepoObjectMetadata(articleFile.getCrepoVersion());
+      return repoObjectMetadataCache.get(articleFile.getCrepoVersion(), needsReproxyUrls);
     } catch (NotFoundException e) {
       throw new RestClientException("Object not found: " + fileId + ". File info: " + articleFile,
           HttpStatus.NOT_FOUND);
+    } catch (IOException e) {
+      throw new RestClientException("Could not look up object: " + fileId, HttpStatus.SERVICE_UNAVAILABLE, e);
     }
   }
 
@@ -23,18 +23,20 @@
 package org.ambraproject.rhino.service.impl;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.HashMultiset;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Multiset;
 import org.ambraproject.rhino.content.xml.XpathReader;
-import org.ambraproject.rhino.util.NodeListAdapter;
 import org.ambraproject.rhino.util.StringReplacer;
+import org.ambraproject.rhino.view.article.author.ArticleAllAuthorsView;
 import org.ambraproject.rhino.view.article.author.AuthorRole;
 import org.ambraproject.rhino.view.article.author.AuthorView;
 import org.ambraproject.rhino.view.article.author.Orcid;
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.w3c.dom.Document;
-import org.w3c.dom.DocumentFragment;
+import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
@@ -49,7 +51,6 @@ import javax.xml.xpath.XPathExpressionException;
 import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -57,7 +58,8 @@ import java.util.stream.Collectors;
 /**
  * Contains logic for extracting author information from article XML.
  * <p/>
- * TODO: store all this data in the database instead at ingest time, and then destroy this class with prejudice.
+ * The results are stored the first time they are read for an ingestion (see {@link
+ * org.ambraproject.rhino.service.IngestionMetadataService#getAuthors}), so this should run only once per ingestion.
  */
 public final class AuthorsXmlExtractor {
 
@@ -91,55 +93,292 @@ public final class AuthorsXmlExtractor {
   private final static String COMPETING_INTERESTS_XPATH = "//fn[@fn-type='conflict']";
   private final static String AUTHOR_CONTRIBUTIONS_XPATH = "//author-notes/fn[@fn-type='con']";
 
-  private final Document doc;
-  private final XpathReader xpath;
+  // Collected by a single walk over the document
+  private final List<Element> authorNodes = new ArrayList<>();
+  private final Map<String, String> affiliateMap = new HashMap<>();
+  private final Map<String, String> addressMap = new HashMap<>();
+  private final Map<String, Node> otherFootnoteNodes = new HashMap<>();
+  private final Multiset<String> contribFootnoteReferences = HashMultiset.create();
+  private final Map<String, Element> correspondingNotes = new HashMap<>();
 
-  private final ImmutableMap<String, String> affiliateMap;
-  private final ImmutableMap<String, String> addressMap;
-  private final ImmutableMap<String, String> otherFootnotesMap;
+  private final Map<String, String> otherFootnotesMap = new HashMap<>();
+  private Transformer transformer;
 
-  private AuthorsXmlExtractor(Document doc, XpathReader xpath) throws XPathException {
-    this.doc = Preconditions.checkNotNull(doc);
-    this.xpath = Preconditions.checkNotNull(xpath);
-
-    affiliateMap = ImmutableMap.copyOf(getAffiliateMap(doc, xpath));
-    addressMap = ImmutableMap.copyOf(getAddressMap(doc, xpath));
-    otherFootnotesMap = ImmutableMap.copyOf(getOtherFootnotesMap(doc, xpath));
+  private AuthorsXmlExtractor(Document doc) {
+    scanDocument(Preconditions.checkNotNull(doc));
   }
 
   /**
-   * Retrieves the authors as {@link AuthorView}s from article XML.
+   * Retrieves all author information from article XML.
    *
    * @param doc   parsed representation of the article XML
    * @param xpath XpathReader to use to process xpath expressions
+   * @return the authors, author contributions, competing interests, and corresponding author notes
+   */
+  public static ArticleAllAuthorsView getAllAuthors(Document doc, XpathReader xpath) {
+    try {
+      return new ArticleAllAuthorsView(getAuthors(doc), getAuthorContributions(doc, xpath),
+          getCompetingInterests(doc, xpath), getCorrespondingAuthorList(doc, xpath));
+    } catch (XPathException e) {
+      throw new RuntimeException("Invalid XML when parsing authors", e);
+    }
+  }
+
+  /**
+   * Retrieves the authors as {@link AuthorView}s from article XML.
+   * <p/>
+   * This reads the document in one pass, plus one pass over each author's {@code <contrib>} element, and does not
+   * modify it.
+   *
+   * @param doc parsed representation of the article XML
    * @return list of AuthorView objects
    */
-  public static List<AuthorView> getAuthors(Document doc, XpathReader xpath) throws XPathException {
-    return new AuthorsXmlExtractor(doc, xpath).buildAuthors();
+  public static List<AuthorView> getAuthors(Document doc) {
+    return new AuthorsXmlExtractor(doc).buildAuthors();
   }
 
-  private List<AuthorView> buildAuthors() throws XPathException {
-    List<AuthorView> list = new ArrayList<>();
+  /**
+   * Tests whether a node is an element that the unprefixed XPath name test {@code name} would match.
+   */
+  private static boolean isElement(Node node, String name) {
+    if (node == null || node.getNodeType() != Node.ELEMENT_NODE || node.getNamespaceURI() != null) return false;
+    String localName = node.getLocalName();
+    return name.equals(localName != null ? localName : node.getNodeName());
+  }
+
+  /**
+   * @return the value of a node's attribute, or {@code null} if it doesn't have the attribute
+   */
+  private static String getAttribute(Node node, String name) {
+    Node attribute = node.getAttributes().getNamedItem(name);
+    return (attribute == null) ? null : attribute.getTextContent();
+  }
+
+  private static String getId(Node node) {
+    String id = getAttribute(node, "id");
+    return (id == null) ? "" : id; // Not all nodes have the 'id' attribute.
+  }
+
+  /**
+   * @return the first descendant element with the given name, in document order, or {@code null} if there is none
+   */
+  private static Node findDescendant(Node node, String name) {
+    for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+      if (isElement(child, name)) return child;
+      Node found = findDescendant(child, name);
+      if (found != null) return found;
+    }
+    return null;
+  }
+
+  /**
+   * Equivalent to {@link XpathReader#selectString} on a node that has already been selected.
+   */
+  private static String readString(Node node) {
+    if (node == null) return null;
+    String text = node.getTextContent();
+    return StringUtils.isBlank(text) ? null : text;
+  }
+
+  private void scanDocument(Node parent) {
+    for (Node node = parent.getFirstChild(); node != null; node = node.getNextSibling()) {
+      if (node.getNodeType() != Node.ELEMENT_NODE) continue;
+      Element element = (Element) node;
+
+      if (isElement(element, "contrib")) {
+        if (isElement(parent, "contrib-group") && "author".equals(getAttribute(element, "contrib-type"))) {
+          authorNodes.add(element);
+        }
+      } else if (isElement(element, "xref")) {
+        String rid = getAttribute(element, "rid");
+        if (rid != null && isElement(parent, "contrib") && "fn".equals(getAttribute(element, "ref-type"))) {
+          contribFootnoteReferences.add(rid);
+        }
+      } else if (isElement(element, "aff")) {
+        readAffiliation(element);
+      } else if (isElement(element, "fn")) {
+        String fnType = getAttribute(element, "fn-type");
+        if ("current-aff".equals(fnType)) {
+          log.debug("Current address node: {}", getId(element));
+          addressMap.put(getId(element), readString(findDescendant(element, "p")));
+        } else if ("other".equals(fnType)) {
+          log.debug("Found footnote node: {}", getId(element));
+          otherFootnoteNodes.put(getId(element), findDescendant(element, "p"));
+        }
+      } else if (isElement(element, "corresp")) {
+        String id = getAttribute(element, "id");
+        if (id != null && isElement(parent, "author-notes")) {
+          correspondingNotes.putIfAbsent(id, element);
+        }
+      }
+
+      scanDocument(element);
+    }
+  }
+
+  /**
+   * Add an affiliation to the map if its ID marks it as one.
+   */
+  private void readAffiliation(Element affiliationNode) {
+    String id = getId(affiliationNode);
+    log.debug("Found affiliation node: {}", id);
+
+    // Not all <aff> id's are affiliations.
+    if (id.startsWith("aff")) {
+      StringBuilder res = new StringBuilder();
+
+      Node institution = findDescendant(affiliationNode, "institution");
+      if (institution != null) {
+        res.append(readString(institution));
+      }
+
+      Node addrLine = findDescendant(affiliationNode, "addr-line");
+      if (addrLine != null) {
+        if (res.length() > 0) {
+          res.append(" ");
+        }
+        res.append(readString(addrLine));
+      }
+
+      affiliateMap.put(id, res.toString());
+    }
+  }
+
+  private String getOtherFootnote(String id) {
+    if (!otherFootnoteNodes.containsKey(id)) return null;
+    return otherFootnotesMap.computeIfAbsent(id, (String key) -> {
+      try {
+        return getAsXMLString(getTransformer(), otherFootnoteNodes.get(key));
+      } catch (TransformerException e) {
+        throw new RuntimeException(e);
+      }
+    });
+  }
+
+  private Transformer getTransformer() {
+    if (transformer == null) {
+      transformer = newTransformer();
+    }
+    return transformer;
+  }
+
+  /**
+   * The nodes within one author's {@code <contrib>} element that are used to build the author's view.
+   */
+  private static class ContribNodes {
+    private final Element contrib;
+
+    private Node surname;
+    private Node givenNames;
+    private Node suffix;
+    private Node collab;
+    private Node onBehalfOf;
+    private Node correspondingReference;
+    private Node orcid;
+    private boolean equalContrib;
+    private boolean deceased;
+    private final List<Node> footnoteReferences = new ArrayList<>();
+    private final List<Node> addressReferences = new ArrayList<>();
+    private final List<Node> affiliationReferences = new ArrayList<>();
+    private final List<Node> roles = new ArrayList<>();
+
+    private ContribNodes(Element contrib) {
+      this.contrib = contrib;
+      visit(contrib, null);
+    }
+
+    private void visit(Element element, Node parent) {
+      equalContrib |= element.hasAttribute("equal-contrib");
+      deceased |= element.hasAttribute("deceased");
+
+      if (isElement(element, "surname")) {
+        if (surname == null && isChildOfName(parent)) surname = element;
+      } else if (isElement(element, "given-names")) {
+        if (givenNames == null && isChildOfName(parent)) givenNames = element;
+      } else if (isElement(element, "suffix")) {
+        if (suffix == null && isElement(parent, "name")) suffix = element;
+      } else if (isElement(element, "collab")) {
+        if (collab == null) collab = element;
+      } else if (isElement(element, "on-behalf-of")) {
+        if (onBehalfOf == null) onBehalfOf = element;
+      } else if (isElement(element, "contrib-id")) {
+        if (orcid == null && parent == contrib && "orcid".equals(getAttribute(element, "contrib-id-type"))) {
+          orcid = element;
+        }
+      } else if (isElement(element, "role")) {
+        roles.add(element);
+      } else if (isElement(element, "xref")) {
+        String refType = getAttribute(element, "ref-type");
+        if ("fn".equals(refType)) {
+          footnoteReferences.add(element);
+          if (hasCurrentAddressSymbol(element)) {
+            addressReferences.add(element);
+          }
+        } else if ("aff".equals(refType)) {
+          affiliationReferences.add(element);
+        } else if ("corresp".equals(refType)) {
+          if (correspondingReference == null) correspondingReference = element;
+        }
+      }
+
+      for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+        if (child.getNodeType() == Node.ELEMENT_NODE) {
+          visit((Element) child, element);
+        }
+      }
+    }
+
+    /**
+     * Whether a node is a {@code <name>} element that is a child of the {@code <contrib>} element.
+     */
+    private boolean isChildOfName(Node parent) {
+      return isElement(parent, "name") && parent.getParentNode() == contrib;
+    }
+  }
 
-    //Get all the authors
-    NodeList authorList = xpath.selectNodes(doc, "//contrib-group/contrib[@contrib-type='author']");
+  /**
+   * Equivalent to matching an {@code <xref>} element with {@code xref/sup[contains(text()[1],'¤')]}.
+   */
+  private static boolean hasCurrentAddressSymbol(Element xref) {
+    for (Node sup = xref.getFirstChild(); sup != null; sup = sup.getNextSibling()) {
+      if (isElement(sup, "sup")) {
+        String firstText = getFirstText(sup);
+        if (firstText != null && firstText.contains("¤")) return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return the value of the node's first child text node, in the XPath sense (that is, merging adjacent text and
+   * CDATA nodes), or {@code null} if it has no child text nodes
+   */
+  private static String getFirstText(Node node) {
+    Node child = node.getFirstChild();
+    while (child != null && !isText(child)) {
+      child = child.getNextSibling();
+    }
+    if (child == null) return null;
+    StringBuilder text = new StringBuilder();
+    for (; child != null && isText(child); child = child.getNextSibling()) {
+      text.append(child.getNodeValue());
+    }
+    return text.toString();
+  }
 
-    for (int i = 0; i < authorList.getLength(); i++) {
-      Node authorNode = authorList.item(i);
+  private static boolean isText(Node node) {
+    return node.getNodeType() == Node.TEXT_NODE || node.getNodeType() == Node.CDATA_SECTION_NODE;
+  }
 
-      //Create temp author document fragment to search out of
-      DocumentFragment authorDoc = doc.createDocumentFragment();
+  private List<AuthorView> buildAuthors() {
+    List<AuthorView> list = new ArrayList<>();
 
-      //I thought this strange, appendChild actually moves the node in the case of document fragment
-      //hence below I clone to keep the original DOM intact.
-      //re: http://docs.oracle.com/javase/1.4.2/docs/api/org/w3c/dom/Node.html#appendChild%28org.w3c.dom.Node%29
-      authorDoc.appendChild(authorNode.cloneNode(true));
+    for (Element authorNode : authorNodes) {
+      ContribNodes contribNodes = new ContribNodes(authorNode);
 
-      Node surNameNode = xpath.selectNode(authorDoc, "./contrib/name/surname");
-      Node givenNameNode = xpath.selectNode(authorDoc, "./contrib/name/given-names");
-      Node collabNameNode = xpath.selectNode(authorDoc, "//collab");
-      Node behalfOfNode = xpath.selectNode(authorDoc, "//on-behalf-of");
-      NodeList otherFootnotesNodeList = xpath.selectNodes(authorDoc, "//xref[@ref-type='fn']");
+      Node surNameNode = contribNodes.surname;
+      Node givenNameNode = contribNodes.givenNames;
+      Node collabNameNode = contribNodes.collab;
 
       //Sometimes, an author is not a person, but a collab
       //Note:10.1371/journal.pone.0032315
@@ -154,12 +393,11 @@ public final class AuthorsXmlExtractor {
 
               //Craziness ensues here.  Previous author has "on behalf of", lets append any
               //footnotes from this contrib to that author!
-              for (int a = 0; a < otherFootnotesNodeList.getLength(); a++) {
-                Node node = otherFootnotesNodeList.item(a);
+              for (Node node : contribNodes.footnoteReferences) {
+                String id = getAttribute(node, "rid");
 
-                if (node.getAttributes().getNamedItem("rid") != null) {
-                  String id = node.getAttributes().getNamedItem("rid").getTextContent();
-                  String value = otherFootnotesMap.get(id);
+                if (id != null) {
+                  String value = getOtherFootnote(id);
 
                   if (value != null) {
                     AuthorView av = list.get(list.size() - 1);
@@ -194,27 +432,18 @@ public final class AuthorsXmlExtractor {
         continue;
       }
 
-      AuthorView author = getAuthorView(authorDoc, surNameNode, givenNameNode, behalfOfNode, otherFootnotesNodeList);
+      AuthorView author = getAuthorView(contribNodes, surNameNode, givenNameNode);
       list.add(author);
     }
 
     return list;
   }
 
-  private AuthorView getAuthorView(DocumentFragment authorDoc,
-                                   Node surNameNode,
-                                   Node givenNameNode,
-                                   Node behalfOfNode,
-                                   NodeList otherFootnotesNodeList)
-      throws XPathException {
-    Node suffixNode = xpath.selectNode(authorDoc, "//name/suffix");
-    Node equalContribNode = xpath.selectNode(authorDoc, "//@equal-contrib");
-    Node deceasedNode = xpath.selectNode(authorDoc, "//@deceased");
-    Node corresAuthorNode = xpath.selectNode(authorDoc, "//xref[@ref-type='corresp']");
-    NodeList addressList = xpath.selectNodes(authorDoc, "//xref[@ref-type='fn']/sup[contains(text()[1],'¤')]/..");
-    NodeList affList = xpath.selectNodes(authorDoc, "//xref[@ref-type='aff']");
-    Node orcidNode = xpath.selectNode(authorDoc, "./contrib/contrib-id[@contrib-id-type='orcid']");
-    NodeList roleNodes = xpath.selectNodes(authorDoc, "//role");
+  private AuthorView getAuthorView(ContribNodes contribNodes, Node surNameNode, Node givenNameNode) {
+    Node suffixNode = contribNodes.suffix;
+    Node behalfOfNode = contribNodes.onBehalfOf;
+    Node corresAuthorNode = contribNodes.correspondingReference;
+    Node orcidNode = contribNodes.orcid;
 
     // Either surname or givenName can be blank
     String surname = (surNameNode == null) ? null : surNameNode.getTextContent();
@@ -222,18 +451,17 @@ public final class AuthorsXmlExtractor {
     String suffix = (suffixNode == null) ? null : suffixNode.getTextContent();
     String onBehalfOf = (behalfOfNode == null) ? null : behalfOfNode.getTextContent();
 
-    boolean equalContrib = (equalContribNode != null);
-    boolean deceased = (deceasedNode != null);
+    boolean equalContrib = contribNodes.equalContrib;
+    boolean deceased = contribNodes.deceased;
     boolean relatedFootnote = false;
 
     String corresponding = null;
 
     List<String> currentAddresses = new ArrayList<>();
-    for (int a = 0; a < addressList.getLength(); a++) {
-      Node addressNode = addressList.item(a);
+    for (Node addressNode : contribNodes.addressReferences) {
+      String fnId = getAttribute(addressNode, "rid");
 
-      if (addressNode.getAttributes().getNamedItem("rid") != null) {
-        String fnId = addressNode.getAttributes().getNamedItem("rid").getTextContent();
+      if (fnId != null) {
         String curAddress = addressMap.get(fnId);
 
         //A fix for PBUG-153, sometimes addresses are null because of weird XML
@@ -255,18 +483,17 @@ public final class AuthorsXmlExtractor {
     //Note this web page for notes on author footnotes:
     //http://wiki.plos.org/pmwiki.php/Publications/FootnoteSymbolOrder
     List<String> otherFootnotes = new ArrayList<>();
-    for (int a = 0; a < otherFootnotesNodeList.getLength(); a++) {
-      Node node = otherFootnotesNodeList.item(a);
+    for (Node node : contribNodes.footnoteReferences) {
+      String id = getAttribute(node, "rid");
 
-      if (node.getAttributes().getNamedItem("rid") != null) {
-        String id = node.getAttributes().getNamedItem("rid").getTextContent();
-        String value = otherFootnotesMap.get(id);
+      if (id != null) {
+        String value = getOtherFootnote(id);
 
         if (value != null) {
           value = fixPilcrow(value, true);
           //If the current footnote is also referenced by another contrib
           //We want to notify the end user of the relation
-          if (hasRelatedFootnote(doc, xpath, id)) {
+          if (contribFootnoteReferences.count(id) > 1) {
             relatedFootnote = true;
           }
 
@@ -276,21 +503,19 @@ public final class AuthorsXmlExtractor {
     }
 
     if (corresAuthorNode != null) {
-      Node attr = corresAuthorNode.getAttributes().getNamedItem("rid");
+      String rid = getAttribute(corresAuthorNode, "rid");
 
-      if (attr == null) {
+      if (rid == null) {
         log.warn("No rid attribute found for xref ref-type=\"corresp\" node.");
       } else {
-        String rid = attr.getTextContent();
-
-        Node correspondAddrNode = xpath.selectNode(doc, "//author-notes/corresp[@id='" + rid + "']");
+        Node correspondAddrNode = correspondingNotes.get(rid);
 
         if (correspondAddrNode == null) {
           log.warn("No node found for corrsponding author: author-notes/corresp[@id='\" + rid + \"']");
         } else {
           // Store the entire corresponding author string, even though it's not specific to this author.
           // It's meant to support the author pop-up. See getCorrespondingAuthorList for the split-up list.
-          corresponding = transFormCorresponding(correspondAddrNode);
+          corresponding = transFormCorresponding(getTransformer(), correspondAddrNode);
         }
       }
     }
@@ -298,11 +523,10 @@ public final class AuthorsXmlExtractor {
     List<String> affiliations = new ArrayList<>();
 
     // Build a list of affiliations for this author
-    for (int j = 0; j < affList.getLength(); j++) {
-      Node anode = affList.item(j);
+    for (Node anode : contribNodes.affiliationReferences) {
+      String affId = getAttribute(anode, "rid");
 
-      if (anode.getAttributes().getNamedItem("rid") != null) {
-        String affId = anode.getAttributes().getNamedItem("rid").getTextContent();
+      if (affId != null) {
         String affValue = affiliateMap.get(affId);
 
         //A fix for PBUG-149, sometimes we get wacky XML.  This should handle it so at least the
@@ -314,7 +538,7 @@ public final class AuthorsXmlExtractor {
     }
 
     Orcid orcid = (orcidNode != null) ? buildOrcid(orcidNode) : null;
-    List<AuthorRole> roles = (roleNodes != null) ? buildRoles(roleNodes) : null;
+    List<AuthorRole> roles = buildRoles(contribNodes.roles);
 
     return AuthorView.builder()
         .setGivenNames(givenName)
@@ -341,8 +565,8 @@ public final class AuthorsXmlExtractor {
     return new Orcid(value, authenticated);
   }
 
-  private List<AuthorRole> buildRoles(NodeList roleNodes) {
-    return NodeListAdapter.wrap(roleNodes).stream().map((Node roleNode) -> {
+  private List<AuthorRole> buildRoles(List<Node> roleNodes) {
+    return roleNodes.stream().map((Node roleNode) -> {
       String content = roleNode.getTextContent();
       Node contentTypeNode = roleNode.getAttributes().getNamedItem("content-type");
       String contentType = (contentTypeNode == null) ? null : contentTypeNode.getNodeValue();
@@ -350,126 +574,20 @@ public final class AuthorsXmlExtractor {
     }).collect(Collectors.toList());
   }
 
-  /**
-   * Grab all affiliations and put them into their own map
-   *
-   * @param doc   the article XML document
-   * @param xpath XpathReader to use to process xpath expressions
-   * @return a Map of affiliate IDs and values
-   */
-  private static Map<String, String> getAffiliateMap(Document doc, XpathReader xpath) throws XPathException {
-    Map<String, String> affiliateMap = new LinkedHashMap<>();
-
-    NodeList affiliationNodeList = xpath.selectNodes(doc, "//aff");
-
-    //Map all affiliation id's to their affiliation strings
-    for (int a = 0; a < affiliationNodeList.getLength(); a++) {
-      Node node = affiliationNodeList.item(a);
-      // Not all <aff>'s have the 'id' attribute.
-      String id = (node.getAttributes().getNamedItem("id") == null) ? "" :
-          node.getAttributes().getNamedItem("id").getTextContent();
-
-      log.debug("Found affiliation node: {}", id);
-
-      // Not all <aff> id's are affiliations.
-      if (id.startsWith("aff")) {
-        DocumentFragment df = doc.createDocumentFragment();
-        //because of a org.w3c.Document.dom.Document peculiarity, simple appellation will strip it from the source and
-        //cause bugs, so we need cloning technology
-        df.appendChild(node.cloneNode(true));
-
-        StringBuilder res = new StringBuilder();
-
-        if (xpath.selectNode(df, "//institution") != null) {
-          res.append(xpath.selectString(df, "//institution"));
-        }
-
-        if (xpath.selectNode(df, "//addr-line") != null) {
-          if (res.length() > 0) {
-            res.append(" ");
-          }
-          res.append(xpath.selectString(df, "//addr-line"));
-        }
-
-        affiliateMap.put(id, res.toString());
-      }
-    }
-
-    return affiliateMap;
-  }
-
-  /**
-   * Grab all addresses and put them into their own map
-   *
-   * @param doc   the article XML document
-   * @param xpath XpathReader to use to process xpath expressions
-   * @return a Map of address IDs and values
-   */
-  private static Map<String, String> getAddressMap(Document doc, XpathReader xpath) throws XPathException {
-    Map<String, String> addressMap = new HashMap<>();
-
-    //Grab all the Current address information and place them into a map
-    NodeList currentAddressNodeList = xpath.selectNodes(doc, "//fn[@fn-type='current-aff']");
-    for (int a = 0; a < currentAddressNodeList.getLength(); a++) {
-      Node node = currentAddressNodeList.item(a);
-      String id = (node.getAttributes().getNamedItem("id") == null) ? "" :
-          node.getAttributes().getNamedItem("id").getTextContent();
-
-      log.debug("Current address node: {}", id);
-
-      DocumentFragment df = doc.createDocumentFragment();
-      df.appendChild(node);
-
-      String address = xpath.selectString(df, "//p");
-      addressMap.put(id, address);
-    }
-
-    return addressMap;
-  }
-
-  /**
-   * Grab all footnotes and put them into their own map
-   *
-   * @param doc   the article XML document
-   * @param xpath XpathReader to use to process xpath expressions
-   * @return a Map of footnote IDs and values
-   */
-  private static Map<String, String> getOtherFootnotesMap(Document doc, XpathReader xpath) throws XPathException {
-    Map<String, String> otherFootnotesMap = new HashMap<>();
-
-    //Grab all 'other' footnotes and put them into their own map
-    NodeList footnoteNodeList = xpath.selectNodes(doc, "//fn[@fn-type='other']");
-
-    for (int a = 0; a < footnoteNodeList.getLength(); a++) {
-      Node node = footnoteNodeList.item(a);
-      // Not all <aff>'s have the 'id' attribute.
-      String id = (node.getAttributes().getNamedItem("id") == null) ? "" :
-          node.getAttributes().getNamedItem("id").getTextContent();
-
-      log.debug("Found footnote node: {}", id);
-
-      DocumentFragment df = doc.createDocumentFragment();
-      df.appendChild(node);
-
-      String footnote;
-      try {
-        footnote = getAsXMLString(xpath.selectNode(df, "//p"));
-      } catch (TransformerException e) {
-        throw new RuntimeException(e);
-      }
-      otherFootnotesMap.put(id, footnote);
+  private static Transformer newTransformer() {
+    Transformer tf;
+    try {
+      tf = TransformerFactory.newInstance().newTransformer();
+    } catch (TransformerException e) {
+      throw new RuntimeException(e);
     }
-
-    return otherFootnotesMap;
+    tf.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+    return tf;
   }
 
-  private static String getAsXMLString(Node node) throws TransformerException {
-    final Transformer tf = TransformerFactory.newInstance().newTransformer();
+  private static String getAsXMLString(Transformer tf, Node node) throws TransformerException {
     final StringWriter stringWriter = new StringWriter();
-
-    tf.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
     tf.transform(new DOMSource(node), new StreamResult(stringWriter));
-
     return stringWriter.toString();
   }
 
@@ -526,40 +644,19 @@ public final class AuthorsXmlExtractor {
     return source.replaceAll("Current\\s[Aa]ddress:\\s*", "");
   }
 
-  /**
-   * Check to see if the current footnote is referenced by multiple contribs If the current footnote is also referenced
-   * by another contrib We want to notify the end user of the relation
-   *
-   * @param doc            the document
-   * @param xpathExtractor XpathReader to use to process xpath expressions
-   * @param rid            the rid to search for, the RID is an attribute of a footnote that attaches a footnote to one
-   *                       or many authors
-   * @return true if the rid is referenced by contribs more then once
-   * @throws XPathException
-   */
-  private static boolean hasRelatedFootnote(Node doc, XpathReader xpathExtractor, String rid)
-      throws XPathException {
-    String xpath = "//contrib/xref[@ref-type='fn' and @rid='" + rid + "']";
-
-    log.debug("xpath: {}", xpath);
-    NodeList nl = xpathExtractor.selectNodes(doc, xpath);
-    log.debug("nodecount: {}", nl.getLength());
-
-    return nl.getLength() > 1;
-  }
-
   /**
    * Kludge for FEND-794, A better ways of doing this?
    * <p/>
    * Reformat html embedded into the XML into something more easily styled on the front end
    *
+   * @param tf                 the transformer with which to serialize the node
    * @param correspondAddrNode html node
    * @return html fragment
    */
-  private static String transFormCorresponding(Node correspondAddrNode) {
+  private static String transFormCorresponding(Transformer tf, Node correspondAddrNode) {
     String corresponding;
     try {
-      corresponding = getAsXMLString(correspondAddrNode);
+      corresponding = getAsXMLString(tf, correspondAddrNode);
     } catch (TransformerException e) {
       throw new RuntimeException(e);
     }
@@ -599,7 +696,7 @@ public final class AuthorsXmlExtractor {
   public static List<String> getCorrespondingAuthorList(Document document, XpathReader xpath) throws XPathException {
     Node corresAuthorNode = xpath.selectNode(document, "//corresp");
     if (corresAuthorNode == null) return ImmutableList.of();
-    String r = transFormCorresponding(corresAuthorNode);
+    String r = transFormCorresponding(newTransformer(), corresAuthorNode);
 
     //Remove prepending text
     r = r.replaceAll("<span.*?/span>", "");
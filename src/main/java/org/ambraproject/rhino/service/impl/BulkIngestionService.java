@@ -0,0 +1,385 @@
+/*
+ * Copyright (c) 2017 Public Library of Science
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package org.ambraproject.rhino.service.impl;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Stopwatch;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.ambraproject.rhino.config.RuntimeConfiguration;
+import org.ambraproject.rhino.identity.ArticleIngestionIdentifier;
+import org.ambraproject.rhino.model.ingest.IngestPackage;
+import org.ambraproject.rhino.rest.RestClientException;
+import org.ambraproject.rhino.service.ContentRepoPersistenceService.UploadedFiles;
+import org.ambraproject.rhino.util.Archive;
+import org.ambraproject.rhino.view.article.BulkIngestionView;
+import org.ambraproject.rhino.view.article.BulkIngestionView.ArchiveResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.orm.hibernate3.HibernateTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.OptionalInt;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Ingests many archives at once, in a pipeline of three stages connected by bounded queues:
+ * <ol>
+ * <li>Archives are opened and their manuscripts parsed by a pool of CPU-bound workers.</li>
+ * <li>Their files are uploaded to the content repo by a pool of I/O-bound workers.</li>
+ * <li>The new ingestions are persisted by a single writer, several archives per transaction.</li>
+ * </ol>
+ * When a queue is full, the stage before it blocks, so that only a bounded number of archives are open at once no
+ * matter how many are submitted.
+ * <p/>
+ * Each archive succeeds or fails on its own. An archive that fails in one stage skips the rest, and if a transaction
+ * with several archives fails, each of them is retried in its own transaction.
+ */
+public class BulkIngestionService extends AmbraService {
+
+  private static final Logger log = LoggerFactory.getLogger(BulkIngestionService.class);
+
+  static final String PARSE_STAGE = "parse";
+  static final String UPLOAD_STAGE = "upload";
+  static final String STORE_STAGE = "store";
+
+  @Autowired
+  private IngestionService ingestionService;
+  @Autowired
+  private HibernateTransactionManager transactionManager;
+
+  @VisibleForTesting
+  void setIngestionService(IngestionService ingestionService) {
+    this.ingestionService = Objects.requireNonNull(ingestionService);
+  }
+
+  /**
+   * An archive on local disk, to be ingested under the given name.
+   */
+  public static class ArchiveFile {
+    private final String archiveName;
+    private final File file;
+
+    public ArchiveFile(String archiveName, File file) {
+      this.archiveName = Objects.requireNonNull(archiveName);
+      this.file = Objects.requireNonNull(file);
+    }
+
+    public String getArchiveName() {
+      return archiveName;
+    }
+
+    public File getFile() {
+      return file;
+    }
+  }
+
+  /**
+   * An archive in flight through the pipeline. Each stage fills in its result or the failure that ends the archive's
+   * progress. Handing it off through a blocking queue makes one stage's writes visible to the next.
+   */
+  static class PipelineItem {
+    private final ArchiveFile source;
+
+    private Archive archive;
+    private IngestPackage ingestPackage;
+    private UploadedFiles uploadedFiles;
+
+    private ArchiveResult result;
+
+    PipelineItem(ArchiveFile source) {
+      this.source = source;
+    }
+
+    ArchiveResult getResult() {
+      return result;
+    }
+
+    private boolean isFailed() {
+      return result != null;
+    }
+
+    private void fail(String stage, Throwable cause) {
+      if (!IngestionService.isInvalidInput(cause)) {
+        log.error("Bulk ingestion of " + source.getArchiveName() + " failed in " + stage + " stage", cause);
+      }
+      result = ArchiveResult.failed(source.getArchiveName(), stage, IngestionService.describeFailure(cause));
+    }
+
+    void close() {
+      if (archive != null) {
+        archive.close();
+        archive = null;
+      }
+    }
+  }
+
+  /**
+   * Create an empty file in the ingestion job directory, or the system's temp directory if there is none, to which to
+   * write an uploaded archive before ingesting it. The caller must delete it when done.
+   */
+  public File createSpoolFile() throws IOException {
+    String jobDirectory = runtimeConfiguration.getIngestionConfiguration().getJobDirectory();
+    if (jobDirectory == null) {
+      return Files.createTempFile("bulk-", ".zip").toFile();
+    }
+    Path spoolDirectory = Paths.get(jobDirectory);
+    Files.createDirectories(spoolDirectory);
+    return Files.createTempFile(spoolDirectory, "bulk-", ".zip").toFile();
+  }
+
+  /**
+   * Find the archives to ingest in a directory on the server. The directory must be under the configured bulk source
+   * directory.
+   *
+   * @param directory the directory to scan, relative to the bulk source directory
+   * @return the {@code .zip} files directly in the directory, in order by name
+   */
+  public List<ArchiveFile> findArchives(String directory) throws IOException {
+    String sourceDirectory = runtimeConfiguration.getIngestionConfiguration().getBulkSourceDirectory();
+    if (sourceDirectory == null) {
+      throw new RestClientException("Bulk ingestion from a server directory is not enabled", HttpStatus.FORBIDDEN);
+    }
+    Path root = Paths.get(sourceDirectory).toAbsolutePath().normalize();
+    Path scanned = root.resolve(directory).normalize();
+    if (!scanned.startsWith(root)) {
+      throw new RestClientException("Directory is outside of the bulk source directory: " + directory,
+          HttpStatus.BAD_REQUEST);
+    }
+    if (!Files.isDirectory(scanned)) {
+      throw new RestClientException("Directory not found: " + directory, HttpStatus.NOT_FOUND);
+    }
+
+    List<Path> zipFiles = new ArrayList<>();
+    try (DirectoryStream<Path> entries = Files.newDirectoryStream(scanned, "*.zip")) {
+      for (Path entry : entries) {
+        if (Files.isRegularFile(entry)) {
+          zipFiles.add(entry);
+        }
+      }
+    }
+    return zipFiles.stream().sorted()
+        .map(path -> new ArchiveFile(path.getFileName().toString(), path.toFile()))
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Ingest each of a list of archives as a new ingestion, independently of the others.
+   *
+   * @param archives the archives to ingest
+   * @return a report of each archive's ingestion or failure, in the same order as the input
+   */
+  public BulkIngestionView ingestAll(List<ArchiveFile> archives) {
+    RuntimeConfiguration.IngestionConfiguration configuration = runtimeConfiguration.getIngestionConfiguration();
+    int parseThreadCount = configuration.getBulkParseThreadCount();
+    int uploadThreadCount = configuration.getBulkUploadThreadCount();
+    int queueCapacity = configuration.getBulkQueueCapacity();
+    Preconditions.checkArgument(parseThreadCount > 0, "ingestion.bulkParseThreadCount must be positive");
+    Preconditions.checkArgument(uploadThreadCount > 0, "ingestion.bulkUploadThreadCount must be positive");
+    Preconditions.checkArgument(queueCapacity > 0, "ingestion.bulkQueueCapacity must be positive");
+
+    Stopwatch stopwatch = Stopwatch.createStarted();
+    List<PipelineItem> items = archives.stream().map(PipelineItem::new).collect(Collectors.toList());
+    BlockingQueue<PipelineItem> parsedQueue = new ArrayBlockingQueue<>(queueCapacity);
+    BlockingQueue<PipelineItem> uploadedQueue = new ArrayBlockingQueue<>(queueCapacity);
+
+    ExecutorService parseExecutor = Executors.newFixedThreadPool(parseThreadCount,
+        new ThreadFactoryBuilder().setNameFormat("bulk-ingestion-parse-%d").setDaemon(true).build());
+    ExecutorService uploadExecutor = Executors.newFixedThreadPool(uploadThreadCount,
+        new ThreadFactoryBuilder().setNameFormat("bulk-ingestion-upload-%d").setDaemon(true).build());
+    try {
+      // Every item is passed through every queue, even after it fails, so that each stage knows when it is done.
+      for (PipelineItem item : items) {
+        parseExecutor.execute(() -> {
+          try {
+            parse(item);
+          } finally {
+            putInterruptibly(parsedQueue, item);
+          }
+        });
+      }
+
+      AtomicInteger unclaimed = new AtomicInteger(items.size());
+      for (int i = 0; i < uploadThreadCount; i++) {
+        uploadExecutor.execute(() -> {
+          while (unclaimed.getAndDecrement() > 0) {
+            PipelineItem item = takeInterruptibly(parsedQueue);
+            if (item == null) return;
+            try {
+              upload(item);
+            } finally {
+              putInterruptibly(uploadedQueue, item);
+            }
+          }
+        });
+      }
+
+      writeAll(uploadedQueue, items.size());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted during bulk ingestion", e);
+    } finally {
+      parseExecutor.shutdownNow();
+      uploadExecutor.shutdownNow();
+      if (!awaitTermination(parseExecutor) || !awaitTermination(uploadExecutor)) {
+        log.warn("Bulk ingestion workers did not stop; some archives may be left open");
+      }
+      items.forEach(PipelineItem::close);
+    }
+
+    List<ArchiveResult> results = items.stream().map(item -> item.result).collect(Collectors.toList());
+    return new BulkIngestionView(results, stopwatch.elapsed(TimeUnit.MILLISECONDS));
+  }
+
+  @VisibleForTesting
+  void parse(PipelineItem item) {
+    try {
+      item.archive = Archive.openZipFile(item.source.getArchiveName(), item.source.getFile());
+      item.ingestPackage = ingestionService.createIngestPackage(item.archive, OptionalInt.empty());
+    } catch (IOException | RuntimeException | Error e) {
+      // Fail the archive on an Error too (such as running out of memory on one huge manuscript), and go on with the
+      // others, rather than letting it kill the worker and leave the item out of the next queue.
+      item.fail(PARSE_STAGE, e);
+      item.close();
+    }
+  }
+
+  @VisibleForTesting
+  void upload(PipelineItem item) {
+    if (item.isFailed()) return;
+    try {
+      item.uploadedFiles = ingestionService.uploadIngestPackage(item.ingestPackage);
+    } catch (RuntimeException | Error e) {
+      item.fail(UPLOAD_STAGE, e);
+      item.close();
+    }
+  }
+
+  /**
+   * Persist the uploaded archives as they come off the queue, on the calling thread, until all of them are done.
+   * Whatever has already arrived when the writer is ready is persisted together, up to the configured batch size, so
+   * the batches grow when the writer is the bottleneck.
+   */
+  private void writeAll(BlockingQueue<PipelineItem> uploadedQueue, int total) throws InterruptedException {
+    int batchSize = Math.max(1, runtimeConfiguration.getIngestionConfiguration().getBulkWriteBatchSize());
+    int written = 0;
+    while (written < total) {
+      List<PipelineItem> batch = new ArrayList<>(batchSize);
+      batch.add(uploadedQueue.take());
+      uploadedQueue.drainTo(batch, Math.min(batchSize, total - written) - 1);
+      written += batch.size();
+
+      List<PipelineItem> toPersist = batch.stream()
+          .filter(item -> !item.isFailed())
+          .collect(Collectors.toList());
+      persistBatch(toPersist);
+      batch.forEach(PipelineItem::close);
+    }
+  }
+
+  @VisibleForTesting
+  void persistBatch(Collection<PipelineItem> batch) {
+    if (batch.size() > 1) {
+      try {
+        List<ArticleIngestionIdentifier> ingestions = newTransaction().execute(status ->
+            batch.stream().map(this::persist).collect(Collectors.toList()));
+        int i = 0;
+        for (PipelineItem item : batch) {
+          item.result = ArchiveResult.succeeded(item.source.getArchiveName(), ingestions.get(i++));
+        }
+        return;
+      } catch (RuntimeException e) {
+        log.debug("Bulk ingestion batch failed; retrying each archive in its own transaction", e);
+      }
+    }
+
+    for (PipelineItem item : batch) {
+      try {
+        ArticleIngestionIdentifier ingestion = newTransaction().execute(status -> persist(item));
+        item.result = ArchiveResult.succeeded(item.source.getArchiveName(), ingestion);
+      } catch (RuntimeException e) {
+        item.fail(STORE_STAGE, e);
+      }
+    }
+  }
+
+  private ArticleIngestionIdentifier persist(PipelineItem item) {
+    return ArticleIngestionIdentifier.of(ingestionService.persistIngestPackage(item.ingestPackage, item.uploadedFiles));
+  }
+
+  private TransactionTemplate newTransaction() {
+    TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+    transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    return transaction;
+  }
+
+  /*
+   * A worker that is interrupted is being shut down because the bulk ingestion was abandoned, so it just stops.
+   */
+
+  private static void putInterruptibly(BlockingQueue<PipelineItem> queue, PipelineItem item) {
+    try {
+      queue.put(item);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static PipelineItem takeInterruptibly(BlockingQueue<PipelineItem> queue) {
+    try {
+      return queue.take();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return null;
+    }
+  }
+
+  private static boolean awaitTermination(ExecutorService executor) {
+    try {
+      return executor.awaitTermination(1, TimeUnit.MINUTES);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+}
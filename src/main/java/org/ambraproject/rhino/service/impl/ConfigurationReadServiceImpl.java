@@ -22,9 +22,13 @@
 
 package org.ambraproject.rhino.service.impl;
 
+import com.google.common.cache.CacheStats;
 import org.ambraproject.rhino.config.RuntimeConfiguration;
+import org.ambraproject.rhino.content.xml.DocumentParser;
 import org.ambraproject.rhino.rest.response.ServiceResponse;
 import org.ambraproject.rhino.service.ConfigurationReadService;
+import org.ambraproject.rhino.service.taxonomy.impl.TaxonomyClassificationCache;
+import org.ambraproject.rhino.service.taxonomy.impl.TaxonomyServerClient;
 import org.ambraproject.rhino.util.GitInfo;
 import org.springframework.beans.factory.annotation.Autowired;
 
@@ -42,6 +46,17 @@ public class ConfigurationReadServiceImpl extends AmbraService implements Config
   @Autowired
   private GitInfo gitInfo;
 
+  @Autowired
+  private ManuscriptCache manuscriptCache;
+  @Autowired
+  private RepoObjectDiskCache repoObjectDiskCache;
+  @Autowired
+  private RepoObjectMetadataCache repoObjectMetadataCache;
+  @Autowired
+  private TaxonomyClassificationCache taxonomyClassificationCache;
+  @Autowired
+  private TaxonomyServerClient taxonomyServerClient;
+
   @Override
   public ServiceResponse<Properties> readBuildConfig() throws IOException {
     return ServiceResponse.serveView(getBuildProperties());
@@ -71,6 +86,83 @@ public class ConfigurationReadServiceImpl extends AmbraService implements Config
     return cfgMap;
   }
 
+  @Override
+  public ServiceResponse<Map<String, Object>> readXmlParserConfig() {
+    Map<String, Object> cfgMap = new LinkedHashMap<>(2);
+    cfgMap.put("deferredExpansionThreshold", DocumentParser.DEFERRED_EXPANSION_THRESHOLD);
+    cfgMap.put("statistics", DocumentParser.getStatistics());
+    return ServiceResponse.serveView(cfgMap);
+  }
+
+  private static Map<String, Object> showCacheStats(CacheStats stats) {
+    Map<String, Object> map = new LinkedHashMap<>(6);
+    map.put("hitCount", stats.hitCount());
+    map.put("missCount", stats.missCount());
+    map.put("hitRate", stats.hitRate());
+    map.put("loadExceptionCount", stats.loadExceptionCount());
+    map.put("averageLoadMillis", stats.averageLoadPenalty() / 1e6);
+    map.put("evictionCount", stats.evictionCount());
+    return map;
+  }
+
+  @Override
+  public ServiceResponse<Map<String, Object>> readCacheConfig() {
+    Map<String, Object> manuscript = new LinkedHashMap<>(3);
+    manuscript.put("budget", manuscriptCache.getBudget());
+    manuscript.put("size", manuscriptCache.getSize());
+    manuscript.put("stats", showCacheStats(manuscriptCache.getStats()));
+
+    Map<String, Object> repoObject = new LinkedHashMap<>(9);
+    repoObject.put("enabled", repoObjectDiskCache.isEnabled());
+    repoObject.put("capacity", repoObjectDiskCache.getCapacity());
+    repoObject.put("size", repoObjectDiskCache.getSize());
+    repoObject.put("entryCount", repoObjectDiskCache.getEntryCount());
+    repoObject.put("hitCount", repoObjectDiskCache.getHitCount());
+    repoObject.put("missCount", repoObjectDiskCache.getMissCount());
+    repoObject.put("evictionCount", repoObjectDiskCache.getEvictionCount());
+    repoObject.put("integrityFailureCount", repoObjectDiskCache.getIntegrityFailureCount());
+    repoObject.put("coalescedCount", repoObjectDiskCache.getCoalescedCount());
+
+    Map<String, Object> repoObjectMetadata = new LinkedHashMap<>(6);
+    repoObjectMetadata.put("maximumSize", repoObjectMetadataCache.getMaximumSize());
+    repoObjectMetadata.put("size", repoObjectMetadataCache.getSize());
+    repoObjectMetadata.put("reproxyUrlTtl", repoObjectMetadataCache.getReproxyUrlTtl());
+    repoObjectMetadata.put("stats", showCacheStats(repoObjectMetadataCache.getStats()));
+    repoObjectMetadata.put("reproxyRefreshCount", repoObjectMetadataCache.getReproxyRefreshCount());
+    repoObjectMetadata.put("coalescedCount", repoObjectMetadataCache.getCoalescedCount());
+
+    Map<String, Object> taxonomyClassification = new LinkedHashMap<>(4);
+    taxonomyClassification.put("enabled", taxonomyClassificationCache.isEnabled());
+    taxonomyClassification.put("ttl", taxonomyClassificationCache.getTtl());
+    taxonomyClassification.put("hitCount", taxonomyClassificationCache.getHitCount());
+    taxonomyClassification.put("missCount", taxonomyClassificationCache.getMissCount());
+
+    Map<String, Object> cfgMap = new LinkedHashMap<>(4);
+    cfgMap.put("manuscript", manuscript);
+    cfgMap.put("repoObject", repoObject);
+    cfgMap.put("repoObjectMetadata", repoObjectMetadata);
+    cfgMap.put("taxonomyClassification", taxonomyClassification);
+    return ServiceResponse.serveView(cfgMap);
+  }
+
+  @Override
+  public ServiceResponse<Map<String, Object>> readTaxonomyConfig() {
+    RuntimeConfiguration.TaxonomyConfiguration configuration = runtimeConfiguration.getTaxonomyConfiguration();
+    Map<String, Object> cfgMap = new LinkedHashMap<>(11);
+    cfgMap.put("server", configuration.getServer());
+    cfgMap.put("thesaurus", configuration.getThesaurus());
+    cfgMap.put("maxConnections", configuration.getMaxConnections());
+    cfgMap.put("connectTimeout", configuration.getConnectTimeout());
+    cfgMap.put("readTimeout", configuration.getReadTimeout());
+    cfgMap.put("maxRetries", configuration.getMaxRetries());
+    cfgMap.put("retryBackoff", configuration.getRetryBackoff());
+    cfgMap.put("circuitBreakerThreshold", configuration.getCircuitBreakerThreshold());
+    cfgMap.put("circuitBreakerCooldown", configuration.getCircuitBreakerCooldown());
+    cfgMap.put("circuitBreakerState", taxonomyServerClient.getCircuitBreakerState());
+    cfgMap.put("statistics", taxonomyServerClient.getStatistics());
+    return ServiceResponse.serveView(cfgMap);
+  }
+
   /**
    * {@inheritDoc}
    */
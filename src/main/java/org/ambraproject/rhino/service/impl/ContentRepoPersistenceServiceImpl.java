@@ -22,6 +22,10 @@
 
 package org.ambraproject.rhino.service.impl;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.Futures;
 import org.ambraproject.rhino.model.ArticleFile;
 import org.ambraproject.rhino.model.ArticleIngestion;
 import org.ambraproject.rhino.model.ArticleItem;
@@ -29,74 +33,247 @@ import org.ambraproject.rhino.model.ingest.ArticleFileInput;
 import org.ambraproject.rhino.model.ingest.ArticleItemInput;
 import org.ambraproject.rhino.model.ingest.ArticlePackage;
 import org.ambraproject.rhino.service.ContentRepoPersistenceService;
+import org.hibernate.Query;
 import org.plos.crepo.model.identity.RepoId;
 import org.plos.crepo.model.identity.RepoVersion;
+import org.plos.crepo.model.metadata.RepoObjectMetadata;
 import org.plos.crepo.service.ContentRepoService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.orm.hibernate3.HibernateTemplate;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 
 public class ContentRepoPersistenceServiceImpl implements ContentRepoPersistenceService {
 
   @Autowired
   private ContentRepoService contentRepoService;
+  @Autowired
+  @Qualifier("contentRepoUploadExecutor")
+  private ExecutorService contentRepoUploadExecutor;
+  @Autowired
+  private RepoObjectMetadataCache repoObjectMetadataCache;
+  @Autowired
+  private HibernateTemplate hibernateTemplate;
+
+  public ContentRepoPersistenceServiceImpl() {
+  }
+
+  @VisibleForTesting
+  ContentRepoPersistenceServiceImpl(ContentRepoService contentRepoService, ExecutorService contentRepoUploadExecutor,
+                                    RepoObjectMetadataCache repoObjectMetadataCache,
+                                    HibernateTemplate hibernateTemplate) {
+    this.contentRepoService = Objects.requireNonNull(contentRepoService);
+    this.contentRepoUploadExecutor = Objects.requireNonNull(contentRepoUploadExecutor);
+    this.repoObjectMetadataCache = Objects.requireNonNull(repoObjectMetadataCache);
+    this.hibernateTemplate = Objects.requireNonNull(hibernateTemplate);
+  }
+
+  @Override
+  public UploadedPackage uploadPackage(ArticlePackage articlePackage, ArticleIngestion ingestion) {
+    return uploadFiles(articlePackage).createEntities(ingestion);
+  }
 
   @Override
-  public ArticleItem createItem(ArticleItemInput itemInput, ArticleIngestion ingestion) {
-    ArticleItem item = new ArticleItem();
-    item.setIngestion(ingestion);
-    item.setDoi(itemInput.getDoi().getName());
-    item.setItemType(itemInput.getType());
-
-    Collection<ArticleFile> files = new ArrayList<>(itemInput.getFiles().entrySet().size());
-    for (Map.Entry<String, ArticleFileInput> entry : itemInput.getFiles().entrySet()) {
-      ArticleFileInput fileInput = entry.getValue();
-      RepoVersion repoVersion = contentRepoService.autoCreateRepoObject(fileInput.getObject())
-          .getVersion();
-
-      ArticleFile file = new ArticleFile();
-      file.setIngestion(ingestion);
-      file.setItem(item);
-      file.setFileType(entry.getKey());
-
-      RepoId repoId = repoVersion.getId();
-      file.setBucketName(repoId.getBucketName());
-      file.setCrepoKey(repoId.getKey());
-      file.setCrepoUuid(repoVersion.getUuid().toString());
-
-      file.setFileSize(contentRepoService.getRepoObjectMetadata(repoVersion).getSize());
-      file.setIngestedFileName(fileInput.getFilename());
-
-      files.add(file);
+  public UploadedFiles uploadFiles(ArticlePackage articlePackage) {
+    // Flatten every file in the package into one list, so that all uploads can be in flight at once.
+    List<ArticleFileInput> fileInputs = new ArrayList<>();
+    for (ArticleItemInput itemInput : articlePackage.getAllItems()) {
+      fileInputs.addAll(itemInput.getFiles().values());
     }
-    item.setFiles(files);
+    fileInputs.addAll(articlePackage.getAncillaryFiles());
 
-    return item;
+    List<StoredObject> storedObjects = ImmutableList.copyOf(storeAll(fileInputs));
+    return ingestion -> createEntities(articlePackage, storedObjects, ingestion);
   }
 
-  // TODO: 12/9/16 merge some of the shared logic between these two methods
-  @Override
-  public Collection<ArticleFile> persistAncillaryFiles(ArticlePackage articlePackage,
-                                                       ArticleIngestion ingestion) {
-    Collection<ArticleFile> files = new ArrayList<>();
+  private static UploadedPackage createEntities(ArticlePackage articlePackage, List<StoredObject> storedObjects,
+                                                ArticleIngestion ingestion) {
+    // Walk the same structure as uploadFiles, in the same order, to assemble the entities from the results.
+    Iterator<StoredObject> stored = storedObjects.iterator();
+
+    List<ArticleItem> items = new ArrayList<>(articlePackage.getAllItems().size());
+    for (ArticleItemInput itemInput : articlePackage.getAllItems()) {
+      ArticleItem item = new ArticleItem();
+      item.setIngestion(ingestion);
+      item.setDoi(itemInput.getDoi().getName());
+      item.setItemType(itemInput.getType());
+
+      Collection<ArticleFile> files = new ArrayList<>(itemInput.getFiles().size());
+      for (Map.Entry<String, ArticleFileInput> entry : itemInput.getFiles().entrySet()) {
+        ArticleFile file = createFile(ingestion, entry.getValue(), stored.next());
+        file.setItem(item);
+        file.setFileType(entry.getKey());
+        files.add(file);
+      }
+      item.setFiles(files);
+
+      items.add(item);
+    }
+
+    List<ArticleFile> ancillaryFiles = new ArrayList<>(articlePackage.getAncillaryFiles().size());
     for (ArticleFileInput ancillaryFile : articlePackage.getAncillaryFiles()) {
-      RepoVersion repoVersion = contentRepoService.autoCreateRepoObject(ancillaryFile.getObject())
-          .getVersion();
+      ancillaryFiles.add(createFile(ingestion, ancillaryFile, stored.next()));
+    }
 
-      ArticleFile file = new ArticleFile();
-      file.setIngestion(ingestion);
-      file.setFileSize(contentRepoService.getRepoObjectMetadata(repoVersion).getSize());
-      file.setIngestedFileName(ancillaryFile.getFilename());
+    return new UploadedPackage(items, ancillaryFiles);
+  }
 
-      RepoId repoId = repoVersion.getId();
-      file.setBucketName(repoId.getBucketName());
-      file.setCrepoKey(repoId.getKey());
-      file.setCrepoUuid(repoVersion.getUuid().toString());
+  /**
+   * A repo object that holds an article file, either uploaded for it or reused from an earlier ingestion.
+   */
+  private static class StoredObject {
+    private final RepoVersion version;
+    private final long size;
 
-      files.add(file);
+    private StoredObject(RepoVersion version, long size) {
+      this.version = Objects.requireNonNull(version);
+      this.size = size;
     }
-    return files;
   }
+
+  private static ArticleFile createFile(ArticleIngestion ingestion, ArticleFileInput fileInput,
+                                        StoredObject stored) {
+    RepoVersion repoVersion = stored.version;
+
+    ArticleFile file = new ArticleFile();
+    file.setIngestion(ingestion);
+
+    RepoId repoId = repoVersion.getId();
+    file.setBucketName(repoId.getBucketName());
+    file.setCrepoKey(repoId.getKey());
+    file.setCrepoUuid(repoVersion.getUuid().toString());
+
+    // The size is known from creating the object or from the file that already refers to it; no need to ask for it.
+    file.setFileSize(stored.size);
+    file.setSha256(fileInput.getSha256());
+    file.setIngestedFileName(fileInput.getFilename());
+
+    return file;
+  }
+
+  /**
+   * Find a repo object for each file, uploading only the files that are neither inherited nor match one already
+   * ingested.
+   *
+   * @param fileInputs the files to store
+   * @return the objects holding the files, in the same order as the input
+   */
+  private List<StoredObject> storeAll(List<ArticleFileInput> fileInputs) {
+    List<ArticleFileInput> newInputs = fileInputs.stream()
+        .filter(fileInput -> !fileInput.getInheritedFile().isPresent())
+        .collect(Collectors.toList());
+    Map<List<String>, ArticleFile> existingFiles = findExistingFiles(newInputs);
+    List<ArticleFileInput> toUpload = newInputs.stream()
+        .filter(fileInput -> !existingFiles.containsKey(getContentKey(fileInput)))
+        .collect(Collectors.toList());
+    Iterator<RepoObjectMetadata> uploaded = uploadAll(toUpload).iterator();
+
+    List<StoredObject> results = new ArrayList<>(fileInputs.size());
+    for (ArticleFileInput fileInput : fileInputs) {
+      ArticleFile existingFile = fileInput.getInheritedFile()
+          .orElseGet(() -> existingFiles.get(getContentKey(fileInput)));
+      if (existingFile != null) {
+        results.add(new StoredObject(existingFile.getCrepoVersion(), existingFile.getFileSize()));
+      } else {
+        RepoObjectMetadata metadata = uploaded.next();
+        results.add(new StoredObject(metadata.getVersion(), metadata.getSize()));
+      }
+    }
+    return results;
+  }
+
+  /**
+   * The key under which a file may be reused. The crepo key must match as well as the bucket and digest, because the
+   * object's content type and download name were set from the manifest entry that uploaded it, and a file under a
+   * different crepo key may have been given different ones.
+   */
+  private static List<String> getContentKey(String bucketName, String crepoKey, String sha256) {
+    return ImmutableList.of(bucketName, crepoKey, sha256);
+  }
+
+  private static List<String> getContentKey(ArticleFileInput fileInput) {
+    return getContentKey(fileInput.getBucketName(), fileInput.getCrepoKey(), fileInput.getSha256());
+  }
+
+  /**
+   * Query for files already ingested with the same content as any of the given files, with one query per bucket.
+   *
+   * @return the existing files, mapped by {@link #getContentKey}
+   */
+  private Map<List<String>, ArticleFile> findExistingFiles(List<ArticleFileInput> fileInputs) {
+    Map<String, Set<String>> digestsByBucket = fileInputs.stream().collect(Collectors.groupingBy(
+        ArticleFileInput::getBucketName, Collectors.mapping(ArticleFileInput::getSha256, Collectors.toSet())));
+
+    Map<List<String>, ArticleFile> existingFiles = new HashMap<>();
+    for (Map.Entry<String, Set<String>> entry : digestsByBucket.entrySet()) {
+      List<ArticleFile> matches = hibernateTemplate.execute(session -> {
+        Query query = session.createQuery("FROM ArticleFile WHERE bucketName = :bucketName AND sha256 IN (:digests)");
+        query.setParameter("bucketName", entry.getKey());
+        query.setParameterList("digests", entry.getValue());
+        return (List<ArticleFile>) query.list();
+      });
+      for (ArticleFile match : matches) {
+        existingFiles.putIfAbsent(getContentKey(match.getBucketName(), match.getCrepoKey(), match.getSha256()), match);
+      }
+    }
+    return existingFiles;
+  }
+
+  /**
+   * Upload files to the content repo concurrently and wait for all of them to finish. If any upload fails, cancel the
+   * ones that are still pending or running and rethrow its exception.
+   *
+   * @param fileInputs the files to upload
+   * @return the metadata of the created repo objects, in the same order as the input
+   */
+  private List<RepoObjectMetadata> uploadAll(List<ArticleFileInput> fileInputs) {
+    CompletionService<RepoObjectMetadata> completionService = new ExecutorCompletionService<>(contentRepoUploadExecutor);
+    List<Future<RepoObjectMetadata>> futures = new ArrayList<>(fileInputs.size());
+    for (ArticleFileInput fileInput : fileInputs) {
+      futures.add(completionService.submit(() -> contentRepoService.autoCreateRepoObject(fileInput.getObject())));
+    }
+
+    try {
+      for (int i = 0; i < futures.size(); i++) {
+        completionService.take().get(); // throws immediately on the first upload to fail, in order of completion
+      }
+    } catch (InterruptedException e) {
+      cancelAll(futures);
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while uploading to content repo", e);
+    } catch (ExecutionException e) {
+      cancelAll(futures);
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new RuntimeException(e.getCause());
+    }
+
+    List<RepoObjectMetadata> results = new ArrayList<>(futures.size());
+    for (Future<RepoObjectMetadata> future : futures) {
+      RepoObjectMetadata metadata = Futures.getUnchecked(future);
+      repoObjectMetadataCache.put(metadata); // so that serving a new article's files doesn't have to look them up
+      results.add(metadata);
+    }
+    return results;
+  }
+
+  private static void cancelAll(Collection<? extends Future<?>> futures) {
+    for (Future<?> future : futures) {
+      future.cancel(true);
+    }
+  }
+
 }
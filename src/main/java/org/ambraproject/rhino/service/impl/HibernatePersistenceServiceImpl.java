@@ -22,6 +22,8 @@
 
 package org.ambraproject.rhino.service.impl;
 
+import com.google.common.annotations.VisibleForTesting;
+import org.ambraproject.rhino.config.RuntimeConfiguration;
 import org.ambraproject.rhino.content.xml.ManifestXml;
 import org.ambraproject.rhino.identity.Doi;
 import org.ambraproject.rhino.model.Article;
@@ -31,10 +33,10 @@ import org.ambraproject.rhino.model.ArticleItem;
 import org.ambraproject.rhino.model.Journal;
 import org.ambraproject.rhino.model.article.ArticleCustomMetadata;
 import org.ambraproject.rhino.model.article.ArticleMetadata;
-import org.ambraproject.rhino.model.ingest.ArticleItemInput;
 import org.ambraproject.rhino.model.ingest.ArticlePackage;
 import org.ambraproject.rhino.rest.RestClientException;
-import org.ambraproject.rhino.service.ContentRepoPersistenceService;
+import org.ambraproject.rhino.service.ContentRepoPersistenceService.UploadedFiles;
+import org.ambraproject.rhino.service.ContentRepoPersistenceService.UploadedPackage;
 import org.ambraproject.rhino.service.HibernatePersistenceService;
 import org.ambraproject.rhino.service.JournalCrudService;
 import org.hibernate.Query;
@@ -42,10 +44,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.orm.hibernate3.HibernateTemplate;
 
-import java.util.Collection;
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 public class HibernatePersistenceServiceImpl implements HibernatePersistenceService {
 
@@ -54,7 +56,7 @@ public class HibernatePersistenceServiceImpl implements HibernatePersistenceServ
   @Autowired
   private JournalCrudService journalCrudService;
   @Autowired
-  private ContentRepoPersistenceService contentRepoPersistenceService;
+  private RuntimeConfiguration runtimeConfiguration;
 
   private static final int FIRST_INGESTION_NUMBER = 1;
 
@@ -105,21 +107,56 @@ public class HibernatePersistenceServiceImpl implements HibernatePersistenceServ
   }
 
   @Override
-  public void persistAssets(ArticlePackage articlePackage, ArticleIngestion ingestion) {
-    List<ArticleItem> items = articlePackage.getAllItems().stream()
-        .map((ArticleItemInput item) -> contentRepoPersistenceService.createItem(item, ingestion))
-        .collect(Collectors.toList());
+  public void persistAssets(ArticlePackage articlePackage, ArticleIngestion ingestion, UploadedFiles uploadedFiles) {
+    UploadedPackage uploaded = uploadedFiles.createEntities(ingestion);
+
+    List<ArticleItem> items = uploaded.getItems();
+    saveAll(items, uploaded.getAncillaryFiles());
+
+    persistStrikingImage(ingestion, items, articlePackage.getManifest());
+  }
+
+  /**
+   * Save an ingestion's items, with their files, and its ancillary files. The session is flushed whenever a batch's
+   * worth of rows is pending, so that Hibernate sends them as one JDBC batch per table, and the flushed entities are
+   * evicted so that the session doesn't accumulate every row of a large package.
+   * <p/>
+   * Each entity's creation timestamp is set before it is saved, so that the returned entities have it without reading it
+   * back. Because the entities are evicted, they are re-read from the database if they are needed again in the same
+   * session.
+   */
+  @VisibleForTesting
+  void saveAll(List<ArticleItem> items, List<ArticleFile> ancillaryFiles) {
+    int batchSize = runtimeConfiguration.getIngestionConfiguration().getJdbcBatchSize();
+    Date created = new Date();
+    List<Object> pending = new ArrayList<>();
     for (ArticleItem item : items) {
-      hibernateTemplate.save(item);
+      item.setCreated(created);
+      item.getFiles().forEach(file -> file.setCreated(created));
+      hibernateTemplate.save(item); // Cascades to the item's files
+      pending.add(item);
+      pending.addAll(item.getFiles());
+      if (batchSize > 0 && pending.size() >= batchSize) {
+        flushAndEvict(pending);
+      }
     }
-
-    Collection<ArticleFile> files = contentRepoPersistenceService.persistAncillaryFiles(articlePackage,
-        ingestion);
-    for (ArticleFile file : files) {
+    for (ArticleFile file : ancillaryFiles) {
+      file.setCreated(created);
       hibernateTemplate.save(file);
+      pending.add(file);
+      if (batchSize > 0 && pending.size() >= batchSize) {
+        flushAndEvict(pending);
+      }
     }
+    flushAndEvict(pending);
+  }
 
-    persistStrikingImage(ingestion, items, articlePackage.getManifest());
+  private void flushAndEvict(List<Object> pending) {
+    hibernateTemplate.flush();
+    for (Object entity : pending) {
+      hibernateTemplate.evict(entity);
+    }
+    pending.clear();
   }
 
   @Override
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2017 Public Library of Science
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package org.ambraproject.rhino.service.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonDeserializer;
+import com.google.gson.JsonElement;
+import org.ambraproject.rhino.model.article.IngestedArticleMetadata;
+import org.ambraproject.rhino.util.Java8TimeGsonAdapters;
+import org.ambraproject.rhino.view.article.author.ArticleAllAuthorsView;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Converts data parsed from a manuscript at ingest time to and from the form in which it is stored in the database,
+ * which is gzipped JSON.
+ * <p/>
+ * The JSON is produced by reflecting on the objects' fields, so it must be read back into the same classes. Each kind
+ * of stored value has a format version, which must be incremented whenever a change to those classes would make
+ * previously stored values unreadable or incomplete. Values in an older format are ignored, and are replaced by parsing
+ * the manuscript again.
+ */
+final class IngestedMetadataCodec {
+
+  private IngestedMetadataCodec() {
+    throw new AssertionError("Not instantiable");
+  }
+
+  /**
+   * The format version of stored {@link IngestedArticleMetadata} values.
+   */
+  static final int METADATA_FORMAT_VERSION = 1;
+
+  /**
+   * The format version of stored {@link ArticleAllAuthorsView} values.
+   */
+  static final int AUTHORS_FORMAT_VERSION = 1;
+
+  private static final Gson GSON = createGson();
+
+  private static Gson createGson() {
+    GsonBuilder builder = new GsonBuilder().disableHtmlEscaping();
+    Java8TimeGsonAdapters.register(builder);
+
+    // The model classes hold ImmutableList fields, which Gson can serialize as collections but can't construct.
+    builder.registerTypeHierarchyAdapter(ImmutableList.class, (JsonDeserializer<ImmutableList<?>>)
+        (json, type, context) -> {
+          Type elementType = ((ParameterizedType) type).getActualTypeArguments()[0];
+          ImmutableList.Builder<Object> elements = ImmutableList.builder();
+          for (JsonElement element : json.getAsJsonArray()) {
+            elements.add(context.<Object>deserialize(element, elementType));
+          }
+          return elements.build();
+        });
+
+    return builder.create();
+  }
+
+  static byte[] encode(Object value) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (Writer writer = new OutputStreamWriter(new GZIPOutputStream(bytes), StandardCharsets.UTF_8)) {
+      GSON.toJson(value, writer);
+    } catch (IOException e) {
+      throw new RuntimeException(e); // not expected when writing to memory
+    }
+    return bytes.toByteArray();
+  }
+
+  static <T> T decode(byte[] encoded, Class<T> type) {
+    try (Reader reader = new InputStreamReader(new GZIPInputStream(new ByteArrayInputStream(encoded)),
+        StandardCharsets.UTF_8)) {
+      return GSON.fromJson(reader, type);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+}
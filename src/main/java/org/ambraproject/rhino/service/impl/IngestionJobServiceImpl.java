@@ -0,0 +1,252 @@
+/*
+ * Copyright (c) 2017 Public Library of Science
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package org.ambraproject.rhino.service.impl;
+
+import com.google.common.base.Stopwatch;
+import org.ambraproject.rhino.model.ArticleIngestion;
+import org.ambraproject.rhino.model.IngestionJob;
+import org.ambraproject.rhino.model.ingest.IngestPackage;
+import org.ambraproject.rhino.rest.RestClientException;
+import org.ambraproject.rhino.rest.response.ServiceResponse;
+import org.ambraproject.rhino.service.IngestionJobService;
+import org.ambraproject.rhino.util.Archive;
+import org.ambraproject.rhino.view.article.IngestionJobView;
+import org.hibernate.Query;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpStatus;
+import org.springframework.orm.hibernate3.HibernateTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class IngestionJobServiceImpl extends AmbraService implements IngestionJobService {
+
+  private static final Logger log = LoggerFactory.getLogger(IngestionJobServiceImpl.class);
+
+  private static final IngestionJob.State[] UNFINISHED_STATES = {IngestionJob.State.QUEUED, IngestionJob.State.RUNNING};
+
+  @Autowired
+  private IngestionService ingestionService;
+  @Autowired
+  private IngestionJobView.Factory ingestionJobViewFactory;
+  @Autowired
+  private HibernateTransactionManager transactionManager;
+  @Autowired
+  @Qualifier("ingestionJobExecutor")
+  private ExecutorService ingestionJobExecutor;
+
+  private TransactionTemplate newTransaction() {
+    TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+    transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    return transaction;
+  }
+
+  @Override
+  public IngestionJob submit(String archiveName, OptionalInt baseIngestionNumber, ArchiveWriter archiveWriter)
+      throws IOException {
+    String configuredDirectory = runtimeConfiguration.getIngestionConfiguration().getJobDirectory();
+    if (configuredDirectory == null) {
+      throw new RestClientException("Background ingestion is not enabled", HttpStatus.FORBIDDEN);
+    }
+    Path jobDirectory = Paths.get(configuredDirectory);
+    Files.createDirectories(jobDirectory);
+    Path spoolFile = Files.createTempFile(jobDirectory, "job-", ".zip");
+    boolean saved = false;
+    try {
+      archiveWriter.writeTo(spoolFile.toFile());
+
+      IngestionJob job = new IngestionJob();
+      job.setArchiveName(archiveName);
+      job.setSpoolFile(spoolFile.toString());
+      job.setBaseIngestionNumber(baseIngestionNumber.isPresent() ? baseIngestionNumber.getAsInt() : null);
+      job.setState(IngestionJob.State.QUEUED);
+      job.setOwner(getNodeName());
+      newTransaction().execute(status -> hibernateTemplate.save(job));
+      saved = true;
+
+      // The job is committed, so the worker will find it, and it will be resumed after a restart if it doesn't finish.
+      ingestionJobExecutor.execute(() -> runJob(job.getJobId()));
+      return job;
+    } finally {
+      if (!saved) {
+        Files.deleteIfExists(spoolFile);
+      }
+    }
+  }
+
+  private String getNodeName() {
+    return runtimeConfiguration.getIngestionConfiguration().getJobNodeName();
+  }
+
+  /**
+   * Queue the jobs that this server owned and had not finished when it last stopped. A running job's ingestion was not
+   * committed, because it would have been committed along with the job's result, so it is safe to run it again.
+   * <p/>
+   * Unfinished jobs without an owner are claimed first, so that a job can be handed to another server (one that can
+   * read its spool file) by clearing its owner. Other servers' jobs are left alone.
+   */
+  @PostConstruct
+  public void resumeJobs() {
+    String nodeName = getNodeName();
+    int claimed = newTransaction().execute(status -> hibernateTemplate.execute(session -> {
+      Query query = session.createQuery("" +
+          "UPDATE IngestionJob SET owner = :owner " +
+          "WHERE owner IS NULL AND state IN (:states)");
+      query.setParameter("owner", nodeName);
+      query.setParameterList("states", UNFINISHED_STATES);
+      return query.executeUpdate();
+    }));
+    if (claimed > 0) {
+      log.info("Claimed {} unowned ingestion jobs", claimed);
+    }
+
+    List<Long> jobIds = hibernateTemplate.execute(session -> {
+      Query query = session.createQuery("" +
+          "SELECT jobId FROM IngestionJob " +
+          "WHERE owner = :owner AND state IN (:states) " +
+          "ORDER BY jobId");
+      query.setParameter("owner", nodeName);
+      query.setParameterList("states", UNFINISHED_STATES);
+      return (List<Long>) query.list();
+    });
+    if (!jobIds.isEmpty()) {
+      log.info("Resuming {} unfinished ingestion jobs", jobIds.size());
+    }
+    for (long jobId : jobIds) {
+      ingestionJobExecutor.execute(() -> runJob(jobId));
+    }
+  }
+
+  private void runJob(long jobId) {
+    try {
+      IngestionJob job = newTransaction().execute(status -> {
+        // Start the job only if this server still owns it and it isn't finished, as one atomic update, so that the job
+        // can't run on two servers even if its owner has been changed since it was queued.
+        int started = hibernateTemplate.execute(session -> {
+          Query query = session.createQuery("" +
+              "UPDATE IngestionJob SET state = :running, started = :started " +
+              "WHERE jobId = :jobId AND owner = :owner AND state IN (:states)");
+          query.setParameter("running", IngestionJob.State.RUNNING);
+          query.setParameter("started", new Date());
+          query.setParameter("jobId", jobId);
+          query.setParameter("owner", getNodeName());
+          query.setParameterList("states", UNFINISHED_STATES);
+          return query.executeUpdate();
+        });
+        return (started == 0) ? null : hibernateTemplate.get(IngestionJob.class, jobId);
+      });
+      if (job != null) {
+        ingest(job);
+      }
+    } catch (RuntimeException e) {
+      // The job is left running, to be resumed after a restart.
+      log.error("Could not update ingestion job " + jobId, e);
+    }
+  }
+
+  private void ingest(IngestionJob job) {
+    OptionalInt baseIngestionNumber = (job.getBaseIngestionNumber() == null) ? OptionalInt.empty()
+        : OptionalInt.of(job.getBaseIngestionNumber());
+    Map<String, Long> stageTimings = new LinkedHashMap<>();
+    Stopwatch stopwatch = Stopwatch.createStarted();
+    try (Archive archive = Archive.openZipFile(job.getArchiveName(), new File(job.getSpoolFile()))) {
+      stageTimings.put("unpack", lap(stopwatch));
+
+      // Record the result in the same transaction as the ingestion, so that the job can't succeed without it.
+      newTransaction().execute(status -> {
+        IngestPackage ingestPackage;
+        try {
+          ingestPackage = ingestionService.createIngestPackage(archive, baseIngestionNumber);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+        stageTimings.put("parse", lap(stopwatch));
+
+        ArticleIngestion ingestion = ingestionService.processIngestPackage(ingestPackage);
+        stageTimings.put("store", lap(stopwatch));
+
+        finish(job.getJobId(), IngestionJob.State.SUCCEEDED, ingestion, null, stageTimings);
+        return null;
+      });
+    } catch (IOException | RuntimeException e) {
+      Throwable cause = (e instanceof UncheckedIOException) ? e.getCause() : e;
+      if (!IngestionService.isInvalidInput(cause)) {
+        log.error("Ingestion job " + job.getJobId() + " failed", cause);
+      }
+      newTransaction().execute(status -> {
+        finish(job.getJobId(), IngestionJob.State.FAILED, null, IngestionService.describeFailure(cause), stageTimings);
+        return null;
+      });
+    }
+    try {
+      Files.deleteIfExists(Paths.get(job.getSpoolFile()));
+    } catch (IOException e) {
+      log.warn("Could not delete spool file for ingestion job " + job.getJobId(), e);
+    }
+  }
+
+  private static long lap(Stopwatch stopwatch) {
+    long elapsed = stopwatch.elapsed(TimeUnit.MILLISECONDS);
+    stopwatch.reset().start();
+    return elapsed;
+  }
+
+  private void finish(long jobId, IngestionJob.State state, ArticleIngestion ingestion, String errorMessage,
+                      Map<String, Long> stageTimings) {
+    IngestionJob job = hibernateTemplate.get(IngestionJob.class, jobId);
+    job.setState(state);
+    job.setIngestion(ingestion);
+    job.setErrorMessage(errorMessage);
+    job.setStageTimings(entityGson.toJson(stageTimings));
+    job.setFinished(new Date());
+    job.setSpoolFile(null);
+    hibernateTemplate.update(job);
+  }
+
+  @Override
+  public ServiceResponse<IngestionJobView> serveJob(long jobId) {
+    IngestionJob job = hibernateTemplate.get(IngestionJob.class, jobId);
+    if (job == null) {
+      throw new RestClientException("Ingestion job not found: " + jobId, HttpStatus.NOT_FOUND);
+    }
+    return ServiceResponse.serveView(ingestionJobViewFactory.getView(job));
+  }
+
+}
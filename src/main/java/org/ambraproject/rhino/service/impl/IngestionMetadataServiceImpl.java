@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2017 Public Library of Science
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package org.ambraproject.rhino.service.impl;
+
+import org.ambraproject.rhino.content.xml.ArticleXml;
+import org.ambraproject.rhino.content.xml.CustomMetadataExtractor;
+import org.ambraproject.rhino.content.xml.XmlContentException;
+import org.ambraproject.rhino.content.xml.XpathReader;
+import org.ambraproject.rhino.model.ArticleIngestion;
+import org.ambraproject.rhino.model.ArticleIngestionAuthors;
+import org.ambraproject.rhino.model.ArticleIngestionMetadata;
+import org.ambraproject.rhino.model.article.IngestedArticleMetadata;
+import org.ambraproject.rhino.service.ArticleCrudService;
+import org.ambraproject.rhino.service.IngestionMetadataService;
+import org.ambraproject.rhino.view.article.author.ArticleAllAuthorsView;
+import org.hibernate.Query;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.orm.hibernate3.HibernateTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.w3c.dom.Document;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class IngestionMetadataServiceImpl extends AmbraService implements IngestionMetadataService {
+
+  private static final Logger log = LoggerFactory.getLogger(IngestionMetadataServiceImpl.class);
+
+  @Autowired
+  private ArticleCrudService articleCrudService;
+  @Autowired
+  private CustomMetadataExtractor.Factory customMetadataExtractorFactory;
+  @Autowired
+  private XpathReader xpathReader;
+  @Autowired
+  private HibernateTransactionManager transactionManager;
+
+  @Override
+  public void storeMetadata(ArticleIngestion ingestion, IngestedArticleMetadata metadata) {
+    ArticleIngestionMetadata stored = hibernateTemplate.get(ArticleIngestionMetadata.class, ingestion.getVersionId());
+    if (stored == null) {
+      stored = new ArticleIngestionMetadata();
+      stored.setIngestionId(ingestion.getVersionId());
+      setMetadata(stored, metadata);
+      hibernateTemplate.save(stored);
+    } else {
+      setMetadata(stored, metadata);
+      hibernateTemplate.update(stored);
+    }
+  }
+
+  private static void setMetadata(ArticleIngestionMetadata stored, IngestedArticleMetadata metadata) {
+    stored.setFormatVersion(IngestedMetadataCodec.METADATA_FORMAT_VERSION);
+    stored.setMetadata(IngestedMetadataCodec.encode(metadata));
+  }
+
+  @Override
+  public IngestedArticleMetadata getMetadata(ArticleIngestion ingestion) {
+    ArticleIngestionMetadata stored = hibernateTemplate.get(ArticleIngestionMetadata.class, ingestion.getVersionId());
+    if (stored != null && stored.getFormatVersion() == IngestedMetadataCodec.METADATA_FORMAT_VERSION) {
+      return IngestedMetadataCodec.decode(stored.getMetadata(), IngestedArticleMetadata.class);
+    }
+    return parseManuscript(ingestion);
+  }
+
+  private IngestedArticleMetadata parseManuscript(ArticleIngestion ingestion) {
+    Document document = articleCrudService.getManuscriptXml(ingestion);
+    try {
+      return new IngestedArticleMetadata(new ArticleXml(document).build(),
+          customMetadataExtractorFactory.parse(document).build());
+    } catch (XmlContentException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Override
+  public ArticleAllAuthorsView getAuthors(ArticleIngestion ingestion) {
+    long ingestionId = ingestion.getVersionId();
+    ArticleIngestionAuthors stored = hibernateTemplate.get(ArticleIngestionAuthors.class, ingestionId);
+    if (stored != null && stored.getFormatVersion() == IngestedMetadataCodec.AUTHORS_FORMAT_VERSION) {
+      return IngestedMetadataCodec.decode(stored.getAuthors(), ArticleAllAuthorsView.class);
+    }
+
+    ArticleAllAuthorsView authors = AuthorsXmlExtractor.getAllAuthors(
+        articleCrudService.getManuscriptXml(ingestion), xpathReader);
+    byte[] encoded = IngestedMetadataCodec.encode(authors);
+
+    TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+    transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    try {
+      transaction.execute(status -> {
+        ArticleIngestionAuthors toStore = hibernateTemplate.get(ArticleIngestionAuthors.class, ingestionId);
+        boolean isNew = (toStore == null);
+        if (isNew) {
+          toStore = new ArticleIngestionAuthors();
+          toStore.setIngestionId(ingestionId);
+        }
+        toStore.setFormatVersion(IngestedMetadataCodec.AUTHORS_FORMAT_VERSION);
+        toStore.setAuthors(encoded);
+        if (isNew) {
+          hibernateTemplate.save(toStore);
+        } else {
+          hibernateTemplate.update(toStore);
+        }
+        return null;
+      });
+    } catch (DataAccessException e) {
+      // Most likely a concurrent request stored them first. The parsed copy is still good to serve.
+      log.warn("Could not store authors for " + ingestion, e);
+    }
+    return authors;
+  }
+
+  @Override
+  public BackfillResult backfillMetadata(long afterIngestionId, int limit) {
+    List<ArticleIngestion> ingestions = hibernateTemplate.execute(session -> {
+      Query query = session.createQuery("" +
+          "FROM ArticleIngestion i " +
+          "WHERE i.ingestionId > :afterIngestionId " +
+          "  AND i.ingestionId NOT IN (" +
+          "    SELECT m.ingestionId FROM ArticleIngestionMetadata m WHERE m.formatVersion = :formatVersion) " +
+          "ORDER BY i.ingestionId");
+      query.setParameter("afterIngestionId", afterIngestionId);
+      query.setParameter("formatVersion", IngestedMetadataCodec.METADATA_FORMAT_VERSION);
+      query.setMaxResults(limit);
+      return (List<ArticleIngestion>) query.list();
+    });
+
+    int stored = 0;
+    List<Long> failed = new ArrayList<>();
+    for (ArticleIngestion ingestion : ingestions) {
+      IngestedArticleMetadata metadata;
+      try {
+        metadata = parseManuscript(ingestion);
+      } catch (RuntimeException e) {
+        log.warn("Could not parse metadata for " + ingestion, e);
+        failed.add(ingestion.getVersionId());
+        continue;
+      }
+      storeMetadata(ingestion, metadata);
+      stored++;
+    }
+
+    Long lastIngestionId = ingestions.isEmpty() ? null : ingestions.get(ingestions.size() - 1).getVersionId();
+    return new BackfillResult(stored, failed, lastIngestionId);
+  }
+
+}
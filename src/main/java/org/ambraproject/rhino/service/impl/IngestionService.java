@@ -23,57 +23,109 @@
 package org.ambraproject.rhino.service.impl;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
 import org.ambraproject.rhino.content.xml.ArticleXml;
 import org.ambraproject.rhino.content.xml.CustomMetadataExtractor;
 import org.ambraproject.rhino.content.xml.ManifestXml;
+import org.ambraproject.rhino.content.xml.StreamingManuscriptReader;
 import org.ambraproject.rhino.content.xml.XmlContentException;
 import org.ambraproject.rhino.identity.ArticleIdentifier;
+import org.ambraproject.rhino.identity.ArticleIngestionIdentifier;
 import org.ambraproject.rhino.identity.Doi;
 import org.ambraproject.rhino.model.Article;
+import org.ambraproject.rhino.model.ArticleFile;
 import org.ambraproject.rhino.model.ArticleIngestion;
-import org.ambraproject.rhino.model.ArticleItem;
 import org.ambraproject.rhino.model.article.ArticleCustomMetadata;
 import org.ambraproject.rhino.model.article.ArticleMetadata;
+import org.ambraproject.rhino.model.article.IngestedArticleMetadata;
 import org.ambraproject.rhino.model.ingest.ArticlePackage;
 import org.ambraproject.rhino.model.ingest.ArticlePackageBuilder;
 import org.ambraproject.rhino.model.ingest.IngestPackage;
 import org.ambraproject.rhino.rest.RestClientException;
 import org.ambraproject.rhino.service.ArticleCrudService;
+import org.ambraproject.rhino.service.ContentRepoPersistenceService;
+import org.ambraproject.rhino.service.ContentRepoPersistenceService.UploadedFiles;
 import org.ambraproject.rhino.service.HibernatePersistenceService;
+import org.ambraproject.rhino.service.IngestionMetadataService;
 import org.ambraproject.rhino.util.Archive;
+import org.hibernate.Query;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.w3c.dom.Document;
 
+import javax.xml.stream.XMLStreamException;
 import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 public class IngestionService extends AmbraService {
 
   @Autowired
   private CustomMetadataExtractor.Factory customMetadataExtractorFactory;
   @Autowired
+  private StreamingManuscriptReader.Factory streamingManuscriptReaderFactory;
+  @Autowired
   private HibernatePersistenceService hibernatePersistenceService;
   @Autowired
   private ArticleCrudService articleCrudService;
+  @Autowired
+  private IngestionMetadataService ingestionMetadataService;
+  @Autowired
+  private RepoObjectDiskCache repoObjectDiskCache;
+  @Autowired
+  private ContentRepoPersistenceService contentRepoPersistenceService;
 
   public ArticleIngestion ingest(Archive archive) throws IOException, XmlContentException {
-    IngestPackage ingestPackage = createIngestPackage(archive);
+    return ingest(archive, OptionalInt.empty());
+  }
+
+  /**
+   * Ingest an archive, which may be partial if it is based on an earlier ingestion of the same article. Each file in a
+   * partial archive's manifest that is not in the archive is taken from the base ingestion, and the new ingestion
+   * refers to the same repo object.
+   *
+   * @param archive             the archive to ingest
+   * @param baseIngestionNumber the number of the ingestion to inherit missing files from, or empty if the archive must
+   *                            be complete
+   * @return the new ingestion
+   */
+  public ArticleIngestion ingest(Archive archive, OptionalInt baseIngestionNumber)
+      throws IOException, XmlContentException {
+    IngestPackage ingestPackage = createIngestPackage(archive, baseIngestionNumber);
     return processIngestPackage(ingestPackage);
   }
 
-  private IngestPackage createIngestPackage(Archive archive) throws IOException {
+  /**
+   * Read and validate an archive, without writing anything. This and {@link #processIngestPackage} are the two stages of
+   * {@link #ingest(Archive, OptionalInt)}, which {@link IngestionJobServiceImpl} runs and times separately.
+   */
+  IngestPackage createIngestPackage(Archive archive, OptionalInt baseIngestionNumber) throws IOException {
     ManifestXml manifestXml = getManifestXml(archive);
 
     ImmutableSet<String> entryNames = archive.getEntryNames();
-    manifestXml.validateManifestCompleteness(entryNames);
+    Map<String, ArticleFile> inheritedFiles = baseIngestionNumber.isPresent()
+        ? findInheritedFiles(manifestXml, entryNames, baseIngestionNumber.getAsInt())
+        : ImmutableMap.of();
+    manifestXml.validateManifestCompleteness(entryNames, inheritedFiles.keySet());
+
+    String manuscriptEntry = getManuscriptEntry(Sets.union(entryNames, inheritedFiles.keySet()), manifestXml);
 
-    String manuscriptEntry = getManuscriptEntry(entryNames, manifestXml);
+    if (runtimeConfiguration.getIngestionConfiguration().useStreamingManuscriptReader()) {
+      return createIngestPackageFromStream(archive, inheritedFiles, manifestXml, manuscriptEntry);
+    }
 
-    Document document = getDocument(archive, manuscriptEntry);
+    Document document = getDocument(archive, inheritedFiles, manuscriptEntry);
 
     ArticleXml parsedArticle = new ArticleXml(document);
     ArticleCustomMetadata customMetadata = customMetadataExtractorFactory.parse(document).build();
@@ -82,7 +134,7 @@ public class IngestionService extends AmbraService {
     String destinationBucketName = runtimeConfiguration.getCorpusStorage().getDefaultBucket();
 
     ArticlePackage articlePackage = new ArticlePackageBuilder(destinationBucketName, archive,
-        parsedArticle, manifestXml).build();
+        parsedArticle, manifestXml, inheritedFiles).build();
 
     articlePackage.validateAssetCompleteness(parsedArticle.findAllAssetNodes().getDois());
 
@@ -90,29 +142,130 @@ public class IngestionService extends AmbraService {
     return new IngestPackage(articlePackage, articleMetadata, customMetadata);
   }
 
-  private ArticleIngestion processIngestPackage(IngestPackage ingestPackage) {
+  /**
+   * Equivalent to the rest of {@link #createIngestPackage}, but reads the manuscript without parsing it into a DOM.
+   */
+  private IngestPackage createIngestPackageFromStream(Archive archive, Map<String, ArticleFile> inheritedFiles,
+                                                     ManifestXml manifestXml, String manuscriptEntry)
+      throws IOException {
+    StreamingManuscriptReader.Result manuscript = readManuscript(archive, inheritedFiles, manuscriptEntry);
+    ArticleMetadata articleMetadata = manuscript.getArticleMetadata();
+    ImmutableListMultimap<Doi, String> assetNodeNames = manuscript.getAssetNodeNames();
+
+    String destinationBucketName = runtimeConfiguration.getCorpusStorage().getDefaultBucket();
+
+    ArticlePackage articlePackage = new ArticlePackageBuilder(destinationBucketName, archive,
+        Doi.create(articleMetadata.getDoi()), assetNodeNames, manifestXml, inheritedFiles).build();
+
+    articlePackage.validateAssetCompleteness(assetNodeNames.keySet());
+
+    return new IngestPackage(articlePackage, articleMetadata, manuscript.getCustomMetadata());
+  }
+
+  /**
+   * Upload the files of a package read by {@link #createIngestPackage} and persist it as a new ingestion.
+   */
+  ArticleIngestion processIngestPackage(IngestPackage ingestPackage) {
+    Doi doi = validateIngestPackage(ingestPackage);
+    ArticlePackage articlePackage = ingestPackage.getArticlePackage();
+    UploadedFiles uploadedFiles = contentRepoPersistenceService.uploadFiles(articlePackage);
+    return persistArticle(ingestPackage, doi, articlePackage, uploadedFiles);
+  }
+
+  /**
+   * Upload the files of a package read by {@link #createIngestPackage}, without persisting anything to the database.
+   * This and {@link #persistIngestPackage} are the two halves of {@link #processIngestPackage}, which {@link
+   * BulkIngestionService} runs on separate threads.
+   */
+  UploadedFiles uploadIngestPackage(IngestPackage ingestPackage) {
+    validateIngestPackage(ingestPackage);
+    return contentRepoPersistenceService.uploadFiles(ingestPackage.getArticlePackage());
+  }
+
+  /**
+   * Persist a package whose files were uploaded by {@link #uploadIngestPackage} as a new ingestion. The package is
+   * validated again, in case another ingestion has claimed one of its assets since it was uploaded.
+   */
+  ArticleIngestion persistIngestPackage(IngestPackage ingestPackage, UploadedFiles uploadedFiles) {
+    Doi doi = validateIngestPackage(ingestPackage);
+    return persistArticle(ingestPackage, doi, ingestPackage.getArticlePackage(), uploadedFiles);
+  }
+
+  /**
+   * Check a package against the articles already ingested.
+   *
+   * @return the article's DOI
+   */
+  private Doi validateIngestPackage(IngestPackage ingestPackage) {
     Doi doi = ArticleIdentifier.create(ingestPackage.getArticleMetadata().getDoi()).getDoi();
 
     ArticlePackage articlePackage = ingestPackage.getArticlePackage();
 
-    for (ManifestXml.Asset asset : articlePackage.getManifest().getAssets()) {
-      Doi assetDoi = Doi.create(asset.getUri());
-      validateAssetUniqueness(doi, articleCrudService.getAllArticleItems(assetDoi));
-    }
+    List<Doi> assetDois = articlePackage.getManifest().getAssets().stream()
+        .map(asset -> Doi.create(asset.getUri()))
+        .collect(Collectors.toList());
+    validateAssetOwners(doi, articleCrudService.getOwningArticleDois(assetDois));
     validateManuscript(doi, articlePackage.getManifest().getArticleAsset().getUri());
+    return doi;
+  }
+
+  /**
+   * Find the files of the base ingestion that a partial archive inherits, which are those not replaced by a file in
+   * the archive.
+   *
+   * @return the inherited files, mapped by entry name
+   */
+  private Map<String, ArticleFile> findInheritedFiles(ManifestXml manifestXml, Set<String> archiveEntryNames,
+                                                      int baseIngestionNumber) {
+    Doi articleDoi = Doi.create(manifestXml.getArticleAsset().getUri());
+    ArticleIngestion baseIngestion = articleCrudService.readIngestion(
+        ArticleIngestionIdentifier.create(articleDoi, baseIngestionNumber));
+    List<ArticleFile> baseFiles = hibernateTemplate.execute(session -> {
+      Query query = session.createQuery("FROM ArticleFile WHERE ingestion = :ingestion ORDER BY fileId");
+      query.setParameter("ingestion", baseIngestion);
+      return (List<ArticleFile>) query.list();
+    });
+    return baseFiles.stream()
+        .filter(file -> !archiveEntryNames.contains(file.getIngestedFileName()))
+        .collect(Collectors.toMap(ArticleFile::getIngestedFileName, Function.identity(),
+            // Files with the same name were ingested from the same archive entry, so either has the right content
+            (first, second) -> first));
+  }
 
-    return persistArticle(ingestPackage, doi, articlePackage);
+  /**
+   * Open a file from the archive, or from the repo if it is inherited.
+   */
+  private InputStream openEntry(Archive archive, Map<String, ArticleFile> inheritedFiles, String entryName)
+      throws IOException {
+    ArticleFile inheritedFile = inheritedFiles.get(entryName);
+    return (inheritedFile == null) ? archive.openFile(entryName)
+        : repoObjectDiskCache.getRepoObject(inheritedFile.getCrepoVersion());
   }
 
-  private Document getDocument(Archive archive, String manuscriptEntry) throws IOException {
+  private Document getDocument(Archive archive, Map<String, ArticleFile> inheritedFiles, String manuscriptEntry)
+      throws IOException {
     Document document;
-    try (InputStream manuscriptStream = new BufferedInputStream(archive.openFile(manuscriptEntry))) {
+    try (InputStream manuscriptStream = new BufferedInputStream(openEntry(archive, inheritedFiles, manuscriptEntry))) {
       document = AmbraService.parseXml(manuscriptStream);
     }
     return document;
   }
 
-  private String getManuscriptEntry(ImmutableSet<String> entryNames, ManifestXml manifestXml) {
+  private StreamingManuscriptReader.Result readManuscript(Archive archive, Map<String, ArticleFile> inheritedFiles,
+                                                          String manuscriptEntry) throws IOException {
+    try (InputStream manuscriptStream = new BufferedInputStream(openEntry(archive, inheritedFiles, manuscriptEntry))) {
+      return streamingManuscriptReaderFactory.read(manuscriptStream);
+    } catch (XMLStreamException e) {
+      String message = "Invalid XML";
+      String causeMessage = e.getMessage();
+      if (!Strings.isNullOrEmpty(causeMessage)) {
+        message = message + ": " + causeMessage;
+      }
+      throw new RestClientException(message, HttpStatus.BAD_REQUEST, e);
+    }
+  }
+
+  private String getManuscriptEntry(Set<String> entryNames, ManifestXml manifestXml) {
     ManifestXml.Representation manuscriptRepr = manifestXml.getArticleAsset()
         .getRepresentation("manuscript")
         .orElseThrow(() -> new RestClientException("Manuscript entry not found in manifest",
@@ -126,6 +279,26 @@ public class IngestionService extends AmbraService {
     return manuscriptEntry;
   }
 
+  /**
+   * @return true if an ingestion failed because of a problem with the archive, rather than with the system
+   */
+  static boolean isInvalidInput(Throwable cause) {
+    return cause instanceof RestClientException || cause instanceof ManifestXml.ManifestDataException;
+  }
+
+  /**
+   * Describe why an ingestion failed, for reporting the failure after the request that caused it has returned.
+   */
+  static String describeFailure(Throwable cause) {
+    if (cause instanceof RestClientException) {
+      return cause.getMessage();
+    }
+    if (cause instanceof ManifestXml.ManifestDataException) {
+      return "Invalid manifest: " + cause.getMessage();
+    }
+    return cause.toString();
+  }
+
   @VisibleForTesting
   ManifestXml getManifestXml(Archive archive) throws IOException {
     String manifestEntry = null;
@@ -155,26 +328,33 @@ public class IngestionService extends AmbraService {
   }
 
   private ArticleIngestion persistArticle(IngestPackage ingestPackage, Doi doi,
-                                          ArticlePackage articlePackage) {
+                                          ArticlePackage articlePackage, UploadedFiles uploadedFiles) {
     Article article = hibernatePersistenceService.persistArticle(doi);
     ArticleIngestion ingestion = hibernatePersistenceService.persistIngestion(article,
         ingestPackage.getArticleMetadata(), ingestPackage.getArticleCustomMetadata());
+    ingestionMetadataService.storeMetadata(ingestion, new IngestedArticleMetadata(
+        ingestPackage.getArticleMetadata(), ingestPackage.getArticleCustomMetadata()));
 
-    hibernatePersistenceService.persistAssets(articlePackage, ingestion);
+    hibernatePersistenceService.persistAssets(articlePackage, ingestion, uploadedFiles);
 
     hibernateTemplate.flush();
     hibernateTemplate.refresh(ingestion); // Pick up auto-persisted timestamp
     return ingestion;
   }
 
+  /**
+   * Check that the incoming article's assets don't belong to any other article.
+   *
+   * @param articleDoi the incoming article
+   * @param ownerDois  the DOIs of the articles that already own items with the same DOIs as the incoming assets
+   */
   @VisibleForTesting
-  void validateAssetUniqueness(Doi articleDoi, Collection<ArticleItem> articleItems) {
-    for (ArticleItem existingItem : articleItems) {
-      Article existingParentArticle = existingItem.getIngestion().getArticle();
-      if (!Doi.create(existingParentArticle.getDoi()).equals(articleDoi)) {
+  void validateAssetOwners(Doi articleDoi, Collection<String> ownerDois) {
+    for (String existingParentArticleDoi : ownerDois) {
+      if (!Doi.create(existingParentArticleDoi).equals(articleDoi)) {
         String errorMessage = String.format("Incoming article ingestion (doi:%s) has a duplicate " +
                 "article asset. Duplicate asset belongs to article doi: %s.",
-            articleDoi.getName(), existingParentArticle.getDoi());
+            articleDoi.getName(), existingParentArticleDoi);
         throw new RestClientException(errorMessage, HttpStatus.BAD_REQUEST);
       }
     }
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2017 Public Library of Science
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package org.ambraproject.rhino.service.impl;
+
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.ambraproject.rhino.model.ArticleFile;
+import org.w3c.dom.Document;
+
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Parsed manuscripts, keyed by the content repo UUID of the manuscript file.
+ * <p/>
+ * A repo object's content never changes for a given UUID, so a cached document never needs to be invalidated. Entries
+ * are weighed by the size of the manuscript file, and the least recently used are evicted when the total exceeds the
+ * configured budget. A parsed document takes several times as much heap as its source, so the budget should be set
+ * with that in mind.
+ * <p/>
+ * Callers may modify the documents they receive (for example, to add elements before sending a document to Solr), so
+ * the cache never hands out the document it holds. Every caller receives its own deep copy. DOM implementations are not
+ * safe for concurrent reads (nodes may be built or cached as a side effect of reading them), so the held document is
+ * only read while holding its lock.
+ */
+public class ManuscriptCache {
+
+  private static final class Entry {
+    private final Document document; // read only while holding this entry's lock
+    private final long sourceSize;
+
+    private Entry(Document document, long sourceSize) {
+      this.document = Preconditions.checkNotNull(document);
+      this.sourceSize = sourceSize;
+    }
+
+    private synchronized Document copy() {
+      return (Document) document.cloneNode(true);
+    }
+  }
+
+  private final long budget;
+  private final Cache<String, Entry> cache;
+
+  /**
+   * @param budget the total size, in bytes, of the manuscript files whose parsed forms may be held at once; 0 disables
+   *               the cache
+   */
+  public ManuscriptCache(long budget) {
+    Preconditions.checkArgument(budget >= 0);
+    this.budget = budget;
+    this.cache = CacheBuilder.newBuilder()
+        .maximumWeight(budget)
+        .concurrencyLevel(1) // Otherwise the budget is split between segments, and large manuscripts may not fit in one
+        .weigher((String crepoUuid, Entry entry) -> Ints.saturatedCast(entry.sourceSize))
+        .recordStats()
+        .build();
+  }
+
+  /**
+   * Get a manuscript, parsing it if it is not cached. Concurrent requests for the same manuscript wait for one parse.
+   *
+   * @param manuscriptFile the manuscript file
+   * @param parser         a function that reads and parses the manuscript
+   * @return a copy of the parsed manuscript that belongs to the caller
+   */
+  public Document get(ArticleFile manuscriptFile, Supplier<Document> parser) {
+    if (budget == 0) {
+      return parser.get();
+    }
+
+    Entry entry;
+    try {
+      entry = cache.get(manuscriptFile.getCrepoUuid(),
+          () -> new Entry(parser.get(), manuscriptFile.getFileSize()));
+    } catch (ExecutionException | UncheckedExecutionException | ExecutionError e) {
+      // Don't wrap exceptions (such as RestClientException) that the caller would have gotten without the cache
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+      if (cause instanceof Error) throw (Error) cause;
+      throw new RuntimeException(cause);
+    }
+    return entry.copy();
+  }
+
+  public long getBudget() {
+    return budget;
+  }
+
+  /**
+   * @return the number of manuscripts currently held
+   */
+  public long getSize() {
+    return cache.size();
+  }
+
+  /**
+   * @return hit, miss, load and eviction counts since startup
+   */
+  public CacheStats getStats() {
+    return cache.stats();
+  }
+
+}
@@ -0,0 +1,616 @@
+/*
+ * Copyright (c) 2017 Public Library of Science
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package org.ambraproject.rhino.service.impl;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.gson.reflect.TypeToken;
+import org.ambraproject.rhino.identity.Doi;
+import org.ambraproject.rhino.model.Article;
+import org.ambraproject.rhino.model.ArticleRevision;
+import org.ambraproject.rhino.model.ReclassificationJob;
+import org.ambraproject.rhino.rest.RestClientException;
+import org.ambraproject.rhino.rest.response.ServiceResponse;
+import org.ambraproject.rhino.service.ArticleCrudService;
+import org.ambraproject.rhino.service.JournalCrudService;
+import org.ambraproject.rhino.service.ReclassificationJobService;
+import org.ambraproject.rhino.service.taxonomy.ClassificationContent;
+import org.ambraproject.rhino.service.taxonomy.TaxonomyClassificationService;
+import org.ambraproject.rhino.service.taxonomy.TaxonomyRemoteServiceNotAvailableException;
+import org.ambraproject.rhino.service.taxonomy.TaxonomyRemoteServiceNotConfiguredException;
+import org.ambraproject.rhino.service.taxonomy.WeightedTerm;
+import org.ambraproject.rhino.view.article.ReclassificationJobInputView;
+import org.ambraproject.rhino.view.article.ReclassificationJobView;
+import org.hibernate.LockMode;
+import org.hibernate.Query;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpStatus;
+import org.springframework.orm.hibernate3.HibernateTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.lang.reflect.Type;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+public class ReclassificationJobServiceImpl extends AmbraService implements ReclassificationJobService {
+
+  private static final Logger log = LoggerFactory.getLogger(ReclassificationJobServiceImpl.class);
+
+  /**
+   * The number of failed articles to report for each job. Older failures are still counted but not described.
+   */
+  private static final int MAX_RECENT_ERRORS = 100;
+
+  private static final ReclassificationJob.State[] UNFINISHED_STATES =
+      {ReclassificationJob.State.QUEUED, ReclassificationJob.State.RUNNING};
+
+  private static final Type ERROR_LIST_TYPE = new TypeToken<List<Map<String, String>>>() {
+  }.getType();
+
+  @Autowired
+  private TaxonomyClassificationService taxonomyClassificationService;
+  @Autowired
+  private ArticleCrudService articleCrudService;
+  @Autowired
+  private JournalCrudService journalCrudService;
+  @Autowired
+  private HibernateTransactionManager transactionManager;
+  @Autowired
+  @Qualifier("reclassificationJobExecutor")
+  private ExecutorService reclassificationJobExecutor;
+  @Autowired
+  @Qualifier("reclassificationExecutor")
+  private ExecutorService reclassificationExecutor;
+
+  /**
+   * Jobs that a worker is running now, which may still be committing a chunk after being cancelled.
+   */
+  private final Set<Long> activeJobIds = ConcurrentHashMap.newKeySet();
+
+  private TransactionTemplate newTransaction() {
+    TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+    transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    return transaction;
+  }
+
+  private TransactionTemplate newReadOnlyTransaction() {
+    TransactionTemplate transaction = newTransaction();
+    transaction.setReadOnly(true);
+    return transaction;
+  }
+
+  @Override
+  public ReclassificationJob submit(ReclassificationJobInputView input) {
+    ReclassificationJob job = new ReclassificationJob();
+    if (input.getJournal() != null) {
+      job.setJournalKey(journalCrudService.readJournal(input.getJournal()).getJournalKey());
+    }
+    job.setFromDate(parseDate("fromDate", input.getFromDate()));
+    job.setToDate(parseDate("toDate", input.getToDate()));
+    if (job.getFromDate() != null && job.getToDate() != null && job.getFromDate().after(job.getToDate())) {
+      throw new RestClientException("fromDate is after toDate", HttpStatus.BAD_REQUEST);
+    }
+    if (input.getDois() != null) {
+      // Sorted, so that the job can record its progress as the last DOI that it committed
+      Set<String> dois = input.getDois().stream()
+          .filter(Objects::nonNull).map(String::trim).filter(doi -> !doi.isEmpty())
+          .map(doi -> Doi.create(doi).getName())
+          .collect(Collectors.toCollection(TreeSet::new));
+      if (dois.isEmpty()) {
+        throw new RestClientException("dois must not be empty", HttpStatus.BAD_REQUEST);
+      }
+      job.setDois(Joiner.on('\n').join(dois));
+    }
+    job.setState(ReclassificationJob.State.QUEUED);
+    job.setOwner(getNodeName());
+    newTransaction().execute(status -> hibernateTemplate.save(job));
+
+    reclassificationJobExecutor.execute(() -> runJob(job.getJobId()));
+    return job;
+  }
+
+  private static java.sql.Date parseDate(String name, String value) {
+    if (value == null) return null;
+    try {
+      return java.sql.Date.valueOf(LocalDate.parse(value));
+    } catch (DateTimeParseException e) {
+      throw new RestClientException("Invalid " + name + " (expected yyyy-MM-dd): " + value, HttpStatus.BAD_REQUEST, e);
+    }
+  }
+
+  private String getNodeName() {
+    return runtimeConfiguration.getIngestionConfiguration().getJobNodeName();
+  }
+
+  /**
+   * Queue the jobs that this server owned and that were waiting or running when it last stopped. A running job
+   * continues from the last chunk that it committed, so the articles in the chunk that it was working on are classified
+   * again.
+   * <p/>
+   * Unfinished jobs without an owner are claimed first, so that a job can be handed to another server by clearing its
+   * owner. Other servers' jobs are left alone.
+   */
+  @PostConstruct
+  public void resumeJobs() {
+    String nodeName = getNodeName();
+    int claimed = newTransaction().execute(status -> hibernateTemplate.execute(session -> {
+      Query query = session.createQuery("" +
+          "UPDATE ReclassificationJob SET owner = :owner " +
+          "WHERE owner IS NULL AND state IN (:states)");
+      query.setParameter("owner", nodeName);
+      query.setParameterList("states", UNFINISHED_STATES);
+      return query.executeUpdate();
+    }));
+    if (claimed > 0) {
+      log.info("Claimed {} unowned reclassification jobs", claimed);
+    }
+
+    List<Long> jobIds = hibernateTemplate.execute(session -> {
+      Query query = session.createQuery("" +
+          "SELECT jobId FROM ReclassificationJob " +
+          "WHERE owner = :owner AND state IN (:states) " +
+          "ORDER BY jobId");
+      query.setParameter("owner", nodeName);
+      query.setParameterList("states", UNFINISHED_STATES);
+      return (List<Long>) query.list();
+    });
+    if (!jobIds.isEmpty()) {
+      log.info("Resuming {} unfinished reclassification jobs", jobIds.size());
+    }
+    for (long jobId : jobIds) {
+      reclassificationJobExecutor.execute(() -> runJob(jobId));
+    }
+  }
+
+  private void runJob(long jobId) {
+    if (!activeJobIds.add(jobId)) return;
+    try {
+      ReclassificationJob job = newTransaction().execute(status -> {
+        // Start the job only if this server still owns it and it isn't finished, as one atomic update, so that the job
+        // can't run on two servers even if its owner has been changed since it was queued.
+        int started = hibernateTemplate.execute(session -> {
+          Query query = session.createQuery("" +
+              "UPDATE ReclassificationJob SET state = :running " +
+              "WHERE jobId = :jobId AND owner = :owner AND state IN (:states)");
+          query.setParameter("running", ReclassificationJob.State.RUNNING);
+          query.setParameter("jobId", jobId);
+          query.setParameter("owner", getNodeName());
+          query.setParameterList("states", UNFINISHED_STATES);
+          return query.executeUpdate();
+        });
+        if (started == 0) return null;
+
+        // The update holds the row's lock until the transaction ends, so the job's progress can be filled in safely
+        ReclassificationJob toStart = hibernateTemplate.get(ReclassificationJob.class, jobId);
+        if (toStart.getStarted() == null) {
+          toStart.setStarted(new Date());
+        }
+        if (toStart.getTotalCount() == null) {
+          toStart.setTotalCount(countCandidates(toStart));
+        }
+        hibernateTemplate.update(toStart);
+        return toStart;
+      });
+      if (job != null) {
+        reclassify(job);
+      }
+    } catch (RuntimeException e) {
+      // The job is left running, to be resumed after a restart.
+      log.error("Could not update reclassification job " + jobId, e);
+    } finally {
+      activeJobIds.remove(jobId);
+    }
+  }
+
+  private void reclassify(ReclassificationJob job) {
+    int chunkSize = runtimeConfiguration.getTaxonomyConfiguration().getReclassificationChunkSize();
+    String lastDoi = job.getLastDoi();
+    while (true) {
+      String after = lastDoi;
+      List<String> chunk = newReadOnlyTransaction().execute(status -> findCandidates(job, after, chunkSize));
+      if (chunk.isEmpty()) {
+        finish(job.getJobId(), ReclassificationJob.State.FINISHED, null);
+        return;
+      }
+
+      Map<String, Outcome> outcomes;
+      try {
+        outcomes = classifyAll(chunk);
+      } catch (TaxonomyRemoteServiceNotAvailableException | TaxonomyRemoteServiceNotConfiguredException e) {
+        // Every other article would fail the same way. Stop without committing the chunk, so it can be resumed.
+        log.error("Reclassification job " + job.getJobId() + " stopped", e);
+        finish(job.getJobId(), ReclassificationJob.State.FAILED, "Taxonomy server could not be used: " + e);
+        return;
+      }
+
+      if (!commit(job.getJobId(), chunk, outcomes)) {
+        return; // cancelled
+      }
+      lastDoi = Iterables.getLast(chunk);
+    }
+  }
+
+  /**
+   * The result of classifying one article: either the categories to assign or a reason that there are none.
+   */
+  private static class Outcome {
+    private final List<WeightedTerm> terms;
+    private final String error;
+
+    private Outcome(List<WeightedTerm> terms, String error) {
+      this.terms = terms;
+      this.error = error;
+    }
+
+    static Outcome succeeded(List<WeightedTerm> terms) {
+      return new Outcome(Objects.requireNonNull(terms), null);
+    }
+
+    static Outcome failed(String error) {
+      return new Outcome(null, Objects.requireNonNull(error));
+    }
+  }
+
+  /**
+   * Classify a chunk of articles in batches, sending no more batches at once than the shared classification pool has
+   * threads.
+   */
+  private Map<String, Outcome> classifyAll(List<String> chunk) {
+    int batchSize = runtimeConfiguration.getTaxonomyConfiguration().getClassificationBatchSize();
+    List<Future<Map<String, Outcome>>> futures = Lists.partition(chunk, batchSize).stream()
+        .map(batch -> reclassificationExecutor.submit(() -> classifyBatch(batch)))
+        .collect(Collectors.toList());
+    Map<String, Outcome> outcomes = new LinkedHashMap<>();
+    try {
+      for (Future<Map<String, Outcome>> future : futures) {
+        outcomes.putAll(future.get());
+      }
+    } catch (ExecutionException e) {
+      futures.forEach(future -> future.cancel(true));
+      Throwable cause = e.getCause();
+      if (cause instanceof Error) throw (Error) cause;
+      if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+      throw new RuntimeException("Could not classify chunk", cause);
+    } catch (InterruptedException e) {
+      futures.forEach(future -> future.cancel(true));
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted during reclassification", e);
+    }
+    return outcomes;
+  }
+
+  private Map<String, Outcome> classifyBatch(List<String> dois) {
+    try {
+      return classifyTogether(dois);
+    } catch (TaxonomyRemoteServiceNotAvailableException | TaxonomyRemoteServiceNotConfiguredException e) {
+      throw e;
+    } catch (RuntimeException e) {
+      // One bad article, such as one whose manuscript is missing, fails its whole batch
+      log.warn("Could not classify batch starting with " + dois.get(0) + "; classifying articles separately", e);
+      Map<String, Outcome> outcomes = new LinkedHashMap<>();
+      dois.forEach(doi -> outcomes.put(doi, classify(doi)));
+      return outcomes;
+    }
+  }
+
+  private static Outcome toOutcome(List<WeightedTerm> terms) {
+    return terms.isEmpty() ? Outcome.failed("Taxonomy server returned 0 terms") : Outcome.succeeded(terms);
+  }
+
+  private Outcome classify(String doi) {
+    try {
+      return classifyTogether(Collections.singletonList(doi)).get(doi);
+    } catch (TaxonomyRemoteServiceNotAvailableException | TaxonomyRemoteServiceNotConfiguredException e) {
+      throw e;
+    } catch (RuntimeException e) {
+      log.warn("Could not classify " + doi, e);
+      return Outcome.failed(IngestionService.describeFailure(e));
+    }
+  }
+
+  /**
+   * Classify articles in as few requests to the taxonomy server as the batch size allows. Their content is read in a
+   * transaction, but the taxonomy server is called after it has ended, so that no database connection is held while
+   * waiting for the response.
+   */
+  private Map<String, Outcome> classifyTogether(List<String> dois) {
+    Map<String, Outcome> outcomes = new LinkedHashMap<>();
+    dois.forEach(doi -> outcomes.put(doi, null)); // to keep the DOIs in order
+    List<String> found = new ArrayList<>(dois.size());
+    List<ClassificationContent> contents = newReadOnlyTransaction().execute(status -> {
+      List<ArticleRevision> revisions = new ArrayList<>(dois.size());
+      for (String doi : dois) {
+        Article article = getArticle(doi);
+        Optional<ArticleRevision> revision = (article == null) ? Optional.empty()
+            : articleCrudService.getLatestRevision(article);
+        if (revision.isPresent()) {
+          found.add(doi);
+          revisions.add(revision.get());
+        } else {
+          outcomes.put(doi, Outcome.failed(article == null ? "Article not found" : "Article has no revisions"));
+        }
+      }
+      return taxonomyClassificationService.readClassificationContent(revisions);
+    });
+
+    if (!contents.isEmpty()) {
+      List<List<WeightedTerm>> terms = taxonomyClassificationService.classifyContent(contents);
+      for (int i = 0; i < found.size(); i++) {
+        outcomes.put(found.get(i), toOutcome(terms.get(i)));
+      }
+    }
+    return outcomes;
+  }
+
+  /**
+   * Assign the categories for a chunk and record the job's progress in one transaction. If the transaction fails, assign
+   * each article's categories in its own transaction instead, so that one bad article doesn't hold back the rest.
+   *
+   * @return true if the job should continue, or false if it was cancelled
+   */
+  private boolean commit(long jobId, List<String> chunk, Map<String, Outcome> outcomes) {
+    try {
+      return newTransaction().execute(status -> {
+        outcomes.forEach((doi, outcome) -> {
+          if (outcome.terms != null) {
+            assign(doi, outcome.terms);
+          }
+        });
+        return advance(jobId, chunk, outcomes);
+      });
+    } catch (RuntimeException e) {
+      log.warn("Could not commit chunk of reclassification job " + jobId + "; committing articles separately", e);
+    }
+
+    Map<String, Outcome> retried = new LinkedHashMap<>(outcomes);
+    outcomes.forEach((doi, outcome) -> {
+      if (outcome.terms == null) return;
+      try {
+        newTransaction().execute(status -> {
+          assign(doi, outcome.terms);
+          return null;
+        });
+      } catch (RuntimeException e) {
+        log.warn("Could not assign categories to " + doi, e);
+        retried.put(doi, Outcome.failed(IngestionService.describeFailure(e)));
+      }
+    });
+    return newTransaction().execute(status -> advance(jobId, chunk, retried));
+  }
+
+  private void assign(String doi, List<WeightedTerm> terms) {
+    Article article = getArticle(doi);
+    if (article == null) {
+      throw new RestClientException("Article not found: " + doi, HttpStatus.NOT_FOUND);
+    }
+    taxonomyClassificationService.assignCategories(article, terms);
+  }
+
+  private boolean advance(long jobId, List<String> chunk, Map<String, Outcome> outcomes) {
+    ReclassificationJob job = hibernateTemplate.get(ReclassificationJob.class, jobId, LockMode.UPGRADE);
+    if (!getNodeName().equals(job.getOwner())) {
+      // The job was cancelled and resumed on another server, which continues from the last chunk recorded here
+      return false;
+    }
+    job.setLastDoi(Iterables.getLast(chunk));
+    job.setProcessedCount(job.getProcessedCount() + chunk.size());
+
+    List<Map<String, String>> recentErrors = (job.getRecentErrors() == null) ? new ArrayList<>()
+        : entityGson.fromJson(job.getRecentErrors(), ERROR_LIST_TYPE);
+    int failedCount = 0;
+    for (Map.Entry<String, Outcome> entry : outcomes.entrySet()) {
+      String error = entry.getValue().error;
+      if (error != null) {
+        failedCount++;
+        recentErrors.add(ImmutableMap.of("doi", entry.getKey(), "error", error));
+      }
+    }
+    if (failedCount > 0) {
+      job.setFailedCount(job.getFailedCount() + failedCount);
+      if (recentErrors.size() > MAX_RECENT_ERRORS) {
+        recentErrors = new ArrayList<>(recentErrors.subList(recentErrors.size() - MAX_RECENT_ERRORS, recentErrors.size()));
+      }
+      job.setRecentErrors(entityGson.toJson(recentErrors, ERROR_LIST_TYPE));
+    }
+
+    hibernateTemplate.update(job);
+    return job.getState() == ReclassificationJob.State.RUNNING;
+  }
+
+  private void finish(long jobId, ReclassificationJob.State state, String errorMessage) {
+    newTransaction().execute(status -> {
+      ReclassificationJob job = hibernateTemplate.get(ReclassificationJob.class, jobId, LockMode.UPGRADE);
+      if (job.getState() != ReclassificationJob.State.RUNNING || !getNodeName().equals(job.getOwner())) {
+        return null; // cancelled, or resumed on another server, while finishing
+      }
+      job.setState(state);
+      job.setErrorMessage(errorMessage);
+      job.setFinished(new Date());
+      hibernateTemplate.update(job);
+      return null;
+    });
+  }
+
+  private Article getArticle(String doi) {
+    return hibernateTemplate.execute(session -> {
+      Query query = session.createQuery("FROM Article WHERE doi = :doi");
+      query.setParameter("doi", doi);
+      return (Article) query.uniqueResult();
+    });
+  }
+
+  /**
+   * Select the articles that the job reclassifies, in the order that it reclassifies them.
+   *
+   * @param job     the job
+   * @param lastDoi the last DOI that the job has committed, or null to start from the beginning
+   * @param limit   the maximum number of DOIs to return
+   * @return the DOIs of the next articles to reclassify
+   */
+  private List<String> findCandidates(ReclassificationJob job, String lastDoi, int limit) {
+    if (job.getDois() != null) {
+      return Splitter.on('\n').splitToList(job.getDois()).stream()
+          .filter(doi -> lastDoi == null || doi.compareTo(lastDoi) > 0)
+          .limit(limit)
+          .collect(Collectors.toList());
+    }
+    return hibernateTemplate.execute(session -> {
+      Query query = createCandidateQuery(session, job, lastDoi, false);
+      query.setMaxResults(limit);
+      return (List<String>) query.list();
+    });
+  }
+
+  private int countCandidates(ReclassificationJob job) {
+    if (job.getDois() != null) {
+      return Splitter.on('\n').splitToList(job.getDois()).size();
+    }
+    Long count = hibernateTemplate.execute(session ->
+        (Long) createCandidateQuery(session, job, null, true).uniqueResult());
+    return count.intValue();
+  }
+
+  /**
+   * Build a query for the DOIs of articles matching a job's filters, which apply to each article's latest revision, or
+   * for the number of them.
+   */
+  private static Query createCandidateQuery(Session session, ReclassificationJob job, String lastDoi, boolean count) {
+    StringBuilder hql = new StringBuilder("" +
+        (count ? "SELECT COUNT(art.doi) " : "SELECT art.doi ") +
+        "FROM ArticleRevision rev JOIN rev.ingestion ing JOIN ing.article art " +
+        "WHERE rev.revisionNumber = (" +
+        "  SELECT MAX(latest.revisionNumber) FROM ArticleRevision latest WHERE latest.ingestion.article = art)");
+    if (job.getJournalKey() != null) {
+      hql.append(" AND ing.journal.journalKey = :journalKey");
+    }
+    if (job.getFromDate() != null) {
+      hql.append(" AND ing.publicationDate >= :fromDate");
+    }
+    if (job.getToDate() != null) {
+      hql.append(" AND ing.publicationDate <= :toDate");
+    }
+    if (lastDoi != null) {
+      hql.append(" AND art.doi > :lastDoi");
+    }
+    if (!count) {
+      hql.append(" ORDER BY art.doi");
+    }
+
+    Query query = session.createQuery(hql.toString());
+    if (job.getJournalKey() != null) {
+      query.setParameter("journalKey", job.getJournalKey());
+    }
+    if (job.getFromDate() != null) {
+      query.setDate("fromDate", job.getFromDate());
+    }
+    if (job.getToDate() != null) {
+      query.setDate("toDate", job.getToDate());
+    }
+    if (lastDoi != null) {
+      query.setParameter("lastDoi", lastDoi);
+    }
+    return query;
+  }
+
+  @Override
+  public ServiceResponse<ReclassificationJobView> serveJob(long jobId) {
+    return ServiceResponse.serveView(new ReclassificationJobView(readJob(jobId)));
+  }
+
+  private ReclassificationJob readJob(long jobId) {
+    ReclassificationJob job = hibernateTemplate.get(ReclassificationJob.class, jobId);
+    if (job == null) {
+      throw new RestClientException("Reclassification job not found: " + jobId, HttpStatus.NOT_FOUND);
+    }
+    return job;
+  }
+
+  @Override
+  public ReclassificationJob cancel(long jobId) {
+    return newTransaction().execute(status -> {
+      ReclassificationJob job = hibernateTemplate.get(ReclassificationJob.class, jobId, LockMode.UPGRADE);
+      if (job == null) {
+        throw new RestClientException("Reclassification job not found: " + jobId, HttpStatus.NOT_FOUND);
+      }
+      if (job.getState().isFinished()) {
+        throw new RestClientException("Reclassification job is already " + job.getState(), HttpStatus.BAD_REQUEST);
+      }
+      job.setState(ReclassificationJob.State.CANCELLED);
+      job.setFinished(new Date());
+      hibernateTemplate.update(job);
+      return job;
+    });
+  }
+
+  @Override
+  public ReclassificationJob resume(long jobId) {
+    if (activeJobIds.contains(jobId)) {
+      throw new RestClientException("Reclassification job is still stopping: " + jobId, HttpStatus.BAD_REQUEST);
+    }
+    ReclassificationJob job = newTransaction().execute(status -> {
+      ReclassificationJob toResume = hibernateTemplate.get(ReclassificationJob.class, jobId, LockMode.UPGRADE);
+      if (toResume == null) {
+        throw new RestClientException("Reclassification job not found: " + jobId, HttpStatus.NOT_FOUND);
+      }
+      if (toResume.getState() != ReclassificationJob.State.FAILED
+          && toResume.getState() != ReclassificationJob.State.CANCELLED) {
+        throw new RestClientException("Only failed or cancelled jobs can be resumed; job is " + toResume.getState(),
+            HttpStatus.BAD_REQUEST);
+      }
+      toResume.setState(ReclassificationJob.State.QUEUED);
+      toResume.setOwner(getNodeName());
+      toResume.setErrorMessage(null);
+      toResume.setFinished(null);
+      hibernateTemplate.update(toResume);
+      return toResume;
+    });
+
+    reclassificationJobExecutor.execute(() -> runJob(jobId));
+    return job;
+  }
+
+}
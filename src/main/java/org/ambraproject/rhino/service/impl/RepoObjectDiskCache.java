@@ -0,0 +1,402 @@
+/*
+ * Copyright (c) 2017 Public Library of Science
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package org.ambraproject.rhino.service.impl;
+
+import com.google.common.base.Preconditions;
+import com.google.common.io.ByteStreams;
+import org.ambraproject.rhino.util.SingleFlight;
+import org.plos.crepo.model.identity.RepoVersion;
+import org.plos.crepo.service.ContentRepoService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+
+/**
+ * A read-through cache of content repo objects in a local directory, keyed by the UUID of the object's version.
+ * <p/>
+ * A repo version's content never changes, so cached files never need to be invalidated. When the total size of the
+ * cached files exceeds the capacity, the least recently read are deleted. Objects larger than the whole capacity are
+ * passed through without being kept.
+ * <p/>
+ * Each file is downloaded to a temporary file in the same directory and renamed into place once it is complete, so a
+ * reader never sees a partial file, even across a restart. The name of each file records its CRC-32, which is checked
+ * the first time the file is read after startup. A file that fails the check is deleted and fetched again. After that,
+ * only the file's length is checked on each read.
+ * <p/>
+ * Concurrent misses for the same object are coalesced into one download.
+ * <p/>
+ * If no directory is configured, every read goes to the content repo.
+ */
+public class RepoObjectDiskCache {
+
+  private static final Logger log = LoggerFactory.getLogger(RepoObjectDiskCache.class);
+
+  private static final String TEMP_PREFIX = "download-";
+  private static final String TEMP_SUFFIX = ".tmp";
+
+  /**
+   * How long a request waits for another request's download of the same object.
+   */
+  private static final long DOWNLOAD_WAIT_MINUTES = 5;
+
+  private static final class Entry {
+    private final Path path;
+    private final long size;
+    private final long checksum;
+    private boolean verified; // guarded by the index's lock
+
+    private Entry(Path path, long size, long checksum, boolean verified) {
+      this.path = path;
+      this.size = size;
+      this.checksum = checksum;
+      this.verified = verified;
+    }
+  }
+
+  private final ContentRepoService contentRepoService;
+  private final Path directory; // null if disabled
+  private final long capacity;
+
+  // In access order, so that the eldest entry is the least recently read. All access is synchronized on the map.
+  private final LinkedHashMap<String, Entry> index = new LinkedHashMap<>(16, 0.75f, true);
+  private long totalSize; // guarded by the index's lock
+
+  private final SingleFlight<String, Boolean> downloads = new SingleFlight<>(DOWNLOAD_WAIT_MINUTES, TimeUnit.MINUTES);
+
+  private final AtomicLong hitCount = new AtomicLong();
+  private final AtomicLong missCount = new AtomicLong();
+  private final AtomicLong evictionCount = new AtomicLong();
+  private final AtomicLong integrityFailureCount = new AtomicLong();
+
+  /**
+   * @param contentRepoService the service to read objects from on a miss
+   * @param directory          the directory to hold cached files, which is created if it doesn't exist; or null to
+   *                           disable caching
+   * @param capacity           the maximum total size, in bytes, of the cached files
+   */
+  public RepoObjectDiskCache(ContentRepoService contentRepoService, Path directory, long capacity) {
+    Preconditions.checkArgument(capacity >= 0);
+    this.contentRepoService = Preconditions.checkNotNull(contentRepoService);
+    this.directory = directory;
+    this.capacity = capacity;
+    if (directory != null) {
+      try {
+        Files.createDirectories(directory);
+        loadIndex();
+      } catch (IOException e) {
+        throw new RuntimeException("Could not open repo object cache at " + directory, e);
+      }
+    }
+  }
+
+  /**
+   * Rebuild the index from the files left by an earlier run. Their checksums have not been verified yet.
+   */
+  private void loadIndex() throws IOException {
+    List<Path> files = new ArrayList<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+      for (Path file : stream) {
+        String name = file.getFileName().toString();
+        if (name.startsWith(TEMP_PREFIX) && name.endsWith(TEMP_SUFFIX)) {
+          Files.deleteIfExists(file); // an incomplete download
+        } else if (name.indexOf('.') > 0) {
+          files.add(file);
+        }
+      }
+    }
+
+    // Least recently modified first, as the best available guess at least recently used
+    Map<Path, FileTime> modifiedTimes = new LinkedHashMap<>();
+    for (Path file : files) {
+      modifiedTimes.put(file, Files.getLastModifiedTime(file));
+    }
+    files.sort((a, b) -> modifiedTimes.get(a).compareTo(modifiedTimes.get(b)));
+
+    synchronized (index) {
+      for (Path file : files) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        long checksum;
+        try {
+          checksum = Long.parseLong(name.substring(dot + 1), 16);
+        } catch (NumberFormatException e) {
+          continue; // not ours
+        }
+        put(name.substring(0, dot), new Entry(file, Files.size(file), checksum, false));
+      }
+      evictToCapacity();
+    }
+  }
+
+  private static String getKey(RepoVersion version) {
+    return version.getUuid().toString();
+  }
+
+  /**
+   * Read a repo object, from the local cache if possible.
+   *
+   * @param version the version of the object to read
+   * @return a stream of the object's content
+   * @throws IOException if the object cannot be read
+   */
+  public InputStream getRepoObject(RepoVersion version) throws IOException {
+    FileChannel channel = (directory == null) ? null : openChannel(version);
+    return (channel == null) ? contentRepoService.getRepoObject(version) : Channels.newInputStream(channel);
+  }
+
+  /**
+   * Write a repo object to a channel. A cached object is transferred directly from its file.
+   *
+   * @param version the version of the object to read
+   * @param target  the channel to write the object's content to
+   * @throws IOException if the object cannot be read or the channel cannot be written
+   */
+  public void transferTo(RepoVersion version, WritableByteChannel target) throws IOException {
+    FileChannel opened = (directory == null) ? null : openChannel(version);
+    if (opened == null) {
+      try (InputStream stream = contentRepoService.getRepoObject(version)) {
+        ByteStreams.copy(Channels.newChannel(stream), target);
+      }
+      return;
+    }
+    try (FileChannel channel = opened) {
+      long position = 0;
+      long size = channel.size();
+      while (position < size) {
+        position += channel.transferTo(position, size - position, target);
+      }
+    }
+  }
+
+  /**
+   * @return a channel of the object's content, or null if the caller should read it from the content repo instead
+   */
+  private FileChannel openChannel(RepoVersion version) throws IOException {
+    String key = getKey(version);
+    FileChannel cached = openCached(key);
+    if (cached != null) {
+      hitCount.incrementAndGet();
+      return cached;
+    }
+    missCount.incrementAndGet();
+
+    // Concurrent misses for the same object share one download. The thread that runs it keeps an object too large to
+    // cache in a file that is deleted when closed; the others read it from the content repo.
+    FileChannel[] passThrough = new FileChannel[1];
+    boolean isCached = downloads.execute(key, () -> download(key, version, passThrough));
+    if (passThrough[0] != null) {
+      return passThrough[0];
+    }
+    return isCached ? openCached(key) : null;
+  }
+
+  /**
+   * @return a channel of the cached file, or null if it isn't cached or has been corrupted
+   */
+  private FileChannel openCached(String key) throws IOException {
+    Entry entry;
+    boolean verified;
+    synchronized (index) {
+      entry = index.get(key);
+      if (entry == null) return null;
+      verified = entry.verified;
+    }
+
+    FileChannel channel;
+    try {
+      channel = FileChannel.open(entry.path, StandardOpenOption.READ);
+    } catch (NoSuchFileException e) {
+      remove(key, entry); // evicted by another thread, or deleted from outside
+      return null;
+    }
+
+    boolean valid;
+    try {
+      valid = (channel.size() == entry.size) && (verified || checksum(channel) == entry.checksum);
+    } catch (IOException e) {
+      channel.close();
+      throw e;
+    }
+    if (!valid) {
+      channel.close();
+      integrityFailureCount.incrementAndGet();
+      log.warn("Deleting corrupt cached repo object: {}", entry.path);
+      remove(key, entry);
+      Files.deleteIfExists(entry.path);
+      return null;
+    }
+    if (!verified) {
+      synchronized (index) {
+        entry.verified = true;
+      }
+    }
+    return channel;
+  }
+
+  private static long checksum(FileChannel channel) throws IOException {
+    CRC32 crc = new CRC32();
+    ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+    long position = 0;
+    int count;
+    while ((count = channel.read(buffer, position)) > 0) {
+      buffer.flip();
+      crc.update(buffer);
+      buffer.clear();
+      position += count;
+    }
+    return crc.getValue();
+  }
+
+  /**
+   * Download an object into the cache.
+   *
+   * @param passThrough receives a channel of the downloaded file if the object is too large to cache
+   * @return true if the object was cached
+   */
+  private boolean download(String key, RepoVersion version, FileChannel[] passThrough) throws IOException {
+    Path temp = Files.createTempFile(directory, TEMP_PREFIX, TEMP_SUFFIX);
+    CRC32 crc = new CRC32();
+    long size;
+    try (InputStream stream = new CheckedInputStream(contentRepoService.getRepoObject(version), crc);
+         OutputStream output = Files.newOutputStream(temp)) {
+      size = ByteStreams.copy(stream, output);
+    } catch (IOException | RuntimeException e) {
+      Files.deleteIfExists(temp);
+      throw e;
+    }
+
+    if (size > capacity) {
+      passThrough[0] = FileChannel.open(temp, StandardOpenOption.READ, StandardOpenOption.DELETE_ON_CLOSE);
+      return false;
+    }
+
+    long checksum = crc.getValue();
+    Path path = directory.resolve(key + '.' + Long.toHexString(checksum));
+    Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE);
+    synchronized (index) {
+      put(key, new Entry(path, size, checksum, true));
+      evictToCapacity();
+    }
+    return true;
+  }
+
+  private void put(String key, Entry entry) {
+    Entry previous = index.put(key, entry);
+    if (previous != null) {
+      totalSize -= previous.size;
+    }
+    totalSize += entry.size;
+  }
+
+  private void remove(String key, Entry entry) {
+    synchronized (index) {
+      if (index.remove(key, entry)) {
+        totalSize -= entry.size;
+      }
+    }
+  }
+
+  private void evictToCapacity() {
+    for (Iterator<Entry> iterator = index.values().iterator(); totalSize > capacity && iterator.hasNext(); ) {
+      Entry eldest = iterator.next();
+      iterator.remove();
+      totalSize -= eldest.size;
+      evictionCount.incrementAndGet();
+      try {
+        Files.deleteIfExists(eldest.path);
+      } catch (IOException e) {
+        log.warn("Could not delete evicted repo object: " + eldest.path, e);
+      }
+    }
+  }
+
+  public boolean isEnabled() {
+    return directory != null;
+  }
+
+  public long getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * @return the total size, in bytes, of the cached files
+   */
+  public long getSize() {
+    synchronized (index) {
+      return totalSize;
+    }
+  }
+
+  public int getEntryCount() {
+    synchronized (index) {
+      return index.size();
+    }
+  }
+
+  public long getHitCount() {
+    return hitCount.get();
+  }
+
+  public long getMissCount() {
+    return missCount.get();
+  }
+
+  public long getEvictionCount() {
+    return evictionCount.get();
+  }
+
+  public long getIntegrityFailureCount() {
+    return integrityFailureCount.get();
+  }
+
+  /**
+   * @return the number of misses that waited for another request's download of the same object
+   */
+  public long getCoalescedCount() {
+    return downloads.getCoalescedCount();
+  }
+
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2017 Public Library of Science
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package org.ambraproject.rhino.service.impl;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import org.ambraproject.rhino.util.SingleFlight;
+import org.plos.crepo.model.identity.RepoVersion;
+import org.plos.crepo.model.metadata.RepoObjectMetadata;
+import org.plos.crepo.service.ContentRepoService;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Content repo object metadata, keyed by the UUID of the object's version.
+ * <p/>
+ * An object's content type, download name, timestamp and size never change for a given version, so those are kept
+ * until the entry is evicted to make room. Its reproxy URLs point at the repo's storage, which may move, so they are
+ * treated as stale after a configured time. A caller that needs reproxy URLs gets the metadata looked up again once
+ * they are stale; other callers keep using the cached metadata.
+ * <p/>
+ * Entries are added when objects are created at ingestion and when a lookup misses. Concurrent lookups of the same
+ * version share one call to the content repo.
+ */
+public class RepoObjectMetadataCache {
+
+  /**
+   * How long a request waits for another request's lookup of the same version.
+   */
+  private static final long LOOKUP_WAIT_SECONDS = 30;
+
+  private static final class Entry {
+    private final RepoObjectMetadata metadata;
+    private final long reproxyUrlsExpire; // as a Ticker reading
+
+    private Entry(RepoObjectMetadata metadata, long reproxyUrlsExpire) {
+      this.metadata = Preconditions.checkNotNull(metadata);
+      this.reproxyUrlsExpire = reproxyUrlsExpire;
+    }
+  }
+
+  private final ContentRepoService contentRepoService;
+  private final Cache<String, Entry> cache;
+  private final long maximumSize;
+  private final long reproxyUrlTtlNanos;
+  private final Ticker ticker;
+  private final SingleFlight<String, RepoObjectMetadata> lookups =
+      new SingleFlight<>(LOOKUP_WAIT_SECONDS, TimeUnit.SECONDS);
+
+  private final LongAdder reproxyRefreshCount = new LongAdder();
+
+  /**
+   * @param contentRepoService the service to look up metadata from on a miss
+   * @param maximumSize        the maximum number of entries, or 0 to disable the cache
+   * @param reproxyUrlTtl      how long reproxy URLs may be served from the cache
+   * @param reproxyUrlTtlUnit  the unit of {@code reproxyUrlTtl}
+   */
+  public RepoObjectMetadataCache(ContentRepoService contentRepoService, long maximumSize,
+                                 long reproxyUrlTtl, TimeUnit reproxyUrlTtlUnit) {
+    this(contentRepoService, maximumSize, reproxyUrlTtl, reproxyUrlTtlUnit, Ticker.systemTicker());
+  }
+
+  RepoObjectMetadataCache(ContentRepoService contentRepoService, long maximumSize,
+                          long reproxyUrlTtl, TimeUnit reproxyUrlTtlUnit, Ticker ticker) {
+    Preconditions.checkArgument(reproxyUrlTtl >= 0);
+    this.contentRepoService = Preconditions.checkNotNull(contentRepoService);
+    this.maximumSize = maximumSize;
+    this.reproxyUrlTtlNanos = reproxyUrlTtlUnit.toNanos(reproxyUrlTtl);
+    this.ticker = Preconditions.checkNotNull(ticker);
+    this.cache = CacheBuilder.newBuilder()
+        .maximumSize(maximumSize)
+        .recordStats()
+        .build();
+  }
+
+  private static String getKey(RepoVersion version) {
+    return version.getUuid().toString();
+  }
+
+  /**
+   * Add the metadata of a newly created object, as returned by the content repo.
+   * <p/>
+   * If it has no reproxy URLs, they are looked up on the first request that needs them, in case the repo only assigns
+   * them after creating the object.
+   */
+  public void put(RepoObjectMetadata metadata) {
+    boolean hasReproxyUrls = metadata.getReproxyUrls() != null && !metadata.getReproxyUrls().isEmpty();
+    long now = ticker.read();
+    cache.put(getKey(metadata.getVersion()), new Entry(metadata, hasReproxyUrls ? now + reproxyUrlTtlNanos : now));
+  }
+
+  /**
+   * Get an object's metadata, looking it up from the content repo if it isn't cached.
+   *
+   * @param version          the object's version
+   * @param needsReproxyUrls true if the caller will use the reproxy URLs, which must not be stale
+   * @return the metadata
+   * @throws IOException if the wait for another request's lookup of the same version timed out
+   * @throws org.plos.crepo.exceptions.NotFoundException if the content repo has no such object
+   */
+  public RepoObjectMetadata get(RepoVersion version, boolean needsReproxyUrls) throws IOException {
+    String key = getKey(version);
+    Entry entry = cache.getIfPresent(key);
+    if (entry != null) {
+      if (!needsReproxyUrls || ticker.read() - entry.reproxyUrlsExpire < 0) {
+        return entry.metadata;
+      }
+      reproxyRefreshCount.increment();
+    }
+    return lookups.execute(key, () -> {
+      long now = ticker.read();
+      RepoObjectMetadata metadata = contentRepoService.getRepoObjectMetadata(version);
+      cache.put(key, new Entry(metadata, now + reproxyUrlTtlNanos));
+      return metadata;
+    });
+  }
+
+  public long getMaximumSize() {
+    return maximumSize;
+  }
+
+  public long getSize() {
+    return cache.size();
+  }
+
+  /**
+   * @return the reproxy URL time-to-live, in seconds
+   */
+  public long getReproxyUrlTtl() {
+    return TimeUnit.NANOSECONDS.toSeconds(reproxyUrlTtlNanos);
+  }
+
+  public CacheStats getStats() {
+    return cache.stats();
+  }
+
+  /**
+   * @return the number of hits that were looked up again because their reproxy URLs were stale
+   */
+  public long getReproxyRefreshCount() {
+    return reproxyRefreshCount.sum();
+  }
+
+  /**
+   * @return the number of lookups that waited for another request's lookup of the same version
+   */
+  public long getCoalescedCount() {
+    return lookups.getCoalescedCount();
+  }
+
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2017 Public Library of Science
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package org.ambraproject.rhino.service.taxonomy;
+
+import java.util.Objects;
+
+/**
+ * The text of an article that is sent to the taxonomy server, read from the database so that it can be classified
+ * after the transaction that read it has ended.
+ */
+public final class ClassificationContent {
+  private final String doi;
+  private final String header;
+  private final String content;
+
+  public ClassificationContent(String doi, String header, String content) {
+    this.doi = Objects.requireNonNull(doi);
+    this.header = Objects.requireNonNull(header);
+    this.content = Objects.requireNonNull(content);
+  }
+
+  public String getDoi() {
+    return doi;
+  }
+
+  public String getHeader() {
+    return header;
+  }
+
+  public String getContent() {
+    return content;
+  }
+}
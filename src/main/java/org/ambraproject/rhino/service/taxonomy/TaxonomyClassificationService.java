@@ -73,6 +73,57 @@ public interface TaxonomyClassificationService {
    */
   public void populateCategories(ArticleRevision revision);
 
+  /**
+   * Classify an article revision, and choose the categories that {@link #populateCategories} would assign to it,
+   * without writing anything.
+   *
+   * @param revision the article revision model instance
+   * @return the categories to assign, or an empty list if the taxonomy server returned no terms
+   * @throws TaxonomyRemoteServiceNotConfiguredException if a remote service is required but not configured
+   */
+  public List<WeightedTerm> getCategoriesToAssign(ArticleRevision revision);
+
+  /**
+   * Classify several article revisions, and choose the categories to assign to each, as {@link
+   * #getCategoriesToAssign(ArticleRevision)} does. Articles are sent to the taxonomy server up to {@code
+   * taxonomy.classificationBatchSize} at a time, in one request per batch. Any article missing from the response to a
+   * batch request is sent again in a request of its own.
+   *
+   * @param revisions the article revision model instances
+   * @return the categories to assign to each revision, in the same order as {@code revisions}
+   * @throws TaxonomyRemoteServiceNotConfiguredException if a remote service is required but not configured
+   */
+  public List<List<WeightedTerm>> getCategoriesToAssign(List<ArticleRevision> revisions);
+
+  /**
+   * Read the content that {@link #getCategoriesToAssign(List)} would send to the taxonomy server for each revision. This
+   * needs a database session, but makes no remote calls.
+   *
+   * @param revisions the article revision model instances
+   * @return the content to classify for each revision, in the same order as {@code revisions}
+   */
+  public List<ClassificationContent> readClassificationContent(List<ArticleRevision> revisions);
+
+  /**
+   * Classify content from {@link #readClassificationContent}, and choose the categories to assign to each, as {@link
+   * #getCategoriesToAssign(List)} does. This makes the remote calls, and should be called outside of any transaction so
+   * that no database connection is held while waiting for the taxonomy server.
+   *
+   * @param contents the content to classify
+   * @return the categories to assign to each article, in the same order as {@code contents}
+   * @throws TaxonomyRemoteServiceNotConfiguredException if a remote service is required but not configured
+   */
+  public List<List<WeightedTerm>> classifyContent(List<ClassificationContent> contents);
+
+  /**
+   * Replace an article's category assignments with categories from {@link #getCategoriesToAssign}. An empty list leaves
+   * the assignments unchanged, as {@link #populateCategories} does when the taxonomy server returns no terms.
+   *
+   * @param article the article
+   * @param terms   the categories to assign
+   */
+  public void assignCategories(Article article, List<WeightedTerm> terms);
+
   public Collection<ArticleCategoryAssignment> getAssignmentsForArticle(Article article);
 
   public Collection<Category> getArticleCategoriesWithTerm(Article article, String term);
@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2017 Public Library of Science
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package org.ambraproject.rhino.service.taxonomy.impl;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import org.ambraproject.rhino.model.CachedClassification;
+import org.hibernate.Query;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.orm.hibernate3.HibernateTemplate;
+import org.springframework.orm.hibernate3.HibernateTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The raw terms returned by the taxonomy server, stored in the database and keyed by a hash of everything that was sent
+ * to the server: the thesaurus, the header fields and the categorization content. An article whose content has not
+ * changed is classified again without calling the server, until its entry is older than the configured time-to-live.
+ * <p/>
+ * Because the thesaurus is part of the key, switching to a different thesaurus makes every existing entry miss. The
+ * entries for other thesauri are deleted by {@link #purge} when the server starts.
+ */
+public class TaxonomyClassificationCache {
+
+  private static final Logger log = LoggerFactory.getLogger(TaxonomyClassificationCache.class);
+
+  private static final Gson GSON = new Gson();
+  private static final Type TERMS_TYPE = new TypeToken<List<String>>() {
+  }.getType();
+
+  private final HibernateTemplate hibernateTemplate;
+  private final HibernateTransactionManager transactionManager;
+  private final long ttlMillis;
+  private final Clock clock;
+
+  private final LongAdder hitCount = new LongAdder();
+  private final LongAdder missCount = new LongAdder();
+
+  /**
+   * @param hibernateTemplate  the template through which to read entries
+   * @param transactionManager the manager for the separate transactions in which entries are written
+   * @param ttl                how long an entry may be used, or 0 to disable the cache
+   * @param ttlUnit            the unit of {@code ttl}
+   */
+  public TaxonomyClassificationCache(HibernateTemplate hibernateTemplate, HibernateTransactionManager transactionManager,
+                                     long ttl, TimeUnit ttlUnit) {
+    this(hibernateTemplate, transactionManager, ttl, ttlUnit, Clock.systemUTC());
+  }
+
+  TaxonomyClassificationCache(HibernateTemplate hibernateTemplate, HibernateTransactionManager transactionManager,
+                              long ttl, TimeUnit ttlUnit, Clock clock) {
+    Preconditions.checkArgument(ttl >= 0);
+    this.hibernateTemplate = Objects.requireNonNull(hibernateTemplate);
+    this.transactionManager = Objects.requireNonNull(transactionManager);
+    this.ttlMillis = ttlUnit.toMillis(ttl);
+    this.clock = Objects.requireNonNull(clock);
+  }
+
+  /**
+   * Hash the parts of a classification request. Each part is prefixed with its length, so that text moving from the end
+   * of one part to the start of the next changes the hash.
+   *
+   * @return a SHA-256 digest as a lowercase hexadecimal string
+   */
+  @VisibleForTesting
+  static String hashContent(String thesaurus, String header, String content) {
+    Hasher hasher = Hashing.sha256().newHasher();
+    for (String part : new String[]{thesaurus, header, content}) {
+      hasher.putInt(part.length()).putString(part, StandardCharsets.UTF_8);
+    }
+    return hasher.hash().toString();
+  }
+
+  public boolean isEnabled() {
+    return ttlMillis > 0;
+  }
+
+  private TransactionTemplate newTransaction() {
+    TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+    transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    return transaction;
+  }
+
+  /**
+   * Get the raw terms that were returned for the same request, if they are cached and not expired.
+   */
+  public Optional<List<String>> get(String thesaurus, String header, String content) {
+    if (!isEnabled()) return Optional.empty();
+    CachedClassification cached = hibernateTemplate.get(CachedClassification.class,
+        hashContent(thesaurus, header, content));
+    if (cached == null || !cached.getThesaurus().equals(thesaurus)
+        || clock.millis() - cached.getClassified().getTime() >= ttlMillis) {
+      missCount.increment();
+      return Optional.empty();
+    }
+    hitCount.increment();
+    return Optional.of(GSON.fromJson(cached.getTerms(), TERMS_TYPE));
+  }
+
+  /**
+   * Store the raw terms that the server returned for a request. They are written in their own transaction, so that they
+   * are kept even if the caller's transaction is read-only or rolls back. Failing to write them is logged and otherwise
+   * ignored.
+   */
+  public void put(String thesaurus, String header, String content, List<String> terms) {
+    if (!isEnabled()) return;
+    String contentHash = hashContent(thesaurus, header, content);
+    String encoded = GSON.toJson(terms, TERMS_TYPE);
+    Date classified = new Date(clock.millis());
+    try {
+      newTransaction().execute(status -> {
+        CachedClassification toStore = hibernateTemplate.get(CachedClassification.class, contentHash);
+        boolean isNew = (toStore == null);
+        if (isNew) {
+          toStore = new CachedClassification();
+          toStore.setContentHash(contentHash);
+        }
+        toStore.setThesaurus(thesaurus);
+        toStore.setTerms(encoded);
+        toStore.setClassified(classified);
+        if (isNew) {
+          hibernateTemplate.save(toStore);
+        } else {
+          hibernateTemplate.update(toStore);
+        }
+        return null;
+      });
+    } catch (DataAccessException e) {
+      // Most likely a concurrent request stored the same classification first.
+      log.warn("Could not cache taxonomy classification " + contentHash, e);
+    }
+  }
+
+  /**
+   * Delete the entries that can no longer be used, because they are expired or for a different thesaurus.
+   *
+   * @param thesaurus the thesaurus now in use
+   * @return the number of entries deleted
+   */
+  public int purge(String thesaurus) {
+    Objects.requireNonNull(thesaurus);
+    if (!isEnabled()) return 0;
+    Date expiry = new Date(clock.millis() - ttlMillis);
+    return newTransaction().execute(status -> hibernateTemplate.execute(session -> {
+      Query query = session.createQuery("" +
+          "DELETE FROM CachedClassification " +
+          "WHERE thesaurus <> :thesaurus OR classified <= :expiry");
+      query.setParameter("thesaurus", thesaurus);
+      query.setParameter("expiry", expiry);
+      return query.executeUpdate();
+    }));
+  }
+
+  /**
+   * @return the time-to-live, in seconds
+   */
+  public long getTtl() {
+    return TimeUnit.MILLISECONDS.toSeconds(ttlMillis);
+  }
+
+  public long getHitCount() {
+    return hitCount.sum();
+  }
+
+  public long getMissCount() {
+    return missCount.sum();
+  }
+
+}
@@ -23,9 +23,10 @@
 package org.ambraproject.rhino.service.taxonomy.impl;
 
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.base.Charsets;
 import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import org.ambraproject.rhino.config.RuntimeConfiguration;
 import org.ambraproject.rhino.model.Article;
@@ -34,29 +35,22 @@ import org.ambraproject.rhino.model.ArticleIngestion;
 import org.ambraproject.rhino.model.ArticleRevision;
 import org.ambraproject.rhino.model.Category;
 import org.ambraproject.rhino.service.ArticleCrudService;
+import org.ambraproject.rhino.service.taxonomy.ClassificationContent;
 import org.ambraproject.rhino.service.taxonomy.TaxonomyClassificationService;
 import org.ambraproject.rhino.service.taxonomy.TaxonomyRemoteServiceInvalidBehaviorException;
-import org.ambraproject.rhino.service.taxonomy.TaxonomyRemoteServiceNotAvailableException;
 import org.ambraproject.rhino.service.taxonomy.TaxonomyRemoteServiceNotConfiguredException;
 import org.ambraproject.rhino.service.taxonomy.WeightedTerm;
 import org.apache.commons.lang3.StringEscapeUtils;
-import org.apache.http.client.methods.CloseableHttpResponse;
-import org.apache.http.client.methods.HttpPost;
-import org.apache.http.entity.ContentType;
-import org.apache.http.entity.StringEntity;
-import org.apache.http.impl.client.CloseableHttpClient;
 import org.hibernate.Query;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
 import org.springframework.orm.hibernate3.HibernateTemplate;
 import org.w3c.dom.Document;
 import org.w3c.dom.NodeList;
-import org.xml.sax.SAXException;
 
-import javax.xml.parsers.DocumentBuilder;
-import java.io.IOException;
-import java.io.InputStream;
+import javax.annotation.PostConstruct;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -65,12 +59,10 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
-import static org.ambraproject.rhino.service.impl.AmbraService.newDocumentBuilder;
 
 /**
  * This is a separate bean from {@link TaxonomyServiceImpl} because it has a special dependency on the remote taxonomy
@@ -83,44 +75,44 @@ public class TaxonomyClassificationServiceImpl implements TaxonomyClassification
 
   private static final Logger log = LoggerFactory.getLogger(TaxonomyClassificationServiceImpl.class);
 
-  private static final String MESSAGE_BEGIN = "<TMMAI project='%s' location = '.'>\n" +
-      "  <Method name='getSuggestedTermsFullPathsPlos' returnType='java.util.Vector'/>\n" +
-      "  <VectorParam>\n" +
-      "    <VectorElement>\n";
-
-  private static final String MESSAGE_DOC_ELEMENT=
-      "      <doc>\n" +
-      "        <header>\n" +
-      "%s" +
-      "        </header>\n" +
-      "        <content>\n" +
-      "          %s\n" +
-      "        </content>\n" +
-      "      </doc>\n";
-
   private static final String MESSAGE_HEADER =
       "          <publication-date>%s</publication-date>\n" +
       "          <journal-title>%s</journal-title>\n" +
       "          <article-type>%s</article-type>\n" +
       "          <article-id pub-id-type=\"doi\">%s</article-id>\n";
 
-  private static final String MESSAGE_END =
-      "    </VectorElement>\n" +
-      "  </VectorParam>\n" +
-      "</TMMAI>";
-
   // Number of most-weighted category leaf nodes to associate with each article
   // TODO: Make configurable?
   private static final int CATEGORY_COUNT = 8;
 
   @Autowired
-  private CloseableHttpClient httpClient;
+  private TaxonomyServerClient taxonomyServerClient;
   @Autowired
   private RuntimeConfiguration runtimeConfiguration;
   @Autowired
   private ArticleCrudService articleCrudService;
   @Autowired
   protected HibernateTemplate hibernateTemplate;
+  @Autowired
+  private TaxonomyClassificationCache classificationCache;
+
+  /**
+   * Delete cached classifications that were made with a different thesaurus, or have expired.
+   */
+  @PostConstruct
+  public void purgeClassificationCache() {
+    String thesaurus = runtimeConfiguration.getTaxonomyConfiguration().getThesaurus();
+    if (thesaurus == null || !classificationCache.isEnabled()) return;
+    try {
+      int purged = classificationCache.purge(thesaurus);
+      if (purged > 0) {
+        log.info("Purged {} stale taxonomy classifications", purged);
+      }
+    } catch (DataAccessException e) {
+      // Stale entries are never served, so they are only taking up space.
+      log.warn("Could not purge stale taxonomy classifications", e);
+    }
+  }
 
   /**
    * @inheritDoc
@@ -130,6 +122,14 @@ public class TaxonomyClassificationServiceImpl implements TaxonomyClassification
     RuntimeConfiguration.TaxonomyConfiguration configuration = getTaxonomyConfiguration();
 
     List<String> rawTerms = getRawTerms(articleXml, article, false /*isTextRequired*/);
+    return parseTerms(configuration, rawTerms);
+  }
+
+  /**
+   * Parse raw terms from the taxonomy server, discarding blacklisted categories.
+   */
+  private static List<WeightedTerm> parseTerms(RuntimeConfiguration.TaxonomyConfiguration configuration,
+                                               List<String> rawTerms) {
     List<WeightedTerm> results = new ArrayList<>(rawTerms.size());
 
     for (String rawTerm : rawTerms) {
@@ -159,8 +159,6 @@ public class TaxonomyClassificationServiceImpl implements TaxonomyClassification
     return configuration;
   }
 
-  private static final ContentType APPLICATION_XML_UTF_8 = ContentType.create("application/xml", Charsets.UTF_8);
-
   /**
    * @inheritDoc
    */
@@ -170,53 +168,44 @@ public class TaxonomyClassificationServiceImpl implements TaxonomyClassification
 
 
     String toCategorize = getCategorizationContent(articleXml);
-
-    ArticleIngestion latest = articleCrudService.readLatestRevision(article).getIngestion();
-    String header = String.format(MESSAGE_HEADER,
-        new SimpleDateFormat("yyyy-MM-dd").format(latest.getPublicationDate()),
-        latest.getJournal().getTitle(),
-        latest.getArticleType(),
-        article.getDoi());
-
-    String aiMessage = String.format(MESSAGE_BEGIN, configuration.getThesaurus())
-        + StringEscapeUtils.escapeXml10(String.format(MESSAGE_DOC_ELEMENT, header, toCategorize))
-        + MESSAGE_END;
-
-    HttpPost post = new HttpPost(configuration.getServer().toString());
-    post.setEntity(new StringEntity(aiMessage, APPLICATION_XML_UTF_8));
-
-    DocumentBuilder documentBuilder = newDocumentBuilder();
-
-    Document response;
-    try (CloseableHttpResponse httpResponse = httpClient.execute(post);
-         InputStream stream = httpResponse.getEntity().getContent()) {
-      response = documentBuilder.parse(stream);
-    } catch (IOException e) {
-      throw new TaxonomyRemoteServiceNotAvailableException(e);
-    } catch (SAXException e) {
-      throw new TaxonomyRemoteServiceInvalidBehaviorException("Invalid XML returned from " + configuration.getServer(), e);
+    TaxonomyServerClient.ArticleContent content = new TaxonomyServerClient.ArticleContent(
+        getHeader(article), toCategorize);
+
+    String thesaurus = configuration.getThesaurus();
+    List<String> terms = classificationCache.get(thesaurus, content.getHeader(), toCategorize).orElse(null);
+    if (terms == null) {
+      terms = taxonomyServerClient.classify(configuration.getServer(), thesaurus, content);
+      cacheTerms(thesaurus, article.getDoi(), content.getHeader(), toCategorize, terms);
     }
 
-    //parse result
-    NodeList vectorElements = response.getElementsByTagName("VectorElement");
-    List<String> results = new ArrayList<>(vectorElements.getLength());
+    List<String> results = new ArrayList<>(terms.size() + 1);
 
     // Add the text that is sent to taxonomy server if isTextRequired is true
     if (isTextRequired) {
-      toCategorize = StringEscapeUtils.unescapeXml(toCategorize);
-      results.add(toCategorize);
+      results.add(StringEscapeUtils.unescapeXml(toCategorize));
     }
+    results.addAll(terms);
+    return results;
+  }
 
-    //The first and last elements of the vector response are just MAITERMS
-    for (int i = 1; i < vectorElements.getLength() - 1; i++) {
-      results.add(vectorElements.item(i).getTextContent());
-    }
+  /**
+   * Describe an article for the header of a request to the taxonomy server.
+   */
+  private String getHeader(Article article) {
+    ArticleIngestion latest = articleCrudService.readLatestRevision(article).getIngestion();
+    return String.format(MESSAGE_HEADER,
+        new SimpleDateFormat("yyyy-MM-dd").format(latest.getPublicationDate()),
+        latest.getJournal().getTitle(),
+        latest.getArticleType(),
+        article.getDoi());
+  }
 
-    if ((isTextRequired && results.size() == 1) || results.isEmpty()) {
-      log.error("Taxonomy server returned 0 terms. " + article.getDoi());
+  private void cacheTerms(String thesaurus, String doi, String header, String content, List<String> terms) {
+    if (terms.isEmpty()) {
+      log.error("Taxonomy server returned 0 terms. " + doi);
+    } else {
+      classificationCache.put(thesaurus, header, content, terms);
     }
-
-    return results;
   }
 
   @Override
@@ -253,26 +242,104 @@ public class TaxonomyClassificationServiceImpl implements TaxonomyClassification
    */
   @Override
   public void populateCategories(ArticleRevision revision) {
-    ArticleIngestion ingestion = revision.getIngestion();
-    Article article = ingestion.getArticle();
-    Document xml = articleCrudService.getManuscriptXml(ingestion);
-
-    List<WeightedTerm> terms;
-    String doi = article.getDoi();
+    Article article = revision.getIngestion().getArticle();
 
     boolean isAmendment = false; //todo: fix or remove this when we find a home for article types
 
     if (!isAmendment) {
-      terms = classifyArticle(article, xml);
-      if (terms != null && terms.size() > 0) {
-        List<WeightedTerm> leafNodes = getDistinctLeafNodes(CATEGORY_COUNT, terms);
+      List<WeightedTerm> leafNodes = getCategoriesToAssign(revision);
+      if (!leafNodes.isEmpty()) {
         persistCategories(leafNodes, article);
       } else {
-        log.error("Taxonomy server returned 0 terms. Cannot populate Categories. " + doi);
+        log.error("Taxonomy server returned 0 terms. Cannot populate Categories. " + article.getDoi());
       }
     }
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public List<WeightedTerm> getCategoriesToAssign(ArticleRevision revision) {
+    ArticleIngestion ingestion = revision.getIngestion();
+    Document xml = articleCrudService.getManuscriptXml(ingestion);
+    List<WeightedTerm> terms = classifyArticle(ingestion.getArticle(), xml);
+    return (terms == null || terms.isEmpty()) ? ImmutableList.of() : getDistinctLeafNodes(CATEGORY_COUNT, terms);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public List<List<WeightedTerm>> getCategoriesToAssign(List<ArticleRevision> revisions) {
+    return classifyContent(readClassificationContent(revisions));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public List<ClassificationContent> readClassificationContent(List<ArticleRevision> revisions) {
+    return revisions.stream()
+        .map((ArticleRevision revision) -> {
+          ArticleIngestion ingestion = revision.getIngestion();
+          Article article = ingestion.getArticle();
+          String toCategorize = getCategorizationContent(articleCrudService.getManuscriptXml(ingestion));
+          return new ClassificationContent(article.getDoi(), getHeader(article), toCategorize);
+        })
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public List<List<WeightedTerm>> classifyContent(List<ClassificationContent> contents) {
+    RuntimeConfiguration.TaxonomyConfiguration configuration = getTaxonomyConfiguration();
+    String thesaurus = configuration.getThesaurus();
+
+    List<List<String>> rawTerms = new ArrayList<>(contents.size());
+    List<Integer> uncached = new ArrayList<>();
+    for (ClassificationContent content : contents) {
+      Optional<List<String>> cached = classificationCache.get(thesaurus, content.getHeader(), content.getContent());
+      if (!cached.isPresent()) {
+        uncached.add(rawTerms.size());
+      }
+      rawTerms.add(cached.orElse(null));
+    }
+
+    for (List<Integer> batch : Lists.partition(uncached, configuration.getClassificationBatchSize())) {
+      List<TaxonomyServerClient.ArticleContent> batchContents = batch.stream()
+          .map(contents::get)
+          .map(content -> new TaxonomyServerClient.ArticleContent(content.getHeader(), content.getContent()))
+          .collect(Collectors.toList());
+      List<List<String>> batchTerms = taxonomyServerClient.classifyAll(configuration.getServer(), thesaurus,
+          batchContents);
+      for (int i = 0; i < batch.size(); i++) {
+        int index = batch.get(i);
+        ClassificationContent content = contents.get(index);
+        cacheTerms(thesaurus, content.getDoi(), content.getHeader(), content.getContent(), batchTerms.get(i));
+        rawTerms.set(index, batchTerms.get(i));
+      }
+    }
+
+    return rawTerms.stream()
+        .map((List<String> terms) -> {
+          List<WeightedTerm> parsed = parseTerms(configuration, terms);
+          return parsed.isEmpty() ? ImmutableList.<WeightedTerm>of() : getDistinctLeafNodes(CATEGORY_COUNT, parsed);
+        })
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void assignCategories(Article article, List<WeightedTerm> terms) {
+    if (terms.isEmpty()) return;
+    persistCategories(terms, article);
+  }
+
   /**
    * Determine the most heavily weighted leaf nodes, then return all terms that have one of those leaf nodes.
    * <p>
@@ -345,15 +412,14 @@ public class TaxonomyClassificationServiceImpl implements TaxonomyClassification
   // It's supposed to return a slash-delimited path that starts with a slash,
   // like an absolute Unix file path.  However, rarely, it just returns "naked"
   // terms without the leading slash.  Discard these, since the calling
-  // code won't be able to handle this.  (Note the first slash after <TERM> in the regex)
+  // code won't be able to handle this.  (Note the check for the first slash after <TERM> below)
 
   //Positive (Good term) example response:
   //"<TERM>/Biology and life sciences/Computational biology/Computational neuroscience/Single neuron function|(5) neuron*(5)</TERM>"
-  //This regex:
-  //Confirms the response is good
-  //Finds the term and places in the result
-  //Finds first number wrapped in parentheses after the pipe symbol and places it in the result
-  private static final Pattern TERM_PATTERN = Pattern.compile("<TERM>\\s*(/.*)\\|\\s*\\((\\d+)\\).*</TERM>");
+  //The term is the path before the pipe symbol and its weight is the number wrapped in parentheses after it. This
+  //scans for them as the regex <TERM>\s*(/.*)\|\s*\((\d+)\).*</TERM> would match them, without backtracking.
+  private static final String TERM_START = "<TERM>";
+  private static final String TERM_END = "</TERM>";
 
   /**
    * Parses a single line of the XML response from the taxonomy server.
@@ -363,17 +429,95 @@ public class TaxonomyClassificationServiceImpl implements TaxonomyClassification
    */
   @VisibleForTesting
   static WeightedTerm parseVectorElement(String vectorElement) {
-    Matcher match = TERM_PATTERN.matcher(vectorElement);
+    // Like Matcher.find, use the first <TERM> tag from which the rest of the pattern matches
+    for (int start = vectorElement.indexOf(TERM_START); start >= 0;
+         start = vectorElement.indexOf(TERM_START, start + 1)) {
+      WeightedTerm term = parseTerm(vectorElement, start + TERM_START.length());
+      if (term != null) {
+        return term;
+      }
+    }
 
-    if (match.find()) {
-      String text = match.group(1);
-      int value = Integer.parseInt(match.group(2));
+    //Bad term
+    throw new TaxonomyRemoteServiceInvalidBehaviorException("Invalid syntax: " + vectorElement);
+  }
 
-      return new WeightedTerm(text, value);
-    } else {
-      //Bad term
-      throw new TaxonomyRemoteServiceInvalidBehaviorException("Invalid syntax: " + vectorElement);
+  /**
+   * Scan the rest of a term after its {@code <TERM>} tag.
+   *
+   * @return the term, or null if the text from {@code index} is not a valid term
+   */
+  private static WeightedTerm parseTerm(String text, int index) {
+    int pathStart = skipWhitespace(text, index, text.length());
+    if (pathStart >= text.length() || text.charAt(pathStart) != '/') {
+      return null;
+    }
+
+    // The regex's "." doesn't match line terminators, so the path must end on the line where it starts, and the end tag
+    // must be on the line where the weight ends. Only the whitespace before the weight may span lines.
+    int pathLineEnd = findLineEnd(text, pathStart);
+
+    // The path runs to the last pipe symbol that is followed by a weight and an end tag
+    for (int pipe = text.lastIndexOf('|', pathLineEnd - 1); pipe > pathStart; pipe = text.lastIndexOf('|', pipe - 1)) {
+      int weightEnd = scanWeight(text, pipe + 1);
+      if (weightEnd >= 0
+          && text.lastIndexOf(TERM_END, findLineEnd(text, weightEnd) - TERM_END.length()) > weightEnd) {
+        int weight = Integer.parseInt(text.substring(text.lastIndexOf('(', weightEnd) + 1, weightEnd));
+        return new WeightedTerm(text.substring(pathStart, pipe), weight);
+      }
+    }
+    return null;
+  }
+
+  private static boolean isWhitespace(char c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r'; // as matched by \s
+  }
+
+  private static boolean isLineTerminator(char c) {
+    return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029'; // as not matched by .
+  }
+
+  private static int findLineEnd(String text, int index) {
+    while (index < text.length() && !isLineTerminator(text.charAt(index))) {
+      index++;
+    }
+    return index;
+  }
+
+  private static int skipWhitespace(String text, int index, int end) {
+    while (index < end && isWhitespace(text.charAt(index))) {
+      index++;
+    }
+    return index;
+  }
+
+  /**
+   * Scan optional whitespace and a non-negative decimal number, small enough for an int, in parentheses.
+   *
+   * @return the index of the closing parenthesis, or -1 if the text at {@code index} is not a number in parentheses
+   */
+  private static int scanWeight(String text, int index) {
+    index = skipWhitespace(text, index, text.length());
+    if (index >= text.length() || text.charAt(index) != '(') {
+      return -1;
+    }
+    long weight = 0;
+    int digitCount = 0;
+    for (index++; index < text.length(); index++) {
+      char c = text.charAt(index);
+      if (c == ')') {
+        return (digitCount > 0) ? index : -1;
+      }
+      if (c < '0' || c > '9') {
+        return -1;
+      }
+      weight = weight * 10 + (c - '0');
+      if (weight > Integer.MAX_VALUE) {
+        return -1;
+      }
+      digitCount++;
     }
+    return -1;
   }
 
   /**
@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2017 Public Library of Science
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+
+package org.ambraproject.rhino.service.taxonomy.impl;
+
+import org.ambraproject.rhino.service.taxonomy.TaxonomyRemoteServiceInvalidBehaviorException;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the raw terms from a taxonomy server response in one pass over the XML, without building a DOM.
+ * <p/>
+ * Each {@code VectorElement} in the response is either a term, whose text starts with {@code <TERM>}, or a {@code
+ * MAITERMS} marker. The markers come in pairs around the terms for each article. Only as much of a marker's text is
+ * read as it takes to tell that it isn't a term, and none of it is kept.
+ * <p/>
+ * A response to a single-article request can instead be read with {@link #readSingle}, which doesn't check the markers.
+ */
+final class TaxonomyResponseReader {
+
+  private static final String VECTOR_ELEMENT = "VectorElement";
+  private static final String TERM_PREFIX = "<TERM>";
+
+  private static final ThreadLocal<XMLInputFactory> INPUT_FACTORY = ThreadLocal.withInitial(() -> {
+    XMLInputFactory factory = XMLInputFactory.newInstance();
+    factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+    factory.setProperty(XMLInputFactory.IS_REPLACING_ENTITY_REFERENCES, true);
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+
+    // Like DocumentParser, honor the internal DTD subset but never fetch an external DTD
+    factory.setXMLResolver((publicId, systemId, baseUri, namespace) -> new ByteArrayInputStream(new byte[0]));
+    return factory;
+  });
+
+  private TaxonomyResponseReader() {
+    throw new AssertionError("Not instantiable");
+  }
+
+  /**
+   * Read the terms from a response, grouped by the {@code MAITERMS} markers around them.
+   *
+   * @param response the response body
+   * @return the raw terms for each article, in the order of the response
+   * @throws XMLStreamException                            if the response is not well-formed XML
+   * @throws TaxonomyRemoteServiceInvalidBehaviorException if a term is outside of a pair of markers
+   */
+  static List<List<String>> read(InputStream response) throws XMLStreamException {
+    List<List<String>> groups = new ArrayList<>();
+    List<String> group = null; // null between groups
+    StringBuilder text = new StringBuilder();
+
+    XMLStreamReader reader = INPUT_FACTORY.get().createXMLStreamReader(response);
+    try {
+      while (reader.hasNext()) {
+        if (reader.next() != XMLStreamConstants.START_ELEMENT || !reader.getLocalName().equals(VECTOR_ELEMENT)) {
+          continue;
+        }
+        text.setLength(0);
+        if (readTerm(reader, text)) {
+          if (group == null) {
+            throw new TaxonomyRemoteServiceInvalidBehaviorException("Term outside of MAITERMS: " + text);
+          }
+          group.add(text.toString());
+        } else if (group == null) {
+          group = new ArrayList<>();
+        } else {
+          groups.add(group);
+          group = null;
+        }
+      }
+    } finally {
+      reader.close();
+    }
+
+    if (group != null) {
+      throw new TaxonomyRemoteServiceInvalidBehaviorException("Unterminated MAITERMS in response");
+    }
+    return groups;
+  }
+
+  /**
+   * Read the terms from a response to a request for one article. Like the DOM-based reading this replaced, the first
+   * and last {@code VectorElement}s are skipped as the {@code MAITERMS} markers and the text of every one between them
+   * is kept, without checking which are terms.
+   *
+   * @param response the response body
+   * @return the raw terms
+   * @throws XMLStreamException if the response is not well-formed XML
+   */
+  static List<String> readSingle(InputStream response) throws XMLStreamException {
+    List<String> texts = new ArrayList<>();
+    StringBuilder text = new StringBuilder();
+
+    XMLStreamReader reader = INPUT_FACTORY.get().createXMLStreamReader(response);
+    try {
+      while (reader.hasNext()) {
+        if (reader.next() == XMLStreamConstants.START_ELEMENT && reader.getLocalName().equals(VECTOR_ELEMENT)) {
+          text.setLength(0);
+          readText(reader, text);
+          texts.add(text.toString());
+        }
+      }
+    } finally {
+      reader.close();
+    }
+
+    return (texts.size() < 2) ? new ArrayList<>() : new ArrayList<>(texts.subList(1, texts.size() - 1));
+  }
+
+  /**
+   * Read all the text of a {@code VectorElement}, leaving the reader at its end tag.
+   *
+   * @param reader the reader, at the element's start tag
+   * @param text   a buffer to append the text to
+   */
+  private static void readText(XMLStreamReader reader, StringBuilder text) throws XMLStreamException {
+    for (int depth = 1; depth > 0; ) {
+      switch (reader.next()) {
+        case XMLStreamConstants.START_ELEMENT:
+          depth++;
+          break;
+        case XMLStreamConstants.END_ELEMENT:
+          depth--;
+          break;
+        case XMLStreamConstants.CHARACTERS:
+        case XMLStreamConstants.SPACE:
+        case XMLStreamConstants.CDATA:
+          text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+          break;
+        default:
+          break;
+      }
+    }
+  }
+
+  /**
+   * Read the text of a {@code VectorElement}, leaving the reader at its end tag. Text is kept only until it can be
+   * told whether the element is a term or a marker, and after that only if it is a term.
+   *
+   * @param reader the reader, at the element's start tag
+   * @param text   an empty buffer to hold the text
+   * @return {@code true} if the element is a term, in which case {@code text} holds its full text
+   */
+  private static boolean readTerm(XMLStreamReader reader, StringBuilder text) throws XMLStreamException {
+    Boolean isTerm = null; // null until decided
+    for (int depth = 1; depth > 0; ) {
+      switch (reader.next()) {
+        case XMLStreamConstants.START_ELEMENT:
+          depth++;
+          break;
+        case XMLStreamConstants.END_ELEMENT:
+          depth--;
+          break;
+        case XMLStreamConstants.CHARACTERS:
+        case XMLStreamConstants.SPACE:
+        case XMLStreamConstants.CDATA:
+          if (isTerm == null || isTerm) {
+            text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+            if (isTerm == null) {
+              isTerm = startsWithTermPrefix(text);
+            }
+          }
+          break;
+        default:
+          break;
+      }
+    }
+    return isTerm != null && isTerm;
+  }
+
+  /**
+   * Check whether text, ignoring leading whitespace as {@link String#trim} does, starts with {@code <TERM>}.
+   *
+   * @return the answer, or {@code null} if there isn't enough text yet to tell
+   */
+  private static Boolean startsWithTermPrefix(CharSequence text) {
+    int start = 0;
+    while (start < text.length() && text.charAt(start) <= ' ') {
+      start++;
+    }
+    for (int i = 0; i < TERM_PREFIX.length(); i++) {
+      if (start + i >= text.length()) {
+        return null;
+      }
+      if (text.charAt(start + i) != TERM_PREFIX.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+}
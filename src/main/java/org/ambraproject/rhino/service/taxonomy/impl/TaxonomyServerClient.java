@@ -0,0 +1,408 @@
+/*
+ * Copyright (c) 2017 Public Library of Science
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package org.ambraproject.rhino.service.taxonomy.impl;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Preconditions;
+import org.ambraproject.rhino.service.taxonomy.TaxonomyRemoteServiceInvalidBehaviorException;
+import org.ambraproject.rhino.service.taxonomy.TaxonomyRemoteServiceNotAvailableException;
+import org.ambraproject.rhino.util.CircuitBreaker;
+import org.apache.http.StatusLine;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.commons.lang3.StringEscapeUtils;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sends article content to the remote taxonomy server and reads the raw terms from its responses with a {@link
+ * TaxonomyResponseReader}.
+ * <p/>
+ * Several articles may be classified in one request by giving each its own {@code VectorElement} in the request's
+ * {@code VectorParam}. The response has a group of {@code VectorElement}s for each article, in the order of the
+ * request, where each group is a {@code MAITERMS} element, the article's terms and another {@code MAITERMS} element.
+ * <p/>
+ * The client has its own connection pool, so that a stalled taxonomy server can hold up only taxonomy requests. A
+ * request that fails to connect, times out or gets a server error is retried after a randomized, exponentially
+ * increasing delay. After repeated failures, a {@link CircuitBreaker} fails requests immediately until the server has
+ * had time to recover.
+ */
+public class TaxonomyServerClient implements Closeable {
+
+  private static final Logger log = LoggerFactory.getLogger(TaxonomyServerClient.class);
+
+  private static final String MESSAGE_BEGIN = "<TMMAI project='%s' location = '.'>\n" +
+      "  <Method name='getSuggestedTermsFullPathsPlos' returnType='java.util.Vector'/>\n" +
+      "  <VectorParam>\n" +
+      "    <VectorElement>\n";
+
+  private static final String MESSAGE_DOC_ELEMENT =
+      "      <doc>\n" +
+      "        <header>\n" +
+      "%s" +
+      "        </header>\n" +
+      "        <content>\n" +
+      "          %s\n" +
+      "        </content>\n" +
+      "      </doc>\n";
+
+  private static final String MESSAGE_ELEMENT_SEPARATOR =
+      "    </VectorElement>\n" +
+      "    <VectorElement>\n";
+
+  private static final String MESSAGE_END =
+      "    </VectorElement>\n" +
+      "  </VectorParam>\n" +
+      "</TMMAI>";
+
+  private static final ContentType APPLICATION_XML_UTF_8 = ContentType.create("application/xml", Charsets.UTF_8);
+
+  /**
+   * The content of one article to classify.
+   */
+  public static final class ArticleContent {
+    private final String header;
+    private final String content;
+
+    /**
+     * @param header  the article's metadata, as the XML elements of the request's {@code header} element
+     * @param content the text to classify, XML-escaped once (it is escaped again when it is sent)
+     */
+    public ArticleContent(String header, String content) {
+      this.header = Objects.requireNonNull(header);
+      this.content = Objects.requireNonNull(content);
+    }
+
+    public String getHeader() {
+      return header;
+    }
+
+    public String getContent() {
+      return content;
+    }
+  }
+
+  private final CloseableHttpClient httpClient;
+  private final int maxRetries;
+  private final long retryBackoffMillis;
+  private final CircuitBreaker circuitBreaker;
+
+  private final LongAdder requestCount = new LongAdder();
+  private final LongAdder failureCount = new LongAdder();
+  private final LongAdder retryCount = new LongAdder();
+  private final LongAdder rejectedCount = new LongAdder();
+  private final LongAdder totalLatencyNanos = new LongAdder();
+  private final LongAccumulator maxLatencyNanos = new LongAccumulator(Long::max, 0L);
+
+  /**
+   * @param httpClient         the client to send requests with, which should not be shared with other services
+   * @param maxRetries         the number of times to retry a request that fails to connect or respond
+   * @param retryBackoffMillis the base delay before retrying a request, in milliseconds
+   * @param circuitBreaker     tracks the server's failures
+   * @see #createHttpClient
+   */
+  public TaxonomyServerClient(CloseableHttpClient httpClient, int maxRetries, long retryBackoffMillis,
+                              CircuitBreaker circuitBreaker) {
+    Preconditions.checkArgument(maxRetries >= 0);
+    Preconditions.checkArgument(retryBackoffMillis >= 0);
+    this.httpClient = Objects.requireNonNull(httpClient);
+    this.maxRetries = maxRetries;
+    this.retryBackoffMillis = retryBackoffMillis;
+    this.circuitBreaker = Objects.requireNonNull(circuitBreaker);
+  }
+
+  /**
+   * Create an HTTP client with its own connection pool and timeouts. It does not retry requests itself.
+   *
+   * @param maxConnections       the number of connections to keep open
+   * @param connectTimeoutMillis how long to wait to connect, or for a connection from the pool, in milliseconds
+   * @param readTimeoutMillis    how long to wait for data from the server, in milliseconds
+   */
+  public static CloseableHttpClient createHttpClient(int maxConnections, int connectTimeoutMillis,
+                                                     int readTimeoutMillis) {
+    PoolingHttpClientConnectionManager manager = new PoolingHttpClientConnectionManager();
+    manager.setMaxTotal(maxConnections);
+    manager.setDefaultMaxPerRoute(maxConnections);
+    RequestConfig requestConfig = RequestConfig.custom()
+        .setConnectTimeout(connectTimeoutMillis)
+        .setConnectionRequestTimeout(connectTimeoutMillis)
+        .setSocketTimeout(readTimeoutMillis)
+        .build();
+    return HttpClientBuilder.create()
+        .setConnectionManager(manager)
+        .setDefaultRequestConfig(requestConfig)
+        .disableAutomaticRetries()
+        .build();
+  }
+
+  /**
+   * Classify one article.
+   *
+   * @param server    the taxonomy server's address
+   * @param thesaurus the thesaurus to classify against
+   * @param article   the article's content
+   * @return the raw terms from the server's response
+   * @throws TaxonomyRemoteServiceNotAvailableException    if the server could not be reached after retrying, or has
+   *                                                       failed repeatedly and is not being tried
+   * @throws TaxonomyRemoteServiceInvalidBehaviorException if the response is not valid XML
+   * @see TaxonomyResponseReader#readSingle
+   */
+  public List<String> classify(URL server, String thesaurus, ArticleContent article) {
+    return request(server, buildMessage(thesaurus, Collections.singletonList(article)),
+        TaxonomyResponseReader::readSingle);
+  }
+
+  /**
+   * Classify several articles in one request. If the response can't be divided into a group of terms for each article,
+   * or has no terms for some articles, those articles are classified again with one request each, so that a server
+   * that drops articles from large requests still gives a complete result.
+   *
+   * @param server    the taxonomy server's address
+   * @param thesaurus the thesaurus to classify against
+   * @param articles  the articles' content
+   * @return the raw terms for each article, in the same order as {@code articles}
+   * @throws TaxonomyRemoteServiceNotAvailableException    if the server could not be reached
+   * @throws TaxonomyRemoteServiceInvalidBehaviorException if the response to a single-article request is not valid XML
+   */
+  public List<List<String>> classifyAll(URL server, String thesaurus, List<ArticleContent> articles) {
+    if (articles.size() == 1) {
+      return Collections.singletonList(classify(server, thesaurus, articles.get(0)));
+    }
+
+    List<List<String>> groups;
+    try {
+      groups = request(server, buildMessage(thesaurus, articles), TaxonomyResponseReader::read);
+      if (groups.size() != articles.size()) {
+        throw new TaxonomyRemoteServiceInvalidBehaviorException(String.format(
+            "Response has terms for %d articles; expected %d", groups.size(), articles.size()));
+      }
+    } catch (TaxonomyRemoteServiceInvalidBehaviorException e) {
+      log.warn("Could not read response to batch of " + articles.size() + " articles; classifying them separately", e);
+      groups = Collections.nCopies(articles.size(), Collections.emptyList());
+    }
+
+    List<List<String>> results = new ArrayList<>(articles.size());
+    for (int i = 0; i < articles.size(); i++) {
+      List<String> terms = groups.get(i);
+      results.add(terms.isEmpty() ? classify(server, thesaurus, articles.get(i)) : terms);
+    }
+    return results;
+  }
+
+  private static String buildMessage(String thesaurus, List<ArticleContent> articles) {
+    StringBuilder message = new StringBuilder(String.format(MESSAGE_BEGIN, thesaurus));
+    for (int i = 0; i < articles.size(); i++) {
+      if (i > 0) {
+        message.append(MESSAGE_ELEMENT_SEPARATOR);
+      }
+      ArticleContent article = articles.get(i);
+      message.append(StringEscapeUtils.escapeXml10(
+          String.format(MESSAGE_DOC_ELEMENT, article.getHeader(), article.getContent())));
+    }
+    return message.append(MESSAGE_END).toString();
+  }
+
+  /**
+   * Reads the raw terms from the body of a response.
+   */
+  @FunctionalInterface
+  private static interface ResponseReader<T> {
+    T read(InputStream response) throws XMLStreamException;
+  }
+
+  /**
+   * Send a message to the taxonomy server, retrying it if the server can't be reached.
+   *
+   * @return the raw terms in the response, as read by {@code responseReader}
+   */
+  private <T> T request(URL server, String message, ResponseReader<T> responseReader) {
+    for (int attempt = 0; ; attempt++) {
+      if (!circuitBreaker.allowRequest()) {
+        rejectedCount.increment();
+        throw new TaxonomyRemoteServiceNotAvailableException(
+            new IOException("Not sending request to " + server + " after repeated failures"));
+      }
+      try {
+        T terms = send(server, message, responseReader);
+        circuitBreaker.recordSuccess();
+        return terms;
+      } catch (TaxonomyRemoteServiceInvalidBehaviorException e) {
+        circuitBreaker.recordSuccess(); // The server is up, so retrying won't help
+        throw e;
+      } catch (IOException e) {
+        circuitBreaker.recordFailure();
+        failureCount.increment();
+        if (attempt >= maxRetries) {
+          throw new TaxonomyRemoteServiceNotAvailableException(e);
+        }
+        log.warn("Request to taxonomy server failed ({}); retrying", e.toString());
+        retryCount.increment();
+        sleepBeforeRetry(attempt, e);
+      } catch (RuntimeException | Error e) {
+        // Record the outcome anyway, so that a half-open breaker doesn't wait forever for the end of its trial request
+        circuitBreaker.recordFailure();
+        failureCount.increment();
+        throw e;
+      }
+    }
+  }
+
+  private <T> T send(URL server, String message, ResponseReader<T> responseReader) throws IOException {
+    HttpPost post = new HttpPost(server.toString());
+    post.setEntity(new StringEntity(message, APPLICATION_XML_UTF_8));
+
+    requestCount.increment();
+    long start = System.nanoTime();
+    try (CloseableHttpResponse httpResponse = httpClient.execute(post)) {
+      StatusLine status = httpResponse.getStatusLine();
+      if (status.getStatusCode() >= 500) {
+        throw new IOException("Taxonomy server responded with " + status);
+      }
+      if (status.getStatusCode() >= 300) {
+        throw new TaxonomyRemoteServiceInvalidBehaviorException("Unexpected response from " + server + ": " + status);
+      }
+      try (InputStream stream = httpResponse.getEntity().getContent()) {
+        return responseReader.read(stream);
+      }
+    } catch (XMLStreamException e) {
+      if (e.getNestedException() instanceof IOException) {
+        throw (IOException) e.getNestedException(); // the connection failed while the response was being read
+      }
+      throw new TaxonomyRemoteServiceInvalidBehaviorException("Invalid XML returned from " + server, e);
+    } finally {
+      long latency = System.nanoTime() - start;
+      totalLatencyNanos.add(latency);
+      maxLatencyNanos.accumulate(latency);
+    }
+  }
+
+  /**
+   * Wait for a random time up to the base delay doubled for each earlier retry ("full jitter"), so that threads that
+   * failed together don't retry together.
+   */
+  private void sleepBeforeRetry(int attempt, IOException failure) {
+    long maxDelay = retryBackoffMillis << Math.min(attempt, 16);
+    try {
+      Thread.sleep(ThreadLocalRandom.current().nextLong(maxDelay + 1));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new TaxonomyRemoteServiceNotAvailableException(failure);
+    }
+  }
+
+  public CircuitBreaker.State getCircuitBreakerState() {
+    return circuitBreaker.getState();
+  }
+
+  /**
+   * @return the counts and latencies of the requests sent so far by this client
+   */
+  public Statistics getStatistics() {
+    return new Statistics(requestCount.sum(), failureCount.sum(), retryCount.sum(), rejectedCount.sum(),
+        totalLatencyNanos.sum(), maxLatencyNanos.get(), circuitBreaker.getOpenCount());
+  }
+
+  /**
+   * A snapshot of the requests sent by a {@link TaxonomyServerClient} since startup. Each retry is counted as a
+   * request; requests rejected by the circuit breaker are not. Times are in milliseconds.
+   */
+  public static final class Statistics {
+    private final long requestCount;
+    private final long failureCount;
+    private final long retryCount;
+    private final long rejectedCount;
+    private final double meanLatencyMillis;
+    private final double maxLatencyMillis;
+    private final long circuitBreakerOpenCount;
+
+    private Statistics(long requestCount, long failureCount, long retryCount, long rejectedCount,
+                       long totalLatencyNanos, long maxLatencyNanos, long circuitBreakerOpenCount) {
+      this.requestCount = requestCount;
+      this.failureCount = failureCount;
+      this.retryCount = retryCount;
+      this.rejectedCount = rejectedCount;
+      this.meanLatencyMillis = (requestCount == 0) ? 0.0 : totalLatencyNanos / 1e6 / requestCount;
+      this.maxLatencyMillis = maxLatencyNanos / 1e6;
+      this.circuitBreakerOpenCount = circuitBreakerOpenCount;
+    }
+
+    public long getRequestCount() {
+      return requestCount;
+    }
+
+    /**
+     * @return the number of requests that failed to connect, timed out or got a server error
+     */
+    public long getFailureCount() {
+      return failureCount;
+    }
+
+    public long getRetryCount() {
+      return retryCount;
+    }
+
+    /**
+     * @return the number of requests that failed immediately because the circuit breaker was open
+     */
+    public long getRejectedCount() {
+      return rejectedCount;
+    }
+
+    public double getMeanLatencyMillis() {
+      return meanLatencyMillis;
+    }
+
+    public double getMaxLatencyMillis() {
+      return maxLatencyMillis;
+    }
+
+    public long getCircuitBreakerOpenCount() {
+      return circuitBreakerOpenCount;
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    httpClient.close();
+  }
+
+}
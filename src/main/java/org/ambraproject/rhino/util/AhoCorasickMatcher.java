@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2017 Public Library of Science
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package org.ambraproject.rhino.util;
+
+import com.google.common.base.Preconditions;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+
+/**
+ * Finds which of a fixed set of literal strings occur in a text, in a single pass over the text.
+ * <p/>
+ * This is an Aho-Corasick automaton. Its transitions are stored as sorted arrays, so building it costs time and space
+ * proportional to the total length of the patterns, and scanning a text costs time proportional to the length of the
+ * text (plus a binary search over each state's outgoing characters).
+ * <p/>
+ * Instances are immutable and thread-safe.
+ */
+final class AhoCorasickMatcher {
+
+  private final int patternCount;
+
+  // Indexed by state; state 0 is the root
+  private final char[][] transitionChars;
+  private final int[][] transitionTargets;
+  private final int[] failures;
+  private final int[][] outputs; // indices of the patterns that end at each state, including via failure links
+
+  /**
+   * @param patterns the strings to search for, which must be non-empty; a pattern's index in this list identifies it
+   *                 in search results
+   */
+  AhoCorasickMatcher(List<String> patterns) {
+    this.patternCount = patterns.size();
+
+    // Build the trie
+    List<TreeMap<Character, Integer>> trie = new ArrayList<>();
+    List<List<Integer>> trieOutputs = new ArrayList<>();
+    trie.add(new TreeMap<>());
+    trieOutputs.add(new ArrayList<>());
+    for (int i = 0; i < patterns.size(); i++) {
+      String pattern = patterns.get(i);
+      Preconditions.checkArgument(!pattern.isEmpty(), "Patterns must be non-empty");
+      int state = 0;
+      for (int j = 0; j < pattern.length(); j++) {
+        Integer next = trie.get(state).get(pattern.charAt(j));
+        if (next == null) {
+          next = trie.size();
+          trie.add(new TreeMap<>());
+          trieOutputs.add(new ArrayList<>());
+          trie.get(state).put(pattern.charAt(j), next);
+        }
+        state = next;
+      }
+      trieOutputs.get(state).add(i);
+    }
+
+    int stateCount = trie.size();
+    transitionChars = new char[stateCount][];
+    transitionTargets = new int[stateCount][];
+    for (int state = 0; state < stateCount; state++) {
+      TreeMap<Character, Integer> edges = trie.get(state);
+      char[] chars = new char[edges.size()];
+      int[] targets = new int[edges.size()];
+      int k = 0;
+      for (Map.Entry<Character, Integer> edge : edges.entrySet()) {
+        chars[k] = edge.getKey();
+        targets[k] = edge.getValue();
+        k++;
+      }
+      transitionChars[state] = chars;
+      transitionTargets[state] = targets;
+    }
+
+    // Link each state to the state for its longest proper suffix, breadth-first so that shorter states are done first
+    failures = new int[stateCount];
+    outputs = new int[stateCount][];
+    outputs[0] = toArray(trieOutputs.get(0));
+    Queue<Integer> queue = new ArrayDeque<>();
+    for (int target : transitionTargets[0]) {
+      failures[target] = 0;
+      outputs[target] = toArray(trieOutputs.get(target));
+      queue.add(target);
+    }
+    while (!queue.isEmpty()) {
+      int state = queue.remove();
+      for (int k = 0; k < transitionChars[state].length; k++) {
+        char c = transitionChars[state][k];
+        int target = transitionTargets[state][k];
+        int failure = failures[state];
+        int failureTarget;
+        while ((failureTarget = transition(failure, c)) < 0 && failure != 0) {
+          failure = failures[failure];
+        }
+        failures[target] = Math.max(failureTarget, 0);
+        outputs[target] = concat(toArray(trieOutputs.get(target)), outputs[failures[target]]);
+        queue.add(target);
+      }
+    }
+  }
+
+  private static int[] toArray(List<Integer> values) {
+    return values.stream().mapToInt(Integer::intValue).toArray();
+  }
+
+  private static int[] concat(int[] a, int[] b) {
+    if (b.length == 0) return a;
+    int[] result = Arrays.copyOf(a, a.length + b.length);
+    System.arraycopy(b, 0, result, a.length, b.length);
+    return result;
+  }
+
+  /**
+   * @return the state reached from {@code state} on {@code c}, or -1 if there is no such transition
+   */
+  private int transition(int state, char c) {
+    int k = Arrays.binarySearch(transitionChars[state], c);
+    return (k < 0) ? -1 : transitionTargets[state][k];
+  }
+
+  /**
+   * Find which patterns occur in a text.
+   *
+   * @param text the text to search
+   * @return the indices of the patterns that occur at least once in the text
+   */
+  BitSet findPresent(CharSequence text) {
+    BitSet present = new BitSet(patternCount);
+    int foundCount = 0;
+    int state = 0;
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      int next;
+      while ((next = transition(state, c)) < 0 && state != 0) {
+        state = failures[state];
+      }
+      state = Math.max(next, 0);
+      for (int pattern : outputs[state]) {
+        if (!present.get(pattern)) {
+          present.set(pattern);
+          if (++foundCount == patternCount) return present;
+        }
+      }
+    }
+    return present;
+  }
+
+}
@@ -25,6 +25,8 @@ package org.ambraproject.rhino.util;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.Hashing;
+import com.google.common.hash.HashingInputStream;
 import com.google.common.io.ByteSource;
 import com.google.common.io.ByteStreams;
 import org.plos.crepo.model.input.RepoObjectInput;
@@ -38,10 +40,16 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Collection;
 import java.util.Date;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
 
@@ -59,9 +67,20 @@ public abstract class Archive implements Closeable {
    */
   private final ImmutableMap<String, ?> files;
 
+  /**
+   * SHA-256 digests of file entries, as lowercase hexadecimal strings. Archives that copy their entries when they are
+   * created fill this in as they go; others fill it in as digests are requested.
+   */
+  private final ConcurrentMap<String, String> digests;
+
   private Archive(String archiveName, Map<String, ?> files) {
+    this(archiveName, files, ImmutableMap.of());
+  }
+
+  private Archive(String archiveName, Map<String, ?> files, Map<String, String> digests) {
     this.archiveName = Preconditions.checkNotNull(archiveName);
     this.files = ImmutableMap.copyOf(files);
+    this.digests = new ConcurrentHashMap<>(digests);
   }
 
   /**
@@ -104,6 +123,28 @@ public abstract class Archive implements Closeable {
 
   protected abstract InputStream openFileFrom(Object fileObj);
 
+  /**
+   * Return the SHA-256 digest of a file in the archive. If it wasn't computed when the archive was read, this reads the
+   * file.
+   *
+   * @param entryName the name of a file entry
+   * @return the digest, as a lowercase hexadecimal string
+   * @throws IllegalArgumentException if no entry with that name is in the archive
+   */
+  public final String getSha256(String entryName) {
+    String digest = digests.get(Objects.requireNonNull(entryName));
+    if (digest == null) {
+      try (HashingInputStream stream = new HashingInputStream(Hashing.sha256(), openFile(entryName))) {
+        ByteStreams.copy(stream, ByteStreams.nullOutputStream());
+        digest = stream.hash().toString();
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+      digests.putIfAbsent(entryName, digest);
+    }
+    return digest;
+  }
+
   public final RepoObjectInput.ContentAccessor getContentAccessorFor(final String entryName) {
     if (!files.containsKey(Preconditions.checkNotNull(entryName))) {
       throw new IllegalArgumentException("Archive does not contain an entry named: " + entryName);
@@ -151,6 +192,7 @@ public abstract class Archive implements Closeable {
    */
   public static Archive readZipFile(String archiveName, InputStream zipFile) throws IOException {
     ImmutableMap.Builder<String, File> tempFiles = ImmutableMap.builder();
+    Map<String, String> digests = new LinkedHashMap<>();
     try (ZipInputStream zipStream = new ZipInputStream(zipFile)) {
       String prefix = "archive_" + new Date().getTime() + "_";
 
@@ -162,16 +204,18 @@ public abstract class Archive implements Closeable {
         }
 
         File tempFile = File.createTempFile(prefix, null);
+        HashingInputStream entryStream = new HashingInputStream(Hashing.sha256(), zipStream);
         try (OutputStream tempFileStream = new FileOutputStream(tempFile)) {
-          ByteStreams.copy(zipStream, tempFileStream);
+          ByteStreams.copy(entryStream, tempFileStream);
         }
         tempFiles.put(entry.getName(), tempFile);
+        digests.put(entry.getName(), entryStream.hash().toString());
       }
     } finally {
       zipFile.close();
     }
 
-    return new Archive(archiveName, tempFiles.build()) {
+    return new Archive(archiveName, tempFiles.build(), digests) {
       @Override
       protected InputStream openFileFrom(Object file) {
         try {
@@ -190,6 +234,156 @@ public abstract class Archive implements Closeable {
     };
   }
 
+  /**
+   * Open a zip file on disk as an archive without extracting anything from it. Entries are read directly out of the zip
+   * file, using the offsets in its central directory, whenever they are opened. Closing the archive closes the zip file
+   * but does not delete it.
+   * <p>
+   * Unlike {@link #readZipFile(String, InputStream)}, this does not copy each entry to a temp file first, so it is
+   * preferable whenever the archive is already on disk. The file must not be modified or deleted until the archive is
+   * closed.
+   * <p>
+   * As with {@link #readZipFile(String, InputStream)}, directory entries are skipped and duplicate entry names are
+   * rejected.
+   *
+   * @param archiveName the name of the archive
+   * @param file        a zip file
+   * @return the archive representing the zip file's entries
+   * @throws IOException if the file can't be opened as a zip file
+   * @throws IllegalArgumentException if two entries have the same name
+   */
+  public static Archive openZipFile(String archiveName, File file) throws IOException {
+    final ZipFile zipFile = new ZipFile(file);
+    ImmutableMap<String, ZipEntry> entries;
+    try {
+      ImmutableMap.Builder<String, ZipEntry> builder = ImmutableMap.builder();
+      for (Enumeration<? extends ZipEntry> e = zipFile.entries(); e.hasMoreElements(); ) {
+        ZipEntry entry = e.nextElement();
+        if (!entry.isDirectory()) {
+          builder.put(entry.getName(), entry);
+        }
+      }
+      entries = builder.build(); // rejects duplicate names
+    } catch (RuntimeException e) {
+      zipFile.close();
+      throw e;
+    }
+
+    return new Archive(archiveName, entries) {
+      @Override
+      protected InputStream openFileFrom(Object entry) {
+        try {
+          return zipFile.getInputStream((ZipEntry) entry);
+        } catch (IOException e) {
+          throw new RuntimeException(e);
+        }
+      }
+
+      @Override
+      public void close() {
+        try {
+          zipFile.close();
+        } catch (IOException e) {
+          throw new RuntimeException(e);
+        }
+      }
+    };
+  }
+
+  /**
+   * Read a zip file from a stream, holding small entries in memory and writing large ones to temp files on disk.
+   * Creating the {@code Archive} object exhausts the stream.
+   * <p>
+   * An entry is held in memory if its size is not above the budget's spill threshold and there is room for it in the
+   * budget, which is shared with every other archive read with it. Otherwise, it is written to a temp file. Closing the
+   * archive deletes the temp files and returns its in-memory entries' space to the budget.
+   * <p>
+   * As with {@link #readZipFile(String, InputStream)}, directory entries are skipped and duplicate entry names are
+   * rejected.
+   *
+   * @param zipFile      a stream containing the zip archive
+   * @param memoryBudget the limit on in-memory entries
+   * @return the archive representing the read files
+   * @throws IOException
+   * @throws IllegalArgumentException if two entries have the same name
+   */
+  public static Archive readZipFile(String archiveName, InputStream zipFile, ArchiveMemoryBudget memoryBudget)
+      throws IOException {
+    Objects.requireNonNull(memoryBudget);
+    Map<String, Object> entries = new LinkedHashMap<>(); // values are byte arrays or temp files
+    Map<String, String> digests = new LinkedHashMap<>();
+    long reserved = 0L;
+    boolean threw = true;
+    try (ZipInputStream zipStream = new ZipInputStream(zipFile)) {
+      String prefix = "archive_" + new Date().getTime() + "_";
+
+      ZipEntry entry;
+      while ((entry = zipStream.getNextEntry()) != null) {
+        if (entry.isDirectory()) {
+          continue;
+        }
+        if (entries.containsKey(entry.getName())) {
+          throw new IllegalArgumentException("Duplicate entry name in zip archive: " + entry.getName());
+        }
+
+        // The entry's size isn't reliably known in advance, so read up to one byte past the threshold to find out.
+        HashingInputStream entryStream = new HashingInputStream(Hashing.sha256(), zipStream);
+        byte[] head = ByteStreams.toByteArray(ByteStreams.limit(entryStream, memoryBudget.getSpillThreshold() + 1L));
+        if (head.length <= memoryBudget.getSpillThreshold() && memoryBudget.tryReserve(head.length)) {
+          reserved += head.length;
+          entries.put(entry.getName(), head);
+        } else {
+          File tempFile = File.createTempFile(prefix, null);
+          entries.put(entry.getName(), tempFile);
+          try (OutputStream tempFileStream = new FileOutputStream(tempFile)) {
+            tempFileStream.write(head);
+            ByteStreams.copy(entryStream, tempFileStream);
+          }
+        }
+        digests.put(entry.getName(), entryStream.hash().toString());
+      }
+      threw = false;
+    } finally {
+      zipFile.close();
+      if (threw) {
+        releaseEntries(entries.values(), reserved, memoryBudget);
+      }
+    }
+
+    final long totalReserved = reserved;
+    return new Archive(archiveName, entries, digests) {
+      private boolean isClosed = false;
+
+      @Override
+      protected InputStream openFileFrom(Object fileObj) {
+        if (fileObj instanceof byte[]) {
+          return new ByteArrayInputStream((byte[]) fileObj);
+        }
+        try {
+          return new FileInputStream((File) fileObj);
+        } catch (FileNotFoundException e) {
+          throw new RuntimeException(e);
+        }
+      }
+
+      @Override
+      public synchronized void close() {
+        if (isClosed) return;
+        isClosed = true;
+        releaseEntries(getFiles().values(), totalReserved, memoryBudget);
+      }
+    };
+  }
+
+  private static void releaseEntries(Collection<?> entries, long reserved, ArchiveMemoryBudget memoryBudget) {
+    for (Object entry : entries) {
+      if (entry instanceof File) {
+        ((File) entry).delete();
+      }
+    }
+    memoryBudget.release(reserved);
+  }
+
   public static Archive readZipFileIntoMemory(File file) throws IOException {
     try (InputStream stream = new FileInputStream(file)) {
       return readZipFileIntoMemory(file.getName(), stream);
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2017 Public Library of Science
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package org.ambraproject.rhino.util;
+
+import com.google.common.base.Preconditions;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A limit on the total number of bytes that {@link Archive}s may hold in memory at once. One instance is shared by all
+ * archives read with it, so that concurrent ingestions can't add up to more heap than intended.
+ * <p>
+ * Entries larger than the spill threshold are never held in memory. Smaller entries are held in memory if there is room
+ * in the budget, and spilled to disk otherwise.
+ */
+public class ArchiveMemoryBudget {
+
+  private final int spillThreshold;
+  private final long capacity;
+  private final AtomicLong bytesInUse = new AtomicLong();
+
+  /**
+   * @param spillThreshold the size, in bytes, above which an entry is always written to disk
+   * @param capacity       the maximum number of bytes to be held in memory by all archives together
+   */
+  public ArchiveMemoryBudget(int spillThreshold, long capacity) {
+    Preconditions.checkArgument(spillThreshold >= 0);
+    Preconditions.checkArgument(capacity >= 0);
+    this.spillThreshold = spillThreshold;
+    this.capacity = capacity;
+  }
+
+  public int getSpillThreshold() {
+    return spillThreshold;
+  }
+
+  public long getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * @return the number of bytes currently held in memory by archives using this budget
+   */
+  public long getBytesInUse() {
+    return bytesInUse.get();
+  }
+
+  /**
+   * Reserve space for an entry if it fits in the remaining budget.
+   *
+   * @param bytes the number of bytes to reserve
+   * @return {@code true} if the space was reserved; {@code false} if the entry should be spilled to disk
+   */
+  boolean tryReserve(long bytes) {
+    Preconditions.checkArgument(bytes >= 0);
+    while (true) {
+      long current = bytesInUse.get();
+      long next = current + bytes;
+      if (next > capacity) return false;
+      if (bytesInUse.compareAndSet(current, next)) return true;
+    }
+  }
+
+  void release(long bytes) {
+    Preconditions.checkArgument(bytes >= 0);
+    bytesInUse.addAndGet(-bytes);
+  }
+
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2017 Public Library of Science
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package org.ambraproject.rhino.util;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+
+import java.time.Clock;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stops calls to a remote service after it fails repeatedly, so that callers fail fast instead of waiting for timeouts.
+ * <p/>
+ * The breaker starts closed, allowing all calls. After a number of consecutive failures it opens, rejecting all calls
+ * for a cooldown period. Then it is half-open: it allows one trial call, and closes if the trial succeeds or opens for
+ * another cooldown period if it fails.
+ * <p/>
+ * Callers must call {@link #allowRequest()} before each call and, if it was allowed, report the outcome with {@link
+ * #recordSuccess()} or {@link #recordFailure()}, however the call ends. While half-open, the breaker rejects all other
+ * calls until the trial call's outcome is recorded.
+ */
+public final class CircuitBreaker {
+
+  public static enum State {
+    CLOSED, OPEN, HALF_OPEN
+  }
+
+  private final int failureThreshold;
+  private final long cooldownMillis;
+  private final Clock clock;
+
+  // Guarded by this
+  private State state = State.CLOSED;
+  private int consecutiveFailures = 0;
+  private long openedAt;
+  private boolean trialInFlight = false;
+  private long openCount = 0L;
+
+  /**
+   * @param failureThreshold the number of consecutive failures that open the breaker
+   * @param cooldown         how long the breaker stays open before allowing a trial call
+   * @param cooldownUnit     the unit of {@code cooldown}
+   */
+  public CircuitBreaker(int failureThreshold, long cooldown, TimeUnit cooldownUnit) {
+    this(failureThreshold, cooldown, cooldownUnit, Clock.systemUTC());
+  }
+
+  @VisibleForTesting
+  CircuitBreaker(int failureThreshold, long cooldown, TimeUnit cooldownUnit, Clock clock) {
+    Preconditions.checkArgument(failureThreshold > 0);
+    Preconditions.checkArgument(cooldown >= 0);
+    this.failureThreshold = failureThreshold;
+    this.cooldownMillis = cooldownUnit.toMillis(cooldown);
+    this.clock = Preconditions.checkNotNull(clock);
+  }
+
+  /**
+   * @return true if a call may be made now; false if the caller should fail without calling
+   */
+  public synchronized boolean allowRequest() {
+    switch (state) {
+      case CLOSED:
+        return true;
+      case OPEN:
+        if (clock.millis() - openedAt < cooldownMillis) return false;
+        state = State.HALF_OPEN;
+        trialInFlight = true;
+        return true;
+      case HALF_OPEN:
+        if (trialInFlight) return false;
+        trialInFlight = true;
+        return true;
+      default:
+        throw new AssertionError(state);
+    }
+  }
+
+  public synchronized void recordSuccess() {
+    state = State.CLOSED;
+    consecutiveFailures = 0;
+    trialInFlight = false;
+  }
+
+  public synchronized void recordFailure() {
+    trialInFlight = false;
+    if (state == State.HALF_OPEN || ++consecutiveFailures >= failureThreshold) {
+      if (state != State.OPEN) {
+        openCount++;
+      }
+      state = State.OPEN;
+      openedAt = clock.millis();
+      consecutiveFailures = 0;
+    }
+  }
+
+  public synchronized State getState() {
+    return state;
+  }
+
+  /**
+   * @return the number of times the breaker has opened
+   */
+  public synchronized long getOpenCount() {
+    return openCount;
+  }
+
+}
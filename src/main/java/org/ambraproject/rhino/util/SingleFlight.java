@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2017 Public Library of Science
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package org.ambraproject.rhino.util;
+
+import com.google.common.base.Preconditions;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Coalesces concurrent requests for the same key into one call.
+ * <p/>
+ * The first thread to request a key runs its loader. Threads that request the same key while that call is in flight
+ * wait for its result instead of running their own, and receive the same value or the same exception. Once the call
+ * finishes, the next request for the key runs a new call, so results are never cached here.
+ * <p/>
+ * A waiting thread gives up after a fixed timeout and throws {@link InterruptedIOException}. The call it was waiting
+ * for keeps running.
+ *
+ * @param <K> the key type
+ * @param <V> the result type, whose values must be safe to share between threads
+ */
+public final class SingleFlight<K, V> {
+
+  @FunctionalInterface
+  public interface Loader<V> {
+    V load() throws IOException;
+  }
+
+  private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+  private final long timeout;
+  private final TimeUnit timeoutUnit;
+
+  private final LongAdder callCount = new LongAdder();
+  private final LongAdder coalescedCount = new LongAdder();
+  private final LongAdder timeoutCount = new LongAdder();
+
+  /**
+   * @param timeout     the longest time that a thread waits for another thread's call
+   * @param timeoutUnit the unit of {@code timeout}
+   */
+  public SingleFlight(long timeout, TimeUnit timeoutUnit) {
+    Preconditions.checkArgument(timeout > 0);
+    this.timeout = timeout;
+    this.timeoutUnit = Preconditions.checkNotNull(timeoutUnit);
+  }
+
+  /**
+   * Run a loader, or wait for the result of a call already in flight for the same key.
+   *
+   * @param key    identifies the result; concurrent calls with equal keys are coalesced
+   * @param loader computes the result
+   * @return the result
+   * @throws IOException          if the loader, or the call waited on, threw it
+   * @throws InterruptedIOException if the wait for another thread's call timed out or was interrupted
+   */
+  public V execute(K key, Loader<? extends V> loader) throws IOException {
+    Preconditions.checkNotNull(loader);
+    CompletableFuture<V> future = new CompletableFuture<>();
+    CompletableFuture<V> existing = inFlight.putIfAbsent(key, future);
+    if (existing == null) {
+      callCount.increment();
+      try {
+        V value = loader.load();
+        future.complete(value);
+        return value;
+      } catch (Throwable t) {
+        future.completeExceptionally(t);
+        throw t;
+      } finally {
+        inFlight.remove(key, future);
+      }
+    }
+
+    coalescedCount.increment();
+    try {
+      return existing.get(timeout, timeoutUnit);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) throw (IOException) cause;
+      if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+      if (cause instanceof Error) throw (Error) cause;
+      throw new IOException(cause);
+    } catch (TimeoutException e) {
+      timeoutCount.increment();
+      throw new InterruptedIOException("Timed out after " + timeout + " " + timeoutUnit.toString().toLowerCase()
+          + " waiting for call in flight for: " + key);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for call in flight for: " + key);
+    }
+  }
+
+  /**
+   * @return the number of calls that ran their own loader
+   */
+  public long getCallCount() {
+    return callCount.sum();
+  }
+
+  /**
+   * @return the number of calls that waited for another thread's call instead of running their own loader
+   */
+  public long getCoalescedCount() {
+    return coalescedCount.sum();
+  }
+
+  /**
+   * @return the number of calls that gave up waiting for another thread's call
+   */
+  public long getTimeoutCount() {
+    return timeoutCount.sum();
+  }
+
+}
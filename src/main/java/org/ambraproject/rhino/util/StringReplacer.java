@@ -27,6 +27,8 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import org.apache.commons.lang3.StringEscapeUtils;
 
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 import java.util.regex.Pattern;
 
@@ -36,6 +38,12 @@ import java.util.regex.Pattern;
  * repeated calls to {@link String#replaceAll} for performance reasons, because {@link String#replaceAll} must compile a
  * new {@link Pattern} each time it is called.
  * <p/>
+ * The replacements are applied in order, each to the result of the one before, but a case is only run if the text
+ * contains the literal that every match of its pattern must start with (such as {@code "<list"} for {@code
+ * "<list\\s+list-type=\"(.*)\">"}). One {@link AhoCorasickMatcher} pass finds which of those literals are present, and
+ * the text is scanned again only after a case actually changes it. Cases registered as exact strings are replaced
+ * without going through the regex engine.
+ * <p/>
  * This class and its cached {@link Pattern} objects are immutable and thread-safe.
  * <p/>
  * TODO: Delete this and use org.ambraproject.util.StringReplacer instead as soon as it's imported from Ambra Base.
@@ -46,13 +54,39 @@ public class StringReplacer {
     private final Pattern regex;
     private final String replacement;
 
+    /**
+     * A literal that every match of {@link #regex} starts with, or empty if none could be found.
+     */
+    private final String requiredPrefix;
+
+    /**
+     * True if the regex and replacement are both literal strings, so that the case can be applied without a matcher.
+     */
+    private final boolean isExact;
+
     private ReplacementCase(Pattern regex, String replacement) {
       this.regex = Preconditions.checkNotNull(regex);
       this.replacement = Preconditions.checkNotNull(replacement);
+      this.requiredPrefix = findRequiredPrefix(regex);
+      this.isExact = regex.flags() == Pattern.LITERAL && !regex.pattern().isEmpty()
+          && replacement.indexOf('$') < 0 && replacement.indexOf('\\') < 0;
     }
 
-    private String replace(CharSequence text) {
-      return regex.matcher(text).replaceAll(replacement);
+    private String replace(String text) {
+      return isExact ? replaceExact(text) : regex.matcher(text).replaceAll(replacement);
+    }
+
+    private String replaceExact(String text) {
+      String target = regex.pattern();
+      int index = text.indexOf(target);
+      if (index < 0) return text;
+      StringBuilder result = new StringBuilder(text.length());
+      int start = 0;
+      do {
+        result.append(text, start, index).append(replacement);
+        start = index + target.length();
+      } while ((index = text.indexOf(target, start)) >= 0);
+      return result.append(text, start, text.length()).toString();
     }
 
     @Override
@@ -84,10 +118,122 @@ public class StringReplacer {
     }
   }
 
+  /**
+   * Find a literal string that every match of a pattern must start with. This reads the pattern only as far as its
+   * first construct that isn't a plain character, so it may return an empty string for patterns that do have one.
+   *
+   * @param pattern a compiled pattern
+   * @return the literal prefix, or an empty string if none was found
+   */
+  private static String findRequiredPrefix(Pattern pattern) {
+    String source = pattern.pattern();
+    if (pattern.flags() == Pattern.LITERAL) {
+      return source;
+    }
+    if ((pattern.flags() & ~(Pattern.MULTILINE | Pattern.DOTALL | Pattern.UNIX_LINES)) != 0
+        || hasTopLevelAlternation(source)) {
+      return ""; // Case-insensitive, whitespace-insensitive, etc.
+    }
+
+    StringBuilder prefix = new StringBuilder();
+    int i = source.startsWith("^") ? 1 : 0;
+    while (i < source.length()) {
+      char c = source.charAt(i);
+      int next = i + 1;
+      if (c == '\\') {
+        if (next >= source.length() || Character.isLetterOrDigit(source.charAt(next))) {
+          break; // Character class, anchor, back-reference or quote
+        }
+        c = source.charAt(next++);
+      } else if ("[](){}.*+?^$|".indexOf(c) >= 0) {
+        break;
+      }
+      if (next < source.length() && "*+?{".indexOf(source.charAt(next)) >= 0) {
+        break; // The character is quantified, so it is not required
+      }
+      prefix.append(c);
+      i = next;
+    }
+    return prefix.toString();
+  }
+
+  /**
+   * Check whether a regular expression has an alternation that isn't inside a group, in which case the characters at
+   * its start are not required.
+   */
+  private static boolean hasTopLevelAlternation(String regex) {
+    int groupDepth = 0;
+    int classDepth = 0;
+    for (int i = 0; i < regex.length(); i++) {
+      char c = regex.charAt(i);
+      if (c == '\\') {
+        if (i + 1 < regex.length() && regex.charAt(i + 1) == 'Q') {
+          return true; // Don't try to parse quoted sections; treat them as unknown
+        }
+        i++;
+      } else if (c == '[') {
+        classDepth++;
+      } else if (c == ']' && classDepth > 0) {
+        classDepth--;
+      } else if (classDepth == 0) {
+        if (c == '(') {
+          groupDepth++;
+        } else if (c == ')') {
+          groupDepth--;
+        } else if (c == '|' && groupDepth == 0) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
   private final ImmutableList<ReplacementCase> replacementCases;
 
+  /**
+   * Matches the non-empty {@link ReplacementCase#requiredPrefix} values.
+   */
+  private final AhoCorasickMatcher prefixMatcher;
+
+  /**
+   * For each pattern in {@link #prefixMatcher}, the index of the case that it belongs to.
+   */
+  private final int[] prefixCases;
+
+  /**
+   * The indices of the cases that have no required prefix and therefore are always run.
+   */
+  private final BitSet unconditionalCases;
+
   private StringReplacer(List<ReplacementCase> replacementCases) {
     this.replacementCases = ImmutableList.copyOf(replacementCases);
+
+    List<String> prefixes = new ArrayList<>();
+    List<Integer> prefixCases = new ArrayList<>();
+    this.unconditionalCases = new BitSet(this.replacementCases.size());
+    for (int i = 0; i < this.replacementCases.size(); i++) {
+      String prefix = this.replacementCases.get(i).requiredPrefix;
+      if (prefix.isEmpty()) {
+        unconditionalCases.set(i);
+      } else {
+        prefixes.add(prefix);
+        prefixCases.add(i);
+      }
+    }
+    this.prefixMatcher = new AhoCorasickMatcher(prefixes);
+    this.prefixCases = prefixCases.stream().mapToInt(Integer::intValue).toArray();
+  }
+
+  /**
+   * @return the indices of the cases that might match the text
+   */
+  private BitSet findCandidateCases(String text) {
+    BitSet candidates = (BitSet) unconditionalCases.clone();
+    BitSet prefixes = prefixMatcher.findPresent(text);
+    for (int i = prefixes.nextSetBit(0); i >= 0; i = prefixes.nextSetBit(i + 1)) {
+      candidates.set(prefixCases[i]);
+    }
+    return candidates;
   }
 
   /**
@@ -99,8 +245,14 @@ public class StringReplacer {
    */
   public String replace(CharSequence text) {
     String s = text.toString();
-    for (ReplacementCase r : replacementCases) {
-      s = r.replace(s);
+    BitSet candidates = findCandidateCases(s);
+    for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+      String replaced = replacementCases.get(i).replace(s);
+      if (replaced != s) {
+        // The replacement may have created a match for a later case, so look again
+        s = replaced;
+        candidates = findCandidateCases(s);
+      }
     }
     return s;
   }
@@ -26,28 +26,25 @@ import com.google.common.base.Preconditions;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonSerializationContext;
-import org.ambraproject.rhino.content.xml.ArticleXml;
-import org.ambraproject.rhino.content.xml.CustomMetadataExtractor;
-import org.ambraproject.rhino.content.xml.XmlContentException;
 import org.ambraproject.rhino.identity.ArticleIngestionIdentifier;
 import org.ambraproject.rhino.model.ArticleIngestion;
 import org.ambraproject.rhino.model.ArticleItem;
 import org.ambraproject.rhino.model.article.ArticleCustomMetadata;
 import org.ambraproject.rhino.model.article.ArticleMetadata;
 import org.ambraproject.rhino.model.article.AssetMetadata;
-import org.ambraproject.rhino.service.ArticleCrudService;
+import org.ambraproject.rhino.model.article.IngestedArticleMetadata;
+import org.ambraproject.rhino.service.IngestionMetadataService;
 import org.ambraproject.rhino.util.JsonAdapterUtil;
 import org.ambraproject.rhino.view.JsonOutputView;
 import org.ambraproject.rhino.view.journal.JournalOutputView;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.w3c.dom.Document;
 
 import java.util.List;
 import java.util.Objects;
 import java.util.stream.Collectors;
 
 /**
- * Deep view of an article ingestion, including data parsed dynamically from the manuscript.
+ * Deep view of an article ingestion, including data parsed from the manuscript.
  * <p>
  * In case of a future need for a shallow view that uses only data is that available from the database, see {@link
  * ArticleRevisionView#serializeIngestion}.
@@ -57,22 +54,14 @@ public class ArticleIngestionView implements JsonOutputView {
   public static class Factory {
 
     @Autowired
-    private ArticleCrudService articleCrudService;
-    @Autowired
-    private CustomMetadataExtractor.Factory customMetadataExtractorFactory;
+    private IngestionMetadataService ingestionMetadataService;
 
     public ArticleIngestionView getView(ArticleIngestion ingestion) {
       JournalOutputView journal = JournalOutputView.getView(ingestion.getJournal());
 
-      Document document = articleCrudService.getManuscriptXml(ingestion);
-      ArticleMetadata metadata;
-      ArticleCustomMetadata customMetadata;
-      try {
-        metadata = new ArticleXml(document).build();
-        customMetadata = customMetadataExtractorFactory.parse(document).build();
-      } catch (XmlContentException e) {
-        throw new RuntimeException(e);
-      }
+      IngestedArticleMetadata ingestedMetadata = ingestionMetadataService.getMetadata(ingestion);
+      ArticleMetadata metadata = ingestedMetadata.getArticleMetadata();
+      ArticleCustomMetadata customMetadata = ingestedMetadata.getCustomMetadata();
 
       return new ArticleIngestionView(ingestion, metadata, customMetadata, journal);
     }
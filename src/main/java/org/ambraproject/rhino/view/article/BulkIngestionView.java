@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2017 Public Library of Science
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package org.ambraproject.rhino.view.article;
+
+import com.google.common.collect.ImmutableList;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonSerializationContext;
+import org.ambraproject.rhino.identity.ArticleIngestionIdentifier;
+import org.ambraproject.rhino.view.JsonOutputView;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Report of a bulk ingestion, with the outcome of each archive in the order they were submitted.
+ */
+public class BulkIngestionView implements JsonOutputView {
+
+  public static class ArchiveResult {
+    private final String archiveName;
+    private final ArticleIngestionIdentifier ingestion; // null if failed
+    private final String failedStage; // null if succeeded
+    private final String error; // null if succeeded
+
+    private ArchiveResult(String archiveName, ArticleIngestionIdentifier ingestion, String failedStage, String error) {
+      this.archiveName = Objects.requireNonNull(archiveName);
+      this.ingestion = ingestion;
+      this.failedStage = failedStage;
+      this.error = error;
+    }
+
+    public static ArchiveResult succeeded(String archiveName, ArticleIngestionIdentifier ingestion) {
+      return new ArchiveResult(archiveName, Objects.requireNonNull(ingestion), null, null);
+    }
+
+    /**
+     * @param archiveName the name of the archive
+     * @param failedStage the pipeline stage in which the archive failed
+     * @param error       a description of the failure
+     */
+    public static ArchiveResult failed(String archiveName, String failedStage, String error) {
+      return new ArchiveResult(archiveName, null, Objects.requireNonNull(failedStage), Objects.requireNonNull(error));
+    }
+
+    public String getArchiveName() {
+      return archiveName;
+    }
+
+    public Optional<ArticleIngestionIdentifier> getIngestion() {
+      return Optional.ofNullable(ingestion);
+    }
+
+    public Optional<String> getFailedStage() {
+      return Optional.ofNullable(failedStage);
+    }
+
+    public Optional<String> getError() {
+      return Optional.ofNullable(error);
+    }
+
+    private JsonObject serialize() {
+      JsonObject serialized = new JsonObject();
+      serialized.addProperty("archiveName", archiveName);
+      if (ingestion != null) {
+        serialized.addProperty("doi", ingestion.getDoiName());
+        serialized.addProperty("ingestionNumber", ingestion.getIngestionNumber());
+      } else {
+        serialized.addProperty("failedStage", failedStage);
+        serialized.addProperty("error", error);
+      }
+      return serialized;
+    }
+  }
+
+  private final ImmutableList<ArchiveResult> results;
+  private final long elapsedMillis;
+
+  public BulkIngestionView(List<ArchiveResult> results, long elapsedMillis) {
+    this.results = ImmutableList.copyOf(results);
+    this.elapsedMillis = elapsedMillis;
+  }
+
+  public ImmutableList<ArchiveResult> getResults() {
+    return results;
+  }
+
+  @Override
+  public JsonElement serialize(JsonSerializationContext context) {
+    JsonArray archives = new JsonArray();
+    int succeeded = 0;
+    for (ArchiveResult result : results) {
+      if (result.ingestion != null) {
+        succeeded++;
+      }
+      archives.add(result.serialize());
+    }
+
+    JsonObject serialized = new JsonObject();
+    serialized.addProperty("succeeded", succeeded);
+    serialized.addProperty("failed", results.size() - succeeded);
+    serialized.addProperty("elapsedMillis", elapsedMillis);
+    serialized.add("archives", archives);
+    return serialized;
+  }
+
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2017 Public Library of Science
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package org.ambraproject.rhino.view.article;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonSerializationContext;
+import org.ambraproject.rhino.model.ArticleIngestion;
+import org.ambraproject.rhino.model.IngestionJob;
+import org.ambraproject.rhino.view.JsonOutputView;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.Objects;
+
+/**
+ * View of a background ingestion job, including its result if it is finished.
+ */
+public class IngestionJobView implements JsonOutputView {
+
+  public static class Factory {
+
+    @Autowired
+    private ArticleIngestionView.Factory articleIngestionViewFactory;
+
+    public IngestionJobView getView(IngestionJob job) {
+      ArticleIngestion ingestion = job.getIngestion();
+      ArticleIngestionView ingestionView = (ingestion == null) ? null : articleIngestionViewFactory.getView(ingestion);
+      return new IngestionJobView(job, ingestionView);
+    }
+
+  }
+
+  private final IngestionJob job;
+  private final ArticleIngestionView ingestionView; // null unless the job succeeded
+
+  private IngestionJobView(IngestionJob job, ArticleIngestionView ingestionView) {
+    this.job = Objects.requireNonNull(job);
+    this.ingestionView = ingestionView;
+  }
+
+  @Override
+  public JsonElement serialize(JsonSerializationContext context) {
+    JsonObject serialized = new JsonObject();
+    serialized.addProperty("jobId", job.getJobId());
+    serialized.addProperty("state", job.getState().name());
+    serialized.addProperty("archiveName", job.getArchiveName());
+    if (job.getBaseIngestionNumber() != null) {
+      serialized.addProperty("baseIngestionNumber", job.getBaseIngestionNumber());
+    }
+
+    serialized.add("submitted", context.serialize(job.getCreated()));
+    if (job.getStarted() != null) {
+      serialized.add("started", context.serialize(job.getStarted()));
+    }
+    if (job.getFinished() != null) {
+      serialized.add("finished", context.serialize(job.getFinished()));
+    }
+    if (job.getStageTimings() != null) {
+      serialized.add("stageMillis", new JsonParser().parse(job.getStageTimings()));
+    }
+
+    if (ingestionView != null) {
+      serialized.add("ingestion", context.serialize(ingestionView));
+    }
+    if (job.getErrorMessage() != null) {
+      serialized.addProperty("error", job.getErrorMessage());
+    }
+    return serialized;
+  }
+
+}
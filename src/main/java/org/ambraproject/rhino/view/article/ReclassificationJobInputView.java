@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2017 Public Library of Science
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package org.ambraproject.rhino.view.article;
+
+import java.util.List;
+
+/**
+ * The filters for a new reclassification job. All are optional; a job with no filters reclassifies every article.
+ */
+public class ReclassificationJobInputView {
+
+  // Immutable by convention, but non-final to allow Gson's reflection magic
+  private String journal;
+  private String fromDate;
+  private String toDate;
+  private List<String> dois;
+
+  public String getJournal() {
+    return journal;
+  }
+
+  /**
+   * @return the earliest publication date to include, in ISO-8601 format ({@code yyyy-MM-dd})
+   */
+  public String getFromDate() {
+    return fromDate;
+  }
+
+  /**
+   * @return the latest publication date to include, in ISO-8601 format ({@code yyyy-MM-dd})
+   */
+  public String getToDate() {
+    return toDate;
+  }
+
+  public List<String> getDois() {
+    return dois;
+  }
+
+}
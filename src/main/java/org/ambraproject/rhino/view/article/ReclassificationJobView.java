@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2017 Public Library of Science
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package org.ambraproject.rhino.view.article;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonSerializationContext;
+import org.ambraproject.rhino.model.ReclassificationJob;
+import org.ambraproject.rhino.view.JsonOutputView;
+
+import java.util.Objects;
+
+/**
+ * View of a background reclassification job and its progress.
+ */
+public class ReclassificationJobView implements JsonOutputView {
+
+  private final ReclassificationJob job;
+
+  public ReclassificationJobView(ReclassificationJob job) {
+    this.job = Objects.requireNonNull(job);
+  }
+
+  @Override
+  public JsonElement serialize(JsonSerializationContext context) {
+    JsonObject serialized = new JsonObject();
+    serialized.addProperty("jobId", job.getJobId());
+    serialized.addProperty("state", job.getState().name());
+
+    JsonObject filters = new JsonObject();
+    if (job.getJournalKey() != null) {
+      filters.addProperty("journal", job.getJournalKey());
+    }
+    if (job.getFromDate() != null) {
+      filters.addProperty("fromDate", job.getFromDate().toString());
+    }
+    if (job.getToDate() != null) {
+      filters.addProperty("toDate", job.getToDate().toString());
+    }
+    if (job.getDois() != null) {
+      filters.addProperty("doiCount", job.getDois().split("\n").length);
+    }
+    serialized.add("filters", filters);
+
+    if (job.getTotalCount() != null) {
+      serialized.addProperty("total", job.getTotalCount());
+    }
+    serialized.addProperty("processed", job.getProcessedCount());
+    serialized.addProperty("failed", job.getFailedCount());
+    if (job.getLastDoi() != null) {
+      serialized.addProperty("lastDoi", job.getLastDoi());
+    }
+
+    serialized.add("submitted", context.serialize(job.getCreated()));
+    if (job.getStarted() != null) {
+      serialized.add("started", context.serialize(job.getStarted()));
+    }
+    if (job.getFinished() != null) {
+      serialized.add("finished", context.serialize(job.getFinished()));
+    }
+
+    if (job.getRecentErrors() != null) {
+      serialized.add("recentErrors", new JsonParser().parse(job.getRecentErrors()));
+    }
+    if (job.getErrorMessage() != null) {
+      serialized.addProperty("error", job.getErrorMessage());
+    }
+    return serialized;
+  }
+
+}
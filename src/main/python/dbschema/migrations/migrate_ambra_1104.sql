@@ -0,0 +1,32 @@
+/*
+ * Copyright (c) 2017 Public Library of Science
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+-- Hibernate allocates articleItem and articleFile IDs from here in blocks of 50, so that it can batch their inserts.
+-- Start past any existing row plus one block, whatever the optimizer's view of the stored value.
+CREATE TABLE `idSequence` (
+  `sequenceName` VARCHAR(255) NOT NULL,
+  `nextValue` BIGINT(20) NOT NULL,
+  PRIMARY KEY (`sequenceName`));
+INSERT INTO `idSequence` (`sequenceName`, `nextValue`)
+  SELECT 'articleItem', COALESCE(MAX(`itemId`), 0) + 51 FROM `articleItem`;
+INSERT INTO `idSequence` (`sequenceName`, `nextValue`)
+  SELECT 'articleFile', COALESCE(MAX(`fileId`), 0) + 51 FROM `articleFile`;
@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2017 Public Library of Science
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+CREATE TABLE `ingestionJob` (
+  `jobId` BIGINT(20) NOT NULL AUTO_INCREMENT,
+  `archiveName` VARCHAR(255) NOT NULL,
+  `spoolFile` VARCHAR(1024) NULL,
+  `baseIngestionNumber` INT NULL,
+  `state` VARCHAR(20) NOT NULL,
+  `owner` VARCHAR(255) NULL,
+  `ingestionId` BIGINT(20) NULL,
+  `errorMessage` LONGTEXT CHARACTER SET utf8 COLLATE utf8_bin NULL,
+  `stageTimings` VARCHAR(1000) NULL,
+  `started` TIMESTAMP NULL DEFAULT NULL,
+  `finished` TIMESTAMP NULL DEFAULT NULL,
+  `created` TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  `lastModified` TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+  PRIMARY KEY (`jobId`),
+  KEY `owner_state` (`owner`,`state`),
+  CONSTRAINT `fk_ingestionJob_1`
+    FOREIGN KEY (`ingestionId`)
+    REFERENCES `articleIngestion` (`ingestionId`)
+    ON DELETE NO ACTION
+    ON UPDATE NO ACTION);
@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2017 Public Library of Science
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+CREATE TABLE `reclassificationJob` (
+  `jobId` BIGINT(20) NOT NULL AUTO_INCREMENT,
+  `state` VARCHAR(20) NOT NULL,
+  `owner` VARCHAR(255) NULL,
+  `journalKey` VARCHAR(255) NULL,
+  `fromDate` DATE NULL,
+  `toDate` DATE NULL,
+  `dois` LONGTEXT CHARACTER SET utf8 COLLATE utf8_bin NULL,
+  `lastDoi` VARCHAR(150) NULL,
+  `totalCount` INT NULL,
+  `processedCount` INT NOT NULL DEFAULT 0,
+  `failedCount` INT NOT NULL DEFAULT 0,
+  `recentErrors` LONGTEXT CHARACTER SET utf8 COLLATE utf8_bin NULL,
+  `errorMessage` LONGTEXT CHARACTER SET utf8 COLLATE utf8_bin NULL,
+  `started` TIMESTAMP NULL DEFAULT NULL,
+  `finished` TIMESTAMP NULL DEFAULT NULL,
+  `created` TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  `lastModified` TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+  PRIMARY KEY (`jobId`),
+  KEY `owner_state` (`owner`,`state`));
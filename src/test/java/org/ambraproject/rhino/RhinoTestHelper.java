@@ -24,12 +24,15 @@ package org.ambraproject.rhino;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.gson.Gson;
 import org.ambraproject.rhino.model.Article;
 import org.ambraproject.rhino.model.ArticleIngestion;
+import org.ambraproject.rhino.model.CachedClassification;
 import org.ambraproject.rhino.model.Journal;
+import org.ambraproject.rhino.model.ReclassificationJob;
 import org.ambraproject.rhino.model.Syndication;
 import org.ambraproject.rhino.model.article.ArticleMetadata;
 import org.ambraproject.rhino.service.impl.IngestionService;
@@ -41,16 +44,23 @@ import org.springframework.orm.hibernate3.HibernateTemplate;
 
 import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.regex.Pattern;
 import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
 
 /**
  * Miscellaneous fields and methods used in Rhino tests.
@@ -139,13 +149,26 @@ public final class RhinoTestHelper {
   }
 
   public static void deleteEntities(HibernateTemplate hibernateTemplate) {
-    Collection<Class<?>> typesToDelete = ImmutableList.<Class<?>>of(Article.class, Syndication.class);
+    deleteIngestions(hibernateTemplate);
+    Collection<Class<?>> typesToDelete = ImmutableList.<Class<?>>of(Article.class, Syndication.class,
+        CachedClassification.class, ReclassificationJob.class);
     for (Class<?> typeToDelete : typesToDelete) {
       List<?> allObjects = hibernateTemplate.findByCriteria(DetachedCriteria.forClass(typeToDelete));
       hibernateTemplate.deleteAll(allObjects);
     }
   }
 
+  /**
+   * Delete everything that ingestion creates under an article, children first, so that the articles can be deleted.
+   */
+  private static void deleteIngestions(HibernateTemplate hibernateTemplate) {
+    hibernateTemplate.bulkUpdate("UPDATE ArticleIngestion SET strikingImage = NULL");
+    for (String entityName : new String[]{"IngestionJob", "ArticleIngestionMetadata", "ArticleIngestionAuthors",
+        "Syndication", "ArticleRevision", "ArticleFile", "ArticleItem", "ArticleIngestion"}) {
+      hibernateTemplate.bulkUpdate("DELETE FROM " + entityName);
+    }
+  }
+
   private static File getXmlPath(String doiStub) {
     return new File("src/test/resources/articles/" + doiStub + ".xml");
   }
@@ -190,6 +213,58 @@ public final class RhinoTestHelper {
     return TestInputStream.of(content);
   }
 
+  /**
+   * Save a dummy journal with the given eIssn, unless one already exists.
+   */
+  public static void addJournal(HibernateTemplate hibernateTemplate, String eissn) {
+    List<?> existing = hibernateTemplate.findByCriteria(DetachedCriteria
+        .forClass(Journal.class)
+        .add(Restrictions.eq("eIssn", eissn)));
+    if (existing.isEmpty()) {
+      hibernateTemplate.save(createDummyJournal(eissn));
+    }
+  }
+
+  /**
+   * Create a zip archive with one entry.
+   */
+  public static byte[] createZip(String entryName, String content) throws IOException {
+    return createZip(ImmutableMap.of(entryName, content.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  /**
+   * Create a zip archive with the given entries, in iteration order.
+   */
+  public static byte[] createZip(Map<String, byte[]> entries) throws IOException {
+    ByteArrayOutputStream zip = new ByteArrayOutputStream();
+    try (ZipOutputStream zipStream = new ZipOutputStream(zip)) {
+      for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+        zipStream.putNextEntry(new ZipEntry(entry.getKey()));
+        zipStream.write(entry.getValue());
+        zipStream.closeEntry();
+      }
+    }
+    return zip.toByteArray();
+  }
+
+  /**
+   * Copy a zip archive, replacing a string in its entry names and in the text of its XML entries. Replacing a sample
+   * article's DOI makes an archive that ingests as a different article.
+   */
+  public static byte[] alterArchive(byte[] archive, String from, String to) throws IOException {
+    Map<String, byte[]> entries = new LinkedHashMap<>();
+    try (ZipInputStream zipStream = new ZipInputStream(new ByteArrayInputStream(archive))) {
+      for (ZipEntry entry; (entry = zipStream.getNextEntry()) != null; ) {
+        byte[] content = IOUtils.toByteArray(zipStream);
+        if (entry.getName().endsWith(".xml")) {
+          content = new String(content, StandardCharsets.UTF_8).replace(from, to).getBytes(StandardCharsets.UTF_8);
+        }
+        entries.put(entry.getName().replace(from, to), content);
+      }
+    }
+    return createZip(entries);
+  }
+
   public static void addExpectedJournals(HibernateTemplate hibernateTemplate) {
     final ImmutableSet<String> testCaseEissns = ImmutableSet.of("1932-6203");
 
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2017 Public Library of Science
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package org.ambraproject.rhino.config;
+
+import com.google.common.collect.ImmutableList;
+import org.hibernate.HibernateException;
+import org.hibernate.Interceptor;
+import org.hibernate.jdbc.Batcher;
+import org.hibernate.jdbc.BatcherFactory;
+import org.hibernate.jdbc.BatchingBatcher;
+import org.hibernate.jdbc.ConnectionManager;
+import org.hibernate.jdbc.Expectation;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Creates Hibernate's usual batchers, but records the SQL of each JDBC batch that they execute, so that tests can check
+ * how statements were batched.
+ */
+public class RecordingBatcherFactory implements BatcherFactory {
+
+  private static final List<String> executedBatches = new ArrayList<>();
+  private static boolean recording = false;
+
+  /**
+   * Start recording batches, discarding any that were recorded before.
+   */
+  public static synchronized void startRecording() {
+    executedBatches.clear();
+    recording = true;
+  }
+
+  /**
+   * Stop recording batches.
+   *
+   * @return the SQL of each batch that was executed since recording started, in order
+   */
+  public static synchronized ImmutableList<String> stopRecording() {
+    recording = false;
+    ImmutableList<String> batches = ImmutableList.copyOf(executedBatches);
+    executedBatches.clear();
+    return batches;
+  }
+
+  private static synchronized void record(String sql) {
+    if (recording) {
+      executedBatches.add(sql);
+    }
+  }
+
+  @Override
+  public Batcher createBatcher(ConnectionManager connectionManager, Interceptor interceptor) {
+    return new BatchingBatcher(connectionManager, interceptor) {
+      private String batchSql;
+      private int pendingCount = 0;
+
+      @Override
+      public PreparedStatement prepareBatchStatement(String sql) throws SQLException, HibernateException {
+        // Preparing a different statement first executes the pending batch, which belongs to the previous SQL
+        PreparedStatement statement = super.prepareBatchStatement(sql);
+        batchSql = sql;
+        return statement;
+      }
+
+      @Override
+      public void addToBatch(Expectation expectation) throws SQLException, HibernateException {
+        pendingCount++;
+        super.addToBatch(expectation);
+      }
+
+      @Override
+      protected void doExecuteBatch(PreparedStatement ps) throws SQLException, HibernateException {
+        if (pendingCount > 0) {
+          record(batchSql);
+          pendingCount = 0;
+        }
+        super.doExecuteBatch(ps);
+      }
+    };
+  }
+
+}
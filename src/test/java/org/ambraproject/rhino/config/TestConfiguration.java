@@ -81,13 +81,17 @@ public class TestConfiguration {
   }
 
   @Bean
-  public LocalSessionFactoryBean sessionFactory(DataSource dataSource) throws IOException {
+  public LocalSessionFactoryBean sessionFactory(DataSource dataSource, RuntimeConfiguration runtimeConfiguration)
+      throws IOException {
     LocalSessionFactoryBean bean = new LocalSessionFactoryBean();
     bean.setDataSource(dataSource);
     bean.setSchemaUpdate(true);
 
     Properties hibernateProperties = new Properties();
     hibernateProperties.setProperty("hibernate.dialect", "org.hibernate.dialect.HSQLDialect");
+    RhinoConfiguration.setJdbcBatchProperties(hibernateProperties,
+        runtimeConfiguration.getIngestionConfiguration().getJdbcBatchSize());
+    hibernateProperties.setProperty("hibernate.jdbc.factory_class", RecordingBatcherFactory.class.getName());
     bean.setHibernateProperties(hibernateProperties);
 
     return bean;
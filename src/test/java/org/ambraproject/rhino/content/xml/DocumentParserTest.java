@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2017 Public Library of Science
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package org.ambraproject.rhino.content.xml;
+
+import org.testng.annotations.Test;
+import org.w3c.dom.Document;
+import org.xml.sax.SAXException;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class DocumentParserTest {
+
+  private static InputStream stream(String xml) {
+    return new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testReuseAfterFailure() throws Exception {
+    try {
+      DocumentParser.parse(stream("<a><b></a>"));
+      fail("Expected SAXException");
+    } catch (SAXException expected) {
+    }
+    Document document = DocumentParser.parse(stream("<a xmlns:x=\"urn:x\"><x:b/></a>"));
+    assertEquals(document.getDocumentElement().getFirstChild().getNamespaceURI(), "urn:x");
+  }
+
+  @Test
+  public void testDeferredExpansion() throws Exception {
+    File file = new File("src/test/resources/articles/pone.0016329.xml");
+    Document expanded;
+    try (InputStream stream = new FileInputStream(file)) {
+      expanded = DocumentParser.parse(stream);
+    }
+    Document deferred;
+    try (InputStream stream = new FileInputStream(file)) {
+      deferred = DocumentParser.parse(stream, DocumentParser.DEFERRED_EXPANSION_THRESHOLD);
+    }
+    assertTrue(deferred.isEqualNode(expanded));
+  }
+
+  @Test
+  public void testStatistics() throws Exception {
+    DocumentParser.Statistics before = DocumentParser.getStatistics();
+    String xml = "<a>text</a>";
+    DocumentParser.parse(stream(xml));
+    DocumentParser.Statistics after = DocumentParser.getStatistics();
+    assertTrue(after.getParseCount() > before.getParseCount());
+    assertTrue(after.getTotalBytes() >= before.getTotalBytes() + xml.length());
+  }
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2017 Public Library of Science
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package org.ambraproject.rhino.content.xml;
+
+import org.ambraproject.rhino.BaseRhinoTest;
+import org.ambraproject.rhino.model.article.ArticleCustomMetadata;
+import org.ambraproject.rhino.model.article.ArticleMetadata;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import org.w3c.dom.Document;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
+
+public class StreamingManuscriptReaderTest extends BaseRhinoTest {
+
+  @Autowired
+  private StreamingManuscriptReader.Factory streamingManuscriptReaderFactory;
+  @Autowired
+  private CustomMetadataExtractor.Factory customMetadataExtractorFactory;
+
+  @DataProvider
+  public Object[][] manuscripts() {
+    File[] manuscripts = new File("src/test/resources/articles/").listFiles((dir, name) -> name.endsWith(".xml"));
+    return Arrays.stream(manuscripts).map(file -> new Object[]{file}).toArray(Object[][]::new);
+  }
+
+  /**
+   * Check that the streaming reader produces the same metadata as the DOM-based readers, or fails in the same way.
+   */
+  @Test(dataProvider = "manuscripts")
+  public void testParity(File manuscript) throws Exception {
+    Document document = DocumentParser.newDocumentBuilder().parse(manuscript);
+    ArticleXml articleXml = new ArticleXml(document);
+
+    ArticleMetadata expectedMetadata;
+    ArticleCustomMetadata expectedCustomMetadata;
+    try {
+      expectedMetadata = articleXml.build();
+      expectedCustomMetadata = customMetadataExtractorFactory.parse(document).build();
+    } catch (XmlContentException expected) {
+      try (InputStream stream = new BufferedInputStream(new FileInputStream(manuscript))) {
+        streamingManuscriptReaderFactory.read(stream);
+        fail("Expected: " + expected);
+      } catch (XmlContentException actual) {
+        assertEquals(actual.getMessage(), expected.getMessage());
+      }
+      return;
+    }
+
+    StreamingManuscriptReader.Result result;
+    try (InputStream stream = new BufferedInputStream(new FileInputStream(manuscript))) {
+      result = streamingManuscriptReaderFactory.read(stream);
+    }
+    assertEquals(result.getArticleMetadata(), expectedMetadata);
+    assertEquals(result.getCustomMetadata(), expectedCustomMetadata);
+    assertEquals(result.getAssetNodeNames(), articleXml.findAllAssetNodes().getNodeNames());
+  }
+
+}
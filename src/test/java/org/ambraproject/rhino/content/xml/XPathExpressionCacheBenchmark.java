@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2017 Public Library of Science
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package org.ambraproject.rhino.content.xml;
+
+import com.google.common.collect.ImmutableList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.w3c.dom.Document;
+import org.xml.sax.SAXException;
+
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares evaluating the manuscript queries from source on every call against evaluating them from {@link
+ * XPathExpressionCache}, over the test article corpus, along with the cost of only compiling them, which is what the
+ * cache saves.
+ * <p/>
+ * This is not run as part of the test suite. To run it, compile the test classes and run {@link #main} with the test
+ * classpath from the project's root directory.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class XPathExpressionCacheBenchmark {
+
+  /**
+   * A sample of the queries that {@link ArticleXml} and {@link AssetXml} evaluate against every manuscript.
+   */
+  private static final ImmutableList<String> QUERIES = ImmutableList.of(
+      "/article/front/article-meta/article-id[@pub-id-type=\"doi\"]",
+      "/article/front/article-meta/title-group/article-title",
+      "/article/front/journal-meta/issn[@pub-type=\"epub\"]",
+      "/article/front/article-meta/abstract[@abstract-type=\"toc\"]",
+      "/article/front/article-meta/permissions/copyright-statement",
+      "/article/front/article-meta/counts/page-count/@count",
+      "/article/front/article-meta/elocation-id",
+      "/article/front/article-meta/pub-date[@pub-type=\"epub\"]",
+      "/article/front/article-meta/contrib-group/contrib[@contrib-type=\"editor\"]/name",
+      "//related-article",
+      AbstractArticleXml.ASSET_EXPRESSION,
+      "//custom-meta-group/custom-meta");
+
+  private List<Document> manuscripts;
+  private XPath xPath;
+
+  @Setup
+  public void setUp() throws IOException, SAXException {
+    File[] files = new File("src/test/resources/articles/").listFiles((dir, name) -> name.endsWith(".xml"));
+    manuscripts = new ArrayList<>(files.length);
+    for (File file : files) {
+      manuscripts.add(DocumentParser.newDocumentBuilder().parse(file));
+    }
+    xPath = XPathFactory.newInstance().newXPath();
+  }
+
+  @Benchmark
+  public void evaluateFromSource(Blackhole blackhole) throws XPathExpressionException {
+    for (Document manuscript : manuscripts) {
+      for (String query : QUERIES) {
+        blackhole.consume(xPath.evaluate(query, manuscript, XPathConstants.NODESET));
+      }
+    }
+  }
+
+  @Benchmark
+  public void evaluateFromCache(Blackhole blackhole) throws XPathExpressionException {
+    for (Document manuscript : manuscripts) {
+      for (String query : QUERIES) {
+        blackhole.consume(XPathExpressionCache.compile(query).evaluate(manuscript, XPathConstants.NODESET));
+      }
+    }
+  }
+
+  /**
+   * Compile the queries as often as {@link #evaluateFromSource} does, without evaluating them.
+   */
+  @Benchmark
+  public void compileOnly(Blackhole blackhole) throws XPathExpressionException {
+    for (int i = 0; i < manuscripts.size(); i++) {
+      for (String query : QUERIES) {
+        blackhole.consume(xPath.compile(query));
+      }
+    }
+  }
+
+  /**
+   * End-to-end cost of reading article metadata, which now goes through the cache.
+   */
+  @Benchmark
+  public void buildArticleMetadata(Blackhole blackhole) {
+    for (Document manuscript : manuscripts) {
+      try {
+        blackhole.consume(new ArticleXml(manuscript).build());
+      } catch (XmlContentException e) {
+        blackhole.consume(e); // some test cases are deliberately invalid
+      }
+    }
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(XPathExpressionCacheBenchmark.class.getSimpleName()).build()).run();
+  }
+
+}
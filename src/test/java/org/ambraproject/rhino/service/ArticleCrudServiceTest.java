@@ -29,8 +29,12 @@ import com.google.common.primitives.Bytes;
 import com.google.gson.Gson;
 import org.ambraproject.rhino.BaseRhinoTransactionalTest;
 import org.ambraproject.rhino.RhinoTestHelper;
+import org.ambraproject.rhino.identity.Doi;
 import org.ambraproject.rhino.model.Article;
+import org.ambraproject.rhino.model.ArticleIngestion;
+import org.ambraproject.rhino.model.ArticleItem;
 import org.ambraproject.rhino.model.Category;
+import org.ambraproject.rhino.model.Journal;
 import org.ambraproject.rhino.rest.RestClientException;
 import org.ambraproject.rhino.service.impl.IngestionService;
 import org.ambraproject.rhino.service.taxonomy.DummyTaxonomyClassificationService;
@@ -51,6 +55,7 @@ import org.testng.annotations.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -216,6 +221,59 @@ public class ArticleCrudServiceTest extends BaseRhinoTransactionalTest {
 //    assertEquals(dois, ImmutableSet.of(a1.getDoi(), a2.getDoi()));
   }
 
+  private ArticleIngestion createIngestion(Journal journal, String articleDoi, int itemCount) {
+    Article article = new Article();
+    article.setDoi(articleDoi);
+    hibernateTemplate.save(article);
+
+    ArticleIngestion ingestion = new ArticleIngestion();
+    ingestion.setArticle(article);
+    ingestion.setJournal(journal);
+    ingestion.setIngestionNumber(1);
+    hibernateTemplate.save(ingestion);
+
+    for (int i = 0; i < itemCount; i++) {
+      ArticleItem item = new ArticleItem();
+      item.setIngestion(ingestion);
+      item.setDoi(String.format("%s.g%04d", articleDoi, i));
+      item.setItemType("figure");
+      hibernateTemplate.save(item);
+    }
+    return ingestion;
+  }
+
+  /**
+   * Query for more item DOIs than fit in one {@code IN} list, with one article's items split across lists.
+   */
+  @Test
+  public void testGetOwningArticleDois() {
+    Journal journal = RhinoTestHelper.createDummyJournal("0000-0001");
+    hibernateTemplate.save(journal);
+    String articleDoi1 = "10.1371/journal.pcrud.0000001";
+    String articleDoi2 = "10.1371/journal.pcrud.0000002";
+    String articleDoi3 = "10.1371/journal.pcrud.0000003";
+    createIngestion(journal, articleDoi1, 450);
+    createIngestion(journal, articleDoi2, 650);
+    createIngestion(journal, articleDoi3, 10);
+    hibernateTemplate.flush();
+
+    List<Doi> itemDois = new ArrayList<>();
+    for (int i = 0; i < 450; i++) {
+      itemDois.add(Doi.create(String.format("%s.g%04d", articleDoi1, i)));
+    }
+    for (int i = 0; i < 650; i++) {
+      itemDois.add(Doi.create(String.format("%s.g%04d", articleDoi2, i)));
+    }
+    for (int i = 0; i < 100; i++) {
+      itemDois.add(Doi.create(String.format("10.1371/journal.pcrud.9999999.g%04d", i))); // owned by no article
+    }
+    itemDois.add(itemDois.get(0)); // a duplicate
+
+    assertEquals(articleCrudService.getOwningArticleDois(itemDois), ImmutableSet.of(articleDoi1, articleDoi2));
+    assertEquals(articleCrudService.getOwningArticleDois(itemDois.subList(450, 1100)), ImmutableSet.of(articleDoi2));
+    assertEquals(articleCrudService.getOwningArticleDois(itemDois.subList(1100, 1200)), ImmutableSet.of());
+  }
+
   @Test(enabled = false)
   public void testArticleType() throws Exception {
     Article article = new Article();//RhinoTestHelper.createTestArticle(articleCrudService);
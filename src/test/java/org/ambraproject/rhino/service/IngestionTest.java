@@ -28,11 +28,15 @@ import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.common.io.ByteSource;
 import com.google.gson.Gson;
 import org.ambraproject.rhino.BaseRhinoTest;
 import org.ambraproject.rhino.RhinoTestHelper;
+import org.ambraproject.rhino.content.xml.XmlContentException;
 import org.ambraproject.rhino.identity.ArticleIdentifier;
 import org.ambraproject.rhino.model.Article;
+import org.ambraproject.rhino.model.ArticleFile;
+import org.ambraproject.rhino.model.ArticleIngestion;
 import org.ambraproject.rhino.model.ArticleRelationship;
 import org.ambraproject.rhino.model.Category;
 import org.ambraproject.rhino.model.Journal;
@@ -40,8 +44,11 @@ import org.ambraproject.rhino.model.article.ArticleMetadata;
 import org.ambraproject.rhino.model.article.AssetMetadata;
 import org.ambraproject.rhino.model.article.NlmPerson;
 import org.ambraproject.rhino.model.article.RelatedArticleLink;
+import org.ambraproject.rhino.service.impl.IngestionService;
 import org.ambraproject.rhino.test.AssertionCollector;
+import org.ambraproject.rhino.util.Archive;
 import org.ambraproject.rhino.util.StringReplacer;
+import org.apache.commons.io.IOUtils;
 import org.hibernate.Criteria;
 import org.hibernate.criterion.DetachedCriteria;
 import org.hibernate.criterion.Restrictions;
@@ -49,21 +56,29 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.support.DataAccessUtils;
+import org.springframework.orm.hibernate3.HibernateTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
 
 import javax.annotation.Nullable;
 import java.io.File;
 import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.OptionalInt;
 import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
 
 /**
  * Special test suite for testing ingestion features, using the legacy Admin app as a reference implementation.
@@ -93,6 +108,10 @@ public class IngestionTest extends BaseRhinoTest {
   private ArticleCrudService articleCrudService;
   @Autowired
   private Gson entityGson;
+  @Autowired
+  private IngestionService ingestionService;
+  @Autowired
+  private HibernateTransactionManager transactionManager;
 
   /**
    * Test cases that we want to exclude from normal runs.
@@ -125,7 +144,7 @@ public class IngestionTest extends BaseRhinoTest {
        *
        * This is a questionable exclusion because we probably should be applying DTD validation (and getting the
        * consequent changes in output) anyway, using locally stored copies of the DTD files if necessary.
-       * See org.ambraproject.rhino.service.impl.AmbraService.newDocumentBuilder.
+       * See org.ambraproject.rhino.content.xml.DocumentParser.
        *
        * TODO: Re-examine DTD validation; try to make this case pass and delete the exclusion.
        */
@@ -209,6 +228,66 @@ public class IngestionTest extends BaseRhinoTest {
     }
   }
 
+  private Map<String, ArticleFile> getFilesByName(ArticleIngestion ingestion) {
+    List<ArticleFile> files = (List<ArticleFile>) hibernateTemplate.findByCriteria(DetachedCriteria
+        .forClass(ArticleFile.class)
+        .add(Restrictions.eq("ingestion", ingestion)));
+    return Maps.uniqueIndex(files, ArticleFile::getIngestedFileName);
+  }
+
+  /**
+   * Ingest an article, then a partial archive that leaves out one of its files and changes another, and check that
+   * only the left-out file refers to the base ingestion's repo object.
+   */
+  @Test
+  public void testDeltaIngestion() throws Exception {
+    createTestJournal("1932-6203");
+    File sampleFile = new File(ZIP_DATA_PATH, "pone.0056489" + ZIP_SUFFIX);
+    String inheritedEntry = "pone.0056489.g001.PNG_I";
+    String changedEntry = "pone.0056489.g002.PNG_I";
+    TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+    Map<String, ByteSource> partialEntries = new HashMap<>();
+    ArticleIngestion base;
+    try (Archive archive = Archive.readZipFileIntoMemory(sampleFile)) {
+      base = transaction.execute(status -> {
+        try {
+          return ingestionService.ingest(archive);
+        } catch (IOException | XmlContentException e) {
+          throw new RuntimeException(e);
+        }
+      });
+      for (String entryName : archive.getEntryNames()) {
+        if (entryName.equals(inheritedEntry)) continue;
+        byte[] content;
+        try (InputStream stream = archive.openFile(entryName)) {
+          content = IOUtils.toByteArray(stream);
+        }
+        if (entryName.equals(changedEntry)) {
+          content = Arrays.copyOf(content, content.length + 1);
+        }
+        partialEntries.put(entryName, ByteSource.wrap(content));
+      }
+    }
+
+    Archive partialArchive = Archive.pack("pone.0056489" + ZIP_SUFFIX, partialEntries);
+    int baseIngestionNumber = base.getIngestionNumber();
+    ArticleIngestion delta = transaction.execute(status -> {
+      try {
+        return ingestionService.ingest(partialArchive, OptionalInt.of(baseIngestionNumber));
+      } catch (IOException | XmlContentException e) {
+        throw new RuntimeException(e);
+      }
+    });
+    assertEquals(delta.getIngestionNumber(), baseIngestionNumber + 1);
+
+    Map<String, ArticleFile> baseFiles = getFilesByName(base);
+    Map<String, ArticleFile> deltaFiles = getFilesByName(delta);
+    assertEquals(deltaFiles.keySet(), baseFiles.keySet());
+    assertEquals(deltaFiles.get(inheritedEntry).getCrepoUuid(), baseFiles.get(inheritedEntry).getCrepoUuid());
+    assertNotEquals(deltaFiles.get(changedEntry).getCrepoUuid(), baseFiles.get(changedEntry).getCrepoUuid());
+  }
+
 //  @Test(dataProvider = "generatedIngestionData", enabled = false)
 //  public void testIngestion(File jsonFile, File xmlFile) throws Exception {
 //    final Article expected = RhinoTestHelper.readReferenceCase(jsonFile);
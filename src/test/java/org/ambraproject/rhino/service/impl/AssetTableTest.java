@@ -32,6 +32,7 @@ import com.google.common.collect.Ordering;
 import com.google.common.hash.Hashing;
 import com.google.gson.Gson;
 import org.ambraproject.rhino.content.xml.ArticleXml;
+import org.ambraproject.rhino.content.xml.DocumentParser;
 import org.ambraproject.rhino.content.xml.ManifestXml;
 import org.ambraproject.rhino.util.Archive;
 import org.plos.crepo.model.input.RepoCollectionInput;
@@ -77,7 +78,7 @@ public class AssetTableTest {
 
   private static Document parseFrom(Archive archive, String entryName) throws IOException {
     try (InputStream stream = archive.openFile(entryName)) {
-      return AmbraService.newDocumentBuilder().parse(stream);
+      return DocumentParser.newDocumentBuilder().parse(stream);
     } catch (SAXException e) {
       throw new RuntimeException(e);
     }
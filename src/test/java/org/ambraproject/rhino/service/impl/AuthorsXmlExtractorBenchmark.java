@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2017 Public Library of Science
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package org.ambraproject.rhino.service.impl;
+
+import org.ambraproject.rhino.content.xml.DocumentParser;
+import org.ambraproject.rhino.content.xml.XpathReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.w3c.dom.Document;
+import org.xml.sax.SAXException;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link AuthorsXmlExtractor} over the test article corpus, which includes consortium papers with over a
+ * hundred authors.
+ * <p/>
+ * This is not run as part of the test suite. To run it, compile the test classes and run {@link #main} with the test
+ * classpath from the project's root directory.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class AuthorsXmlExtractorBenchmark {
+
+  private List<Document> manuscripts;
+  private XpathReader xpathReader;
+
+  @Setup
+  public void setUp() throws IOException, SAXException {
+    File[] files = new File("src/test/resources/articles/").listFiles((dir, name) -> name.endsWith(".xml"));
+    manuscripts = new ArrayList<>(files.length);
+    for (File file : files) {
+      manuscripts.add(DocumentParser.newDocumentBuilder().parse(file));
+    }
+    xpathReader = new XpathReader();
+  }
+
+  @Benchmark
+  public void getAuthors(Blackhole blackhole) {
+    for (Document manuscript : manuscripts) {
+      blackhole.consume(AuthorsXmlExtractor.getAuthors(manuscript));
+    }
+  }
+
+  /**
+   * Everything that is stored for an ingestion's authors view.
+   */
+  @Benchmark
+  public void getAllAuthors(Blackhole blackhole) {
+    for (Document manuscript : manuscripts) {
+      blackhole.consume(AuthorsXmlExtractor.getAllAuthors(manuscript, xpathReader));
+    }
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(AuthorsXmlExtractorBenchmark.class.getSimpleName()).build()).run();
+  }
+
+}
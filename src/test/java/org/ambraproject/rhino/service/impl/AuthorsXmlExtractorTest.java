@@ -25,19 +25,20 @@ package org.ambraproject.rhino.service.impl;
 import com.google.common.collect.ImmutableList;
 import edu.emory.mathcs.backport.java.util.Arrays;
 import org.ambraproject.rhino.BaseRhinoTest;
-import org.ambraproject.rhino.content.xml.XpathReader;
 import org.ambraproject.rhino.view.article.author.AuthorView;
+import org.ambraproject.rhino.view.article.author.Orcid;
 import org.apache.commons.lang3.StringEscapeUtils;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 import org.w3c.dom.Document;
 
 import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Iterator;
 import java.util.List;
 
@@ -45,9 +46,6 @@ import static org.testng.Assert.assertEquals;
 
 public class AuthorsXmlExtractorTest extends BaseRhinoTest {
 
-  @Autowired
-  private XpathReader xpathReader;
-
   private static final File DATA_PATH = new File("src/test/resources/articles/");
 
   private static Document parseTestFile(String filename) throws IOException {
@@ -60,7 +58,7 @@ public class AuthorsXmlExtractorTest extends BaseRhinoTest {
   @Test(dataProvider = "authorTestData")
   public void testGetAuthors(String filename, AuthorView[] expected) throws Exception {
     Document doc = parseTestFile(filename);
-    List<AuthorView> actual = AuthorsXmlExtractor.getAuthors(doc, xpathReader);
+    List<AuthorView> actual = AuthorsXmlExtractor.getAuthors(doc);
     assertEquals(actual, Arrays.asList(expected));
   }
 
@@ -315,6 +313,136 @@ public class AuthorsXmlExtractorTest extends BaseRhinoTest {
   }
 
 
+  @Test(dataProvider = "authorEdgeCases")
+  public void testGetAuthorsEdgeCases(String articleMeta, AuthorView[] expected) throws Exception {
+    String xml = "<article><front><article-meta>" + articleMeta + "</article-meta></front></article>";
+    Document doc = AmbraService.parseXml(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+    List<AuthorView> actual = AuthorsXmlExtractor.getAuthors(doc);
+    assertEquals(actual, Arrays.asList(expected));
+  }
+
+  /**
+   * Hand-written cases for markup that the test articles don't exercise. The expected values are what the extractor
+   * produced before it was rewritten to read the document in one pass.
+   */
+  @DataProvider(name = "authorEdgeCases")
+  public static Object[][] getAuthorEdgeCases() {
+    return new Object[][]{
+        // Nested contribs: a contrib's own name is read only from its direct <name> child, and authors nested in a
+        // contrib or a collab are listed again on their own
+        {"" +
+            "<contrib-group>" +
+            "<contrib contrib-type=\"author\"><name><surname>Outer</surname><given-names>Olga</given-names></name>" +
+            "<xref ref-type=\"aff\" rid=\"aff1\"/>" +
+            "<contrib-group><contrib contrib-type=\"author\">" +
+            "<name><surname>Inner</surname><given-names>Ida</given-names><suffix>II</suffix></name>" +
+            "<xref ref-type=\"aff\" rid=\"aff2\"/></contrib></contrib-group></contrib>" +
+            "<contrib contrib-type=\"author\"><collab>The Study Group<contrib-group><contrib contrib-type=\"author\">" +
+            "<name><surname>Member</surname><given-names>Max</given-names></name></contrib></contrib-group></collab>" +
+            "</contrib>" +
+            "<contrib contrib-type=\"editor\"><name><surname>Editor</surname><given-names>Ed</given-names></name></contrib>" +
+            "</contrib-group>" +
+            "<aff id=\"aff1\"><addr-line>First Institute, City</addr-line></aff>" +
+            "<aff id=\"aff2\"><institution>Second Institute</institution><addr-line>Town</addr-line></aff>",
+            new AuthorView[]{
+                AuthorView.builder().setGivenNames("Olga").setSurnames("Outer").setSuffix("II")
+                    .setAffiliations(ImmutableList.of("First Institute, City", "Second Institute Town"))
+                    .build(),
+                AuthorView.builder().setGivenNames("Ida").setSurnames("Inner").setSuffix("II")
+                    .setAffiliations(ImmutableList.of("Second Institute Town"))
+                    .build(),
+                AuthorView.builder().setGivenNames("The Study GroupMemberMax").build(),
+                AuthorView.builder().setGivenNames("Max").setSurnames("Member").build(),
+            }},
+
+        // Current address symbols: only the first text of a <sup> is searched for the symbol, and a CDATA section
+        // counts as part of the text next to it
+        {"" +
+            "<contrib-group>" +
+            "<contrib contrib-type=\"author\"><name><surname>Mover</surname><given-names>Mia</given-names></name>" +
+            "<xref ref-type=\"fn\" rid=\"cor1\"><sup><![CDATA[\u00A4]]>a</sup></xref>" +
+            "<xref ref-type=\"fn\" rid=\"cor2\"><sup>b<![CDATA[\u00A4]]></sup></xref>" +
+            "<xref ref-type=\"fn\" rid=\"cor3\"><sup><b>c</b>\u00A4</sup></xref>" +
+            "<xref ref-type=\"fn\" rid=\"cor4\"><sup>d</sup></xref></contrib>" +
+            "</contrib-group>" +
+            "<author-notes>" +
+            "<fn fn-type=\"current-aff\" id=\"cor1\"><p>Current address: First Place</p></fn>" +
+            "<fn fn-type=\"current-aff\" id=\"cor2\"><p>Current address: Second Place</p></fn>" +
+            "<fn fn-type=\"current-aff\" id=\"cor3\"><p>Current address: Third Place</p></fn>" +
+            "<fn fn-type=\"current-aff\" id=\"cor4\"><p>Current address: Fourth Place</p></fn>" +
+            "</author-notes>",
+            new AuthorView[]{
+                AuthorView.builder().setGivenNames("Mia").setSurnames("Mover")
+                    .setCurrentAddresses(ImmutableList.of("Current address: First Place", "Second Place", "Third Place"))
+                    .build(),
+            }},
+
+        // Duplicate ids: the last affiliation, address or footnote with an id is used, but the first corresponding
+        // author note
+        {"" +
+            "<contrib-group>" +
+            "<contrib contrib-type=\"author\"><name><surname>Twice</surname><given-names>Tom</given-names></name>" +
+            "<xref ref-type=\"aff\" rid=\"aff1\"/><xref ref-type=\"corresp\" rid=\"cor1\"/>" +
+            "<xref ref-type=\"fn\" rid=\"fn1\"/><xref ref-type=\"fn\" rid=\"fn2\"><sup>\u00A4</sup></xref></contrib>" +
+            "<contrib contrib-type=\"author\"><name><surname>Also</surname><given-names>Ann</given-names></name>" +
+            "<xref ref-type=\"fn\" rid=\"fn1\"/></contrib>" +
+            "</contrib-group>" +
+            "<aff id=\"aff1\"><institution>First Copy</institution></aff>" +
+            "<aff id=\"aff1\"><institution>Second Copy</institution></aff>" +
+            "<author-notes>" +
+            "<corresp id=\"cor1\">* E-mail: <email>first@example.org</email></corresp>" +
+            "<corresp id=\"cor1\">* E-mail: <email>second@example.org</email></corresp>" +
+            "<fn fn-type=\"other\" id=\"fn1\"><p>First footnote</p></fn>" +
+            "<fn fn-type=\"other\" id=\"fn1\"><p>Second footnote</p></fn>" +
+            "<fn fn-type=\"current-aff\" id=\"fn2\"><p>Current address: First Address</p></fn>" +
+            "<fn fn-type=\"current-aff\" id=\"fn2\"><p>Current address: Second Address</p></fn>" +
+            "</author-notes>",
+            new AuthorView[]{
+                AuthorView.builder().setGivenNames("Tom").setSurnames("Twice").setRelatedFootnote(true)
+                    .setCorresponding("<span class=\"email\">* E-mail:</span> <a href=\"mailto:first@example.org\">first@example.org</a>")
+                    .setCurrentAddresses(ImmutableList.of("Current address: Second Address"))
+                    .setAffiliations(ImmutableList.of("Second Copy"))
+                    .setCustomFootnotes(ImmutableList.of("<p><span class=\"rel-footnote\">\u00B6</span>Second footnote</p>"))
+                    .build(),
+                AuthorView.builder().setGivenNames("Ann").setSurnames("Also").setRelatedFootnote(true)
+                    .setCustomFootnotes(ImmutableList.of("<p><span class=\"rel-footnote\">\u00B6</span>Second footnote</p>"))
+                    .build(),
+            }},
+
+        // ORCID ids are read only from a contrib's direct children. Deceased, equal-contrib and corresponding
+        // authors, where only the first corresp xref counts and only notes in <author-notes> are found.
+        {"" +
+            "<contrib-group>" +
+            "<contrib contrib-type=\"author\" deceased=\"yes\" equal-contrib=\"yes\">" +
+            "<contrib-id contrib-id-type=\"orcid\" authenticated=\"true\">http://orcid.org/0000-0001-2345-6789</contrib-id>" +
+            "<name><surname>Orcid</surname><given-names>Oscar</given-names></name>" +
+            "<role content-type=\"http://credit.casrai.org/\">Writing</role><xref ref-type=\"corresp\" rid=\"cor1\"/></contrib>" +
+            "<contrib contrib-type=\"author\">" +
+            "<contrib-id contrib-id-type=\"orcid\">http://orcid.org/0000-0002-3456-7890</contrib-id>" +
+            "<name><surname>Unverified</surname><given-names>Una</given-names></name></contrib>" +
+            "<contrib contrib-type=\"author\"><name><surname>Nested</surname><given-names>Ned</given-names>" +
+            "<contrib-id contrib-id-type=\"orcid\">http://orcid.org/0000-0003-4567-8901</contrib-id></name>" +
+            "<xref ref-type=\"corresp\" rid=\"cor2\"/><xref ref-type=\"corresp\" rid=\"cor1\"/></contrib>" +
+            "</contrib-group>" +
+            "<corresp id=\"cor2\">Not an author note</corresp>" +
+            "<author-notes>" +
+            "<corresp id=\"cor1\">* E-mail: <email xlink:type=\"simple\" xmlns:xlink=\"http://www.w3.org/1999/xlink\">" +
+            "oscar@example.org</email></corresp>" +
+            "</author-notes>",
+            new AuthorView[]{
+                AuthorView.builder().setGivenNames("Oscar").setSurnames("Orcid")
+                    .setOrcid(new Orcid("http://orcid.org/0000-0001-2345-6789", true))
+                    .setEqualContrib(true).setDeceased(true)
+                    .setCorresponding("<span class=\"email\">* E-mail:</span> <a href=\"mailto:oscar@example.org\">oscar@example.org</a>")
+                    .build(),
+                AuthorView.builder().setGivenNames("Una").setSurnames("Unverified")
+                    .setOrcid(new Orcid("http://orcid.org/0000-0002-3456-7890", false))
+                    .build(),
+                AuthorView.builder().setGivenNames("Ned").setSurnames("Nested").build(),
+            }},
+    };
+  }
+
   // Below: Utilities for representing AuthorView objects as Java constants.
   // May be used manually to generate regression test case code from known-to-be-good cases.
 
@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2017 Public Library of Science
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package org.ambraproject.rhino.service.impl;
+
+import com.google.common.collect.ImmutableList;
+import org.ambraproject.rhino.BaseRhinoTest;
+import org.ambraproject.rhino.RhinoTestHelper;
+import org.ambraproject.rhino.identity.ArticleIngestionIdentifier;
+import org.ambraproject.rhino.rest.RestClientException;
+import org.ambraproject.rhino.util.Archive;
+import org.ambraproject.rhino.view.article.BulkIngestionView;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalInt;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class BulkIngestionServiceTest extends BaseRhinoTest {
+
+  private static final File SAMPLE_ARCHIVE = new File("src/test/resources/articles/pone.0056489.zip");
+
+  @Autowired
+  private BulkIngestionService bulkIngestionService;
+  @Autowired
+  private IngestionService ingestionService;
+
+  private static File createArchive(byte[] content) throws IOException {
+    File file = Files.createTempFile("bulk-test-", ".zip").toFile();
+    file.deleteOnExit();
+    Files.write(file.toPath(), content);
+    return file;
+  }
+
+  private static File createArchive(boolean withManifest) throws IOException {
+    return createArchive(withManifest ? RhinoTestHelper.createZip("manifest.xml", "<manifest/>")
+        : "not a zip file".getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Create a copy of the sample archive that ingests as a different article.
+   */
+  private static BulkIngestionService.ArchiveFile createSampleArchive(String doiStub) throws IOException {
+    byte[] sample = Files.readAllBytes(SAMPLE_ARCHIVE.toPath());
+    byte[] archive = RhinoTestHelper.alterArchive(sample, "pone.0056489", doiStub);
+    return new BulkIngestionService.ArchiveFile(doiStub + ".zip", createArchive(archive));
+  }
+
+  @Test
+  public void testEmpty() {
+    BulkIngestionView report = bulkIngestionService.ingestAll(new ArrayList<>());
+    assertTrue(report.getResults().isEmpty());
+  }
+
+  @Test
+  public void testIngestAll() throws IOException {
+    RhinoTestHelper.addJournal(hibernateTemplate, "1932-6203");
+    List<String> doiStubs = ImmutableList.of("pone.0056490", "pone.0056491", "pone.0056492");
+    List<BulkIngestionService.ArchiveFile> archives = new ArrayList<>(doiStubs.size());
+    for (String doiStub : doiStubs) {
+      archives.add(createSampleArchive(doiStub));
+    }
+
+    BulkIngestionView report = bulkIngestionService.ingestAll(archives);
+    assertEquals(report.getResults().size(), doiStubs.size());
+    for (int i = 0; i < doiStubs.size(); i++) {
+      BulkIngestionView.ArchiveResult result = report.getResults().get(i);
+      assertEquals(result.getArchiveName(), doiStubs.get(i) + ".zip");
+      assertFalse(result.getError().isPresent(), result.getError().orElse(null));
+      ArticleIngestionIdentifier ingestion = result.getIngestion().get();
+      assertEquals(ingestion.getDoiName(), RhinoTestHelper.prefixed(doiStubs.get(i)));
+      assertEquals(ingestion.getIngestionNumber(), 1);
+    }
+  }
+
+  /**
+   * Persist a batch in which one archive's journal doesn't exist. The batch's transaction fails, and retrying each
+   * archive in its own transaction should ingest the others.
+   */
+  @Test
+  public void testFailedBatchRetried() throws IOException {
+    RhinoTestHelper.addJournal(hibernateTemplate, "1932-6203");
+    byte[] sample = Files.readAllBytes(SAMPLE_ARCHIVE.toPath());
+    byte[] unknownJournal = RhinoTestHelper.alterArchive(
+        RhinoTestHelper.alterArchive(sample, "pone.0056489", "pone.0056491"), "1932-6203", "0000-0000");
+    List<BulkIngestionService.PipelineItem> batch = ImmutableList.of(
+        new BulkIngestionService.PipelineItem(createSampleArchive("pone.0056490")),
+        new BulkIngestionService.PipelineItem(
+            new BulkIngestionService.ArchiveFile("pone.0056491.zip", createArchive(unknownJournal))),
+        new BulkIngestionService.PipelineItem(createSampleArchive("pone.0056492")));
+    try {
+      for (BulkIngestionService.PipelineItem item : batch) {
+        bulkIngestionService.parse(item);
+        bulkIngestionService.upload(item);
+        assertNull(item.getResult(), "Expected the archive to reach the store stage");
+      }
+      bulkIngestionService.persistBatch(batch);
+    } finally {
+      batch.forEach(BulkIngestionService.PipelineItem::close);
+    }
+
+    BulkIngestionView.ArchiveResult failed = batch.get(1).getResult();
+    assertFalse(failed.getIngestion().isPresent());
+    assertEquals(failed.getFailedStage().get(), BulkIngestionService.STORE_STAGE);
+    assertTrue(failed.getError().get().contains("0000-0000"), failed.getError().get());
+
+    for (int i : new int[]{0, 2}) {
+      BulkIngestionView.ArchiveResult result = batch.get(i).getResult();
+      assertFalse(result.getError().isPresent(), result.getError().orElse(null));
+      assertEquals(result.getIngestion().get().getIngestionNumber(), 1);
+    }
+    assertEquals(batch.get(0).getResult().getIngestion().get().getDoiName(), RhinoTestHelper.prefixed("pone.0056490"));
+    assertEquals(batch.get(2).getResult().getIngestion().get().getDoiName(), RhinoTestHelper.prefixed("pone.0056492"));
+  }
+
+  /**
+   * Submit more invalid archives than fit in the queues, and check that each is reported in order.
+   */
+  @Test
+  public void testFailuresReportedInOrder() throws IOException {
+    int archiveCount = 40;
+    List<BulkIngestionService.ArchiveFile> archives = new ArrayList<>(archiveCount);
+    for (int i = 0; i < archiveCount; i++) {
+      archives.add(new BulkIngestionService.ArchiveFile("archive" + i + ".zip", createArchive(i % 2 == 0)));
+    }
+
+    BulkIngestionView report = bulkIngestionService.ingestAll(archives);
+    assertEquals(report.getResults().size(), archiveCount);
+    for (int i = 0; i < archiveCount; i++) {
+      BulkIngestionView.ArchiveResult result = report.getResults().get(i);
+      assertEquals(result.getArchiveName(), "archive" + i + ".zip");
+      assertFalse(result.getIngestion().isPresent());
+      assertTrue(result.getError().isPresent());
+    }
+  }
+
+  /**
+   * An {@link Error} while parsing one archive should fail that archive alone, and not stop the pipeline (and the
+   * request waiting for it) from finishing the others.
+   */
+  @Test(timeOut = 60000)
+  public void testErrorInParseStage() throws IOException {
+    RhinoTestHelper.addJournal(hibernateTemplate, "1932-6203");
+    IngestionService failingIngestionService = spy(ingestionService);
+    doAnswer(invocation -> {
+      Archive archive = invocation.getArgument(0);
+      if (archive.getArchiveName().equals("overflow.zip")) {
+        throw new StackOverflowError();
+      }
+      return invocation.callRealMethod();
+    }).when(failingIngestionService).createIngestPackage(any(Archive.class), any(OptionalInt.class));
+    BulkIngestionService service = new BulkIngestionService();
+    applicationContext.getAutowireCapableBeanFactory().autowireBean(service);
+    service.setIngestionService(failingIngestionService);
+
+    List<BulkIngestionService.ArchiveFile> archives = ImmutableList.of(
+        createSampleArchive("pone.0056490"),
+        new BulkIngestionService.ArchiveFile("overflow.zip", createSampleArchive("pone.0056491").getFile()),
+        createSampleArchive("pone.0056492"));
+    BulkIngestionView report = service.ingestAll(archives);
+
+    assertEquals(report.getResults().size(), archives.size());
+    BulkIngestionView.ArchiveResult failed = report.getResults().get(1);
+    assertEquals(failed.getArchiveName(), "overflow.zip");
+    assertFalse(failed.getIngestion().isPresent());
+    assertEquals(failed.getFailedStage().get(), BulkIngestionService.PARSE_STAGE);
+    assertTrue(failed.getError().get().contains("StackOverflowError"), failed.getError().get());
+    for (int i : new int[]{0, 2}) {
+      BulkIngestionView.ArchiveResult result = report.getResults().get(i);
+      assertFalse(result.getError().isPresent(), result.getError().orElse(null));
+      assertEquals(result.getIngestion().get().getIngestionNumber(), 1);
+    }
+  }
+
+  @Test
+  public void testDirectoryScanDisabled() throws IOException {
+    try {
+      bulkIngestionService.findArchives("articles");
+      fail("Expected RestClientException");
+    } catch (RestClientException e) {
+      assertEquals(e.getResponseStatus(), HttpStatus.FORBIDDEN);
+    }
+  }
+
+}
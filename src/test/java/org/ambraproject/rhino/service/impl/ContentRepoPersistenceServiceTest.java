@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2017 Public Library of Science
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package org.ambraproject.rhino.service.impl;
+
+import org.ambraproject.rhino.BaseRhinoTransactionalTest;
+import org.ambraproject.rhino.model.ArticleFile;
+import org.ambraproject.rhino.model.ArticleIngestion;
+import org.ambraproject.rhino.model.ArticleItem;
+import org.ambraproject.rhino.model.ingest.ArticleFileInput;
+import org.ambraproject.rhino.model.ingest.ArticleItemInput;
+import org.ambraproject.rhino.model.ingest.ArticlePackage;
+import org.ambraproject.rhino.service.ContentRepoPersistenceService.UploadedPackage;
+import org.ambraproject.rhino.util.Archive;
+import org.plos.crepo.model.input.RepoObjectInput;
+import org.plos.crepo.model.metadata.RepoObjectMetadata;
+import org.plos.crepo.service.ContentRepoService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class ContentRepoPersistenceServiceTest extends BaseRhinoTransactionalTest {
+
+  private static final File SAMPLE_ARCHIVE = new File("src/test/resources/articles/pone.0056489.zip");
+
+  @Autowired
+  private ContentRepoService contentRepoService;
+  @Autowired
+  private IngestionService ingestionService;
+
+  private static int countFiles(ArticlePackage articlePackage) {
+    return articlePackage.getAllItems().stream().mapToInt(item -> item.getFiles().size()).sum()
+        + articlePackage.getAncillaryFiles().size();
+  }
+
+  private void assertUploaded(ArticleFile file, ArticleFileInput fileInput) {
+    assertEquals(file.getBucketName(), fileInput.getBucketName());
+    assertEquals(file.getCrepoKey(), fileInput.getCrepoKey());
+    assertEquals(file.getIngestedFileName(), fileInput.getFilename());
+    RepoObjectMetadata metadata = contentRepoService.getRepoObjectMetadata(file.getCrepoVersion());
+    assertEquals(file.getFileSize(), (long) metadata.getSize());
+  }
+
+  /**
+   * Upload every file of the sample package concurrently, and check that each entity refers to the object uploaded for
+   * its own file.
+   */
+  @Test
+  public void testUploadFiles() throws Exception {
+    RepoObjectMetadataCache metadataCache = new RepoObjectMetadataCache(contentRepoService, 1000, 1, TimeUnit.HOURS);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try (Archive archive = Archive.readZipFile(SAMPLE_ARCHIVE)) {
+      ArticlePackage articlePackage = ingestionService.createIngestPackage(archive, OptionalInt.empty())
+          .getArticlePackage();
+      ContentRepoPersistenceServiceImpl service = new ContentRepoPersistenceServiceImpl(
+          contentRepoService, executor, metadataCache, hibernateTemplate);
+      UploadedPackage uploaded = service.uploadFiles(articlePackage).createEntities(new ArticleIngestion());
+
+      assertEquals(uploaded.getItems().size(), articlePackage.getAllItems().size());
+      for (int i = 0; i < uploaded.getItems().size(); i++) {
+        ArticleItemInput itemInput = articlePackage.getAllItems().get(i);
+        ArticleItem item = uploaded.getItems().get(i);
+        assertEquals(item.getDoi(), itemInput.getDoi().getName());
+
+        Map<String, ArticleFile> filesByType = item.getFiles().stream()
+            .collect(Collectors.toMap(ArticleFile::getFileType, Function.identity()));
+        assertEquals(filesByType.keySet(), itemInput.getFiles().keySet());
+        for (Map.Entry<String, ArticleFileInput> entry : itemInput.getFiles().entrySet()) {
+          assertUploaded(filesByType.get(entry.getKey()), entry.getValue());
+        }
+      }
+
+      assertEquals(uploaded.getAncillaryFiles().size(), articlePackage.getAncillaryFiles().size());
+      for (int i = 0; i < uploaded.getAncillaryFiles().size(); i++) {
+        assertUploaded(uploaded.getAncillaryFiles().get(i), articlePackage.getAncillaryFiles().get(i));
+      }
+
+      // Each file was uploaded as an object of its own
+      assertEquals(metadataCache.getSize(), countFiles(articlePackage));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Fail the first upload once the second is running on the other upload thread, with the rest still waiting. The
+   * failure should be rethrown, the running uploads interrupted and the waiting ones never started.
+   */
+  @Test
+  public void testFailedUploadCancelsOthers() throws Exception {
+    RuntimeException failure = new RuntimeException("Upload failed");
+    AtomicInteger startedCount = new AtomicInteger();
+    AtomicInteger interruptedCount = new AtomicInteger();
+    CountDownLatch secondStarted = new CountDownLatch(1);
+    CountDownLatch neverReleased = new CountDownLatch(1);
+    ContentRepoService failingRepoService = mock(ContentRepoService.class);
+    when(failingRepoService.autoCreateRepoObject(any(RepoObjectInput.class))).thenAnswer(invocation -> {
+      if (startedCount.getAndIncrement() == 0) {
+        secondStarted.await(10, TimeUnit.SECONDS);
+        throw failure;
+      }
+      secondStarted.countDown();
+      try {
+        neverReleased.await(10, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        interruptedCount.incrementAndGet();
+        throw e;
+      }
+      throw new AssertionError("Upload was not cancelled");
+    });
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try (Archive archive = Archive.readZipFile(SAMPLE_ARCHIVE)) {
+      ArticlePackage articlePackage = ingestionService.createIngestPackage(archive, OptionalInt.empty())
+          .getArticlePackage();
+      ContentRepoPersistenceServiceImpl service = new ContentRepoPersistenceServiceImpl(failingRepoService, executor,
+          new RepoObjectMetadataCache(failingRepoService, 1000, 1, TimeUnit.HOURS), hibernateTemplate);
+      try {
+        service.uploadFiles(articlePackage);
+        fail("Expected the failed upload's exception");
+      } catch (RuntimeException e) {
+        assertSame(e, failure);
+      }
+
+      executor.shutdown();
+      assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS), "Uploads still running after failure");
+      assertEquals(interruptedCount.get(), startedCount.get() - 1);
+      assertTrue(startedCount.get() < countFiles(articlePackage), "Pending uploads were started");
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2017 Public Library of Science
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package org.ambraproject.rhino.service.impl;
+
+import org.ambraproject.rhino.BaseRhinoTransactionalTest;
+import org.ambraproject.rhino.RhinoTestHelper;
+import org.ambraproject.rhino.config.RecordingBatcherFactory;
+import org.ambraproject.rhino.config.RuntimeConfiguration;
+import org.ambraproject.rhino.model.Article;
+import org.ambraproject.rhino.model.ArticleFile;
+import org.ambraproject.rhino.model.ArticleIngestion;
+import org.ambraproject.rhino.model.ArticleItem;
+import org.ambraproject.rhino.model.Journal;
+import org.ambraproject.rhino.service.HibernatePersistenceService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+
+public class HibernatePersistenceServiceTest extends BaseRhinoTransactionalTest {
+
+  private static final int ITEM_COUNT = 100;
+  private static final int FILES_PER_ITEM = 2;
+  private static final int ANCILLARY_FILE_COUNT = 10;
+
+  @Autowired
+  private HibernatePersistenceService hibernatePersistenceService;
+  @Autowired
+  private RuntimeConfiguration runtimeConfiguration;
+
+  private ArticleIngestion createIngestion() {
+    Journal journal = RhinoTestHelper.createDummyJournal("1932-6203");
+    hibernateTemplate.save(journal);
+
+    Article article = new Article();
+    article.setDoi("10.1371/journal.pbat.0000001");
+    hibernateTemplate.save(article);
+
+    ArticleIngestion ingestion = new ArticleIngestion();
+    ingestion.setArticle(article);
+    ingestion.setJournal(journal);
+    ingestion.setIngestionNumber(1);
+    hibernateTemplate.save(ingestion);
+    return ingestion;
+  }
+
+  private static ArticleFile createFile(ArticleIngestion ingestion, String name) {
+    ArticleFile file = new ArticleFile();
+    file.setIngestion(ingestion);
+    file.setBucketName("testBucket");
+    file.setCrepoKey(name);
+    file.setCrepoUuid("00000000-0000-0000-0000-000000000000");
+    file.setIngestedFileName(name);
+    return file;
+  }
+
+  /**
+   * Check that saving a large package sends its rows in a few JDBC batches per table, not one statement per row, and
+   * that the saved entities have their creation timestamps.
+   */
+  @Test
+  public void testSaveAllIsBatched() {
+    ArticleIngestion ingestion = createIngestion();
+
+    List<ArticleItem> items = new ArrayList<>(ITEM_COUNT);
+    for (int i = 0; i < ITEM_COUNT; i++) {
+      ArticleItem item = new ArticleItem();
+      item.setIngestion(ingestion);
+      item.setDoi(String.format("10.1371/journal.pbat.0000001.g%03d", i));
+      item.setItemType("figure");
+      Collection<ArticleFile> files = new ArrayList<>(FILES_PER_ITEM);
+      for (int j = 0; j < FILES_PER_ITEM; j++) {
+        ArticleFile file = createFile(ingestion, String.format("pbat.0000001.g%03d.%d", i, j));
+        file.setItem(item);
+        file.setFileType("type" + j);
+        files.add(file);
+      }
+      item.setFiles(files);
+      items.add(item);
+    }
+    List<ArticleFile> ancillaryFiles = new ArrayList<>(ANCILLARY_FILE_COUNT);
+    for (int i = 0; i < ANCILLARY_FILE_COUNT; i++) {
+      ancillaryFiles.add(createFile(ingestion, "ancillary" + i));
+    }
+
+    hibernateTemplate.flush();
+    List<String> batches;
+    RecordingBatcherFactory.startRecording();
+    try {
+      ((HibernatePersistenceServiceImpl) hibernatePersistenceService).saveAll(items, ancillaryFiles);
+    } finally {
+      batches = RecordingBatcherFactory.stopRecording();
+    }
+
+    /*
+     * With the default batch size of 50, saveAll flushes after every 17 items with their 34 files, then when 5
+     * ancillary files have joined the rows of the last 15 items, then once more at the end. Each flush sends one batch
+     * to each table that it inserts into.
+     */
+    assertEquals(runtimeConfiguration.getIngestionConfiguration().getJdbcBatchSize(), 50);
+    assertEquals(countBatches(batches, "articleItem"), 6, batches.toString());
+    assertEquals(countBatches(batches, "articleFile"), 7, batches.toString());
+    assertEquals(batches.size(), 13, batches.toString());
+
+    for (ArticleItem item : items) {
+      assertNotNull(item.getCreated());
+      item.getFiles().forEach(file -> assertEquals(file.getCreated(), item.getCreated()));
+    }
+    ancillaryFiles.forEach(file -> assertNotNull(file.getCreated()));
+
+    long storedFileCount = hibernateTemplate.execute(session -> (Long) session
+        .createQuery("SELECT COUNT(*) FROM ArticleFile WHERE ingestion = :ingestion")
+        .setParameter("ingestion", ingestion)
+        .uniqueResult());
+    assertEquals(storedFileCount, ITEM_COUNT * FILES_PER_ITEM + ANCILLARY_FILE_COUNT);
+  }
+
+  private static long countBatches(List<String> batches, String table) {
+    String prefix = "insert into " + table.toLowerCase() + " ";
+    return batches.stream().filter(sql -> sql.toLowerCase().startsWith(prefix)).count();
+  }
+
+}
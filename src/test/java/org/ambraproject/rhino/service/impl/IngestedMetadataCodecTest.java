@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2017 Public Library of Science
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package org.ambraproject.rhino.service.impl;
+
+import org.ambraproject.rhino.BaseRhinoTest;
+import org.ambraproject.rhino.content.xml.ArticleXml;
+import org.ambraproject.rhino.content.xml.CustomMetadataExtractor;
+import org.ambraproject.rhino.content.xml.DocumentParser;
+import org.ambraproject.rhino.content.xml.XmlContentException;
+import org.ambraproject.rhino.content.xml.XpathReader;
+import org.ambraproject.rhino.model.article.IngestedArticleMetadata;
+import org.ambraproject.rhino.view.article.author.ArticleAllAuthorsView;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import org.w3c.dom.Document;
+
+import java.io.File;
+import java.util.Arrays;
+
+import static org.testng.Assert.assertEquals;
+
+public class IngestedMetadataCodecTest extends BaseRhinoTest {
+
+  @Autowired
+  private CustomMetadataExtractor.Factory customMetadataExtractorFactory;
+  @Autowired
+  private XpathReader xpathReader;
+
+  @DataProvider
+  public Object[][] manuscripts() {
+    File[] manuscripts = new File("src/test/resources/articles/").listFiles((dir, name) -> name.endsWith(".xml"));
+    return Arrays.stream(manuscripts).map(file -> new Object[]{file}).toArray(Object[][]::new);
+  }
+
+  @Test(dataProvider = "manuscripts")
+  public void testRoundTrip(File manuscript) throws Exception {
+    Document document = DocumentParser.newDocumentBuilder().parse(manuscript);
+    IngestedArticleMetadata metadata;
+    try {
+      metadata = new IngestedArticleMetadata(new ArticleXml(document).build(),
+          customMetadataExtractorFactory.parse(document).build());
+    } catch (XmlContentException e) {
+      return; // some test cases are deliberately invalid
+    }
+
+    byte[] encoded = IngestedMetadataCodec.encode(metadata);
+    assertEquals(IngestedMetadataCodec.decode(encoded, IngestedArticleMetadata.class), metadata);
+  }
+
+  @Test(dataProvider = "manuscripts")
+  public void testAuthorsRoundTrip(File manuscript) throws Exception {
+    Document document = DocumentParser.newDocumentBuilder().parse(manuscript);
+    ArticleAllAuthorsView authors = AuthorsXmlExtractor.getAllAuthors(document, xpathReader);
+
+    byte[] encoded = IngestedMetadataCodec.encode(authors);
+    ArticleAllAuthorsView decoded = IngestedMetadataCodec.decode(encoded, ArticleAllAuthorsView.class);
+    assertEquals(entityGson.toJson(decoded), entityGson.toJson(authors)); // the view doesn't implement equals
+  }
+
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2017 Public Library of Science
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package org.ambraproject.rhino.service.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.gson.JsonObject;
+import org.ambraproject.rhino.BaseRhinoTest;
+import org.ambraproject.rhino.RhinoTestHelper;
+import org.ambraproject.rhino.model.IngestionJob;
+import org.ambraproject.rhino.service.IngestionJobService;
+import org.ambraproject.rhino.view.article.IngestionJobView;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.OptionalInt;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class IngestionJobServiceTest extends BaseRhinoTest {
+
+  @Autowired
+  private IngestionJobService ingestionJobService;
+  @Autowired
+  private IngestionJobView.Factory ingestionJobViewFactory;
+
+  private IngestionJob awaitFinished(long jobId) throws InterruptedException {
+    for (int i = 0; i < 100; i++) {
+      IngestionJob job = hibernateTemplate.get(IngestionJob.class, jobId);
+      if (job.getState().isFinished()) return job;
+      Thread.sleep(100);
+    }
+    throw new AssertionError("Ingestion job did not finish");
+  }
+
+  @Test
+  public void testInvalidArchive() throws Exception {
+    byte[] archive = RhinoTestHelper.createZip("pone.0000001.xml", "<article/>");
+    IngestionJob submitted = ingestionJobService.submit("pone.0000001.zip", OptionalInt.empty(),
+        file -> Files.write(file.toPath(), archive));
+    assertEquals(submitted.getState(), IngestionJob.State.QUEUED);
+    String spoolFile = submitted.getSpoolFile();
+    assertNotNull(spoolFile);
+
+    IngestionJob finished = awaitFinished(submitted.getJobId());
+    assertEquals(finished.getState(), IngestionJob.State.FAILED);
+    assertEquals(finished.getErrorMessage(), "Archive has no manifest file");
+    assertNull(finished.getIngestion());
+    assertNotNull(finished.getStageTimings());
+    assertNull(finished.getSpoolFile());
+    assertFalse(Files.exists(Paths.get(spoolFile)));
+  }
+
+  @Test
+  public void testUnreadableArchive() throws Exception {
+    IngestionJob submitted = ingestionJobService.submit("notAZip.zip", OptionalInt.empty(),
+        file -> Files.write(file.toPath(), "not a zip file".getBytes(StandardCharsets.UTF_8)));
+
+    IngestionJob finished = awaitFinished(submitted.getJobId());
+    assertEquals(finished.getState(), IngestionJob.State.FAILED);
+    assertNotNull(finished.getErrorMessage());
+  }
+
+  @Test
+  public void testIngestion() throws Exception {
+    RhinoTestHelper.addJournal(hibernateTemplate, "1932-6203");
+    File archive = new File("src/test/resources/articles/pone.0056489.zip");
+    IngestionJob submitted = ingestionJobService.submit("pone.0056489.zip", OptionalInt.empty(),
+        file -> Files.copy(archive.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING));
+    assertEquals(submitted.getOwner(), "test");
+
+    IngestionJob finished = awaitFinished(submitted.getJobId());
+    assertEquals(finished.getState(), IngestionJob.State.SUCCEEDED, finished.getErrorMessage());
+    assertNull(finished.getErrorMessage());
+    assertNotNull(finished.getStarted());
+    assertNotNull(finished.getFinished());
+    assertNull(finished.getSpoolFile());
+    assertEquals(finished.getIngestion().getArticle().getDoi(), "10.1371/journal.pone.0056489");
+    assertEquals(finished.getIngestion().getIngestionNumber(), 1);
+
+    Map<String, Double> stageTimings = entityGson.fromJson(finished.getStageTimings(), Map.class);
+    assertEquals(ImmutableList.copyOf(stageTimings.keySet()), ImmutableList.of("unpack", "parse", "store"));
+    for (double millis : stageTimings.values()) {
+      assertTrue(millis >= 0);
+    }
+
+    JsonObject view = entityGson.toJsonTree(ingestionJobViewFactory.getView(finished)).getAsJsonObject();
+    assertEquals(view.get("jobId").getAsLong(), submitted.getJobId());
+    assertEquals(view.get("state").getAsString(), "SUCCEEDED");
+    assertEquals(view.getAsJsonObject("stageMillis").entrySet().size(), 3);
+    assertTrue(view.has("ingestion"));
+    assertFalse(view.has("error"));
+  }
+
+  private IngestionJob saveQueuedJob(String owner) {
+    IngestionJob job = new IngestionJob();
+    job.setArchiveName("missing.zip");
+    job.setSpoolFile(Paths.get("target", "ingestion-jobs", "missing.zip").toString());
+    job.setState(IngestionJob.State.QUEUED);
+    job.setOwner(owner);
+    hibernateTemplate.save(job);
+    return job;
+  }
+
+  /**
+   * Check that a server resumes its own and unowned jobs, but not other servers' jobs.
+   */
+  @Test
+  public void testResumeJobs() throws Exception {
+    IngestionJob ownJob = saveQueuedJob("test");
+    IngestionJob unownedJob = saveQueuedJob(null);
+    IngestionJob otherJob = saveQueuedJob("other");
+
+    ((IngestionJobServiceImpl) ingestionJobService).resumeJobs();
+
+    // The spool files don't exist, so the jobs that are run fail
+    IngestionJob finishedOwnJob = awaitFinished(ownJob.getJobId());
+    assertEquals(finishedOwnJob.getState(), IngestionJob.State.FAILED);
+    IngestionJob finishedUnownedJob = awaitFinished(unownedJob.getJobId());
+    assertEquals(finishedUnownedJob.getState(), IngestionJob.State.FAILED);
+    assertEquals(finishedUnownedJob.getOwner(), "test");
+
+    IngestionJob notRun = hibernateTemplate.get(IngestionJob.class, otherJob.getJobId());
+    assertEquals(notRun.getState(), IngestionJob.State.QUEUED);
+    assertEquals(notRun.getOwner(), "other");
+    assertNull(notRun.getStarted());
+  }
+
+}
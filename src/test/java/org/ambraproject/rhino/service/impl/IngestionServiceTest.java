@@ -22,25 +22,29 @@
 
 package org.ambraproject.rhino.service.impl;
 
-import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.io.ByteSource;
+import org.ambraproject.rhino.content.xml.ManifestXml;
 import org.ambraproject.rhino.identity.Doi;
-import org.ambraproject.rhino.model.Article;
-import org.ambraproject.rhino.model.ArticleIngestion;
-import org.ambraproject.rhino.model.ArticleItem;
 import org.ambraproject.rhino.rest.RestClientException;
 import org.ambraproject.rhino.util.Archive;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Stream;
 
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
 public class IngestionServiceTest {
 
   private IngestionService ingestionService;
@@ -64,16 +68,6 @@ public class IngestionServiceTest {
     return Archive.pack("test", fileMap);
   }
 
-  private static ArticleItem createStubArticleItem() {
-    ArticleItem articleItem = new ArticleItem();
-    ArticleIngestion articleIngestion = new ArticleIngestion();
-    Article article = new Article();
-    article.setDoi("test");
-    articleItem.setIngestion(articleIngestion);
-    articleIngestion.setArticle(article);
-    return articleItem;
-  }
-
   @DataProvider
   private Iterator<Object[]> getPackageEntryNames() {
 
@@ -114,6 +108,25 @@ public class IngestionServiceTest {
     ingestionService.getManifestXml(invalidTestArchive);
   }
 
+  @Test
+  public void testValidateManifestCompleteness_inherited() throws Exception {
+    ManifestXml manifestXml;
+    Set<String> archiveEntryNames;
+    try (Archive archive = Archive.readZipFileIntoMemory(new File("src/test/resources/articles/pone.0056489.zip"))) {
+      manifestXml = ingestionService.getManifestXml(archive);
+      archiveEntryNames = new HashSet<>(archive.getEntryNames());
+    }
+    String inheritedEntry = "pone.0056489.g001.PNG_I";
+    assertTrue(archiveEntryNames.remove(inheritedEntry));
+
+    manifestXml.validateManifestCompleteness(archiveEntryNames, ImmutableSet.of(inheritedEntry));
+    try {
+      manifestXml.validateManifestCompleteness(archiveEntryNames);
+      fail("Expected RestClientException");
+    } catch (RestClientException expected) {
+    }
+  }
+
   @Test
   public void testValidateManuscript() {
     ingestionService.validateManuscript(Doi.create("test"), "test");
@@ -125,15 +138,15 @@ public class IngestionServiceTest {
   }
 
   @Test
-  public void testValidateAssetUniqueness() {
-    ingestionService.validateAssetUniqueness(Doi.create("test"),
-        ImmutableList.of(createStubArticleItem()));
+  public void testValidateAssetOwners() {
+    ingestionService.validateAssetOwners(Doi.create("test"), ImmutableSet.of("test"));
+    ingestionService.validateAssetOwners(Doi.create("test"), ImmutableSet.of());
   }
 
-  @Test(expectedExceptions = RestClientException.class)
-  public void testValidateAssetUniqueness_invalid() {
-    ingestionService.validateAssetUniqueness(Doi.create("test2"),
-        ImmutableList.of(createStubArticleItem()));
+  @Test(expectedExceptions = RestClientException.class,
+      expectedExceptionsMessageRegExp = ".*Duplicate asset belongs to article doi: test2\\.")
+  public void testValidateAssetOwners_invalid() {
+    ingestionService.validateAssetOwners(Doi.create("test"), ImmutableSet.of("test", "test2"));
   }
 
 }
\ No newline at end of file
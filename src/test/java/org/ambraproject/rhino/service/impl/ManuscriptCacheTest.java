@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2017 Public Library of Science
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package org.ambraproject.rhino.service.impl;
+
+import org.ambraproject.rhino.content.xml.DocumentParser;
+import org.ambraproject.rhino.model.ArticleFile;
+import org.ambraproject.rhino.rest.RestClientException;
+import org.springframework.http.HttpStatus;
+import org.testng.annotations.Test;
+import org.w3c.dom.Document;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.fail;
+
+public class ManuscriptCacheTest {
+
+  private static final byte[] MANUSCRIPT = "<article><front/></article>".getBytes(StandardCharsets.UTF_8);
+
+  private static ArticleFile createFile(String crepoUuid, long fileSize) {
+    ArticleFile file = new ArticleFile();
+    file.setCrepoUuid(crepoUuid);
+    file.setFileSize(fileSize);
+    return file;
+  }
+
+  private static Supplier<Document> countingParser(AtomicInteger count) {
+    return () -> {
+      count.incrementAndGet();
+      try {
+        return DocumentParser.parse(new ByteArrayInputStream(MANUSCRIPT));
+      } catch (Exception e) {
+        throw new RuntimeException(e);
+      }
+    };
+  }
+
+  @Test
+  public void testCopiesAreIndependent() {
+    ManuscriptCache cache = new ManuscriptCache(1024);
+    ArticleFile file = createFile("uuid-1", 100);
+    AtomicInteger parseCount = new AtomicInteger();
+
+    Document first = cache.get(file, countingParser(parseCount));
+    first.getDocumentElement().appendChild(first.createElement("ambra"));
+    Document second = cache.get(file, countingParser(parseCount));
+
+    assertNotSame(second, first);
+    assertEquals(second.getDocumentElement().getChildNodes().getLength(), 1);
+    assertEquals(parseCount.get(), 1);
+    assertEquals(cache.getStats().hitCount(), 1);
+    assertEquals(cache.getStats().missCount(), 1);
+  }
+
+  @Test
+  public void testEviction() {
+    ManuscriptCache cache = new ManuscriptCache(150);
+    AtomicInteger parseCount = new AtomicInteger();
+    cache.get(createFile("uuid-1", 100), countingParser(parseCount));
+    cache.get(createFile("uuid-2", 100), countingParser(parseCount));
+    cache.get(createFile("uuid-1", 100), countingParser(parseCount));
+    assertEquals(parseCount.get(), 3);
+  }
+
+  @Test
+  public void testDisabled() {
+    ManuscriptCache cache = new ManuscriptCache(0);
+    ArticleFile file = createFile("uuid-1", 100);
+    AtomicInteger parseCount = new AtomicInteger();
+    cache.get(file, countingParser(parseCount));
+    cache.get(file, countingParser(parseCount));
+    assertEquals(parseCount.get(), 2);
+    assertEquals(cache.getSize(), 0);
+  }
+
+  @Test
+  public void testExceptionIsNotWrapped() {
+    ManuscriptCache cache = new ManuscriptCache(1024);
+    RestClientException expected = new RestClientException("Not found", HttpStatus.NOT_FOUND);
+    try {
+      cache.get(createFile("uuid-1", 100), () -> {
+        throw expected;
+      });
+      fail("Expected RestClientException");
+    } catch (RestClientException e) {
+      assertEquals(e, expected);
+    }
+  }
+
+}
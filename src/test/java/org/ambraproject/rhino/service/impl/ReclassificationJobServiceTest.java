@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2017 Public Library of Science
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package org.ambraproject.rhino.service.impl;
+
+import com.google.gson.Gson;
+import org.ambraproject.rhino.BaseRhinoTest;
+import org.ambraproject.rhino.model.ReclassificationJob;
+import org.ambraproject.rhino.rest.RestClientException;
+import org.ambraproject.rhino.service.ReclassificationJobService;
+import org.ambraproject.rhino.view.article.ReclassificationJobInputView;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class ReclassificationJobServiceTest extends BaseRhinoTest {
+
+  @Autowired
+  private ReclassificationJobService reclassificationJobService;
+
+  private static ReclassificationJobInputView parseInput(String json) {
+    return new Gson().fromJson(json, ReclassificationJobInputView.class);
+  }
+
+  private ReclassificationJob awaitFinished(long jobId) throws InterruptedException {
+    for (int i = 0; i < 100; i++) {
+      ReclassificationJob job = hibernateTemplate.get(ReclassificationJob.class, jobId);
+      if (job.getState().isFinished()) return job;
+      Thread.sleep(100);
+    }
+    throw new AssertionError("Reclassification job did not finish");
+  }
+
+  @Test
+  public void testMissingArticles() throws Exception {
+    ReclassificationJob submitted = reclassificationJobService.submit(
+        parseInput("{\"dois\": [\"10.1371/journal.pone.9999998\", \"info:doi/10.1371/journal.pone.9999997\"]}"));
+    assertEquals(submitted.getState(), ReclassificationJob.State.QUEUED);
+    assertEquals(submitted.getOwner(), "test");
+    assertEquals(submitted.getDois(), "10.1371/journal.pone.9999997\n10.1371/journal.pone.9999998");
+
+    ReclassificationJob finished = awaitFinished(submitted.getJobId());
+    assertEquals(finished.getState(), ReclassificationJob.State.FINISHED);
+    assertEquals(finished.getTotalCount(), Integer.valueOf(2));
+    assertEquals(finished.getProcessedCount(), 2);
+    assertEquals(finished.getFailedCount(), 2);
+    assertEquals(finished.getLastDoi(), "10.1371/journal.pone.9999998");
+    assertTrue(finished.getRecentErrors().contains("Article not found"));
+  }
+
+  private ReclassificationJob saveQueuedJob(String owner) {
+    ReclassificationJob job = new ReclassificationJob();
+    job.setDois("10.1371/journal.pone.9999999");
+    job.setState(ReclassificationJob.State.QUEUED);
+    job.setOwner(owner);
+    hibernateTemplate.save(job);
+    return job;
+  }
+
+  /**
+   * Check that a server resumes its own and unowned jobs, but not other servers' jobs.
+   */
+  @Test
+  public void testResumeJobs() throws Exception {
+    ReclassificationJob ownJob = saveQueuedJob("test");
+    ReclassificationJob unownedJob = saveQueuedJob(null);
+    ReclassificationJob otherJob = saveQueuedJob("other");
+
+    ((ReclassificationJobServiceImpl) reclassificationJobService).resumeJobs();
+
+    ReclassificationJob finishedOwnJob = awaitFinished(ownJob.getJobId());
+    assertEquals(finishedOwnJob.getState(), ReclassificationJob.State.FINISHED);
+    assertEquals(finishedOwnJob.getProcessedCount(), 1);
+    ReclassificationJob finishedUnownedJob = awaitFinished(unownedJob.getJobId());
+    assertEquals(finishedUnownedJob.getState(), ReclassificationJob.State.FINISHED);
+    assertEquals(finishedUnownedJob.getOwner(), "test");
+    assertEquals(finishedUnownedJob.getProcessedCount(), 1);
+
+    ReclassificationJob notRun = hibernateTemplate.get(ReclassificationJob.class, otherJob.getJobId());
+    assertEquals(notRun.getState(), ReclassificationJob.State.QUEUED);
+    assertEquals(notRun.getOwner(), "other");
+    assertNull(notRun.getStarted());
+    assertEquals(notRun.getProcessedCount(), 0);
+  }
+
+  @Test(expectedExceptions = RestClientException.class)
+  public void testInvalidDate() {
+    reclassificationJobService.submit(parseInput("{\"fromDate\": \"01/01/2016\"}"));
+  }
+
+  @Test(expectedExceptions = RestClientException.class)
+  public void testInvertedDateRange() {
+    reclassificationJobService.submit(parseInput("{\"fromDate\": \"2016-12-31\", \"toDate\": \"2016-01-01\"}"));
+  }
+
+  @Test(expectedExceptions = RestClientException.class)
+  public void testEmptyDoiList() {
+    reclassificationJobService.submit(parseInput("{\"dois\": []}"));
+  }
+
+}
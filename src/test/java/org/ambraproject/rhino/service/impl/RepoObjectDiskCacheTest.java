@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2017 Public Library of Science
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package org.ambraproject.rhino.service.impl;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+import org.plos.crepo.model.identity.RepoVersion;
+import org.plos.crepo.model.input.RepoObjectInput;
+import org.plos.crepo.service.InMemoryContentRepoService;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class RepoObjectDiskCacheTest {
+
+  private static final String BUCKET = "testBucket";
+
+  private InMemoryContentRepoService contentRepoService;
+  private Path directory;
+
+  @BeforeMethod
+  public void setUp() throws IOException {
+    contentRepoService = new InMemoryContentRepoService(BUCKET);
+    directory = Files.createTempDirectory("repoObjectDiskCacheTest");
+  }
+
+  @AfterMethod
+  public void tearDown() throws IOException {
+    MoreFiles.deleteRecursively(directory, RecursiveDeleteOption.ALLOW_INSECURE);
+  }
+
+  private RepoVersion createObject(String key, String content) {
+    byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+    return contentRepoService.autoCreateRepoObject(RepoObjectInput.builder(BUCKET, key)
+        .setContentAccessor(() -> new ByteArrayInputStream(bytes))
+        .build()).getVersion();
+  }
+
+  private static String read(RepoObjectDiskCache cache, RepoVersion version) throws IOException {
+    try (InputStream stream = cache.getRepoObject(version)) {
+      return new String(ByteStreams.toByteArray(stream), StandardCharsets.UTF_8);
+    }
+  }
+
+  private List<Path> listFiles() throws IOException {
+    List<Path> files = new ArrayList<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+      stream.forEach(files::add);
+    }
+    return files;
+  }
+
+  @Test
+  public void testReadThrough() throws IOException {
+    RepoObjectDiskCache cache = new RepoObjectDiskCache(contentRepoService, directory, 1024);
+    RepoVersion version = createObject("object", "content");
+
+    assertEquals(read(cache, version), "content");
+    contentRepoService.clear(); // so that a second read can only come from disk
+    assertEquals(read(cache, version), "content");
+
+    ByteArrayOutputStream transferred = new ByteArrayOutputStream();
+    cache.transferTo(version, Channels.newChannel(transferred));
+    assertEquals(new String(transferred.toByteArray(), StandardCharsets.UTF_8), "content");
+
+    assertEquals(cache.getMissCount(), 1);
+    assertEquals(cache.getHitCount(), 2);
+    assertEquals(cache.getEntryCount(), 1);
+    assertEquals(cache.getSize(), 7);
+    assertEquals(listFiles().size(), 1);
+  }
+
+  @Test
+  public void testEvictsLeastRecentlyRead() throws IOException {
+    RepoObjectDiskCache cache = new RepoObjectDiskCache(contentRepoService, directory, 10);
+    RepoVersion first = createObject("first", "aaaa");
+    RepoVersion second = createObject("second", "bbbb");
+    RepoVersion third = createObject("third", "cccc");
+
+    read(cache, first);
+    read(cache, second);
+    read(cache, first); // so that second is the least recently read
+    read(cache, third);
+
+    assertEquals(cache.getEvictionCount(), 1);
+    assertEquals(cache.getEntryCount(), 2);
+    assertEquals(cache.getSize(), 8);
+
+    long missCount = cache.getMissCount();
+    read(cache, first);
+    read(cache, third);
+    assertEquals(cache.getMissCount(), missCount);
+    read(cache, second);
+    assertEquals(cache.getMissCount(), missCount + 1);
+  }
+
+  @Test
+  public void testPassesThroughObjectsLargerThanCapacity() throws IOException {
+    RepoObjectDiskCache cache = new RepoObjectDiskCache(contentRepoService, directory, 4);
+    RepoVersion version = createObject("object", "too large");
+
+    assertEquals(read(cache, version), "too large");
+    assertEquals(cache.getEntryCount(), 0);
+    assertTrue(listFiles().isEmpty());
+  }
+
+  @Test
+  public void testReloadsIndex() throws IOException {
+    RepoVersion version = createObject("object", "content");
+    read(new RepoObjectDiskCache(contentRepoService, directory, 1024), version);
+    Files.createTempFile(directory, "download-", ".tmp"); // as if a download had been interrupted
+
+    RepoObjectDiskCache reopened = new RepoObjectDiskCache(contentRepoService, directory, 1024);
+    assertEquals(reopened.getEntryCount(), 1);
+    assertEquals(listFiles().size(), 1);
+    contentRepoService.clear();
+    assertEquals(read(reopened, version), "content");
+    assertEquals(reopened.getHitCount(), 1);
+  }
+
+  @Test
+  public void testRefetchesCorruptFile() throws IOException {
+    RepoVersion version = createObject("object", "content");
+    read(new RepoObjectDiskCache(contentRepoService, directory, 1024), version);
+    Path file = listFiles().get(0);
+    Files.write(file, "CONTENT".getBytes(StandardCharsets.UTF_8)); // same length, so only the checksum can tell
+
+    RepoObjectDiskCache reopened = new RepoObjectDiskCache(contentRepoService, directory, 1024);
+    assertEquals(read(reopened, version), "content");
+    assertEquals(reopened.getIntegrityFailureCount(), 1);
+    assertEquals(reopened.getMissCount(), 1);
+    assertTrue(Arrays.equals(Files.readAllBytes(listFiles().get(0)), "content".getBytes(StandardCharsets.UTF_8)));
+  }
+
+  @Test
+  public void testDisabled() throws IOException {
+    RepoObjectDiskCache cache = new RepoObjectDiskCache(contentRepoService, null, 1024);
+    RepoVersion version = createObject("object", "content");
+
+    assertEquals(read(cache, version), "content");
+    assertFalse(cache.isEnabled());
+    assertEquals(cache.getMissCount(), 0);
+    assertTrue(listFiles().isEmpty());
+  }
+
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2017 Public Library of Science
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package org.ambraproject.rhino.service.impl;
+
+import com.google.common.base.Ticker;
+import org.plos.crepo.model.identity.RepoVersion;
+import org.plos.crepo.model.input.RepoObjectInput;
+import org.plos.crepo.model.metadata.RepoObjectMetadata;
+import org.plos.crepo.service.InMemoryContentRepoService;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.testng.Assert.assertEquals;
+
+public class RepoObjectMetadataCacheTest {
+
+  private static final String BUCKET = "testBucket";
+
+  private static class CountingContentRepoService extends InMemoryContentRepoService {
+    private final AtomicInteger metadataLookupCount = new AtomicInteger();
+
+    private CountingContentRepoService() {
+      super(BUCKET);
+    }
+
+    @Override
+    public RepoObjectMetadata getRepoObjectMetadata(RepoVersion version) {
+      metadataLookupCount.incrementAndGet();
+      return super.getRepoObjectMetadata(version);
+    }
+  }
+
+  private static class FakeTicker extends Ticker {
+    private final AtomicLong nanos = new AtomicLong();
+
+    @Override
+    public long read() {
+      return nanos.get();
+    }
+
+    private void advance(long time, TimeUnit unit) {
+      nanos.addAndGet(unit.toNanos(time));
+    }
+  }
+
+  private CountingContentRepoService contentRepoService;
+  private FakeTicker ticker;
+  private RepoObjectMetadataCache cache;
+
+  @BeforeMethod
+  public void setUp() {
+    contentRepoService = new CountingContentRepoService();
+    ticker = new FakeTicker();
+    cache = new RepoObjectMetadataCache(contentRepoService, 100, 1, TimeUnit.HOURS, ticker);
+  }
+
+  private RepoObjectMetadata createObject(String key) {
+    byte[] content = key.getBytes(StandardCharsets.UTF_8);
+    return contentRepoService.autoCreateRepoObject(RepoObjectInput.builder(BUCKET, key)
+        .setContentAccessor(() -> new ByteArrayInputStream(content))
+        .build());
+  }
+
+  @Test
+  public void testLooksUpOnMiss() throws IOException {
+    RepoVersion version = createObject("object").getVersion();
+
+    cache.get(version, false);
+    cache.get(version, false);
+    cache.get(version, true);
+
+    assertEquals(contentRepoService.metadataLookupCount.get(), 1);
+    assertEquals(cache.getStats().hitCount(), 2);
+    assertEquals(cache.getSize(), 1);
+  }
+
+  @Test
+  public void testPopulatedAtCreation() throws IOException {
+    RepoObjectMetadata created = createObject("object");
+    cache.put(created);
+
+    assertEquals(cache.get(created.getVersion(), false), created);
+    assertEquals(contentRepoService.metadataLookupCount.get(), 0);
+  }
+
+  @Test
+  public void testReproxyUrlsExpire() throws IOException {
+    RepoVersion version = createObject("object").getVersion();
+    cache.get(version, true);
+
+    ticker.advance(59, TimeUnit.MINUTES);
+    cache.get(version, true);
+    assertEquals(contentRepoService.metadataLookupCount.get(), 1);
+
+    ticker.advance(1, TimeUnit.MINUTES);
+    cache.get(version, false); // the rest of the metadata never goes stale
+    assertEquals(contentRepoService.metadataLookupCount.get(), 1);
+    cache.get(version, true);
+    assertEquals(contentRepoService.metadataLookupCount.get(), 2);
+    assertEquals(cache.getReproxyRefreshCount(), 1);
+
+    cache.get(version, true);
+    assertEquals(contentRepoService.metadataLookupCount.get(), 2);
+  }
+
+  @Test
+  public void testDisabled() throws IOException {
+    RepoObjectMetadataCache disabled = new RepoObjectMetadataCache(contentRepoService, 0, 1, TimeUnit.HOURS, ticker);
+    RepoVersion version = createObject("object").getVersion();
+
+    disabled.get(version, false);
+    disabled.get(version, false);
+    assertEquals(contentRepoService.metadataLookupCount.get(), 2);
+  }
+
+}
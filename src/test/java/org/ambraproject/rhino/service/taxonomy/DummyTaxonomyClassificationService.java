@@ -31,7 +31,9 @@ import org.w3c.dom.Document;
 
 import java.io.IOException;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
 
 public class DummyTaxonomyClassificationService implements TaxonomyClassificationService {
 
@@ -59,6 +61,33 @@ public class DummyTaxonomyClassificationService implements TaxonomyClassificatio
 
   }
 
+  @Override
+  public List<WeightedTerm> getCategoriesToAssign(ArticleRevision revision) {
+    return DUMMY_DATA;
+  }
+
+  @Override
+  public List<List<WeightedTerm>> getCategoriesToAssign(List<ArticleRevision> revisions) {
+    return Collections.nCopies(revisions.size(), DUMMY_DATA);
+  }
+
+  @Override
+  public List<ClassificationContent> readClassificationContent(List<ArticleRevision> revisions) {
+    return revisions.stream()
+        .map(revision -> new ClassificationContent(revision.getIngestion().getArticle().getDoi(), "", ""))
+        .collect(Collectors.toList());
+  }
+
+  @Override
+  public List<List<WeightedTerm>> classifyContent(List<ClassificationContent> contents) {
+    return Collections.nCopies(contents.size(), DUMMY_DATA);
+  }
+
+  @Override
+  public void assignCategories(Article article, List<WeightedTerm> terms) {
+
+  }
+
   @Override
   public Collection<ArticleCategoryAssignment> getAssignmentsForArticle(Article article) {
     return null;
@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2017 Public Library of Science
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package org.ambraproject.rhino.service.taxonomy.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.ambraproject.rhino.content.xml.DocumentParser;
+import org.apache.commons.lang3.StringEscapeUtils;
+import org.w3c.dom.Document;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A local stand-in for the remote taxonomy server, which answers classification requests with preset terms for each
+ * article DOI in the request.
+ */
+public class StubTaxonomyServer implements Closeable {
+
+  private static final Pattern DOI_PATTERN = Pattern.compile("<article-id pub-id-type=\"doi\">([^<]*)</article-id>");
+
+  private final HttpServer server;
+  private final Map<String, List<String>> termsByDoi = new ConcurrentHashMap<>();
+  private final List<Integer> requestSizes = new CopyOnWriteArrayList<>();
+  private volatile int maxBatchSize = Integer.MAX_VALUE;
+  private final AtomicInteger failuresToServe = new AtomicInteger();
+  private volatile long delayMillis = 0L;
+
+  public StubTaxonomyServer() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext("/", this::handle);
+    server.start();
+  }
+
+  public URL getUrl() {
+    try {
+      return new URL("http", "127.0.0.1", server.getAddress().getPort(), "/taxonomy/");
+    } catch (MalformedURLException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Set the raw terms to return for an article. Articles without terms get an empty group.
+   */
+  public void setTerms(String doi, String... rawTerms) {
+    termsByDoi.put(doi, ImmutableList.copyOf(rawTerms));
+  }
+
+  /**
+   * Answer only for the first {@code maxBatchSize} articles of each request, like a server that doesn't fully support
+   * multi-article requests.
+   */
+  public void setMaxBatchSize(int maxBatchSize) {
+    this.maxBatchSize = maxBatchSize;
+  }
+
+  /**
+   * Answer the next {@code count} requests with a server error.
+   */
+  public void failNextRequests(int count) {
+    failuresToServe.set(count);
+  }
+
+  /**
+   * Wait before answering each request, like a stalled server.
+   */
+  public void setDelayMillis(long delayMillis) {
+    this.delayMillis = delayMillis;
+  }
+
+  /**
+   * @return the number of articles in each request received so far, in order
+   */
+  public List<Integer> getRequestSizes() {
+    return ImmutableList.copyOf(requestSizes);
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    Document request;
+    try (InputStream body = exchange.getRequestBody()) {
+      request = DocumentParser.parse(body);
+    } catch (SAXException e) {
+      exchange.sendResponseHeaders(400, -1);
+      exchange.close();
+      return;
+    }
+    NodeList vectorElements = request.getElementsByTagName("VectorElement");
+    requestSizes.add(vectorElements.getLength());
+
+    if (delayMillis > 0) {
+      try {
+        Thread.sleep(delayMillis);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    if (failuresToServe.getAndUpdate(n -> Math.max(n - 1, 0)) > 0) {
+      exchange.sendResponseHeaders(503, -1);
+      exchange.close();
+      return;
+    }
+
+    StringBuilder response = new StringBuilder("<TMMAI project='stub' location='.'>\n" +
+        "  <Method name='getSuggestedTermsFullPathsPlos' returnType='java.util.Vector'/>\n" +
+        "  <VectorParam>\n");
+    for (int i = 0; i < Math.min(vectorElements.getLength(), maxBatchSize); i++) {
+      Matcher doiMatch = DOI_PATTERN.matcher(vectorElements.item(i).getTextContent());
+      List<String> terms = doiMatch.find() ? termsByDoi.get(doiMatch.group(1)) : null;
+      appendVectorElement(response, "MAITERMS");
+      if (terms != null) {
+        terms.forEach(term -> appendVectorElement(response, term));
+      }
+      appendVectorElement(response, "MAITERMS");
+    }
+    response.append("  </VectorParam>\n</TMMAI>");
+
+    byte[] responseBytes = response.toString().getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", "application/xml; charset=UTF-8");
+    exchange.sendResponseHeaders(200, responseBytes.length);
+    try (OutputStream responseBody = exchange.getResponseBody()) {
+      responseBody.write(responseBytes);
+    }
+  }
+
+  private static void appendVectorElement(StringBuilder response, String text) {
+    response.append("    <VectorElement>").append(StringEscapeUtils.escapeXml10(text)).append("</VectorElement>\n");
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+  }
+
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2017 Public Library of Science
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package org.ambraproject.rhino.service.taxonomy.impl;
+
+import com.google.common.collect.ImmutableList;
+import org.ambraproject.rhino.BaseRhinoTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.orm.hibernate3.HibernateTransactionManager;
+import org.testng.annotations.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+
+public class TaxonomyClassificationCacheTest extends BaseRhinoTest {
+
+  private static final String THESAURUS = "plosthes.2017-2";
+  private static final String HEADER = "<article-id pub-id-type=\"doi\">10.1371/journal.pone.0000001</article-id>\n";
+  private static final String CONTENT = "Title\nAbstract\nBody";
+  private static final List<String> TERMS = ImmutableList.of(
+      "<TERM>/Biology and life sciences/Neuroscience|(5) neuron*(5)</TERM>",
+      "<TERM>/Biology and life sciences/Cell biology|(2) cell*(2)</TERM>");
+
+  @Autowired
+  private HibernateTransactionManager transactionManager;
+
+  private TaxonomyClassificationCache createCache(long ttlHours, Instant now) {
+    return new TaxonomyClassificationCache(hibernateTemplate, transactionManager, ttlHours, TimeUnit.HOURS,
+        Clock.fixed(now, ZoneOffset.UTC));
+  }
+
+  @Test
+  public void testHashContent() {
+    String hash = TaxonomyClassificationCache.hashContent(THESAURUS, HEADER, CONTENT);
+    assertEquals(hash.length(), 64);
+    assertEquals(TaxonomyClassificationCache.hashContent(THESAURUS, HEADER, CONTENT), hash);
+    assertNotEquals(TaxonomyClassificationCache.hashContent("plosthes.2017-3", HEADER, CONTENT), hash);
+    assertNotEquals(TaxonomyClassificationCache.hashContent(THESAURUS, HEADER, CONTENT + "."), hash);
+
+    // Moving text across a boundary between parts must not collide
+    assertNotEquals(TaxonomyClassificationCache.hashContent("ab", "c", ""),
+        TaxonomyClassificationCache.hashContent("a", "bc", ""));
+  }
+
+  @Test
+  public void testGetAndPut() {
+    Instant classified = Instant.parse("2017-03-01T00:00:00Z");
+    TaxonomyClassificationCache cache = createCache(24, classified);
+    assertFalse(cache.get(THESAURUS, HEADER, CONTENT).isPresent());
+    cache.put(THESAURUS, HEADER, CONTENT, TERMS);
+
+    assertEquals(cache.get(THESAURUS, HEADER, CONTENT), Optional.of(TERMS));
+    assertFalse(cache.get(THESAURUS, HEADER, CONTENT + " revised").isPresent());
+    assertFalse(cache.get("plosthes.2017-3", HEADER, CONTENT).isPresent());
+    assertEquals(cache.getHitCount(), 1);
+    assertEquals(cache.getMissCount(), 3);
+
+    TaxonomyClassificationCache later = createCache(24, classified.plusSeconds(TimeUnit.HOURS.toSeconds(25)));
+    assertFalse(later.get(THESAURUS, HEADER, CONTENT).isPresent());
+  }
+
+  @Test
+  public void testPurge() {
+    Instant classified = Instant.parse("2017-03-01T00:00:00Z");
+    TaxonomyClassificationCache cache = createCache(24, classified);
+    cache.put(THESAURUS, HEADER, CONTENT, TERMS);
+    cache.put(THESAURUS, HEADER, "Other content", TERMS);
+
+    assertEquals(cache.purge(THESAURUS), 0);
+    assertEquals(cache.purge("plosthes.2017-3"), 2);
+    assertFalse(cache.get(THESAURUS, HEADER, CONTENT).isPresent());
+  }
+
+  @Test
+  public void testDisabled() {
+    TaxonomyClassificationCache cache = createCache(0, Instant.parse("2017-03-01T00:00:00Z"));
+    cache.put(THESAURUS, HEADER, CONTENT, TERMS);
+    assertFalse(cache.get(THESAURUS, HEADER, CONTENT).isPresent());
+    assertEquals(cache.purge(THESAURUS), 0);
+  }
+
+}
@@ -42,6 +42,7 @@ import java.util.stream.Stream;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
 
 /**
  * @author Alex Kudlick Date: 7/3/12
@@ -167,6 +168,63 @@ public class TaxonomyClassificationServiceImplTest {
         new WeightedTerm(
             "/Medicine and health sciences/Neurology/Cognitive neurology"
             , 67));
+
+    // The path runs to the last pipe symbol that is followed by a weight
+    assertEquals(TaxonomyClassificationServiceImpl.parseVectorElement(
+            "\n  <TERM>/People and places/Demography|Census|(7) demographics|(x)</TERM>"),
+        new WeightedTerm("/People and places/Demography|Census", 7));
+  }
+
+  /**
+   * As with the regex that the parser replaced, whose "." doesn't match line terminators, only the whitespace before the
+   * path and before the weight may span lines.
+   */
+  @Test
+  public void testParseVectorElementLineTerminators() throws Exception {
+    assertEquals(TaxonomyClassificationServiceImpl.parseVectorElement(
+            "<TERM>\n  /People and places/Demography|(7) demographics(7)</TERM>\n"),
+        new WeightedTerm("/People and places/Demography", 7));
+    assertEquals(TaxonomyClassificationServiceImpl.parseVectorElement(
+            "<TERM>/People and\n<TERM>/People and places/Demography|(7) demographics(7)</TERM>"),
+        new WeightedTerm("/People and places/Demography", 7));
+    assertEquals(TaxonomyClassificationServiceImpl.parseVectorElement(
+            "<TERM>/People and places/Demography|\n(7) demographics(7)</TERM>"),
+        new WeightedTerm("/People and places/Demography", 7));
+
+    String[] invalidElements = {
+        "<TERM>/People and places\n/Demography|(7) demographics(7)</TERM>",
+        "<TERM>/People and places/Demography|(7) demographics(7)\n</TERM>",
+        "<TERM>/People and places/Demography|(7) demographics(7)\r</TERM>",
+        "<TERM>/People and places/Demography|(7) demographics(7)\u2028</TERM>",
+        "<TERM>/People and places\u0085/Demography|(7) demographics(7)</TERM>",
+    };
+    for (String invalidElement : invalidElements) {
+      try {
+        TaxonomyClassificationServiceImpl.parseVectorElement(invalidElement);
+        fail("Expected TaxonomyRemoteServiceInvalidBehaviorException for " + invalidElement);
+      } catch (TaxonomyRemoteServiceInvalidBehaviorException expected) {
+      }
+    }
+  }
+
+  @Test
+  public void testInvalidVectorElementSyntax() throws Exception {
+    String[] invalidElements = {
+        "MAITERMS",
+        "<TERM>/People and places/Demography|(7) demographics(7)",
+        "<TERM>/People and places/Demography (7)</TERM>",
+        "<TERM>/People and places/Demography|()</TERM>",
+        "<TERM>/People and places/Demography|(7</TERM>",
+        "<TERM>/People and places/Demography|(99999999999)</TERM>",
+        "<TERM>|(7)</TERM>",
+    };
+    for (String invalidElement : invalidElements) {
+      try {
+        TaxonomyClassificationServiceImpl.parseVectorElement(invalidElement);
+        fail("Expected TaxonomyRemoteServiceInvalidBehaviorException for " + invalidElement);
+      } catch (TaxonomyRemoteServiceInvalidBehaviorException expected) {
+      }
+    }
   }
 
   @Test(expectedExceptions = TaxonomyRemoteServiceInvalidBehaviorException.class)
@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2017 Public Library of Science
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+
+package org.ambraproject.rhino.service.taxonomy.impl;
+
+import org.ambraproject.rhino.content.xml.DocumentParser;
+import org.ambraproject.rhino.service.taxonomy.WeightedTerm;
+import org.apache.commons.lang3.StringEscapeUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.w3c.dom.Document;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compares reading a batch classification response with {@link TaxonomyResponseReader} and {@link
+ * TaxonomyClassificationServiceImpl#parseVectorElement} against the previous implementation, which parsed the response
+ * into a DOM and matched each term against a regex.
+ * <p/>
+ * This is not run as part of the test suite. To run it, compile the test classes and run {@link #main} with the test
+ * classpath from the project's root directory.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class TaxonomyResponseReaderBenchmark {
+
+  private static final String[] SAMPLE_TERMS = {
+      "<TERM>/Biology and life sciences/Computational biology/Computational neuroscience/Single neuron function|(5) neuron*(5)</TERM>",
+      "<TERM>/Medicine and health sciences/Anesthesiology/Anesthesia|(5) anesthesia(5)</TERM>",
+      "<TERM>/Medicine and health sciences/Geriatrics/Frailty|(19) frailty(18) frail*(1)</TERM>",
+      "<TERM>/Biology and life sciences/Anatomy/Head/Face/Nose|(311) nose(311)</TERM>",
+      "<TERM>/People and places/Demography|(7) demographics(7)</TERM>",
+      "<TERM>/Medicine and health sciences/Neurology/Cognitive neurology|(2) cognit*(2)</TERM>",
+  };
+
+  /**
+   * The number of articles in the response, as set by {@code taxonomy.classificationBatchSize}.
+   */
+  @Param({"1", "10"})
+  private int articleCount;
+
+  private static final int TERMS_PER_ARTICLE = 30;
+
+  private byte[] response;
+
+  @Setup
+  public void setUp() {
+    StringBuilder response = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<TMMAI>\n  <VectorParam>\n");
+    for (int i = 0; i < articleCount; i++) {
+      appendVectorElement(response, "MAITERMS");
+      for (int j = 0; j < TERMS_PER_ARTICLE; j++) {
+        appendVectorElement(response, SAMPLE_TERMS[(i + j) % SAMPLE_TERMS.length]);
+      }
+      appendVectorElement(response, "MAITERMS");
+    }
+    this.response = response.append("  </VectorParam>\n</TMMAI>\n").toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static void appendVectorElement(StringBuilder response, String text) {
+    response.append("    <VectorElement>").append(StringEscapeUtils.escapeXml10(text)).append("</VectorElement>\n");
+  }
+
+  private static final Pattern TERM_PATTERN = Pattern.compile("<TERM>\\s*(/.*)\\|\\s*\\((\\d+)\\).*</TERM>");
+
+  @Benchmark
+  public void domAndRegex(Blackhole blackhole) throws IOException, SAXException {
+    Document document = DocumentParser.parse(new ByteArrayInputStream(response));
+    NodeList vectorElements = document.getElementsByTagName("VectorElement");
+    List<String> group = null;
+    for (int i = 0; i < vectorElements.getLength(); i++) {
+      String vectorElement = vectorElements.item(i).getTextContent();
+      if (vectorElement.trim().startsWith("<TERM>")) {
+        group.add(vectorElement);
+      } else if (group == null) {
+        group = new ArrayList<>();
+      } else {
+        for (String term : group) {
+          Matcher match = TERM_PATTERN.matcher(term);
+          if (!match.find()) {
+            throw new AssertionError(term);
+          }
+          blackhole.consume(new WeightedTerm(match.group(1), Integer.parseInt(match.group(2))));
+        }
+        group = null;
+      }
+    }
+  }
+
+  @Benchmark
+  public void streamingAndScanner(Blackhole blackhole) throws XMLStreamException {
+    for (List<String> group : TaxonomyResponseReader.read(new ByteArrayInputStream(response))) {
+      for (String term : group) {
+        blackhole.consume(TaxonomyClassificationServiceImpl.parseVectorElement(term));
+      }
+    }
+  }
+
+  /**
+   * The cost of parsing terms alone, as when they are read from the classification cache.
+   */
+  @Benchmark
+  public void parseTermsWithRegex(Blackhole blackhole) {
+    for (String term : SAMPLE_TERMS) {
+      Matcher match = TERM_PATTERN.matcher(term);
+      if (!match.find()) {
+        throw new AssertionError(term);
+      }
+      blackhole.consume(new WeightedTerm(match.group(1), Integer.parseInt(match.group(2))));
+    }
+  }
+
+  @Benchmark
+  public void parseTermsWithScanner(Blackhole blackhole) {
+    for (String term : SAMPLE_TERMS) {
+      blackhole.consume(TaxonomyClassificationServiceImpl.parseVectorElement(term));
+    }
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(TaxonomyResponseReaderBenchmark.class.getSimpleName()).build()).run();
+  }
+
+}
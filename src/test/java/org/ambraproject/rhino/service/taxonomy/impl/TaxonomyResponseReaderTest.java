@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2017 Public Library of Science
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+
+package org.ambraproject.rhino.service.taxonomy.impl;
+
+import com.google.common.collect.ImmutableList;
+import org.ambraproject.rhino.service.taxonomy.TaxonomyRemoteServiceInvalidBehaviorException;
+import org.apache.commons.lang3.StringEscapeUtils;
+import org.testng.annotations.Test;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+
+public class TaxonomyResponseReaderTest {
+
+  private static final String TERM_A = "<TERM>/Biology and life sciences/Anatomy/Head/Face/Nose|(311) nose(311)</TERM>";
+  private static final String TERM_B = "<TERM>/People and places/Demography|(7) demographics(7)</TERM>";
+  private static final String TERM_C = "<TERM>/Medicine and health sciences/Geriatrics/Frailty|(19) frailty(18) frail*(1)</TERM>";
+
+  private static InputStream createResponse(String... vectorElements) {
+    StringBuilder response = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<VectorParam>\n");
+    for (String vectorElement : vectorElements) {
+      response.append("  <VectorElement>").append(StringEscapeUtils.escapeXml10(vectorElement))
+          .append("</VectorElement>\n");
+    }
+    response.append("</VectorParam>\n");
+    return new ByteArrayInputStream(response.toString().getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static List<List<String>> read(String... vectorElements) throws XMLStreamException {
+    return TaxonomyResponseReader.read(createResponse(vectorElements));
+  }
+
+  private static List<String> readSingle(String... vectorElements) throws XMLStreamException {
+    return TaxonomyResponseReader.readSingle(createResponse(vectorElements));
+  }
+
+  @Test
+  public void testRead() throws XMLStreamException {
+    assertEquals(read("MAITERMS", TERM_A, TERM_B, "MAITERMS"), ImmutableList.of(ImmutableList.of(TERM_A, TERM_B)));
+    assertEquals(read("MAITERMS", "MAITERMS"), ImmutableList.of(ImmutableList.of()));
+    assertEquals(read(), ImmutableList.of());
+  }
+
+  @Test
+  public void testReadMultipleArticles() throws XMLStreamException {
+    assertEquals(read("MAITERMS", TERM_A, "MAITERMS", "MAITERMS", "MAITERMS", "MAITERMS", TERM_B, TERM_C, "MAITERMS"),
+        ImmutableList.of(ImmutableList.of(TERM_A), ImmutableList.of(), ImmutableList.of(TERM_B, TERM_C)));
+  }
+
+  /**
+   * Terms are kept as the DOM would have given their text, whether or not it is split into several events.
+   */
+  @Test
+  public void testReadSplitText() throws XMLStreamException {
+    String response = "<VectorParam>" +
+        "<VectorElement>MAI<!-- comment -->TERMS</VectorElement>" +
+        "<VectorElement>\n  &lt;TE<![CDATA[RM>/People and places]]>/Demography|(7)&lt;/TERM&gt;</VectorElement>" +
+        "<VectorElement><![CDATA[MAITERMS]]></VectorElement>" +
+        "</VectorParam>";
+    assertEquals(TaxonomyResponseReader.read(new ByteArrayInputStream(response.getBytes(StandardCharsets.UTF_8))),
+        ImmutableList.of(ImmutableList.of("\n  <TERM>/People and places/Demography|(7)</TERM>")));
+  }
+
+  @Test(expectedExceptions = TaxonomyRemoteServiceInvalidBehaviorException.class)
+  public void testUnterminated() throws XMLStreamException {
+    read("MAITERMS", TERM_A, "MAITERMS", "MAITERMS", TERM_B);
+  }
+
+  @Test(expectedExceptions = TaxonomyRemoteServiceInvalidBehaviorException.class)
+  public void testTermOutsideOfMarkers() throws XMLStreamException {
+    read(TERM_A, "MAITERMS", "MAITERMS");
+  }
+
+  /**
+   * A single-article response is read without checking its markers, as it was before responses were grouped.
+   */
+  @Test
+  public void testReadSingle() throws XMLStreamException {
+    assertEquals(readSingle("MAITERMS", TERM_A, TERM_B, "MAITERMS"), ImmutableList.of(TERM_A, TERM_B));
+    assertEquals(readSingle(TERM_A, TERM_B, TERM_C), ImmutableList.of(TERM_B));
+    assertEquals(readSingle("MAITERMS", "MAITERMS"), ImmutableList.of());
+    assertEquals(readSingle(TERM_A), ImmutableList.of());
+    assertEquals(readSingle(), ImmutableList.of());
+  }
+
+  @Test(expectedExceptions = XMLStreamException.class)
+  public void testMalformed() throws XMLStreamException {
+    TaxonomyResponseReader.read(new ByteArrayInputStream(
+        "<VectorParam><VectorElement>MAITERMS</VectorParam>".getBytes(StandardCharsets.UTF_8)));
+  }
+
+}
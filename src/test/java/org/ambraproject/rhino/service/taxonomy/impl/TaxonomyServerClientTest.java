@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2017 Public Library of Science
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package org.ambraproject.rhino.service.taxonomy.impl;
+
+import com.google.common.collect.ImmutableList;
+import org.ambraproject.rhino.service.taxonomy.TaxonomyRemoteServiceNotAvailableException;
+import org.ambraproject.rhino.util.CircuitBreaker;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
+
+public class TaxonomyServerClientTest {
+
+  private static final String THESAURUS = "plosthes.2017-2";
+
+  private static final String TERM_A = "<TERM>/Biology and life sciences/Anatomy/Head/Face/Nose|(311) nose(311)</TERM>";
+  private static final String TERM_B = "<TERM>/People and places/Demography|(7) demographics(7)</TERM>";
+  private static final String TERM_C = "<TERM>/Medicine and health sciences/Geriatrics/Frailty|(19) frailty(18) frail*(1)</TERM>";
+
+  private StubTaxonomyServer server;
+  private TaxonomyServerClient client;
+
+  @BeforeMethod
+  public void setUp() throws IOException {
+    server = new StubTaxonomyServer();
+    server.setTerms("10.1371/journal.pone.0000001", TERM_A, TERM_B);
+    server.setTerms("10.1371/journal.pone.0000002", TERM_C);
+    server.setTerms("10.1371/journal.pone.0000003", TERM_B);
+    client = createClient(2, 1000, 5);
+  }
+
+  @AfterMethod
+  public void tearDown() throws IOException {
+    server.close();
+    client.close();
+  }
+
+  private static TaxonomyServerClient createClient(int maxRetries, int readTimeoutMillis, int failureThreshold) {
+    return new TaxonomyServerClient(TaxonomyServerClient.createHttpClient(4, 1000, readTimeoutMillis),
+        maxRetries, 1L, new CircuitBreaker(failureThreshold, 1, TimeUnit.MINUTES));
+  }
+
+  private static TaxonomyServerClient.ArticleContent createContent(String doi) {
+    String header = "          <article-id pub-id-type=\"doi\">" + doi + "</article-id>\n";
+    return new TaxonomyServerClient.ArticleContent(header, "Text of " + doi + " &amp; more");
+  }
+
+  private static final ImmutableList<TaxonomyServerClient.ArticleContent> ARTICLES = ImmutableList.of(
+      createContent("10.1371/journal.pone.0000001"),
+      createContent("10.1371/journal.pone.0000002"),
+      createContent("10.1371/journal.pone.0000003"));
+
+  @Test
+  public void testClassify() {
+    assertEquals(client.classify(server.getUrl(), THESAURUS, ARTICLES.get(0)), ImmutableList.of(TERM_A, TERM_B));
+    assertEquals(server.getRequestSizes(), ImmutableList.of(1));
+  }
+
+  @Test
+  public void testClassifyAll() {
+    List<List<String>> terms = client.classifyAll(server.getUrl(), THESAURUS, ARTICLES);
+    assertEquals(terms, ImmutableList.of(
+        ImmutableList.of(TERM_A, TERM_B), ImmutableList.of(TERM_C), ImmutableList.of(TERM_B)));
+    assertEquals(server.getRequestSizes(), ImmutableList.of(3));
+  }
+
+  @Test
+  public void testPartialBatchResponse() {
+    server.setMaxBatchSize(1);
+    List<List<String>> terms = client.classifyAll(server.getUrl(), THESAURUS, ARTICLES);
+    assertEquals(terms, ImmutableList.of(
+        ImmutableList.of(TERM_A, TERM_B), ImmutableList.of(TERM_C), ImmutableList.of(TERM_B)));
+    assertEquals(server.getRequestSizes(), ImmutableList.of(3, 1, 1, 1));
+  }
+
+  @Test
+  public void testArticleWithoutTerms() {
+    List<TaxonomyServerClient.ArticleContent> articles = ImmutableList.of(
+        ARTICLES.get(0), createContent("10.1371/journal.pone.0000004"));
+    List<List<String>> terms = client.classifyAll(server.getUrl(), THESAURUS, articles);
+    assertEquals(terms, ImmutableList.of(ImmutableList.of(TERM_A, TERM_B), ImmutableList.of()));
+    assertEquals(server.getRequestSizes(), ImmutableList.of(2, 1));
+  }
+
+  @Test(expectedExceptions = TaxonomyRemoteServiceNotAvailableException.class)
+  public void testUnavailable() throws IOException {
+    URL url = server.getUrl();
+    server.close();
+    client.classifyAll(url, THESAURUS, ARTICLES);
+  }
+
+  @Test
+  public void testRetry() {
+    server.failNextRequests(2);
+    assertEquals(client.classify(server.getUrl(), THESAURUS, ARTICLES.get(0)), ImmutableList.of(TERM_A, TERM_B));
+    assertEquals(server.getRequestSizes(), ImmutableList.of(1, 1, 1));
+
+    TaxonomyServerClient.Statistics statistics = client.getStatistics();
+    assertEquals(statistics.getRequestCount(), 3);
+    assertEquals(statistics.getFailureCount(), 2);
+    assertEquals(statistics.getRetryCount(), 2);
+    assertEquals(client.getCircuitBreakerState(), CircuitBreaker.State.CLOSED);
+  }
+
+  @Test
+  public void testRetriesExhausted() {
+    server.failNextRequests(3);
+    try {
+      client.classify(server.getUrl(), THESAURUS, ARTICLES.get(0));
+      fail("Expected TaxonomyRemoteServiceNotAvailableException");
+    } catch (TaxonomyRemoteServiceNotAvailableException expected) {
+    }
+    assertEquals(server.getRequestSizes().size(), 3);
+  }
+
+  @Test
+  public void testCircuitBreaker() throws IOException {
+    client.close();
+    client = createClient(0, 1000, 2);
+    server.failNextRequests(Integer.MAX_VALUE);
+    for (int i = 0; i < 3; i++) {
+      try {
+        client.classify(server.getUrl(), THESAURUS, ARTICLES.get(0));
+        fail("Expected TaxonomyRemoteServiceNotAvailableException");
+      } catch (TaxonomyRemoteServiceNotAvailableException expected) {
+      }
+    }
+
+    // The third request is rejected without being sent
+    assertEquals(server.getRequestSizes().size(), 2);
+    assertEquals(client.getCircuitBreakerState(), CircuitBreaker.State.OPEN);
+    TaxonomyServerClient.Statistics statistics = client.getStatistics();
+    assertEquals(statistics.getRejectedCount(), 1);
+    assertEquals(statistics.getCircuitBreakerOpenCount(), 1);
+  }
+
+  @Test(expectedExceptions = TaxonomyRemoteServiceNotAvailableException.class)
+  public void testReadTimeout() throws IOException {
+    client.close();
+    client = createClient(0, 100, 5);
+    server.setDelayMillis(1000);
+    client.classify(server.getUrl(), THESAURUS, ARTICLES.get(0));
+  }
+
+  @Test
+  public void testUnexpectedErrorDuringHalfOpenTrial() throws IOException {
+    CloseableHttpClient httpClient = mock(CloseableHttpClient.class);
+    when(httpClient.execute(any(HttpUriRequest.class))).thenThrow(
+        new IOException("Connection refused"),
+        new IllegalStateException("Unexpected"),
+        new IOException("Connection refused"));
+    client.close();
+    client = new TaxonomyServerClient(httpClient, 0, 1L, new CircuitBreaker(1, 0, TimeUnit.MINUTES));
+
+    // Opens the breaker
+    try {
+      client.classify(server.getUrl(), THESAURUS, ARTICLES.get(0));
+      fail("Expected TaxonomyRemoteServiceNotAvailableException");
+    } catch (TaxonomyRemoteServiceNotAvailableException expected) {
+    }
+
+    // The half-open trial fails with an exception the client doesn't expect
+    try {
+      client.classify(server.getUrl(), THESAURUS, ARTICLES.get(0));
+      fail("Expected IllegalStateException");
+    } catch (IllegalStateException expected) {
+    }
+    assertEquals(client.getCircuitBreakerState(), CircuitBreaker.State.OPEN);
+
+    // The next trial is still sent rather than rejected
+    try {
+      client.classify(server.getUrl(), THESAURUS, ARTICLES.get(0));
+      fail("Expected TaxonomyRemoteServiceNotAvailableException");
+    } catch (TaxonomyRemoteServiceNotAvailableException expected) {
+    }
+    verify(httpClient, times(3)).execute(any(HttpUriRequest.class));
+    assertEquals(client.getStatistics().getRejectedCount(), 0);
+  }
+
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2017 Public Library of Science
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package org.ambraproject.rhino.util;
+
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import org.testng.SkipException;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class ArchiveTest {
+
+  @DataProvider
+  public Object[][] zipFiles() {
+    File[] zipFiles = new File("src/test/resources/articles/").listFiles((dir, name) -> name.endsWith(".zip"));
+    Object[][] cases = new Object[zipFiles.length][];
+    for (int i = 0; i < zipFiles.length; i++) {
+      cases[i] = new Object[]{zipFiles[i]};
+    }
+    return cases;
+  }
+
+  private static byte[] read(Archive archive, String entryName) throws IOException {
+    try (InputStream stream = archive.openFile(entryName)) {
+      return ByteStreams.toByteArray(stream);
+    }
+  }
+
+  @Test(dataProvider = "zipFiles")
+  public void testOpenZipFile(File zipFile) throws IOException {
+    try (Archive expected = Archive.readZipFile(zipFile);
+         Archive actual = Archive.openZipFile(zipFile.getName(), zipFile)) {
+      assertEquals(actual.getArchiveName(), zipFile.getName());
+      assertFalse(actual.getEntryNames().isEmpty());
+      assertEquals(actual.getEntryNames(), expected.getEntryNames());
+      for (String entryName : actual.getEntryNames()) {
+        assertEquals(read(actual, entryName), read(expected, entryName), entryName);
+      }
+    }
+  }
+
+  @Test(dataProvider = "zipFiles")
+  public void testSha256(File zipFile) throws IOException {
+    try (Archive readArchive = Archive.readZipFile(zipFile);
+         Archive openedArchive = Archive.openZipFile(zipFile.getName(), zipFile);
+         Archive budgetedArchive = Archive.readZipFile(zipFile.getName(), new FileInputStream(zipFile),
+             new ArchiveMemoryBudget(4096, Long.MAX_VALUE))) {
+      for (String entryName : readArchive.getEntryNames()) {
+        String expected = Hashing.sha256().hashBytes(read(readArchive, entryName)).toString();
+        assertEquals(readArchive.getSha256(entryName), expected, entryName);
+        assertEquals(openedArchive.getSha256(entryName), expected, entryName);
+        assertEquals(budgetedArchive.getSha256(entryName), expected, entryName);
+      }
+    }
+  }
+
+  @DataProvider
+  public Object[][] memoryBudgets() {
+    return new Object[][]{
+        {new ArchiveMemoryBudget(0, 0L)}, // everything spills
+        {new ArchiveMemoryBudget(4096, Long.MAX_VALUE)}, // mixed, by size
+        {new ArchiveMemoryBudget(Integer.MAX_VALUE - 8, 8192L)}, // mixed, by exhausting the budget
+        {new ArchiveMemoryBudget(Integer.MAX_VALUE - 8, Long.MAX_VALUE)}, // everything in memory
+    };
+  }
+
+  @Test(dataProvider = "memoryBudgets")
+  public void testReadZipFileWithMemoryBudget(ArchiveMemoryBudget memoryBudget) throws IOException {
+    for (Object[] zipFileCase : zipFiles()) {
+      File zipFile = (File) zipFileCase[0];
+      try (Archive expected = Archive.readZipFile(zipFile);
+           Archive actual = Archive.readZipFile(zipFile.getName(), new FileInputStream(zipFile), memoryBudget)) {
+        assertEquals(actual.getEntryNames(), expected.getEntryNames());
+        for (String entryName : actual.getEntryNames()) {
+          assertEquals(read(actual, entryName), read(expected, entryName), entryName);
+        }
+        assertTrue(memoryBudget.getBytesInUse() <= memoryBudget.getCapacity());
+      }
+      assertEquals(memoryBudget.getBytesInUse(), 0L, "Closing the archive should release its memory");
+    }
+  }
+
+  /**
+   * Build a zip file with two entries named "a.txt". {@link ZipOutputStream} won't write duplicate names, so write
+   * "a.txt" and "b.txt" and rename the second in the written bytes.
+   */
+  private static byte[] createZipWithDuplicateEntries() throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ZipOutputStream zipStream = new ZipOutputStream(bytes)) {
+      zipStream.putNextEntry(new ZipEntry("a.txt"));
+      zipStream.write("first".getBytes(StandardCharsets.UTF_8));
+      zipStream.putNextEntry(new ZipEntry("b.txt"));
+      zipStream.write("second".getBytes(StandardCharsets.UTF_8));
+    }
+    return new String(bytes.toByteArray(), StandardCharsets.ISO_8859_1)
+        .replace("b.txt", "a.txt").getBytes(StandardCharsets.ISO_8859_1);
+  }
+
+  @Test(dataProvider = "memoryBudgets")
+  public void testDuplicateEntryName(ArchiveMemoryBudget memoryBudget) throws IOException {
+    byte[] zipFile = createZipWithDuplicateEntries();
+    try {
+      Archive.readZipFile("duplicate.zip", new ByteArrayInputStream(zipFile), memoryBudget).close();
+      fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException expected) {
+    }
+    assertEquals(memoryBudget.getBytesInUse(), 0L, "A rejected archive should release its memory");
+  }
+
+  /**
+   * @return true if this process has the file open, judging by its file descriptors
+   */
+  private static boolean isOpen(File file) throws IOException {
+    Path target = file.toPath().toRealPath();
+    try (DirectoryStream<Path> descriptors = Files.newDirectoryStream(Paths.get("/proc/self/fd"))) {
+      for (Path descriptor : descriptors) {
+        try {
+          if (Files.readSymbolicLink(descriptor).equals(target)) return true;
+        } catch (IOException e) {
+          // The descriptor was closed while listing them
+        }
+      }
+    }
+    return false;
+  }
+
+  @Test
+  public void testOpenZipFileWithDuplicateEntryName() throws IOException {
+    if (!Files.isDirectory(Paths.get("/proc/self/fd"))) {
+      throw new SkipException("Can't list open files on this platform");
+    }
+    File zipFile = File.createTempFile("duplicate", ".zip");
+    try {
+      Files.write(zipFile.toPath(), createZipWithDuplicateEntries());
+      try {
+        Archive.openZipFile("duplicate.zip", zipFile).close();
+        fail("Expected IllegalArgumentException");
+      } catch (IllegalArgumentException expected) {
+      }
+      assertFalse(isOpen(zipFile), "A rejected archive should close its file");
+    } finally {
+      zipFile.delete();
+    }
+  }
+
+}
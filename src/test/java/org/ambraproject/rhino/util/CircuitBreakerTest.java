@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2017 Public Library of Science
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package org.ambraproject.rhino.util;
+
+import org.testng.annotations.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class CircuitBreakerTest {
+
+  private static Clock at(long millis) {
+    return Clock.fixed(Instant.ofEpochMilli(millis), ZoneOffset.UTC);
+  }
+
+  /**
+   * A clock whose time can be set by the test.
+   */
+  private static class TestClock extends Clock {
+    private long millis = 0L;
+
+    @Override
+    public ZoneOffset getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Instant instant() {
+      return Instant.ofEpochMilli(millis);
+    }
+  }
+
+  @Test
+  public void testOpensAfterConsecutiveFailures() {
+    CircuitBreaker breaker = new CircuitBreaker(3, 1, TimeUnit.SECONDS, at(0L));
+    breaker.recordFailure();
+    breaker.recordFailure();
+    breaker.recordSuccess(); // resets the count
+    breaker.recordFailure();
+    breaker.recordFailure();
+    assertTrue(breaker.allowRequest());
+    assertEquals(breaker.getState(), CircuitBreaker.State.CLOSED);
+
+    breaker.recordFailure();
+    assertEquals(breaker.getState(), CircuitBreaker.State.OPEN);
+    assertFalse(breaker.allowRequest());
+    assertEquals(breaker.getOpenCount(), 1L);
+  }
+
+  @Test
+  public void testHalfOpen() {
+    TestClock clock = new TestClock();
+    CircuitBreaker breaker = new CircuitBreaker(1, 1, TimeUnit.SECONDS, clock);
+    breaker.recordFailure();
+    assertFalse(breaker.allowRequest());
+
+    // After the cooldown, one trial request is allowed at a time
+    clock.millis = 1000L;
+    assertTrue(breaker.allowRequest());
+    assertEquals(breaker.getState(), CircuitBreaker.State.HALF_OPEN);
+    assertFalse(breaker.allowRequest());
+
+    // A failed trial opens the breaker for another cooldown
+    breaker.recordFailure();
+    assertEquals(breaker.getState(), CircuitBreaker.State.OPEN);
+    clock.millis = 1999L;
+    assertFalse(breaker.allowRequest());
+
+    // A successful trial closes it
+    clock.millis = 2000L;
+    assertTrue(breaker.allowRequest());
+    breaker.recordSuccess();
+    assertEquals(breaker.getState(), CircuitBreaker.State.CLOSED);
+    assertTrue(breaker.allowRequest());
+    assertTrue(breaker.allowRequest());
+    assertEquals(breaker.getOpenCount(), 2L);
+  }
+
+  @Test
+  public void testHalfOpenTrialMustBeRecorded() {
+    TestClock clock = new TestClock();
+    CircuitBreaker breaker = new CircuitBreaker(1, 1, TimeUnit.SECONDS, clock);
+    breaker.recordFailure();
+    clock.millis = 1000L;
+    assertTrue(breaker.allowRequest());
+
+    // Until the trial's outcome is recorded, no other request is allowed, however long it takes
+    clock.millis = 60000L;
+    assertFalse(breaker.allowRequest());
+
+    // A trial that ended in an unexpected error is recorded as a failure, and another trial follows the cooldown
+    breaker.recordFailure();
+    assertEquals(breaker.getState(), CircuitBreaker.State.OPEN);
+    clock.millis = 61000L;
+    assertTrue(breaker.allowRequest());
+    assertEquals(breaker.getState(), CircuitBreaker.State.HALF_OPEN);
+  }
+
+}
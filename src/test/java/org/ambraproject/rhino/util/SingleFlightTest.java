@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2017 Public Library of Science
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package org.ambraproject.rhino.util;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.fail;
+
+public class SingleFlightTest {
+
+  private static final int WAITER_COUNT = 8;
+
+  /**
+   * Start a call that blocks until released, then start waiters for the same key behind it.
+   */
+  private static <V> List<Future<V>> runConcurrently(SingleFlight<String, V> singleFlight,
+                                                     SingleFlight.Loader<V> loader,
+                                                     ExecutorService executor)
+      throws InterruptedException {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    List<Future<V>> futures = new ArrayList<>();
+    futures.add(executor.submit(() -> singleFlight.execute("key", () -> {
+      started.countDown();
+      Uninterruptibles.awaitUninterruptibly(release);
+      return loader.load();
+    })));
+    started.await();
+    for (int i = 0; i < WAITER_COUNT; i++) {
+      futures.add(executor.submit(() -> singleFlight.execute("key", loader)));
+    }
+    while (singleFlight.getCoalescedCount() < WAITER_COUNT) {
+      Thread.sleep(1);
+    }
+    release.countDown();
+    return futures;
+  }
+
+  @Test
+  public void testCoalescesConcurrentCalls() throws Exception {
+    SingleFlight<String, Object> singleFlight = new SingleFlight<>(1, TimeUnit.MINUTES);
+    AtomicInteger loadCount = new AtomicInteger();
+    Object result = new Object();
+    ExecutorService executor = Executors.newFixedThreadPool(WAITER_COUNT + 1);
+    try {
+      for (Future<Object> future : runConcurrently(singleFlight, () -> {
+        loadCount.incrementAndGet();
+        return result;
+      }, executor)) {
+        assertSame(future.get(), result);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertEquals(loadCount.get(), 1);
+    assertEquals(singleFlight.getCallCount(), 1);
+    assertEquals(singleFlight.getCoalescedCount(), WAITER_COUNT);
+
+    // Results aren't kept after the call finishes
+    singleFlight.execute("key", () -> {
+      loadCount.incrementAndGet();
+      return result;
+    });
+    assertEquals(loadCount.get(), 2);
+  }
+
+  @Test
+  public void testPropagatesExceptionToWaiters() throws Exception {
+    SingleFlight<String, Object> singleFlight = new SingleFlight<>(1, TimeUnit.MINUTES);
+    IOException failure = new IOException("failure");
+    ExecutorService executor = Executors.newFixedThreadPool(WAITER_COUNT + 1);
+    try {
+      for (Future<Object> future : runConcurrently(singleFlight, () -> {
+        throw failure;
+      }, executor)) {
+        try {
+          future.get();
+          fail("Expected failure");
+        } catch (ExecutionException e) {
+          assertSame(e.getCause(), failure);
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testWaitIsBounded() throws Exception {
+    SingleFlight<String, Object> singleFlight = new SingleFlight<>(10, TimeUnit.MILLISECONDS);
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<Object> slowCall = executor.submit(() -> singleFlight.execute("key", () -> {
+        started.countDown();
+        Uninterruptibles.awaitUninterruptibly(release);
+        return "slow";
+      }));
+      started.await();
+      try {
+        singleFlight.execute("key", () -> "fast");
+        fail("Expected timeout");
+      } catch (InterruptedIOException expected) {
+      }
+      assertEquals(singleFlight.getTimeoutCount(), 1);
+
+      release.countDown();
+      assertEquals(slowCall.get(), "slow");
+    } finally {
+      executor.shutdownNow();
+    }
+    assertEquals(singleFlight.getCallCount(), 1);
+  }
+
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2017 Public Library of Science
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package org.ambraproject.rhino.util;
+
+import org.ambraproject.rhino.content.xml.DocumentParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.w3c.dom.Document;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link StringReplacer} against applying the same cases one {@code replaceAll} pass at a time, using
+ * {@code AuthorsXmlExtractor}'s markup cleanup on the footnotes, affiliations and corresponding-author notes from the
+ * test article corpus.
+ * <p/>
+ * This is not run as part of the test suite. To run it, compile the test classes and run {@link #main} with the test
+ * classpath from the project's root directory.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class StringReplacerBenchmark {
+
+  private List<String> texts;
+  private StringReplacer replacer;
+
+  @Setup
+  public void setUp() throws IOException, SAXException, TransformerException {
+    Transformer transformer = TransformerFactory.newInstance().newTransformer();
+    transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+
+    texts = new ArrayList<>();
+    File[] files = new File("src/test/resources/articles/").listFiles((dir, name) -> name.endsWith(".xml"));
+    for (File file : files) {
+      Document manuscript = DocumentParser.newDocumentBuilder().parse(file);
+      for (String elementName : new String[]{"fn", "aff", "corresp"}) {
+        NodeList elements = manuscript.getElementsByTagName(elementName);
+        for (int i = 0; i < elements.getLength(); i++) {
+          StringWriter writer = new StringWriter();
+          transformer.transform(new DOMSource(elements.item(i)), new StreamResult(writer));
+          texts.add(writer.toString());
+        }
+      }
+    }
+    replacer = StringReplacerTest.build(StringReplacerTest.MARKUP_CASES);
+  }
+
+  @Benchmark
+  public void replaceSequentially(Blackhole blackhole) {
+    for (String text : texts) {
+      blackhole.consume(StringReplacerTest.replaceSequentially(StringReplacerTest.MARKUP_CASES, text));
+    }
+  }
+
+  @Benchmark
+  public void replace(Blackhole blackhole) {
+    for (String text : texts) {
+      blackhole.consume(replacer.replace(text));
+    }
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(StringReplacerBenchmark.class.getSimpleName()).build()).run();
+  }
+
+}
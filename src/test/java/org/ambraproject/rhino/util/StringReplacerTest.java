@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2017 Public Library of Science
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package org.ambraproject.rhino.util;
+
+import com.google.common.collect.ImmutableList;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.testng.Assert.assertEquals;
+
+/**
+ * Checks {@link StringReplacer} against applying each of its cases with {@link java.util.regex.Matcher#replaceAll} in
+ * turn, which is what it did before it learned to skip cases that can't match.
+ */
+public class StringReplacerTest {
+
+  static class Case {
+    final Pattern target;
+    final String replacement;
+
+    private Case(Pattern target, String replacement) {
+      this.target = target;
+      this.replacement = replacement;
+    }
+  }
+
+  private static Case regex(String target, String replacement) {
+    return new Case(Pattern.compile(target), replacement);
+  }
+
+  private static Case exact(String target, String replacement) {
+    return new Case(Pattern.compile(target, Pattern.LITERAL), replacement);
+  }
+
+  /**
+   * The same cases as {@code AuthorsXmlExtractor}'s markup cleanup.
+   */
+  static final ImmutableList<Case> MARKUP_CASES = ImmutableList.of(
+      regex("<corresp(.*?)>", ""),
+      regex("</corresp>", ""),
+      regex("<email(?:" +
+              "(?:\\s+xmlns:xlink\\s*=\\s*\"http://www.w3.org/1999/xlink\"\\s*)|" +
+              "(?:\\s+xlink:type\\s*=\\s*\"simple\"\\s*)" +
+              ")*>(.*?)</email>",
+          "<a href=\"mailto:$1\">$1</a>"),
+      regex("^E-mail:", "<span class=\"email\">* E-mail:</span>"),
+      regex("^\\* E-mail:", "<span class=\"email\">* E-mail:</span>"),
+      regex("\\*To whom", "<span class=\"email\">*</span>To whom"),
+      regex("\\* To whom", "<span class=\"email\">*</span>To whom"),
+      regex("<sec(?:.*)*>", ""),
+      regex("</sec>", ""),
+      regex("<list-item>", "\n<li>"),
+      regex("</list-item>", "</li>"),
+      regex("</list>", "</ul>"),
+      regex("<list(\\s+list-type=\"bullet\")?>", "<ul class=\"bulletlist\">"),
+      regex("<list\\s+list-type=\"(.*)\">", "<ol class=\"$1\">"),
+      regex("<list(?:.*)*>", "<ul class=\"bulletlist\">"),
+      regex("<title(?:.*)*>", ""),
+      regex("<body[^>]*>", ""),
+      regex("</body>", ""));
+
+  /**
+   * The markup cases, plus some literal and regex cases that interact with each other.
+   */
+  private static final ImmutableList<Case> CASES = ImmutableList.<Case>builder().addAll(MARKUP_CASES).add(
+      exact("X", ""), // Joins its neighbors, which may create matches for the cases below
+      exact("ab", "[ab]"),
+      exact("[a", "\\$"),
+      regex("a|b", "c"),
+      regex("ca?t", "dog"),
+      regex("d\\.og", "\\$"),
+      new Case(Pattern.compile("DOG", Pattern.CASE_INSENSITIVE), "cat"),
+      exact("ca", "ab")).build();
+
+  private static final ImmutableList<String> FRAGMENTS = ImmutableList.of(
+      "<corresp id=\"cor1\">", "</corresp>", "<email>", "</email>", "a@b.org",
+      "<email xlink:type=\"simple\">", "E-mail:", "* E-mail:", "*", "To whom", " ",
+      "<sec>", "</sec>", "<list>", "<list list-type=\"bullet\">", "<list list-type=\"order\">", "</list>",
+      "<list-item>", "</list-item>", "<title>", "<body class=\"x\">", "</body>", "<", ">", "\"",
+      "X", "a", "b", "c", "t", "[", "d.og", "dOg", "\n");
+
+  @DataProvider
+  public Object[][] inputs() {
+    List<Object[]> inputs = new ArrayList<>();
+    inputs.add(new Object[]{""});
+    inputs.add(new Object[]{"<corresp id=\"cor1\">* E-mail: <email>a@b.org</email></corresp>"});
+    inputs.add(new Object[]{"<corresp id=\"cor1\">E-mail: <email xlink:type=\"simple\">a@b.org</email></corresp>"});
+    inputs.add(new Object[]{"aXb cXat XXX [Xab"});
+
+    Random random = new Random(0);
+    for (int i = 0; i < 500; i++) {
+      StringBuilder input = new StringBuilder();
+      int length = random.nextInt(20);
+      for (int j = 0; j < length; j++) {
+        input.append(FRAGMENTS.get(random.nextInt(FRAGMENTS.size())));
+      }
+      inputs.add(new Object[]{input.toString()});
+    }
+    return inputs.toArray(new Object[0][]);
+  }
+
+  static String replaceSequentially(List<Case> cases, String text) {
+    for (Case c : cases) {
+      text = c.target.matcher(text).replaceAll(c.replacement);
+    }
+    return text;
+  }
+
+  static StringReplacer build(List<Case> cases) {
+    StringReplacer.Builder builder = StringReplacer.builder();
+    for (Case c : cases) {
+      builder.replaceRegex(c.target, c.replacement);
+    }
+    return builder.build();
+  }
+
+  @Test(dataProvider = "inputs")
+  public void testMatchesSequentialReplacement(String input) {
+    assertEquals(build(CASES).replace(input), replaceSequentially(CASES, input));
+    assertEquals(build(CASES.reverse()).replace(input), replaceSequentially(CASES.reverse(), input));
+  }
+
+}